@@ -0,0 +1,55 @@
+package top.harrylei.community.api.enums.article;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 文章内容存储方式枚举
+ *
+ * @author harry
+ */
+@Getter
+@AllArgsConstructor
+public enum ContentStorageEnum {
+
+    /**
+     * 完整内容，尚未经过压缩整理
+     */
+    FULL(0, "完整内容"),
+
+    /**
+     * 关键帧，保留完整内容并作为增量的基准
+     */
+    KEYFRAME(1, "关键帧"),
+
+    /**
+     * 增量，内容为相对关键帧的压缩增量
+     */
+    DELTA(2, "增量");
+
+    @EnumValue
+    private final Integer code;
+
+    private final String label;
+
+    private static final Map<Integer, ContentStorageEnum> CODE_MAP =
+            Arrays.stream(values()).collect(Collectors.toMap(ContentStorageEnum::getCode, Function.identity()));
+
+    @JsonValue
+    public Integer getCode() {
+        return code;
+    }
+
+    @JsonCreator
+    public static ContentStorageEnum fromCode(Integer code) {
+        return code == null ? null : CODE_MAP.get(code);
+    }
+}
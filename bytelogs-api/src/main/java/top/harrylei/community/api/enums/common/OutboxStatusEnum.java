@@ -0,0 +1,59 @@
+package top.harrylei.community.api.enums.common;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 发件箱事件状态枚举
+ *
+ * @author harry
+ */
+@Getter
+@AllArgsConstructor
+public enum OutboxStatusEnum {
+
+    PENDING(0, "待发送"),
+    SENT(1, "已发送"),
+    FAILED(2, "发送失败"),
+    SENDING(3, "发送中");
+
+    // 编码（唯一标识）
+    @EnumValue
+    private final Integer code;
+
+    // 描述（用于展示）
+    private final String label;
+
+    // 根据编码快速定位枚举实例
+    private static final Map<Integer, OutboxStatusEnum> CODE_MAP =
+            Arrays.stream(values()).collect(Collectors.toMap(OutboxStatusEnum::getCode, Function.identity()));
+
+    /**
+     * 获取编码
+     *
+     * @return 编码
+     */
+    @JsonValue
+    public Integer getCode() {
+        return code;
+    }
+
+    /**
+     * 根据编码获取枚举对象
+     *
+     * @param code 编码
+     * @return 对应的枚举，若无匹配则返回 null
+     */
+    @JsonCreator
+    public static OutboxStatusEnum fromCode(Integer code) {
+        return code == null ? null : CODE_MAP.get(code);
+    }
+}
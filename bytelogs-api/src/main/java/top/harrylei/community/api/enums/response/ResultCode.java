@@ -21,6 +21,7 @@ public enum ResultCode {
     METHOD_NOT_ALLOWED(40005, "请求方法不支持"),
     RESOURCE_CONFLICT(40009, "资源已存在"),
     OPERATION_NOT_ALLOWED(40010, "操作不被允许"),
+    TOO_MANY_REQUESTS(40029, "请求过于频繁，请稍后再试"),
 
     // ========== 认证模块 41xxx ==========
     AUTH_PASSWORD_INVALID(41001, "密码格式不符合要求"),
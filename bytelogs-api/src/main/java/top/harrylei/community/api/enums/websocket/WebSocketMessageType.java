@@ -48,7 +48,12 @@ public enum WebSocketMessageType {
     /**
      * 错误消息
      */
-    ERROR(6, "错误消息");
+    ERROR(6, "错误消息"),
+
+    /**
+     * AI对话标题更新
+     */
+    AI_TITLE(7, "AI对话标题");
 
     // 编码（唯一标识）
     @EnumValue
@@ -0,0 +1,39 @@
+package top.harrylei.community.api.model.ai;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * AI对话标题生成事件，由Web层监听并推送给用户
+ *
+ * @author harry
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = true)
+public class ChatTitleEvent extends ApplicationEvent {
+
+    /**
+     * 对话所属用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 对话ID
+     */
+    private final Long conversationId;
+
+    /**
+     * 生成的标题
+     */
+    private final String title;
+
+    public ChatTitleEvent(Object source, Long userId, Long conversationId, String title) {
+        super(source);
+        this.userId = userId;
+        this.conversationId = conversationId;
+        this.title = title;
+    }
+}
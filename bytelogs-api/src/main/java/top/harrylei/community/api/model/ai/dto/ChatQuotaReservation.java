@@ -0,0 +1,45 @@
+package top.harrylei.community.api.model.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * AI使用配额预占凭证
+ * <p>
+ * 请求开始时预占消息数和估算token，完成后按实际用量结算，失败时释放
+ *
+ * @author harry
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatQuotaReservation {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 预占所属日期(yyyy-MM-dd)，跨天结算时仍记入预占当天
+     */
+    private String date;
+
+    /**
+     * 预占的消息数
+     */
+    private Integer messages;
+
+    /**
+     * 预占的估算token数
+     */
+    private Long estimatedTokens;
+
+    /**
+     * 是否已结算或释放，防止重复处理
+     */
+    private boolean finished;
+}
@@ -0,0 +1,44 @@
+package top.harrylei.community.api.model.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+
+/**
+ * AI响应缓存条目
+ *
+ * @author harry
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatResponseCacheEntry {
+
+    /**
+     * 归一化后的问题，用于近似匹配时计算相似度
+     */
+    private String prompt;
+
+    /**
+     * 生成回答的提供商
+     */
+    private ChatClientTypeEnum provider;
+
+    /**
+     * 生成回答的模型
+     */
+    private String model;
+
+    /**
+     * 回答内容
+     */
+    private String content;
+
+    /**
+     * 缓存时间戳（毫秒）
+     */
+    private Long createdAt;
+}
@@ -0,0 +1,45 @@
+package top.harrylei.community.api.model.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * AI调用的token用量
+ *
+ * @author harry
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatTokenUsage {
+
+    /**
+     * 提示词token数
+     */
+    private Long promptTokens;
+
+    /**
+     * 生成token数
+     */
+    private Long completionTokens;
+
+    /**
+     * 总token数
+     */
+    private Long totalTokens;
+
+    /**
+     * 是否为本地估算值（提供商未返回用量时）
+     */
+    private boolean estimated;
+
+    /**
+     * 不消耗token的用量（如缓存命中）
+     */
+    public static ChatTokenUsage zero() {
+        return new ChatTokenUsage(0L, 0L, 0L, false);
+    }
+}
@@ -0,0 +1,44 @@
+package top.harrylei.community.api.model.article.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文章版本对比结果缓存条目
+ *
+ * @author harry
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VersionDiffCacheEntry {
+
+    /**
+     * 标题差异（HTML格式）
+     */
+    private String titleDiff;
+
+    /**
+     * 内容差异（HTML格式）
+     */
+    private String contentDiff;
+
+    /**
+     * 摘要差异（HTML格式）
+     */
+    private String summaryDiff;
+
+    /**
+     * 三项差异的总字符数，用于缓存准入和容量计算
+     */
+    public long totalLength() {
+        return length(titleDiff) + length(contentDiff) + length(summaryDiff);
+    }
+
+    private static long length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -30,4 +30,9 @@ public class ArticleDetailVO {
      * 统计信息
      */
     private ArticleStatisticsVO statistics;
+
+    /**
+     * 渲染结果
+     */
+    private ArticleRenderVO render;
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package top.harrylei.community.api.model.article.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 文章渲染结果
+ *
+ * @author harry
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "文章渲染结果")
+public class ArticleRenderVO {
+
+    /**
+     * 渲染后的HTML
+     */
+    @Schema(description = "渲染后的HTML，原始HTML已转义")
+    private String html;
+
+    /**
+     * 目录
+     */
+    @Schema(description = "目录")
+    private List<ArticleTocVO> toc;
+
+    /**
+     * 纯文本摘要
+     */
+    @Schema(description = "正文开头的纯文本摘要")
+    private String summary;
+
+    /**
+     * 字数
+     */
+    @Schema(description = "字数，汉字按字计、其他文字按词计", example = "1200")
+    private Integer wordCount;
+
+    /**
+     * 预计阅读时长
+     */
+    @Schema(description = "预计阅读时长（分钟）", example = "4")
+    private Integer readingMinutes;
+}
@@ -0,0 +1,34 @@
+package top.harrylei.community.api.model.article.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 文章目录条目
+ *
+ * @author harry
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "文章目录条目")
+public class ArticleTocVO {
+
+    /**
+     * 标题级别
+     */
+    @Schema(description = "标题级别，1-6", example = "2")
+    private Integer level;
+
+    /**
+     * 锚点ID
+     */
+    @Schema(description = "锚点ID，与渲染结果中标题的id一致", example = "快速开始")
+    private String id;
+
+    /**
+     * 标题文本
+     */
+    @Schema(description = "标题文本", example = "快速开始")
+    private String text;
+}
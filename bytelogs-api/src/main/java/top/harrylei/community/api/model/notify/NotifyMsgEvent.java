@@ -17,6 +17,11 @@ public class NotifyMsgEvent<T> extends ApplicationEvent {
 
     private T content;
 
+    /**
+     * 接收通知的用户ID
+     */
+    private Long notifyUserId;
+
 
     public NotifyMsgEvent(Object source, NotifyTypeEnum notifyType, T content) {
         super(source);
@@ -24,5 +29,10 @@ public class NotifyMsgEvent<T> extends ApplicationEvent {
         this.content = content;
     }
 
+    public NotifyMsgEvent(Object source, NotifyTypeEnum notifyType, T content, Long notifyUserId) {
+        this(source, notifyType, content);
+        this.notifyUserId = notifyUserId;
+    }
+
 
 }
@@ -61,4 +61,8 @@ public class NotifyMsgDTO extends BaseDTO {
      */
     private NotifyMsgStateEnum state;
 
+    /**
+     * 聚合的操作用户数
+     */
+    private Integer actorCount;
 }
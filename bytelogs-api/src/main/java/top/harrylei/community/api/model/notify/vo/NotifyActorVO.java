@@ -0,0 +1,34 @@
+package top.harrylei.community.api.model.notify.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 通知操作用户展示对象
+ *
+ * @author harry
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "通知操作用户展示对象")
+public class NotifyActorVO {
+
+    /**
+     * 用户ID
+     */
+    @Schema(description = "用户ID", example = "789")
+    private Long userId;
+
+    /**
+     * 用户名
+     */
+    @Schema(description = "用户名", example = "张三")
+    private String userName;
+
+    /**
+     * 用户头像
+     */
+    @Schema(description = "用户头像", example = "https://cdn.bytelogs.com/avatar.jpg")
+    private String avatar;
+}
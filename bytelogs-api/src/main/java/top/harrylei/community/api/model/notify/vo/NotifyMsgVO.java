@@ -8,6 +8,8 @@ import top.harrylei.community.api.enums.notify.NotifyMsgStateEnum;
 import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
 import top.harrylei.community.api.enums.article.ContentTypeEnum;
 
+import java.util.List;
+
 /**
  * 通知消息展示对象
  *
@@ -71,4 +73,16 @@ public class NotifyMsgVO extends BaseVO {
      */
     @Schema(description = "阅读状态")
     private NotifyMsgStateEnum state;
-}
\ No newline at end of file
+
+    /**
+     * 聚合的操作用户数
+     */
+    @Schema(description = "聚合的操作用户数", example = "24")
+    private Integer actorCount;
+
+    /**
+     * 最近的操作用户
+     */
+    @Schema(description = "最近的操作用户，最新在前")
+    private List<NotifyActorVO> recentActors;
+}
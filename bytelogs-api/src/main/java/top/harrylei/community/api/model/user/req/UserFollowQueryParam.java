@@ -5,10 +5,10 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import top.harrylei.community.api.model.base.BasePage;
 
-import java.util.Map;
-
 /**
  * 用户关注查询参数
+ * <p>
+ * 列表固定按关注时间倒序，不支持自定义排序
  *
  * @author harry
  */
@@ -36,20 +36,8 @@ public class UserFollowQueryParam extends BasePage {
     private String userName;
 
     /**
-     * 字段映射关系
-     */
-    private static final Map<String, String> FIELD_MAPPING = Map.of(
-            "followTime", "follow_time",
-            "createTime", "follow_time",
-            "userName", "user_name",
-            "userId", "user_id"
-    );
-
-    /**
-     * 获取字段映射关系
+     * 分页游标，传入上一页最后一条记录的cursor时从其后继续查询，为空时按页码查询
      */
-    @Override
-    public Map<String, String> getFieldMapping() {
-        return FIELD_MAPPING;
-    }
-}
\ No newline at end of file
+    @Schema(description = "分页游标，取上一页最后一条记录的cursor，为空时按页码查询", example = "1024")
+    private Long cursor;
+}
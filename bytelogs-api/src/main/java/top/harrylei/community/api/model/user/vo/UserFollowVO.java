@@ -65,4 +65,10 @@ public class UserFollowVO {
     @Schema(description = "关注时间", example = "2023-04-01T12:00:00")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime followTime;
-}
\ No newline at end of file
+
+    /**
+     * 分页游标
+     */
+    @Schema(description = "分页游标，查询下一页时作为cursor传入", example = "1024")
+    private Long cursor;
+}
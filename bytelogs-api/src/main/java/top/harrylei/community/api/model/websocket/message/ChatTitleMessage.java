@@ -0,0 +1,31 @@
+package top.harrylei.community.api.model.websocket.message;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * AI对话标题更新消息数据
+ *
+ * @author harry
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "AI对话标题更新消息")
+public class ChatTitleMessage implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "会话ID", example = "123")
+    private Long conversationId;
+
+    @Schema(description = "对话标题", example = "Spring Boot 配置问题")
+    private String title;
+}
@@ -9,6 +9,7 @@ import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * 通知消息数据
@@ -45,6 +46,9 @@ public class NotificationMessage implements Serializable {
     @Schema(description = "未读通知总数", example = "5")
     private Long unreadCount;
 
+    @Schema(description = "按通知类型统计的未读数量（键为通知类型编码）", example = "{\"3\": 2, \"5\": 3}")
+    private Map<Integer, Long> unreadCountByType;
+
     @Schema(description = "跳转链接", example = "/article/123")
     private String linkUrl;
 
@@ -17,10 +17,14 @@ public class RedisKeyConstants {
     public static final String ACTIVITY = GLOBAL_PREFIX + "activity:";
     public static final String AI = GLOBAL_PREFIX + "ai:";
     public static final String ARTICLE = GLOBAL_PREFIX + "article:";
+    public static final String NOTIFY = GLOBAL_PREFIX + "notify:";
 
     // 功能分类
     public static final String USER_TOKEN = USER + "token:";
     public static final String USER_INFO = USER + "info:";
+    public static final String USER_FOLLOWING = USER + "following:";
+    public static final String USER_FOLLOWERS = USER + "followers:";
+    public static final String USER_LOGIN_FAILURE = USER + "login_failure:";
     public static final String DISTRIBUTED_LOCK = LOCK + "distributed:";
     public static final String DUPLICATE_LOCK = LOCK + "duplicate:";
     public static final String KAFKA_IDEMPOTENCY = KAFKA + "idempotency:";
@@ -30,7 +34,16 @@ public class RedisKeyConstants {
     public static final String AI_HOURLY_LIMIT = AI + "hourly_limit:";
     public static final String AI_DAILY_USAGE = AI + "daily_usage:";
     public static final String AI_CHAT_CONTEXT = AI + "chat_context:";
+    public static final String AI_RESPONSE_CACHE = AI + "response_cache:";
+    public static final String AI_USAGE_PENDING = AI + "usage_pending";
+    public static final String AI_USAGE_PROCESSING = AI + "usage_processing";
     public static final String ARTICLE_READ_COUNT_LOCK = ARTICLE + "read_count_lock:";
+    public static final String ARTICLE_VERSION_DIFF = ARTICLE + "version_diff:";
+    public static final String ARTICLE_RENDER = ARTICLE + "render:";
+    public static final String NOTIFY_UNREAD = NOTIFY + "unread:";
+    public static final String NOTIFY_UNREAD_DIRTY = NOTIFY + "unread_dirty";
+    public static final String RESOURCE_VERSION = GLOBAL_PREFIX + "resource_version:";
+    public static final String RATE_LIMIT = GLOBAL_PREFIX + "rate_limit:";
 
 
     /**
@@ -74,13 +87,16 @@ public class RedisKeyConstants {
     }
 
     /**
-     * 构建Kafka幂等性检查key
+     * 构建Kafka幂等性检查分桶key
+     * 同一时间桶的各个分片使用相同的hash tag，集群模式下落在同一个slot，可以在一个Lua脚本中批量处理
      *
-     * @param eventId 事件ID
-     * @return Kafka幂等性检查key
+     * @param topic  Topic
+     * @param bucket 时间桶序号
+     * @param shard  分片序号
+     * @return Kafka幂等性检查分桶key
      */
-    public static String getKafkaIdempotencyKey(String eventId) {
-        return KAFKA_IDEMPOTENCY + eventId;
+    public static String getKafkaIdempotencyKey(String topic, long bucket, int shard) {
+        return KAFKA_IDEMPOTENCY + "{" + topic + ":" + bucket + "}:" + shard;
     }
 
     /**
@@ -113,7 +129,7 @@ public class RedisKeyConstants {
     }
 
     /**
-     * 构建AI每日使用量缓存key
+     * 构建AI每日使用量计数key（Hash：messages、tokens、conversations）
      *
      * @param userId 用户ID
      * @param date   日期(yyyy-MM-dd格式)
@@ -123,6 +139,24 @@ public class RedisKeyConstants {
         return AI_DAILY_USAGE + userId + ":" + date;
     }
 
+    /**
+     * 构建AI使用量待落库队列key
+     *
+     * @return 待落库队列key
+     */
+    public static String getChatUsagePendingKey() {
+        return AI_USAGE_PENDING;
+    }
+
+    /**
+     * 构建AI使用量落库中队列key
+     *
+     * @return 落库中队列key
+     */
+    public static String getChatUsageProcessingKey() {
+        return AI_USAGE_PROCESSING;
+    }
+
     /**
      * 构建AI对话上下文缓存key
      *
@@ -133,6 +167,28 @@ public class RedisKeyConstants {
         return AI_CHAT_CONTEXT + conversationId;
     }
 
+    /**
+     * 构建AI响应缓存key
+     *
+     * @param promptHash 缓存范围与归一化问题的摘要
+     * @return AI响应缓存key
+     */
+    public static String getChatResponseCacheKey(String promptHash) {
+        return AI_RESPONSE_CACHE + "entry:" + promptHash;
+    }
+
+    /**
+     * 构建AI响应缓存的LSH分段索引key（Set：命中该分段的问题摘要）
+     *
+     * @param scope   缓存范围摘要
+     * @param band    分段序号
+     * @param bandKey 分段键
+     * @return LSH分段索引key
+     */
+    public static String getChatResponseBandKey(String scope, int band, String bandKey) {
+        return AI_RESPONSE_CACHE + "lsh:" + scope + ":" + band + ":" + bandKey;
+    }
+
     /**
      * 构建用户活跃度月排行榜key
      *
@@ -143,6 +199,27 @@ public class RedisKeyConstants {
         return ACTIVITY_RANK + "monthly:" + yearMonth;
     }
 
+    /**
+     * 构建排行榜分片key
+     *
+     * @param rankKey 排行榜key
+     * @param shard   分片序号
+     * @return 排行榜分片key
+     */
+    public static String getActivityRankShardKey(String rankKey, int shard) {
+        return rankKey + ":shard:" + shard;
+    }
+
+    /**
+     * 构建排行榜合并视图key，保存各分片合并后的前N名
+     *
+     * @param rankKey 排行榜key
+     * @return 排行榜合并视图key
+     */
+    public static String getActivityRankTopKey(String rankKey) {
+        return rankKey + ":top";
+    }
+
 
     /**
      * 构建用户每日活跃度Hash key
@@ -166,4 +243,98 @@ public class RedisKeyConstants {
     public static String getArticleReadCountLockKey(Long articleId, String identifier, String type) {
         return ARTICLE_READ_COUNT_LOCK + articleId + ":" + type + ":" + identifier;
     }
+
+    /**
+     * 构建文章版本对比结果缓存key
+     *
+     * @param articleId 文章ID
+     * @param version1  原版本号
+     * @param version2  目标版本号
+     * @param mode      对比模式（含输出格式版本）
+     * @return 版本对比结果缓存key
+     */
+    public static String getArticleVersionDiffKey(Long articleId, Integer version1, Integer version2, String mode) {
+        return ARTICLE_VERSION_DIFF + articleId + ":" + version1 + ":" + version2 + ":" + mode;
+    }
+
+    /**
+     * 构建文章渲染结果缓存key
+     *
+     * @param rendererVersion 渲染器版本，渲染规则变化时递增
+     * @param contentHash     正文内容哈希
+     * @return 文章渲染结果缓存key
+     */
+    public static String getArticleRenderKey(String rendererVersion, String contentHash) {
+        return ARTICLE_RENDER + rendererVersion + ":" + contentHash;
+    }
+
+    /**
+     * 构建资源版本号key
+     *
+     * @param resource 资源标识，如 article:1、category
+     * @return 资源版本号key
+     */
+    public static String getResourceVersionKey(String resource) {
+        return RESOURCE_VERSION + resource;
+    }
+
+    /**
+     * 构建用户未读通知计数Hash key
+     *
+     * @param userId 用户ID
+     * @return 未读通知计数Hash key（字段为通知类型编码）
+     */
+    public static String getNotifyUnreadKey(Long userId) {
+        return NOTIFY_UNREAD + userId;
+    }
+
+    /**
+     * 构建待校准未读计数的用户集合key
+     *
+     * @return 待校准用户集合key
+     */
+    public static String getNotifyUnreadDirtyKey() {
+        return NOTIFY_UNREAD_DIRTY;
+    }
+
+    /**
+     * 构建用户关注集合位图key
+     *
+     * @param userId 用户ID
+     * @return 用户关注的人组成的位图key
+     */
+    public static String getUserFollowingKey(Long userId) {
+        return USER_FOLLOWING + userId;
+    }
+
+    /**
+     * 构建用户粉丝集合位图key
+     *
+     * @param userId 用户ID
+     * @return 关注该用户的人组成的位图key
+     */
+    public static String getUserFollowersKey(Long userId) {
+        return USER_FOLLOWERS + userId;
+    }
+
+    /**
+     * 构建登录失败计数key
+     *
+     * @param username 规范化后的用户名
+     * @return 当前窗口内密码校验失败次数的key
+     */
+    public static String getUserLoginFailureKey(String username) {
+        return USER_LOGIN_FAILURE + username;
+    }
+
+    /**
+     * 构建限流状态key
+     *
+     * @param policy  限流策略名
+     * @param subject 限流对象，如 u:1、ip:127.0.0.1
+     * @return 保存GCRA理论到达时间的key
+     */
+    public static String getRateLimitKey(String policy, String subject) {
+        return RATE_LIMIT + policy + ":" + subject;
+    }
 }
@@ -39,6 +39,16 @@ public class AILimitConfig {
      */
     private Integer maxMessageLength = 4000;
 
+    /**
+     * 对话上下文的token预算（按估算值截取最近消息）
+     */
+    private Integer contextTokenBudget = 4000;
+
+    /**
+     * 对话上下文缓存的最大消息条数
+     */
+    private Integer contextMaxMessages = 50;
+
     /**
      * 是否启用使用量限制
      */
@@ -2,25 +2,38 @@ package top.harrylei.community.core.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.converter.ConversionException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
 import org.springframework.util.backoff.ExponentialBackOff;
 import top.harrylei.community.api.event.ActivityRankEvent;
 import top.harrylei.community.api.event.ArticleStatisticsEvent;
 import top.harrylei.community.api.event.NotificationEvent;
 import top.harrylei.community.core.common.constans.KafkaTopics;
 import top.harrylei.community.api.exception.NonRetryableException;
+import top.harrylei.community.core.kafka.BinaryEventDeserializer;
+import top.harrylei.community.core.kafka.BinaryEventSerializer;
+import top.harrylei.community.core.util.KafkaProducerRouter;
+import top.harrylei.community.core.util.MetricsUtil;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Kafka配置类
@@ -61,37 +74,151 @@ public class KafkaConfig {
     @Value("${kafka.retry.multiplier:2.0}")
     private Double retryMultiplier;
 
+    @Value("${kafka.producer.latency.linger-ms:5}")
+    private Integer latencyLingerMs;
+
+    @Value("${kafka.producer.latency.batch-size:16384}")
+    private Integer latencyBatchSize;
+
+    @Value("${kafka.producer.latency.compression-type:lz4}")
+    private String latencyCompressionType;
+
+    @Value("${kafka.producer.throughput.linger-ms:50}")
+    private Integer throughputLingerMs;
+
+    @Value("${kafka.producer.throughput.batch-size:262144}")
+    private Integer throughputBatchSize;
+
+    @Value("${kafka.producer.throughput.compression-type:zstd}")
+    private String throughputCompressionType;
+
+    @Value("${kafka.producer.throughput.max-block-ms:200}")
+    private Integer throughputMaxBlockMs;
+
+    @Value("${kafka.producer.throughput.binary-enabled:false}")
+    private Boolean throughputBinaryEnabled;
+
+    /**
+     * 低延迟生产者配置，用于通知等用户可感知的事件
+     * 小批次、短等待，acks=all 并开启幂等，重试不会产生重复或乱序
+     */
+    @Bean
+    public ProducerFactory<String, Object> latencyProducerFactory(KafkaProperties kafkaProperties,
+                                                                  MetricsUtil metricsUtil) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        props.put(ProducerConfig.LINGER_MS_CONFIG, latencyLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, latencyBatchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, latencyCompressionType);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return withMetrics(new DefaultKafkaProducerFactory<>(props), metricsUtil);
+    }
+
+    /**
+     * 高吞吐生产者配置，用于文章统计、活跃度等量大的事件
+     * 大批次、长等待并使用压缩率更高的算法；只等待leader确认，主从切换时可能丢失少量计数。
+     * 阅读事件在请求线程中直接发送，限制 max.block.ms，Broker不可用时快速失败而不是阻塞请求（默认60秒）。
+     * 文章统计、活跃度事件使用二进制编码，消费端同时兼容旧的JSON消息，滚动升级时先升级消费端再开启
+     */
+    @Bean
+    public ProducerFactory<String, Object> throughputProducerFactory(KafkaProperties kafkaProperties,
+                                                                     MetricsUtil metricsUtil) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        props.put(ProducerConfig.LINGER_MS_CONFIG, throughputLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, throughputBatchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, throughputCompressionType);
+        props.put(ProducerConfig.ACKS_CONFIG, "1");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, throughputMaxBlockMs);
+        if (Boolean.TRUE.equals(throughputBinaryEnabled)) {
+            return withMetrics(new DefaultKafkaProducerFactory<>(props, null, new BinaryEventSerializer()), metricsUtil);
+        }
+        return withMetrics(new DefaultKafkaProducerFactory<>(props), metricsUtil);
+    }
+
+    /**
+     * 为生产者工厂绑定客户端指标，输出批次大小、压缩率、发送延迟等指标
+     */
+    private static ProducerFactory<String, Object> withMetrics(DefaultKafkaProducerFactory<String, Object> factory,
+                                                               MetricsUtil metricsUtil) {
+        factory.addListener(new MicrometerProducerListener<>(metricsUtil.getMeterRegistry()));
+        return factory;
+    }
+
+    /**
+     * 低延迟生产者模板，作为默认的 KafkaTemplate
+     */
+    @Bean
+    @Primary
+    public KafkaTemplate<String, Object> latencyKafkaTemplate(
+            @Qualifier("latencyProducerFactory") ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * 高吞吐生产者模板
+     */
+    @Bean
+    public KafkaTemplate<String, Object> throughputKafkaTemplate(
+            @Qualifier("throughputProducerFactory") ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * 按Topic选择生产者，文章统计和活跃度事件走高吞吐生产者，其余走低延迟生产者
+     */
+    @Bean
+    public KafkaProducerRouter kafkaProducerRouter(
+            @Qualifier("latencyKafkaTemplate") KafkaTemplate<String, Object> latencyKafkaTemplate,
+            @Qualifier("throughputKafkaTemplate") KafkaTemplate<String, Object> throughputKafkaTemplate) {
+        return new KafkaProducerRouter(latencyKafkaTemplate, throughputKafkaTemplate,
+                Set.of(KafkaTopics.ARTICLE_STATISTICS_EVENTS, KafkaTopics.ACTIVITY_RANK_EVENTS));
+    }
+
     /**
      * 通知事件消费者配置
+     * 各消费者的反序列化器都包装为 ErrorHandlingDeserializer，无法解析的消息交给错误处理器跳过，而不是在拉取时反复失败
      */
     @Bean
-    public ConsumerFactory<String, NotificationEvent> notificationConsumerFactory(KafkaProperties kafkaProperties) {
+    public ConsumerFactory<String, NotificationEvent> notificationConsumerFactory(KafkaProperties kafkaProperties,
+                                                                                   MetricsUtil metricsUtil) {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties();
         // 覆盖消费者组ID
         props.put(ConsumerConfig.GROUP_ID_CONFIG, notificationGroupId);
-        return new DefaultKafkaConsumerFactory<>(props, null, new JsonDeserializer<>(NotificationEvent.class));
+        return withMetrics(new DefaultKafkaConsumerFactory<>(props, null, new ErrorHandlingDeserializer<>(new JsonDeserializer<>(NotificationEvent.class))), metricsUtil);
     }
 
     /**
      * 用户活跃度事件消费者配置
      */
     @Bean
-    public ConsumerFactory<String, ActivityRankEvent> activityRankConsumerFactory(KafkaProperties kafkaProperties) {
+    public ConsumerFactory<String, ActivityRankEvent> activityRankConsumerFactory(KafkaProperties kafkaProperties,
+                                                                                   MetricsUtil metricsUtil) {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties();
         // 覆盖消费者组ID
         props.put(ConsumerConfig.GROUP_ID_CONFIG, activityGroupId);
-        return new DefaultKafkaConsumerFactory<>(props, null, new JsonDeserializer<>(ActivityRankEvent.class));
+        return withMetrics(new DefaultKafkaConsumerFactory<>(props, null, new ErrorHandlingDeserializer<>(new BinaryEventDeserializer<>(ActivityRankEvent.class))), metricsUtil);
     }
 
     /**
      * 文章统计事件消费者配置
      */
     @Bean
-    public ConsumerFactory<String, ArticleStatisticsEvent> articleStatisticsConsumerFactory(KafkaProperties kafkaProperties) {
+    public ConsumerFactory<String, ArticleStatisticsEvent> articleStatisticsConsumerFactory(KafkaProperties kafkaProperties,
+                                                                                             MetricsUtil metricsUtil) {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties();
         // 覆盖消费者组ID
         props.put(ConsumerConfig.GROUP_ID_CONFIG, articleStatisticsGroupId);
-        return new DefaultKafkaConsumerFactory<>(props, null, new JsonDeserializer<>(ArticleStatisticsEvent.class));
+        return withMetrics(new DefaultKafkaConsumerFactory<>(props, null, new ErrorHandlingDeserializer<>(new BinaryEventDeserializer<>(ArticleStatisticsEvent.class))), metricsUtil);
+    }
+
+    /**
+     * 为消费者工厂绑定客户端指标，输出按Topic、分区统计的消费延迟（records-lag）等指标
+     */
+    private static <V> ConsumerFactory<String, V> withMetrics(DefaultKafkaConsumerFactory<String, V> factory,
+                                                              MetricsUtil metricsUtil) {
+        factory.addListener(new MicrometerConsumerListener<>(metricsUtil.getMeterRegistry()));
+        return factory;
     }
 
     /**
@@ -108,29 +235,28 @@ public class KafkaConfig {
 
         DefaultErrorHandler handler = new DefaultErrorHandler(backOff);
 
-        // 不重试的异常类型
-        handler.addNotRetryableExceptions(IllegalArgumentException.class, NonRetryableException.class);
+        // 不重试的异常类型：无法解析或校验失败的毒消息重试也不会成功，直接跳过
+        handler.addNotRetryableExceptions(IllegalArgumentException.class, NonRetryableException.class,
+                DeserializationException.class, MessageConversionException.class, ConversionException.class,
+                MethodArgumentNotValidException.class, ClassCastException.class);
 
         return handler;
     }
 
     /**
-     * 监听器容器工厂
+     * 通知事件批量监听器容器工厂
+     * 单次拉取的记录（max-poll-records）作为一个批次交给监听器，便于批量落库
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, NotificationEvent> notificationKafkaListenerContainerFactory(
+    public ConcurrentKafkaListenerContainerFactory<String, NotificationEvent> notificationBatchKafkaListenerContainerFactory(
             ConsumerFactory<String, NotificationEvent> notificationConsumerFactory,
             DefaultErrorHandler errorHandler) {
         ConcurrentKafkaListenerContainerFactory<String, NotificationEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
 
-        // 基础配置
         factory.setConsumerFactory(notificationConsumerFactory);
         factory.setCommonErrorHandler(errorHandler);
-
-        // 并发配置
         factory.setConcurrency(concurrency);
-
-        // 手动立即确认模式
+        factory.setBatchListener(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
 
         return factory;
@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.harrylei.community.core.interceptor.SqlMetricsInterceptor;
+import top.harrylei.community.core.util.MetricsUtil;
 
 /**
  * MyBatis-Plus配置类
@@ -26,4 +28,15 @@ public class MybatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 配置SQL耗时统计拦截器
+     *
+     * @param metricsUtil 指标工具
+     * @return SqlMetricsInterceptor
+     */
+    @Bean
+    public SqlMetricsInterceptor sqlMetricsInterceptor(MetricsUtil metricsUtil) {
+        return new SqlMetricsInterceptor(metricsUtil);
+    }
+}
@@ -0,0 +1,79 @@
+package top.harrylei.community.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 接口限流配置
+ * <p>
+ * 接口上的 {@code @RateLimit} 注解给出默认额度，这里可以按策略名整体开关、切换影子模式或覆盖额度，
+ * 不需要改代码重新发布。
+ *
+ * @author harry
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 是否启用限流
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 影子模式：只记录本应拒绝的请求，不真正拒绝
+     */
+    private Boolean shadow = false;
+
+    /**
+     * 是否启用本地令牌桶预检，关闭后每个请求都访问Redis
+     */
+    private Boolean localEnabled = true;
+
+    /**
+     * 按策略名覆盖的配置
+     */
+    private Map<String, Policy> policies = new HashMap<>();
+
+    /**
+     * 单个限流策略的覆盖配置，未设置的字段沿用注解上的值
+     */
+    @Data
+    public static class Policy {
+
+        /**
+         * 是否启用该策略
+         */
+        private Boolean enabled;
+
+        /**
+         * 该策略是否为影子模式
+         */
+        private Boolean shadow;
+
+        /**
+         * 每个周期允许的请求数
+         */
+        private Integer permits;
+
+        /**
+         * 周期长度（秒）
+         */
+        private Long periodSeconds;
+
+        /**
+         * 允许的突发请求数
+         */
+        private Integer burst;
+
+        /**
+         * 管理员额度倍数，0表示管理员不受限
+         */
+        private Integer adminMultiplier;
+    }
+}
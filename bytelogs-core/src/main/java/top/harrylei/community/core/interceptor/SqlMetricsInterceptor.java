@@ -0,0 +1,63 @@
+package top.harrylei.community.core.interceptor;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import top.harrylei.community.core.util.MetricsUtil;
+
+/**
+ * SQL耗时统计拦截器
+ * <p>
+ * 拦截 Executor 的查询和更新，按 Mapper简单类名.方法名 和语句类型记录耗时。
+ * 语句ID由代码决定，取值有限，不会造成标签膨胀。
+ *
+ * @author harry
+ */
+@RequiredArgsConstructor
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private final MetricsUtil metricsUtil;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            metricsUtil.recordSql(statementName(statement.getId()), statement.getSqlCommandType().name(),
+                    System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 去掉包名，只保留 Mapper简单类名.方法名；分页插件生成的统计语句带 _mpCount 后缀，同样保留
+     */
+    static String statementName(String statementId) {
+        int methodDot = statementId.lastIndexOf('.');
+        if (methodDot <= 0) {
+            return statementId;
+        }
+        int classDot = statementId.lastIndexOf('.', methodDot - 1);
+        return statementId.substring(classDot + 1);
+    }
+}
@@ -0,0 +1,275 @@
+package top.harrylei.community.core.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import top.harrylei.community.api.enums.article.ArticleStatisticsEnum;
+import top.harrylei.community.api.enums.rank.ActivityActionEnum;
+import top.harrylei.community.api.enums.rank.ActivityTargetEnum;
+import top.harrylei.community.api.event.ActivityRankEvent;
+import top.harrylei.community.api.event.ArticleStatisticsEvent;
+import top.harrylei.community.api.event.BaseEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 事件二进制编解码
+ * <p>
+ * 文章统计、活跃度事件量大且字段固定，按固定顺序写入字段值，不携带字段名和类型信息。
+ * 编码格式（第1版）：
+ * <pre>
+ * 0xB1            魔数，JSON 以 '{' 开头，据此区分二进制和旧的JSON消息
+ * version         格式版本，字段增减时递增，解码按版本读取
+ * type            事件类型：1-文章统计，2-活跃度
+ * presence        非空字段位图，低4位依次为 eventId、timestamp、source、extra，高4位为事件字段
+ * eventId         字符串：varint 长度 + UTF-8
+ * timestamp       zigzag varint，UTC秒数（JSON格式同样只精确到秒）
+ * source          字符串
+ * extra           字符串
+ * 文章统计事件：    articleId(varint)、userId(varint)、actionType(varint 编码)
+ * 活跃度事件：      userId(varint)、actionType(varint 编码)、targetType(varint 编码)、targetId(varint)
+ * </pre>
+ * 为空的字段只在位图中标记，不占用字节。
+ *
+ * @author harry
+ */
+public class BinaryEventCodec {
+
+    /**
+     * 魔数，不是合法JSON的首字节
+     */
+    static final byte MAGIC = (byte) 0xB1;
+
+    /**
+     * 当前编码版本
+     */
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_ARTICLE_STATISTICS = 1;
+    private static final byte TYPE_ACTIVITY_RANK = 2;
+
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * 私有构造函数，防止实例化
+     */
+    private BinaryEventCodec() {
+        throw new UnsupportedOperationException("工具类不允许实例化");
+    }
+
+    /**
+     * 是否支持二进制编码
+     *
+     * @param event 事件
+     * @return 文章统计、活跃度事件返回true
+     */
+    public static boolean supports(Object event) {
+        return event instanceof ArticleStatisticsEvent || event instanceof ActivityRankEvent;
+    }
+
+    /**
+     * 判断消息是否为二进制编码
+     *
+     * @param data 消息内容
+     * @return 以魔数开头时返回true
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC;
+    }
+
+    /**
+     * 编码事件
+     *
+     * @param event 文章统计或活跃度事件
+     * @return 二进制内容
+     */
+    public static byte[] encode(BaseEvent event) {
+        Writer writer = new Writer();
+        int presence = commonPresence(event);
+        byte type;
+        if (event instanceof ArticleStatisticsEvent statistics) {
+            type = TYPE_ARTICLE_STATISTICS;
+            presence |= presence(4, statistics.getArticleId())
+                    | presence(5, statistics.getUserId())
+                    | presence(6, statistics.getActionType());
+        } else if (event instanceof ActivityRankEvent activity) {
+            type = TYPE_ACTIVITY_RANK;
+            presence |= presence(4, activity.getUserId())
+                    | presence(5, activity.getActionType())
+                    | presence(6, activity.getTargetType())
+                    | presence(7, activity.getTargetId());
+        } else {
+            throw new SerializationException("不支持二进制编码的事件类型: " + event.getClass().getName());
+        }
+
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeByte(type);
+        writer.writeByte(presence);
+        writer.writeString(event.getEventId());
+        if (event.getTimestamp() != null) {
+            writer.writeLong(event.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        }
+        writer.writeString(event.getSource());
+        writer.writeString(event.getExtra());
+
+        if (event instanceof ArticleStatisticsEvent statistics) {
+            writer.writeLong(statistics.getArticleId());
+            writer.writeLong(statistics.getUserId());
+            writer.writeCode(statistics.getActionType() == null ? null : statistics.getActionType().getCode());
+        } else {
+            ActivityRankEvent activity = (ActivityRankEvent) event;
+            writer.writeLong(activity.getUserId());
+            writer.writeCode(activity.getActionType() == null ? null : activity.getActionType().getCode());
+            writer.writeCode(activity.getTargetType() == null ? null : activity.getTargetType().getCode());
+            writer.writeLong(activity.getTargetId());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 解码事件
+     *
+     * @param data 二进制内容
+     * @return 文章统计或活跃度事件
+     */
+    public static BaseEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("不是二进制编码的事件");
+        }
+        if (data[1] != VERSION) {
+            throw new SerializationException("不支持的事件编码版本: " + data[1]);
+        }
+
+        Reader reader = new Reader(data, data[3] & 0xFF);
+        String eventId = reader.readString(0);
+        Long timestamp = reader.readLong(1);
+        String source = reader.readString(2);
+        String extra = reader.readString(3);
+
+        BaseEvent event = switch (data[2]) {
+            case TYPE_ARTICLE_STATISTICS -> ArticleStatisticsEvent.builder()
+                    .articleId(reader.readLong(4))
+                    .userId(reader.readLong(5))
+                    .actionType(ArticleStatisticsEnum.fromCode(reader.readCode(6)))
+                    .build();
+            case TYPE_ACTIVITY_RANK -> ActivityRankEvent.builder()
+                    .userId(reader.readLong(4))
+                    .actionType(ActivityActionEnum.fromCode(reader.readCode(5)))
+                    .targetType(ActivityTargetEnum.fromCode(reader.readCode(6)))
+                    .targetId(reader.readLong(7))
+                    .build();
+            default -> throw new SerializationException("未知的事件类型: " + data[2]);
+        };
+        event.setEventId(eventId);
+        event.setTimestamp(timestamp == null ? null : LocalDateTime.ofEpochSecond(timestamp, 0, ZoneOffset.UTC));
+        event.setSource(source);
+        event.setExtra(extra);
+        return event;
+    }
+
+    private static int commonPresence(BaseEvent event) {
+        return presence(0, event.getEventId())
+                | presence(1, event.getTimestamp())
+                | presence(2, event.getSource())
+                | presence(3, event.getExtra());
+    }
+
+    private static int presence(int bit, Object value) {
+        return value == null ? 0 : 1 << bit;
+    }
+
+    /**
+     * 写缓冲，空值直接跳过，由位图标记
+     */
+    private static class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        void writeByte(int value) {
+            out.write(value);
+        }
+
+        void writeLong(Long value) {
+            if (value == null) {
+                return;
+            }
+            // zigzag 编码，小的正负数都只占少量字节
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        void writeCode(Integer code) {
+            writeLong(code == null ? null : code.longValue());
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeLong((long) bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 读游标，位图中未标记的字段返回null
+     */
+    private static class Reader {
+
+        private final byte[] data;
+        private final int presence;
+        private int position = HEADER_LENGTH;
+
+        Reader(byte[] data, int presence) {
+            this.data = data;
+            this.presence = presence;
+        }
+
+        Long readLong(int bit) {
+            if ((presence & (1 << bit)) == 0) {
+                return null;
+            }
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) {
+                    throw new SerializationException("事件内容不完整");
+                }
+                byte b = data[position++];
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw new SerializationException("事件内容格式错误");
+        }
+
+        Integer readCode(int bit) {
+            Long value = readLong(bit);
+            return value == null ? null : value.intValue();
+        }
+
+        String readString(int bit) {
+            Long length = readLong(bit);
+            if (length == null) {
+                return null;
+            }
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("事件内容不完整");
+            }
+            String value = new String(data, position, length.intValue(), StandardCharsets.UTF_8);
+            position += length.intValue();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package top.harrylei.community.core.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import top.harrylei.community.api.event.BaseEvent;
+
+import java.util.Map;
+
+/**
+ * 事件二进制反序列化器
+ * <p>
+ * 以魔数开头的消息按 {@link BinaryEventCodec} 解码，其他消息交给 JsonDeserializer，
+ * 升级期间新旧两种格式的消息可以在同一Topic中共存。
+ *
+ * @author harry
+ */
+public class BinaryEventDeserializer<T extends BaseEvent> implements Deserializer<T> {
+
+    private final Class<T> targetType;
+    private final JsonDeserializer<T> jsonDeserializer;
+
+    public BinaryEventDeserializer(Class<T> targetType) {
+        this.targetType = targetType;
+        this.jsonDeserializer = new JsonDeserializer<>(targetType);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BinaryEventCodec.isBinary(data)) {
+            BaseEvent event = BinaryEventCodec.decode(data);
+            if (!targetType.isInstance(event)) {
+                throw new SerializationException("事件类型不匹配: topic=" + topic + ", expected=" + targetType.getSimpleName()
+                        + ", actual=" + event.getClass().getSimpleName());
+            }
+            return targetType.cast(event);
+        }
+        return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,46 @@
+package top.harrylei.community.core.kafka;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import top.harrylei.community.api.event.BaseEvent;
+
+import java.util.Map;
+
+/**
+ * 事件二进制序列化器
+ * <p>
+ * 文章统计、活跃度事件按 {@link BinaryEventCodec} 编码，不写类型头；其他类型仍交给 JsonSerializer。
+ *
+ * @author harry
+ */
+public class BinaryEventSerializer implements Serializer<Object> {
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (BinaryEventCodec.supports(data)) {
+            return BinaryEventCodec.encode((BaseEvent) data);
+        }
+        return headers == null ? jsonSerializer.serialize(topic, data) : jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,36 @@
+package top.harrylei.community.core.outbox;
+
+import top.harrylei.community.api.event.BaseEvent;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 事件发件箱
+ * <p>
+ * 领域事件先写入发件箱表，与业务数据在同一事务中提交，再由中继任务异步投递到Kafka。
+ * 业务事务回滚时事件随之消失，Kafka不可用时也不会阻塞业务请求。
+ *
+ * @author harry
+ */
+public interface EventOutbox {
+
+    /**
+     * 写入一条待投递的事件，存在事务时加入当前事务
+     *
+     * @param topic 目标Topic
+     * @param key   消息Key，相同Key进入同一分区并保持顺序
+     * @param event 事件
+     */
+    void append(String topic, String key, BaseEvent event);
+
+    /**
+     * 批量写入待投递的事件，按多值INSERT分批写入，全部成功或随事务一起回滚
+     *
+     * @param topic     目标Topic
+     * @param events    事件列表
+     * @param keyMapper 消息Key提取函数
+     * @param <E>       事件类型
+     */
+    <E extends BaseEvent> void appendAll(String topic, List<E> events, Function<E, String> keyMapper);
+}
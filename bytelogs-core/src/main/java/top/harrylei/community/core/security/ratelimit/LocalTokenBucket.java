@@ -0,0 +1,51 @@
+package top.harrylei.community.core.security.ratelimit;
+
+/**
+ * 本地令牌桶
+ * <p>
+ * 容量为突发数，按额度匀速补充。被Redis拒绝的请求会退回令牌，本地桶只统计本实例上被放行的请求，
+ * 必然不多于集群内被放行的总数，所以本地桶拒绝的请求一定也会被Redis拒绝，可以直接拒绝而不访问Redis。
+ *
+ * @author harry
+ */
+class LocalTokenBucket {
+
+    private final double capacity;
+    private final double nanosPerToken;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    LocalTokenBucket(int burst, long intervalNanos, long nowNanos) {
+        this.capacity = burst;
+        this.nanosPerToken = intervalNanos;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试取一个令牌
+     *
+     * @param nowNanos 当前时间（纳秒）
+     * @return 0表示取到令牌，否则为距离下一个令牌的纳秒数
+     */
+    synchronized long tryConsume(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed / nanosPerToken);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * nanosPerToken);
+    }
+
+    /**
+     * 退回一个令牌，用于本地放行但最终被拒绝的请求
+     */
+    synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+}
@@ -0,0 +1,52 @@
+package top.harrylei.community.core.security.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流注解
+ * <p>
+ * 标注在Controller方法上，由限流拦截器在调用接口之前判定，超出额度时直接返回429，不进入业务逻辑。
+ * 额度按 {@link #periodSeconds()} 秒内 {@link #permits()} 次平均分配，最多允许 {@link #burst()} 次连续突发。
+ * 同名策略共享额度，可以通过 rate-limit.policies.&lt;policy&gt; 配置覆盖。
+ *
+ * @author harry
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 策略名，用于配置覆盖、Redis key和指标标签
+     */
+    String policy();
+
+    /**
+     * 限流对象的维度
+     */
+    RateLimitKey key() default RateLimitKey.USER;
+
+    /**
+     * 每个周期允许的请求数
+     */
+    int permits();
+
+    /**
+     * 周期长度（秒）
+     */
+    long periodSeconds() default 60;
+
+    /**
+     * 允许的突发请求数，0表示与 {@link #permits()} 相同
+     */
+    int burst() default 0;
+
+    /**
+     * 管理员额度倍数，0表示管理员不受限
+     */
+    int adminMultiplier() default 1;
+}
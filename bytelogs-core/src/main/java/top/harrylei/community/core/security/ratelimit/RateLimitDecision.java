@@ -0,0 +1,17 @@
+package top.harrylei.community.core.security.ratelimit;
+
+/**
+ * 限流判定结果
+ *
+ * @param allowed      是否放行
+ * @param retryAfterMs 被拒绝时距离下次可请求的毫秒数，放行时为0
+ * @author harry
+ */
+public record RateLimitDecision(boolean allowed, long retryAfterMs) {
+
+    public static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 0);
+
+    public static RateLimitDecision rejected(long retryAfterMs) {
+        return new RateLimitDecision(false, Math.max(retryAfterMs, 1));
+    }
+}
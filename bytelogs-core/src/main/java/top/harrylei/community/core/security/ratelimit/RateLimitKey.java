@@ -0,0 +1,19 @@
+package top.harrylei.community.core.security.ratelimit;
+
+/**
+ * 限流对象的维度
+ *
+ * @author harry
+ */
+public enum RateLimitKey {
+
+    /**
+     * 按登录用户限流，未登录时按客户端IP
+     */
+    USER,
+
+    /**
+     * 按客户端IP限流
+     */
+    IP
+}
@@ -0,0 +1,229 @@
+package top.harrylei.community.core.security.ratelimit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.config.RateLimitConfig;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 接口限流器
+ * <p>
+ * 两级判定：先用本地令牌桶过滤本实例上的突发请求，被本地拒绝的请求不再访问Redis；
+ * 本地放行后再由Redis中的GCRA（通用信元速率算法）做集群范围的判定，被Redis拒绝时退回本地令牌。
+ * GCRA每个限流对象只保存一个理论到达时间，判定和更新在一个Lua脚本中完成，时间取Redis服务器时间，不受实例时钟偏差影响。
+ * <p>
+ * Redis不可用时放行（fail open），限流不应成为可用性的单点；影子模式下只记录本应拒绝的请求。
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    /**
+     * 指标结果：放行
+     */
+    public static final String OUTCOME_ALLOWED = "allowed";
+
+    /**
+     * 指标结果：被本地令牌桶拒绝
+     */
+    public static final String OUTCOME_REJECTED_LOCAL = "rejected_local";
+
+    /**
+     * 指标结果：被Redis GCRA拒绝
+     */
+    public static final String OUTCOME_REJECTED_REDIS = "rejected_redis";
+
+    /**
+     * 指标结果：影子模式下本应拒绝
+     */
+    public static final String OUTCOME_SHADOW_REJECTED = "shadow_rejected";
+
+    /**
+     * 指标结果：管理员不受限
+     */
+    public static final String OUTCOME_EXEMPT = "exempt";
+
+    /**
+     * 指标结果：Redis不可用时放行
+     */
+    public static final String OUTCOME_FAIL_OPEN = "fail_open";
+
+    /**
+     * GCRA判定脚本
+     * <p>
+     * KEYS[1] 理论到达时间（TAT）的key；ARGV[1] 两次请求的平均间隔（毫秒），ARGV[2] 允许的提前量（毫秒）。
+     * 返回0表示放行并推进TAT，否则返回还需等待的毫秒数。key在TAT到达后自然过期。
+     */
+    private static final String GCRA_SCRIPT = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local interval = tonumber(ARGV[1])
+            local tolerance = tonumber(ARGV[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]))
+            if not tat or tat < now then
+                tat = now
+            end
+            local allowAt = tat - tolerance
+            if now < allowAt then
+                return allowAt - now
+            end
+            local newTat = tat + interval
+            redis.call('SET', KEYS[1], newTat, 'PX', newTat - now)
+            return 0
+            """;
+
+    /**
+     * 本地令牌桶的最大数量
+     */
+    private static final long LOCAL_MAX_BUCKETS = 100_000;
+
+    /**
+     * 本地令牌桶闲置后的回收时间
+     */
+    private static final Duration LOCAL_IDLE_TTL = Duration.ofMinutes(10);
+
+    private final RedisUtil redisUtil;
+    private final MetricsUtil metricsUtil;
+    private final RateLimitConfig rateLimitConfig;
+    private final LongSupplier nanoTicker;
+
+    private final Cache<String, LocalTokenBucket> localBuckets = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_MAX_BUCKETS)
+            .expireAfterAccess(LOCAL_IDLE_TTL)
+            .build();
+
+    @Autowired
+    public RateLimiter(RedisUtil redisUtil, MetricsUtil metricsUtil, RateLimitConfig rateLimitConfig) {
+        this(redisUtil, metricsUtil, rateLimitConfig, System::nanoTime);
+    }
+
+    RateLimiter(RedisUtil redisUtil, MetricsUtil metricsUtil, RateLimitConfig rateLimitConfig,
+                LongSupplier nanoTicker) {
+        this.redisUtil = redisUtil;
+        this.metricsUtil = metricsUtil;
+        this.rateLimitConfig = rateLimitConfig;
+        this.nanoTicker = nanoTicker;
+    }
+
+    /**
+     * 判定一次请求是否放行
+     *
+     * @param rateLimit 接口上的限流注解
+     * @param subject   限流对象，如 u:1、ip:127.0.0.1
+     * @param admin     请求者是否为管理员
+     * @return 判定结果
+     */
+    public RateLimitDecision acquire(RateLimit rateLimit, String subject, boolean admin) {
+        return acquire(rateLimit.policy(), subject, rateLimit.permits(), rateLimit.periodSeconds(), rateLimit.burst(),
+                       rateLimit.adminMultiplier(), admin);
+    }
+
+    /**
+     * 按给定的默认额度判定一次请求，供业务代码在接口之外按其他维度限流，如按登录用户名
+     *
+     * @param policy        限流策略名，可以在配置中按策略名覆盖额度
+     * @param subject       限流对象
+     * @param permits       每个周期允许的请求数
+     * @param periodSeconds 周期长度（秒）
+     * @param burst         允许的突发请求数
+     * @return 判定结果
+     */
+    public RateLimitDecision acquire(String policy, String subject, int permits, long periodSeconds, int burst) {
+        return acquire(policy, subject, permits, periodSeconds, burst, 1, false);
+    }
+
+    private RateLimitDecision acquire(String policy, String subject, int defaultPermits, long defaultPeriodSeconds,
+                                      int defaultBurst, int defaultAdminMultiplier, boolean admin) {
+        RateLimitConfig.Policy override = rateLimitConfig.getPolicies().get(policy);
+        if (!Boolean.TRUE.equals(rateLimitConfig.getEnabled())
+                || (override != null && Boolean.FALSE.equals(override.getEnabled()))) {
+            return RateLimitDecision.ALLOWED;
+        }
+
+        int permits = override != null && override.getPermits() != null ? override.getPermits() : defaultPermits;
+        long periodSeconds = override != null && override.getPeriodSeconds() != null
+                ? override.getPeriodSeconds() : defaultPeriodSeconds;
+        int burst = override != null && override.getBurst() != null ? override.getBurst() : defaultBurst;
+        boolean shadow = Boolean.TRUE.equals(rateLimitConfig.getShadow())
+                || (override != null && Boolean.TRUE.equals(override.getShadow()));
+
+        if (admin) {
+            int adminMultiplier = override != null && override.getAdminMultiplier() != null
+                    ? override.getAdminMultiplier() : defaultAdminMultiplier;
+            if (adminMultiplier <= 0) {
+                metricsUtil.recordRateLimit(policy, OUTCOME_EXEMPT);
+                return RateLimitDecision.ALLOWED;
+            }
+            permits *= adminMultiplier;
+            burst *= adminMultiplier;
+        }
+        if (permits <= 0 || periodSeconds <= 0) {
+            return RateLimitDecision.ALLOWED;
+        }
+        if (burst <= 0) {
+            burst = permits;
+        }
+        long intervalMs = Math.max(1, TimeUnit.SECONDS.toMillis(periodSeconds) / permits);
+
+        LocalTokenBucket bucket = null;
+        if (Boolean.TRUE.equals(rateLimitConfig.getLocalEnabled())) {
+            bucket = localBucket(policy, subject, burst, intervalMs);
+            long waitNanos = bucket.tryConsume(nanoTicker.getAsLong());
+            if (waitNanos > 0) {
+                return reject(policy, subject, OUTCOME_REJECTED_LOCAL, TimeUnit.NANOSECONDS.toMillis(waitNanos), shadow);
+            }
+        }
+
+        Long waitMs = redisUtil.evalForLong(GCRA_SCRIPT,
+                List.of(RedisKeyConstants.getRateLimitKey(policy, subject)), intervalMs, intervalMs * (burst - 1));
+        if (waitMs == null) {
+            metricsUtil.recordRateLimit(policy, OUTCOME_FAIL_OPEN);
+            return RateLimitDecision.ALLOWED;
+        }
+        if (waitMs > 0) {
+            // 请求最终被拒绝，退回本地令牌，保证本地桶只统计被放行的请求
+            if (bucket != null && !shadow) {
+                bucket.refund();
+            }
+            return reject(policy, subject, OUTCOME_REJECTED_REDIS, waitMs, shadow);
+        }
+        metricsUtil.recordRateLimit(policy, OUTCOME_ALLOWED);
+        return RateLimitDecision.ALLOWED;
+    }
+
+    private RateLimitDecision reject(String policy, String subject, String outcome, long retryAfterMs, boolean shadow) {
+        if (shadow) {
+            log.info("限流影子模式，本应拒绝 policy={}, subject={}, stage={}", policy, subject, outcome);
+            metricsUtil.recordRateLimit(policy, OUTCOME_SHADOW_REJECTED);
+            return RateLimitDecision.ALLOWED;
+        }
+        metricsUtil.recordRateLimit(policy, outcome);
+        return RateLimitDecision.rejected(retryAfterMs);
+    }
+
+    /**
+     * 额度参数变化后使用新的令牌桶，旧桶闲置后回收
+     */
+    private LocalTokenBucket localBucket(String policy, String subject, int burst, long intervalMs) {
+        String key = policy + ":" + burst + ":" + intervalMs + ":" + subject;
+        try {
+            return localBuckets.get(key, () ->
+                    new LocalTokenBucket(burst, TimeUnit.MILLISECONDS.toNanos(intervalMs), nanoTicker.getAsLong()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package top.harrylei.community.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 二进制增量编码工具类
+ * <p>
+ * 以基准内容按固定大小分块建立哈希索引，目标内容用滚动哈希逐字节查找相同的块并向两侧扩展，
+ * 编码为复制（基准偏移、长度）和插入（原始字节）两种指令，最后整体用 Deflate 压缩。
+ * 增量格式：1字节格式版本 + Deflate(目标长度, 指令...)，长度和偏移均为无符号变长整数。
+ *
+ * @author harry
+ */
+public class DeltaUtil {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int OP_COPY = 1;
+    private static final int OP_INSERT = 2;
+
+    // 分块大小，过小时索引和指令开销变大，过大时短小的修改之间难以匹配
+    private static final int BLOCK_SIZE = 16;
+
+    // 多项式滚动哈希的乘数
+    private static final long PRIME = 1099511628211L;
+
+    private static final long PRIME_POW;
+
+    static {
+        long pow = 1;
+        for (int i = 0; i < BLOCK_SIZE - 1; i++) {
+            pow *= PRIME;
+        }
+        PRIME_POW = pow;
+    }
+
+    /**
+     * 计算目标内容相对基准内容的增量
+     *
+     * @param base   基准内容
+     * @param target 目标内容
+     * @return 压缩后的增量
+     */
+    public static byte[] encode(byte[] base, byte[] target) {
+        Map<Long, Integer> index = new HashMap<>(Math.max(16, base.length / BLOCK_SIZE * 2));
+        for (int i = 0; i + BLOCK_SIZE <= base.length; i += BLOCK_SIZE) {
+            index.putIfAbsent(hash(base, i), i);
+        }
+
+        ByteArrayOutputStream ops = new ByteArrayOutputStream(Math.max(32, target.length / 8));
+        writeVarInt(ops, target.length);
+
+        // 尚未输出的插入区间起点
+        int pending = 0;
+        int pos = 0;
+        long hash = target.length >= BLOCK_SIZE ? hash(target, 0) : 0;
+        while (pos + BLOCK_SIZE <= target.length) {
+            Integer candidate = index.get(hash);
+            if (candidate != null && Arrays.equals(base, candidate, candidate + BLOCK_SIZE, target, pos, pos + BLOCK_SIZE)) {
+                int baseStart = candidate;
+                int targetStart = pos;
+                while (baseStart > 0 && targetStart > pending && base[baseStart - 1] == target[targetStart - 1]) {
+                    baseStart--;
+                    targetStart--;
+                }
+                int baseEnd = candidate + BLOCK_SIZE;
+                int targetEnd = pos + BLOCK_SIZE;
+                while (baseEnd < base.length && targetEnd < target.length && base[baseEnd] == target[targetEnd]) {
+                    baseEnd++;
+                    targetEnd++;
+                }
+
+                writeInsert(ops, target, pending, targetStart);
+                ops.write(OP_COPY);
+                writeVarInt(ops, baseStart);
+                writeVarInt(ops, baseEnd - baseStart);
+
+                pending = targetEnd;
+                pos = targetEnd;
+                if (pos + BLOCK_SIZE <= target.length) {
+                    hash = hash(target, pos);
+                }
+                continue;
+            }
+
+            if (pos + BLOCK_SIZE < target.length) {
+                hash = (hash - (target[pos] & 0xFF) * PRIME_POW) * PRIME + (target[pos + BLOCK_SIZE] & 0xFF);
+            }
+            pos++;
+        }
+        writeInsert(ops, target, pending, target.length);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(ops.toByteArray());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(ops.size() / 2 + 16);
+            out.write(FORMAT_VERSION);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 按增量还原目标内容
+     *
+     * @param base  基准内容
+     * @param delta {@link #encode} 生成的增量
+     * @return 目标内容
+     * @throws IllegalArgumentException 增量格式错误或与基准内容不匹配
+     */
+    public static byte[] decode(byte[] base, byte[] delta) {
+        if (delta == null || delta.length == 0 || delta[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的增量格式");
+        }
+
+        byte[] ops = inflate(delta);
+        int[] cursor = {0};
+        int length = readVarInt(ops, cursor);
+        byte[] target = new byte[length];
+        int written = 0;
+        while (cursor[0] < ops.length) {
+            int op = ops[cursor[0]++];
+            if (op == OP_COPY) {
+                int offset = readVarInt(ops, cursor);
+                int size = readVarInt(ops, cursor);
+                if (offset < 0 || size < 0 || offset + size > base.length || written + size > length) {
+                    throw new IllegalArgumentException("增量与基准内容不匹配");
+                }
+                System.arraycopy(base, offset, target, written, size);
+                written += size;
+            } else if (op == OP_INSERT) {
+                int size = readVarInt(ops, cursor);
+                if (size < 0 || cursor[0] + size > ops.length || written + size > length) {
+                    throw new IllegalArgumentException("增量数据已损坏");
+                }
+                System.arraycopy(ops, cursor[0], target, written, size);
+                cursor[0] += size;
+                written += size;
+            } else {
+                throw new IllegalArgumentException("未知的增量指令: " + op);
+            }
+        }
+
+        if (written != length) {
+            throw new IllegalArgumentException("增量数据不完整");
+        }
+        return target;
+    }
+
+    private static long hash(byte[] data, int offset) {
+        long hash = 0;
+        for (int i = offset; i < offset + BLOCK_SIZE; i++) {
+            hash = hash * PRIME + (data[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private static void writeInsert(ByteArrayOutputStream ops, byte[] target, int from, int to) {
+        if (from < to) {
+            ops.write(OP_INSERT);
+            writeVarInt(ops, to - from);
+            ops.write(target, from, to - from);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] cursor) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (cursor[0] >= data.length) {
+                throw new IllegalArgumentException("增量数据已损坏");
+            }
+            byte b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("增量数据已损坏");
+    }
+
+    private static byte[] inflate(byte[] delta) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(delta, 1, delta.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(delta.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("增量数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("增量数据已损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package top.harrylei.community.core.util;
 
-import java.util.*;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * 文本差异对比工具类
+ * <p>
+ * 长文本按行对比，短的单行文本按词对比。对比前把每个行或词映射为整数编号并裁掉公共前后缀；
+ * 较大的区域先按直方图算法（histogram diff）取出现次数最少的公共片段作为锚点切分，
+ * 其余区域使用线性空间的 Myers O(ND) 算法（中间蛇分治）求最短编辑脚本。
+ * Myers 搜索的总步数有上限，超出后剩余区域直接整体标记为删除和插入，结果仍可还原两侧文本，只是不再最短。
+ * 差异结果以HTML直接写入 {@link Appendable}，不构建差异列表和中间字符串。
  *
  * @author harry
  */
@@ -14,11 +22,22 @@ public class DiffUtil {
     private static final String DELETE_PREFIX = "<span class='diff-delete'>";
     private static final String SPAN_SUFFIX = "</span>";
 
-    // 文本长度限制，避免性能问题
-    private static final int MAX_DIFF_LENGTH = 50000;
+    private static final String TOO_LONG_MESSAGE = "文本过长，无法进行详细对比。建议下载版本文件进行本地对比。";
 
-    // 分行正则，兼容不同操作系统的换行符
-    private static final Pattern LINE_PATTERN = Pattern.compile("\\r?\\n");
+    // 文本长度限制，对比的内存占用与文本长度线性相关
+    private static final int MAX_DIFF_LENGTH = 500000;
+
+    // Myers 搜索扫描对角线的总次数上限，约束差异很大的长文本在最坏情况下的耗时
+    private static final long MAX_EDIT_COST = 10_000_000L;
+
+    // 按词对比的文本长度上限
+    private static final int MAX_INLINE_LENGTH = 200;
+
+    // 区域内行数或词数之和超过该值时先按直方图切分
+    private static final int HISTOGRAM_THRESHOLD = 1024;
+
+    // 直方图锚点允许的最大出现次数，超过则视为高频内容（空行、分隔符等）不作为锚点
+    private static final int MAX_CHAIN_LENGTH = 64;
 
     /**
      * 对比两个文本，返回HTML格式的差异
@@ -32,6 +51,31 @@ public class DiffUtil {
             return text2;
         }
 
+        StringBuilder html = new StringBuilder();
+        try {
+            diff(text1, text2, html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return html.toString();
+    }
+
+    /**
+     * 对比两个文本，将HTML格式的差异写入输出
+     *
+     * @param text1 原始文本
+     * @param text2 修改后的文本
+     * @param out   输出目标，如果没有差异写入原文本
+     * @throws IOException 写入输出失败
+     */
+    public static void diff(String text1, String text2, Appendable out) throws IOException {
+        if (Objects.equals(text1, text2)) {
+            if (text2 != null) {
+                out.append(text2);
+            }
+            return;
+        }
+
         if (text1 == null) {
             text1 = "";
         }
@@ -41,243 +85,539 @@ public class DiffUtil {
 
         // 性能保护：文本过长时返回提示信息
         if (text1.length() > MAX_DIFF_LENGTH || text2.length() > MAX_DIFF_LENGTH) {
-            return "文本过长，无法进行详细对比。建议下载版本文件进行本地对比。";
+            out.append(TOO_LONG_MESSAGE);
+            return;
         }
 
-        // 简单文本（无换行）使用字符级对比
-        if (!text1.contains("\n") && !text2.contains("\n") && text1.length() < 200 && text2.length() < 200) {
-            return diffInline(text1, text2);
-        }
+        // 简单文本（无换行）使用词级对比，复杂文本使用行级对比
+        boolean inline = text1.indexOf('\n') < 0 && text2.indexOf('\n') < 0
+                && text1.length() < MAX_INLINE_LENGTH && text2.length() < MAX_INLINE_LENGTH;
+        Tokens tokens1 = inline ? Tokens.words(text1) : Tokens.lines(text1);
+        Tokens tokens2 = inline ? Tokens.words(text2) : Tokens.lines(text2);
 
-        // 复杂文本使用行级对比
-        return diffLines(text1, text2);
+        HtmlWriter writer = new HtmlWriter(out, tokens1, tokens2, !inline);
+        int[][] ids = intern(tokens1, tokens2);
+        new Engine(ids[0], ids[1], ids[2][0], writer).run();
+        writer.flush();
     }
 
     /**
-     * 行级差异对比（适用于长文本）
+     * 编辑脚本的接收者，按文本顺序接收相同、删除和插入的片段
      */
-    private static String diffLines(String text1, String text2) {
-        String[] lines1 = LINE_PATTERN.split(text1);
-        String[] lines2 = LINE_PATTERN.split(text2);
+    private interface EditSink {
 
-        List<DiffLine> diffResult = computeLineDiff(lines1, lines2);
+        void equal(int index1, int index2, int length) throws IOException;
 
-        return buildHtmlFromLineDiff(diffResult);
+        void delete(int index1, int length) throws IOException;
+
+        void insert(int index2, int length) throws IOException;
     }
 
     /**
-     * 字符级差异对比（适用于短文本）
+     * 分词结果，记录每个行或词在原文中的起止位置
      */
-    private static String diffInline(String text1, String text2) {
-        if (text1.isEmpty()) {
-            return INSERT_PREFIX + escapeHtml(text2) + SPAN_SUFFIX;
-        }
-        if (text2.isEmpty()) {
-            return DELETE_PREFIX + escapeHtml(text1) + SPAN_SUFFIX;
+    private static final class Tokens {
+
+        private final String text;
+        private int[] starts;
+        private int[] ends;
+        private int size;
+
+        private Tokens(String text, int capacity) {
+            this.text = text;
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
         }
 
-        // 使用LCS算法计算最长公共子序列
-        return computeInlineDiff(text1, text2);
-    }
+        /**
+         * 按行切分，兼容不同操作系统的换行符，忽略末尾的空行
+         */
+        static Tokens lines(String text) {
+            int count = 1;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    count++;
+                }
+            }
 
-    /**
-     * 计算行级差异
-     */
-    private static List<DiffLine> computeLineDiff(String[] lines1, String[] lines2) {
-        int m = lines1.length;
-        int n = lines2.length;
-
-        // 使用动态规划计算LCS
-        int[][] dp = new int[m + 1][n + 1];
-
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                if (lines1[i].equals(lines2[j])) {
-                    dp[i + 1][j + 1] = dp[i][j] + 1;
-                } else {
-                    dp[i + 1][j + 1] = Math.max(dp[i][j + 1], dp[i + 1][j]);
+            Tokens tokens = new Tokens(text, count);
+            int start = 0;
+            for (int i = 0; i <= text.length(); i++) {
+                if (i == text.length() || text.charAt(i) == '\n') {
+                    int end = i > start && text.charAt(i - 1) == '\r' && i < text.length() ? i - 1 : i;
+                    tokens.add(start, end);
+                    start = i + 1;
                 }
             }
+            while (tokens.size > 0 && tokens.length(tokens.size - 1) == 0) {
+                tokens.size--;
+            }
+            return tokens;
         }
 
-        // 回溯构建差异结果
-        LinkedList<DiffLine> result = new LinkedList<>();
-        int i = m, j = n;
-
-        while (i > 0 || j > 0) {
-            if (i > 0 && j > 0 && lines1[i - 1].equals(lines2[j - 1])) {
-                result.addFirst(new DiffLine(DiffType.EQUAL, lines1[i - 1]));
-                i--;
-                j--;
-            } else if (j > 0 && (i == 0 || dp[i][j - 1] >= dp[i - 1][j])) {
-                result.addFirst(new DiffLine(DiffType.INSERT, lines2[j - 1]));
-                j--;
-            } else {
-                result.addFirst(new DiffLine(DiffType.DELETE, lines1[i - 1]));
-                i--;
+        /**
+         * 按词切分：连续的字母数字、连续的空白各为一个词，汉字和其他符号各自成词
+         */
+        static Tokens words(String text) {
+            Tokens tokens = new Tokens(text, text.length());
+            int i = 0;
+            while (i < text.length()) {
+                int codePoint = text.codePointAt(i);
+                int type = wordType(codePoint);
+                int j = i + Character.charCount(codePoint);
+                if (type != 0) {
+                    while (j < text.length()) {
+                        int next = text.codePointAt(j);
+                        if (wordType(next) != type) {
+                            break;
+                        }
+                        j += Character.charCount(next);
+                    }
+                }
+                tokens.add(i, j);
+                i = j;
+            }
+            return tokens;
+        }
+
+        /**
+         * 词的类型：1 字母数字，2 空白，0 单独成词
+         */
+        private static int wordType(int codePoint) {
+            if (Character.isWhitespace(codePoint)) {
+                return 2;
+            }
+            if (Character.isLetterOrDigit(codePoint) && !Character.isIdeographic(codePoint)) {
+                return 1;
+            }
+            return 0;
+        }
+
+        private void add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2 + 1);
+                ends = Arrays.copyOf(ends, size * 2 + 1);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        int length(int index) {
+            return ends[index] - starts[index];
+        }
+
+        int hash(int index) {
+            int hash = 0;
+            for (int i = starts[index]; i < ends[index]; i++) {
+                hash = 31 * hash + text.charAt(i);
             }
+            return hash ^ (hash >>> 16);
         }
 
-        return result;
+        boolean matches(int index, Tokens other, int otherIndex) {
+            int length = length(index);
+            return length == other.length(otherIndex)
+                    && text.regionMatches(starts[index], other.text, other.starts[otherIndex], length);
+        }
     }
 
     /**
-     * 计算字符级差异
+     * 将两侧的行或词映射为整数编号，相同内容编号相同
+     *
+     * @return 第一侧编号、第二侧编号、{不同内容的数量}
      */
-    private static String computeInlineDiff(String text1, String text2) {
-        char[] chars1 = text1.toCharArray();
-        char[] chars2 = text2.toCharArray();
-
-        int m = chars1.length;
-        int n = chars2.length;
-
-        // 简化版LCS for字符
-        int[][] dp = new int[m + 1][n + 1];
-
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                if (chars1[i] == chars2[j]) {
-                    dp[i + 1][j + 1] = dp[i][j] + 1;
-                } else {
-                    dp[i + 1][j + 1] = Math.max(dp[i][j + 1], dp[i + 1][j]);
+    private static int[][] intern(Tokens tokens1, Tokens tokens2) {
+        int capacity = 16;
+        while (capacity < (tokens1.size + tokens2.size) * 2) {
+            capacity <<= 1;
+        }
+        int mask = capacity - 1;
+
+        // 开放寻址表，槽位记录编号、哈希和代表元素（第一侧为正数下标+1，第二侧为负数）
+        int[] slotIds = new int[capacity];
+        int[] slotHashes = new int[capacity];
+        int[] slotRefs = new int[capacity];
+        Arrays.fill(slotIds, -1);
+
+        int[][] ids = {new int[tokens1.size], new int[tokens2.size], new int[1]};
+        int nextId = 0;
+        for (int side = 0; side < 2; side++) {
+            Tokens tokens = side == 0 ? tokens1 : tokens2;
+            for (int i = 0; i < tokens.size; i++) {
+                int hash = tokens.hash(i);
+                int slot = hash & mask;
+                while (slotIds[slot] != -1) {
+                    int ref = slotRefs[slot];
+                    boolean same = slotHashes[slot] == hash && (ref > 0
+                            ? tokens1.matches(ref - 1, tokens, i)
+                            : tokens2.matches(-ref - 1, tokens, i));
+                    if (same) {
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                if (slotIds[slot] == -1) {
+                    slotIds[slot] = nextId++;
+                    slotHashes[slot] = hash;
+                    slotRefs[slot] = side == 0 ? i + 1 : -(i + 1);
                 }
+                ids[side][i] = slotIds[slot];
             }
         }
+        ids[2][0] = nextId;
+        return ids;
+    }
+
+    /**
+     * 差异计算，按文本顺序把编辑脚本写入接收者
+     */
+    private static final class Engine {
+
+        private final int[] a;
+        private final int[] b;
+        private final int idCount;
+        private final EditSink sink;
+
+        // 直方图：区域内每个编号的出现次数、最后出现的位置，以及同编号的上一个位置
+        private int[] counts;
+        private int[] heads;
+        private int[] nexts;
+
+        // Myers 前向和反向的 V 数组，按最大区域分配后复用
+        private int[] forward;
+        private int[] backward;
+
+        // 剩余的 Myers 搜索步数，所有区域共用
+        private long budget = MAX_EDIT_COST;
+
+        Engine(int[] a, int[] b, int idCount, EditSink sink) {
+            this.a = a;
+            this.b = b;
+            this.idCount = idCount;
+            this.sink = sink;
+        }
 
-        // 构建结果
-        int i = m, j = n;
+        void run() throws IOException {
+            diff(0, a.length, 0, b.length, true);
+        }
 
-        LinkedList<DiffChar> diffs = new LinkedList<>();
+        private void diff(int aLo, int aHi, int bLo, int bHi, boolean histogram) throws IOException {
+            // 裁掉公共前缀
+            int prefix = 0;
+            while (aLo + prefix < aHi && bLo + prefix < bHi && a[aLo + prefix] == b[bLo + prefix]) {
+                prefix++;
+            }
+            if (prefix > 0) {
+                sink.equal(aLo, bLo, prefix);
+                aLo += prefix;
+                bLo += prefix;
+            }
+
+            // 裁掉公共后缀
+            int suffix = 0;
+            while (aLo < aHi - suffix && bLo < bHi - suffix && a[aHi - 1 - suffix] == b[bHi - 1 - suffix]) {
+                suffix++;
+            }
+            aHi -= suffix;
+            bHi -= suffix;
 
-        while (i > 0 || j > 0) {
-            if (i > 0 && j > 0 && chars1[i - 1] == chars2[j - 1]) {
-                diffs.addFirst(new DiffChar(DiffType.EQUAL, chars1[i - 1]));
-                i--;
-                j--;
-            } else if (j > 0 && (i == 0 || dp[i][j - 1] >= dp[i - 1][j])) {
-                diffs.addFirst(new DiffChar(DiffType.INSERT, chars2[j - 1]));
-                j--;
+            if (aLo == aHi) {
+                if (bLo < bHi) {
+                    sink.insert(bLo, bHi - bLo);
+                }
+            } else if (bLo == bHi) {
+                sink.delete(aLo, aHi - aLo);
+            } else if (histogram && (aHi - aLo) + (bHi - bLo) > HISTOGRAM_THRESHOLD) {
+                histogram(aLo, aHi, bLo, bHi);
             } else {
-                diffs.addFirst(new DiffChar(DiffType.DELETE, chars1[i - 1]));
-                i--;
+                bisect(aLo, aHi, bLo, bHi);
+            }
+
+            if (suffix > 0) {
+                sink.equal(aHi, bHi, suffix);
             }
         }
 
-        // 合并连续的同类型操作
-        return buildHtmlFromCharDiff(diffs);
-    }
+        /**
+         * 直方图切分：取出现次数最少的公共片段作为锚点，次数相同时取最长、再取最靠近区域中部的片段，
+         * 锚点两侧分别递归。没有低频公共片段时交给 Myers 算法，完全没有公共内容时直接整体替换。
+         */
+        private void histogram(int aLo, int aHi, int bLo, int bHi) throws IOException {
+            if (counts == null) {
+                counts = new int[idCount];
+                heads = new int[idCount];
+                nexts = new int[a.length];
+                Arrays.fill(heads, -1);
+            }
+            for (int i = aHi - 1; i >= aLo; i--) {
+                int id = a[i];
+                counts[id]++;
+                nexts[i] = heads[id];
+                heads[id] = i;
+            }
 
-    /**
-     * 从行差异构建HTML
-     */
-    private static String buildHtmlFromLineDiff(List<DiffLine> diffs) {
-        StringBuilder html = new StringBuilder();
+            boolean common = false;
+            int bestCount = MAX_CHAIN_LENGTH;
+            int bestLength = 0;
+            int bestA = -1;
+            int bestB = -1;
+            long bestDistance = Long.MAX_VALUE;
+            int j = bLo;
+            while (j < bHi) {
+                int count = counts[b[j]];
+                int nextJ = j + 1;
+                if (count > 0) {
+                    common = true;
+                }
+                if (count > 0 && count <= bestCount) {
+                    for (int i = heads[b[j]]; i != -1; i = nexts[i]) {
+                        int aStart = i;
+                        int bStart = j;
+                        while (aStart > aLo && bStart > bLo && a[aStart - 1] == b[bStart - 1]) {
+                            aStart--;
+                            bStart--;
+                        }
+                        int aEnd = i + 1;
+                        int bEnd = j + 1;
+                        while (aEnd < aHi && bEnd < bHi && a[aEnd] == b[bEnd]) {
+                            aEnd++;
+                            bEnd++;
+                        }
+
+                        int length = aEnd - aStart;
+                        long distance = Math.abs((long) aStart + aEnd - aLo - aHi) + Math.abs((long) bStart + bEnd - bLo - bHi);
+                        if (count < bestCount || length > bestLength || (length == bestLength && distance < bestDistance)) {
+                            bestCount = count;
+                            bestLength = length;
+                            bestA = aStart;
+                            bestB = bStart;
+                            bestDistance = distance;
+                        }
+                        // 同一片段内的其他位置会扩展出相同的片段，直接跳过
+                        nextJ = Math.max(nextJ, bEnd);
+                    }
+                }
+                j = nextJ;
+            }
 
-        for (DiffLine diff : diffs) {
-            switch (diff.type) {
-                case EQUAL:
-                    html.append(escapeHtml(diff.content)).append("\n");
-                    break;
-                case INSERT:
-                    html.append(INSERT_PREFIX)
-                            .append(escapeHtml(diff.content))
-                            .append(SPAN_SUFFIX)
-                            .append("\n");
-                    break;
-                case DELETE:
-                    html.append(DELETE_PREFIX)
-                            .append(escapeHtml(diff.content))
-                            .append(SPAN_SUFFIX)
-                            .append("\n");
-                    break;
+            for (int i = aLo; i < aHi; i++) {
+                counts[a[i]] = 0;
+                heads[a[i]] = -1;
+            }
+
+            if (bestLength > 0) {
+                diff(aLo, bestA, bLo, bestB, true);
+                sink.equal(bestA, bestB, bestLength);
+                diff(bestA + bestLength, aHi, bestB + bestLength, bHi, true);
+            } else if (common) {
+                bisect(aLo, aHi, bLo, bHi);
+            } else {
+                sink.delete(aLo, aHi - aLo);
+                sink.insert(bLo, bHi - bLo);
             }
         }
 
-        return html.toString().trim();
-    }
+        /**
+         * Myers 中间蛇：前向和反向同时搜索 D-path，在重叠处把区域一分为二后递归，只占用线性空间。
+         * 搜索步数用尽时不再细分，整个区域标记为删除和插入。
+         */
+        private void bisect(int aLo, int aHi, int bLo, int bHi) throws IOException {
+            int n = aHi - aLo;
+            int m = bHi - bLo;
+            int maxD = (n + m + 1) / 2;
+            int vOffset = maxD;
+            int vLength = 2 * maxD + 2;
+            if (forward == null || forward.length < vLength) {
+                forward = new int[vLength];
+                backward = new int[vLength];
+            }
+            int[] v1 = forward;
+            int[] v2 = backward;
+            Arrays.fill(v1, 0, vLength, -1);
+            Arrays.fill(v2, 0, vLength, -1);
+            v1[vOffset + 1] = 0;
+            v2[vOffset + 1] = 0;
+
+            int delta = n - m;
+            // 差值为奇数时前向路径与反向路径的重叠在前向搜索中检测
+            boolean front = (delta & 1) != 0;
+            int k1Start = 0;
+            int k1End = 0;
+            int k2Start = 0;
+            int k2End = 0;
+            for (int d = 0; d < maxD; d++) {
+                budget -= 2L * d + 2;
+                if (budget < 0) {
+                    break;
+                }
+                for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+                    int k1Offset = vOffset + k1;
+                    int x1 = k1 == -d || (k1 != d && v1[k1Offset - 1] < v1[k1Offset + 1])
+                            ? v1[k1Offset + 1]
+                            : v1[k1Offset - 1] + 1;
+                    int y1 = x1 - k1;
+                    while (x1 < n && y1 < m && a[aLo + x1] == b[bLo + y1]) {
+                        x1++;
+                        y1++;
+                    }
+                    v1[k1Offset] = x1;
+                    if (x1 > n) {
+                        k1End += 2;
+                    } else if (y1 > m) {
+                        k1Start += 2;
+                    } else if (front) {
+                        int k2Offset = vOffset + delta - k1;
+                        if (k2Offset >= 0 && k2Offset < vLength && v2[k2Offset] != -1 && x1 >= n - v2[k2Offset]) {
+                            split(aLo, aHi, bLo, bHi, x1, y1);
+                            return;
+                        }
+                    }
+                }
 
-    /**
-     * 从字符差异构建HTML
-     */
-    private static String buildHtmlFromCharDiff(List<DiffChar> diffs) {
-        StringBuilder html = new StringBuilder();
-        StringBuilder currentSegment = new StringBuilder();
-        DiffType currentType = null;
-
-        for (DiffChar diff : diffs) {
-            if (currentType != diff.type) {
-                // 输出当前段落
-                if (currentType != null) {
-                    appendSegment(html, currentSegment.toString(), currentType);
-                    currentSegment.setLength(0);
+                for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+                    int k2Offset = vOffset + k2;
+                    int x2 = k2 == -d || (k2 != d && v2[k2Offset - 1] < v2[k2Offset + 1])
+                            ? v2[k2Offset + 1]
+                            : v2[k2Offset - 1] + 1;
+                    int y2 = x2 - k2;
+                    while (x2 < n && y2 < m && a[aHi - 1 - x2] == b[bHi - 1 - y2]) {
+                        x2++;
+                        y2++;
+                    }
+                    v2[k2Offset] = x2;
+                    if (x2 > n) {
+                        k2End += 2;
+                    } else if (y2 > m) {
+                        k2Start += 2;
+                    } else if (!front) {
+                        int k1Offset = vOffset + delta - k2;
+                        if (k1Offset >= 0 && k1Offset < vLength && v1[k1Offset] != -1) {
+                            int x1 = v1[k1Offset];
+                            int y1 = vOffset + x1 - k1Offset;
+                            if (x1 >= n - x2) {
+                                split(aLo, aHi, bLo, bHi, x1, y1);
+                                return;
+                            }
+                        }
+                    }
                 }
-                currentType = diff.type;
             }
-            currentSegment.append(diff.character);
-        }
 
-        // 输出最后一个段落
-        if (currentType != null) {
-            appendSegment(html, currentSegment.toString(), currentType);
+            // 没有任何公共内容或搜索步数用尽
+            sink.delete(aLo, n);
+            sink.insert(bLo, m);
         }
 
-        return html.toString();
+        private void split(int aLo, int aHi, int bLo, int bHi, int x, int y) throws IOException {
+            diff(aLo, aLo + x, bLo, bLo + y, false);
+            diff(aLo + x, aHi, bLo + y, bHi, false);
+        }
     }
 
     /**
-     * 添加段落到HTML
+     * 将编辑脚本写为HTML，相邻的删除和插入先输出删除再输出插入
      */
-    private static void appendSegment(StringBuilder html, String content, DiffType type) {
-        switch (type) {
-            case EQUAL:
-                html.append(escapeHtml(content));
-                break;
-            case INSERT:
-                html.append(INSERT_PREFIX)
-                        .append(escapeHtml(content))
-                        .append(SPAN_SUFFIX);
-                break;
-            case DELETE:
-                html.append(DELETE_PREFIX)
-                        .append(escapeHtml(content))
-                        .append(SPAN_SUFFIX);
-                break;
+    private static final class HtmlWriter implements EditSink {
+
+        private final Appendable out;
+        private final Tokens tokens1;
+        private final Tokens tokens2;
+        private final boolean lines;
+
+        private boolean firstLine = true;
+        private int deleteStart = -1;
+        private int deleteEnd;
+        private int insertStart = -1;
+        private int insertEnd;
+
+        HtmlWriter(Appendable out, Tokens tokens1, Tokens tokens2, boolean lines) {
+            this.out = out;
+            this.tokens1 = tokens1;
+            this.tokens2 = tokens2;
+            this.lines = lines;
         }
-    }
 
-    /**
-     * HTML转义
-     */
-    private static String escapeHtml(String text) {
-        if (text == null) {
-            return "";
+        @Override
+        public void equal(int index1, int index2, int length) throws IOException {
+            flush();
+            write(null, tokens2, index2, index2 + length);
         }
-        return text
-                .replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#x27;");
-    }
 
-    /**
-     * 差异类型枚举
-     */
-    private enum DiffType {
-        EQUAL,
-        INSERT,
-        DELETE
-    }
+        @Override
+        public void delete(int index1, int length) throws IOException {
+            if (deleteStart < 0) {
+                deleteStart = index1;
+            }
+            deleteEnd = index1 + length;
+        }
 
-    /**
-     * 行差异数据结构
-     */
-    private record DiffLine(DiffType type, String content) {
+        @Override
+        public void insert(int index2, int length) throws IOException {
+            if (insertStart < 0) {
+                insertStart = index2;
+            }
+            insertEnd = index2 + length;
+        }
+
+        void flush() throws IOException {
+            if (deleteStart >= 0) {
+                write(DELETE_PREFIX, tokens1, deleteStart, deleteEnd);
+                deleteStart = -1;
+            }
+            if (insertStart >= 0) {
+                write(INSERT_PREFIX, tokens2, insertStart, insertEnd);
+                insertStart = -1;
+            }
+        }
+
+        /**
+         * 输出一段行或词：行级对比每行单独包裹并以换行分隔，词级对比整段包裹
+         */
+        private void write(String prefix, Tokens tokens, int from, int to) throws IOException {
+            if (!lines) {
+                writeSpan(prefix, tokens.text, tokens.starts[from], tokens.ends[to - 1]);
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (!firstLine) {
+                    out.append('\n');
+                }
+                firstLine = false;
+                writeSpan(prefix, tokens.text, tokens.starts[i], tokens.ends[i]);
+            }
+        }
+
+        private void writeSpan(String prefix, String text, int start, int end) throws IOException {
+            if (prefix != null) {
+                out.append(prefix);
+            }
+            escapeHtml(out, text, start, end);
+            if (prefix != null) {
+                out.append(SPAN_SUFFIX);
+            }
+        }
     }
 
     /**
-     * 字符差异数据结构
+     * HTML转义，未转义的连续字符整段写入
      */
-    private record DiffChar(DiffType type, char character) {
+    private static void escapeHtml(Appendable out, String text, int start, int end) throws IOException {
+        int run = start;
+        for (int i = start; i < end; i++) {
+            String entity = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#x27;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(text, run, i).append(entity);
+                run = i + 1;
+            }
+        }
+        out.append(text, run, end);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package top.harrylei.community.core.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 事件ID工具类
+ * <p>
+ * 生成 ULID 格式的事件ID：48位毫秒时间戳 + 80位随机数，按 Crockford Base32 编码为26个字符。
+ * 相比 UUID.randomUUID() 不依赖 SecureRandom，字符串更短，并且按生成时间有序，便于排查时按ID定位时间段。
+ * 同一毫秒内在上一个ID的随机部分上递增，保证单实例内严格单调。
+ *
+ * @author harry
+ */
+public class EventIdUtil {
+
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int ID_LENGTH = 26;
+
+    private static final int TIMESTAMP_LENGTH = 10;
+
+    private static final long RANDOM_HIGH_MASK = 0xFFFFL;
+
+    private static long lastMillis = -1L;
+    private static long randomHigh;
+    private static long randomLow;
+
+    /**
+     * 私有构造函数，防止实例化
+     */
+    private EventIdUtil() {
+        throw new UnsupportedOperationException("工具类不允许实例化");
+    }
+
+    /**
+     * 生成下一个事件ID
+     *
+     * @return 26位事件ID
+     */
+    public static String nextId() {
+        long millis;
+        long high;
+        long low;
+        synchronized (EventIdUtil.class) {
+            millis = System.currentTimeMillis();
+            if (millis > lastMillis) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                randomHigh = random.nextLong() & RANDOM_HIGH_MASK;
+                randomLow = random.nextLong();
+                lastMillis = millis;
+            } else {
+                // 同一毫秒或时钟回拨：沿用上一个时间戳，随机部分加一
+                millis = lastMillis;
+                if (++randomLow == 0) {
+                    randomHigh = (randomHigh + 1) & RANDOM_HIGH_MASK;
+                }
+            }
+            high = (millis << 16) | randomHigh;
+            low = randomLow;
+        }
+        return encode(high, low);
+    }
+
+    /**
+     * 解析事件ID中的时间戳
+     *
+     * @param eventId 事件ID
+     * @return 毫秒时间戳，非ULID格式时返回null
+     */
+    public static Long timestamp(String eventId) {
+        if (eventId == null || eventId.length() != ID_LENGTH) {
+            return null;
+        }
+        long millis = 0;
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            int value = decode(eventId.charAt(i));
+            if (value < 0) {
+                return null;
+            }
+            millis = (millis << 5) | value;
+        }
+        return millis;
+    }
+
+    /**
+     * 把128位数值按5位一组从低位开始编码，首字符只包含最高的3位
+     */
+    private static String encode(long high, long low) {
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ENCODING[(int) (low & 0x1F)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < ENCODING.length; i++) {
+            if (ENCODING[i] == Character.toUpperCase(c)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -2,8 +2,6 @@ package top.harrylei.community.core.util;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 import top.harrylei.community.api.enums.article.ArticleStatisticsEnum;
 import top.harrylei.community.api.enums.article.ContentTypeEnum;
@@ -16,13 +14,23 @@ import top.harrylei.community.api.event.BaseEvent;
 import top.harrylei.community.api.event.NotificationEvent;
 import top.harrylei.community.core.common.constans.KafkaTopics;
 import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.outbox.EventOutbox;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * Kafka 事件发布器
+ * <p>
+ * 事件写入发件箱，与业务数据在同一事务中提交，由发件箱中继异步投递到Kafka。
+ * 消息Key按消费端的处理粒度选取：通知按接收用户、活跃度按用户、文章统计按文章，同一Key的事件进入同一分区，
+ * 消费端按批次聚合时命中的数据更集中。
+ * <p>
+ * 文章阅读事件量最大且只用于计数，不走发件箱，直接异步发送到Kafka：少计几次阅读可以接受，
+ * 但每次阅读都多一次MySQL插入和一次状态更新不值得。
  *
  * @author harry
  */
@@ -31,31 +39,67 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class KafkaEventPublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventOutbox eventOutbox;
+    private final KafkaProducerRouter kafkaProducerRouter;
 
     /**
-     * 通用Kafka事件发送
+     * 通用事件发布：写入发件箱，写入失败时抛出异常使业务事务一并回滚
      */
-    private void sendEventToKafka(String topic, BaseEvent event, String eventType) {
-        if (event.getEventId() == null) {
-            event.setEventId(UUID.randomUUID().toString());
-        }
-        if (event.getTimestamp() == null) {
-            event.setTimestamp(LocalDateTime.now());
+    private void appendToOutbox(String topic, Object key, BaseEvent event, String eventType) {
+        fillDefaults(event);
+
+        eventOutbox.append(topic, messageKey(key, event), event);
+        log.debug("{}事件已写入发件箱: eventId={}", eventType, event.getEventId());
+    }
+
+    /**
+     * 批量事件发布：一次写入整批事件，全部成功或随业务事务一起回滚
+     */
+    private <E extends BaseEvent> int appendAllToOutbox(String topic, List<E> events,
+                                                        Function<E, Object> keyMapper, String eventType) {
+        if (events.isEmpty()) {
+            return 0;
         }
+        events.forEach(this::fillDefaults);
+
+        eventOutbox.appendAll(topic, events, event -> messageKey(keyMapper.apply(event), event));
+        log.debug("{}事件已批量写入发件箱: count={}", eventType, events.size());
+        return events.size();
+    }
+
+    /**
+     * 直接异步发送，不保证送达，发送失败只记录日志
+     */
+    private void sendDirectly(String topic, Object key, BaseEvent event, String eventType) {
+        fillDefaults(event);
 
         try {
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, event.getEventId(), event);
-            future.whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("{}事件发送失败: eventId={}, event={}", eventType, event.getEventId(), event, ex);
-                }
-            });
+            kafkaProducerRouter.route(topic).send(topic, messageKey(key, event), event)
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            log.warn("{}事件发送失败: eventId={}, error={}", eventType, event.getEventId(), e.getMessage());
+                        }
+                    });
         } catch (Exception e) {
-            log.error("发送{}事件异常: event={}", eventType, event, e);
+            log.warn("{}事件发送失败: eventId={}, error={}", eventType, event.getEventId(), e.getMessage());
+        }
+    }
+
+    private void fillDefaults(BaseEvent event) {
+        if (event.getEventId() == null) {
+            event.setEventId(EventIdUtil.nextId());
+        }
+        if (event.getTimestamp() == null) {
+            event.setTimestamp(LocalDateTime.now());
         }
     }
 
+    /**
+     * 优先使用业务Key，缺失时退回事件ID，消息均匀分散到各分区
+     */
+    private static String messageKey(Object key, BaseEvent event) {
+        return key != null ? key.toString() : event.getEventId();
+    }
 
     /**
      * 便捷方法：发布用户行为通知事件
@@ -95,7 +139,39 @@ public class KafkaEventPublisher {
                 .source("user-behavior")
                 .build();
 
-        sendEventToKafka(KafkaTopics.NOTIFICATION_EVENTS, event, "通知");
+        appendToOutbox(KafkaTopics.NOTIFICATION_EVENTS, targetUserId, event, "通知");
+    }
+
+    /**
+     * 批量发布用户行为通知事件，用于关注者扇出等一对多通知，整批一次写入发件箱
+     *
+     * @param operateUserId 操作用户ID
+     * @param targetUserIds 目标用户ID集合（接收通知的用户）
+     * @param relatedId     关联内容ID
+     * @param contentType   内容类型
+     * @param notifyType    通知类型
+     * @return 写入的事件数
+     */
+    public int publishUserBehaviorEvents(Long operateUserId, Collection<Long> targetUserIds,
+                                         Long relatedId, ContentTypeEnum contentType,
+                                         NotifyTypeEnum notifyType) {
+        if (targetUserIds == null || targetUserIds.isEmpty()) {
+            return 0;
+        }
+
+        List<NotificationEvent> events = new ArrayList<>(targetUserIds.size());
+        for (Long targetUserId : targetUserIds) {
+            events.add(NotificationEvent.builder()
+                    .operateUserId(operateUserId)
+                    .targetUserId(targetUserId)
+                    .relatedId(relatedId)
+                    .notifyType(notifyType)
+                    .contentType(contentType)
+                    .source("user-behavior")
+                    .build());
+        }
+
+        return appendAllToOutbox(KafkaTopics.NOTIFICATION_EVENTS, events, NotificationEvent::getTargetUserId, "通知");
     }
 
     /**
@@ -136,49 +212,47 @@ public class KafkaEventPublisher {
                 .source("activity-rank")
                 .build();
 
-        sendEventToKafka(KafkaTopics.ACTIVITY_RANK_EVENTS, event, "活跃度");
+        appendToOutbox(KafkaTopics.ACTIVITY_RANK_EVENTS, userId, event, "活跃度");
     }
 
 
     /**
      * 发布文章统计事件
+     * <p>
+     * 阅读事件直接发送，失败不影响阅读；点赞、收藏、评论等事件写入发件箱，写入失败时抛出异常，由调用方决定是否回滚
      *
      * @param articleId  文章ID
      * @param actionType 统计操作类型
      */
     public void publishArticleStatisticsEvent(Long articleId, ArticleStatisticsEnum actionType) {
-        try {
-            // 从上下文获取用户信息
-            Long userId = null;
-            String extra = null;
-
-            ReqInfoContext.ReqInfo context = ReqInfoContext.getContext();
-
-            if (context.isLoggedIn()) {
-                userId = context.getUserId();
-                if (actionType == ArticleStatisticsEnum.INCREMENT_READ) {
-                    extra = "user:" + userId;
-                }
-            } else if (actionType == ArticleStatisticsEnum.INCREMENT_READ) {
-                // 未登录用户的阅读统计，使用IP地址
-                extra = "ip:" + context.getClientIp();
-            }
+        // 从上下文获取用户信息
+        Long userId = null;
+        String extra = null;
 
-            ArticleStatisticsEvent event = ArticleStatisticsEvent.builder()
-                    .articleId(articleId)
-                    .userId(userId)
-                    .actionType(actionType)
-                    .extra(extra)
-                    .source("article-statistics")
-                    .build();
+        ReqInfoContext.ReqInfo context = ReqInfoContext.getContext();
 
-            sendEventToKafka(KafkaTopics.ARTICLE_STATISTICS_EVENTS, event, "文章统计");
+        if (context.isLoggedIn()) {
+            userId = context.getUserId();
+            if (actionType == ArticleStatisticsEnum.INCREMENT_READ) {
+                extra = "user:" + userId;
+            }
+        } else if (actionType == ArticleStatisticsEnum.INCREMENT_READ) {
+            // 未登录用户的阅读统计，使用IP地址
+            extra = "ip:" + context.getClientIp();
+        }
 
-            log.debug("发布文章统计事件成功: articleId={}, actionType={}", articleId, actionType.getLabel());
+        ArticleStatisticsEvent event = ArticleStatisticsEvent.builder()
+                .articleId(articleId)
+                .userId(userId)
+                .actionType(actionType)
+                .extra(extra)
+                .source("article-statistics")
+                .build();
 
-        } catch (Exception e) {
-            log.error("发布文章统计事件失败: articleId={}, actionType={}", articleId, actionType, e);
+        if (actionType == ArticleStatisticsEnum.INCREMENT_READ) {
+            sendDirectly(KafkaTopics.ARTICLE_STATISTICS_EVENTS, articleId, event, "文章阅读");
+        } else {
+            appendToOutbox(KafkaTopics.ARTICLE_STATISTICS_EVENTS, articleId, event, "文章统计");
         }
     }
-
-}
\ No newline at end of file
+}
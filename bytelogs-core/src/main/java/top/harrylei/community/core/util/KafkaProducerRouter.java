@@ -0,0 +1,38 @@
+package top.harrylei.community.core.util;
+
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Set;
+
+/**
+ * Kafka生产者路由
+ * <p>
+ * 按Topic选择生产者配置：通知等用户可感知的事件走低延迟生产者，
+ * 文章统计、活跃度等量大且可容忍延迟的事件走高吞吐生产者，两类消息不在同一个发送缓冲区中互相排队。
+ *
+ * @author harry
+ */
+public class KafkaProducerRouter {
+
+    private final KafkaTemplate<String, Object> latencyKafkaTemplate;
+    private final KafkaTemplate<String, Object> throughputKafkaTemplate;
+    private final Set<String> throughputTopics;
+
+    public KafkaProducerRouter(KafkaTemplate<String, Object> latencyKafkaTemplate,
+                               KafkaTemplate<String, Object> throughputKafkaTemplate,
+                               Set<String> throughputTopics) {
+        this.latencyKafkaTemplate = latencyKafkaTemplate;
+        this.throughputKafkaTemplate = throughputKafkaTemplate;
+        this.throughputTopics = throughputTopics;
+    }
+
+    /**
+     * 获取Topic对应的生产者
+     *
+     * @param topic Topic
+     * @return 生产者模板
+     */
+    public KafkaTemplate<String, Object> route(String topic) {
+        return throughputTopics.contains(topic) ? throughputKafkaTemplate : latencyKafkaTemplate;
+    }
+}
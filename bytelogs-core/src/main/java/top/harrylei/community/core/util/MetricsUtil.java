@@ -0,0 +1,211 @@
+package top.harrylei.community.core.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 指标工具类
+ * <p>
+ * 统一定义缓存、Redis、Kafka、SQL、AI流式对话和限流的指标名称与标签，由 actuator 的 prometheus 端点输出。
+ * 标签只使用缓存名、操作名、Topic、语句ID、提供商、模型、限流策略等有限取值，禁止传入用户ID、文章ID等无界取值。
+ *
+ * @author harry
+ */
+@Component
+public class MetricsUtil {
+
+    public static final String CACHE_USER = "user";
+    public static final String CACHE_TOKEN = "token";
+    public static final String CACHE_ARTICLE_RENDER_LOCAL = "article.render.local";
+    public static final String CACHE_ARTICLE_RENDER_REDIS = "article.render.redis";
+    public static final String CACHE_ARTICLE_DIFF_LOCAL = "article.diff.local";
+    public static final String CACHE_ARTICLE_DIFF_REDIS = "article.diff.redis";
+    public static final String CACHE_FOLLOW_GRAPH_LOCAL = "follow.graph.local";
+    public static final String CACHE_FOLLOW_GRAPH_REDIS = "follow.graph.redis";
+
+    public static final String SKIP_DUPLICATE = "duplicate";
+    public static final String SKIP_INVALID = "invalid";
+
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MetricsUtil(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        // 未引入 actuator 的模块（如单独启动的服务层测试）退回全局注册表，指标不输出但调用方无需判空
+        this(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public MetricsUtil(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 记录一次缓存访问，命中率 = hit / (hit + miss)
+     *
+     * @param cache 缓存名，多级缓存按层级区分，如 article.render.local
+     * @param hit   是否命中
+     */
+    public void recordCache(String cache, boolean hit) {
+        Counter.builder("bytelogs.cache.gets")
+                .description("缓存访问次数")
+                .tag("cache", cache)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次限流判定
+     *
+     * @param policy  限流策略名
+     * @param outcome 判定结果，如 allowed、rejected_local、rejected_redis、shadow_rejected、exempt、fail_open
+     */
+    public void recordRateLimit(String policy, String outcome) {
+        Counter.builder("bytelogs.ratelimit.decisions")
+                .description("限流判定次数")
+                .tag("policy", policy)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次Redis命令耗时
+     *
+     * @param operation 操作名，取 RedisUtil 的方法名
+     * @param nanos     耗时（纳秒）
+     * @param success   是否成功
+     */
+    public void recordRedis(String operation, long nanos, boolean success) {
+        Timer.builder("bytelogs.redis.command")
+                .description("Redis命令耗时")
+                .tag("operation", operation)
+                .tag("outcome", outcome(success))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 计时执行一次Kafka消息（或批次）处理，处理抛出异常时记为失败
+     *
+     * @param topic   Topic
+     * @param handler 处理逻辑
+     */
+    public void recordKafkaConsume(String topic, Runnable handler) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            handler.run();
+            success = true;
+        } finally {
+            Timer.builder("bytelogs.kafka.consume")
+                    .description("Kafka消息处理耗时")
+                    .tag("topic", topic)
+                    .tag("outcome", outcome(success))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录跳过处理的Kafka消息数
+     *
+     * @param topic  Topic
+     * @param reason 跳过原因，如 {@link #SKIP_DUPLICATE}、{@link #SKIP_INVALID}
+     * @param count  消息数
+     */
+    public void recordKafkaSkip(String topic, String reason, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("bytelogs.kafka.skipped")
+                .description("跳过处理的Kafka消息数")
+                .tag("topic", topic)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    /**
+     * 记录一次SQL语句耗时
+     *
+     * @param statement 语句ID，取 Mapper简单类名.方法名
+     * @param command   语句类型，如 SELECT、UPDATE
+     * @param nanos     耗时（纳秒）
+     * @param success   是否成功
+     */
+    public void recordSql(String statement, String command, long nanos, boolean success) {
+        Timer.builder("bytelogs.mybatis.statement")
+                .description("SQL语句耗时")
+                .tag("statement", statement)
+                .tag("command", command)
+                .tag("outcome", outcome(success))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次AI流式对话的首token耗时和输出速度
+     *
+     * @param provider         提供商
+     * @param model            模型
+     * @param firstTokenMillis 首token耗时（毫秒）
+     * @param tokensPerSecond  首token之后的输出速度（token/秒），无法计算时传负数
+     */
+    public void recordAiStream(String provider, String model, long firstTokenMillis, double tokensPerSecond) {
+        Timer.builder("bytelogs.ai.stream.first.token")
+                .description("AI流式对话首token耗时")
+                .tag("provider", provider)
+                .tag("model", model)
+                .register(meterRegistry)
+                .record(firstTokenMillis, TimeUnit.MILLISECONDS);
+        if (tokensPerSecond >= 0) {
+            DistributionSummary.builder("bytelogs.ai.stream.tokens.per.second")
+                    .description("AI流式对话输出速度")
+                    .baseUnit("tokens")
+                    .tag("provider", provider)
+                    .tag("model", model)
+                    .register(meterRegistry)
+                    .record(tokensPerSecond);
+        }
+    }
+
+    /**
+     * 注册仪表
+     *
+     * @param name        指标名
+     * @param description 描述
+     * @param target      取值对象，注册表只持有弱引用，需由调用方保持存活
+     * @param valueFunc   取值函数
+     */
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> valueFunc) {
+        Gauge.builder(name, target, valueFunc)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取底层注册表，供需要直接绑定第三方指标的组件使用
+     *
+     * @return 指标注册表
+     */
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    private static String outcome(boolean success) {
+        return success ? OUTCOME_SUCCESS : OUTCOME_ERROR;
+    }
+}
@@ -155,6 +155,30 @@ public class PageUtils {
         return from(convertedPage);
     }
 
+    /**
+     * 根据已查询的一页数据构建分页结果，适用于不执行COUNT查询的游标分页
+     *
+     * @param content       当前页数据
+     * @param pageNum       页码
+     * @param pageSize      每页大小
+     * @param totalElements 总记录数
+     * @param hasNext       是否有下一页，由多查询的一行判断
+     * @param <T>           数据类型
+     * @return 分页结果
+     */
+    public static <T> PageVO<T> from(List<T> content, long pageNum, long pageSize, long totalElements,
+                                     boolean hasNext) {
+        PageVO<T> result = new PageVO<>();
+        result.setContent(content != null ? content : List.of());
+        result.setPageNum(pageNum);
+        result.setPageSize(pageSize);
+        result.setTotalElements(totalElements);
+        result.setTotalPages(pageSize > 0 ? (totalElements + pageSize - 1) / pageSize : 0);
+        result.setHasPrevious(pageNum > 1);
+        result.setHasNext(hasNext);
+        return result;
+    }
+
     /**
      * 创建空分页对象
      *
@@ -1,5 +1,6 @@
 package top.harrylei.community.core.util;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class RedisHealthMonitor {
 
     private final RedisUtil redisUtil;
+    private final MetricsUtil metricsUtil;
 
     /**
      * 是否启用健康检查
@@ -46,6 +48,14 @@ public class RedisHealthMonitor {
      */
     private final AtomicBoolean healthy = new AtomicBoolean(true);
 
+    /**
+     * 注册健康状态仪表，1表示健康，0表示不健康
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        metricsUtil.gauge("bytelogs.redis.healthy", "Redis健康状态", this, monitor -> monitor.isHealthy() ? 1 : 0);
+    }
+
     /**
      * 定时心跳检查Redis健康状态
      */
@@ -5,12 +5,15 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
 import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.connection.zset.Tuple;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
 
@@ -33,7 +36,56 @@ public class RedisUtil {
     private static final String UNLOCK_LUA_SCRIPT =
             "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
 
+    /**
+     * 按游标扫描有序集合，结果展开为 [下一个游标, 成员1, 分数1, 成员2, 分数2, ...]
+     * KEYS[1]: 有序集合key；ARGV[1]: 游标；ARGV[2]: 每批数量提示
+     */
+    private static final String ZSCAN_LUA_SCRIPT =
+            "local result = redis.call('zscan', KEYS[1], ARGV[1], 'count', ARGV[2]) " +
+            "local flat = {result[1]} " +
+            "for _, v in ipairs(result[2]) do flat[#flat + 1] = v end " +
+            "return flat";
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final MetricsUtil metricsUtil;
+
+    /**
+     * 执行Redis命令并按操作名记录耗时
+     *
+     * @param operation 操作名，取本类的方法名，取值有限
+     * @param callback  Redis回调
+     * @return 回调结果
+     */
+    private <T> T execute(String operation, RedisCallback<T> callback) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = redisTemplate.execute(callback);
+            success = true;
+            return result;
+        } finally {
+            metricsUtil.recordRedis(operation, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 以管道方式执行一批Redis命令并按操作名记录耗时，整批只有一次网络往返
+     *
+     * @param operation 操作名，取本类的方法名，取值有限
+     * @param callback  在管道中发出命令的回调，必须返回null
+     * @return 各命令的结果，成员按字符串反序列化
+     */
+    private List<Object> executePipelined(String operation, RedisCallback<?> callback) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<Object> results = redisTemplate.executePipelined(callback, RedisSerializer.string());
+            success = true;
+            return results;
+        } finally {
+            metricsUtil.recordRedis(operation, System.nanoTime() - start, success);
+        }
+    }
 
     /**
      * 检查参数是否为空
@@ -189,7 +241,7 @@ public class RedisUtil {
     public <T> Boolean set(String key, T value, Duration duration) {
         validateNotNull(key, value);
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return execute("set", (RedisCallback<Boolean>) connection -> {
                 byte[] keyBytes = keyToBytes(key);
                 byte[] valueBytes = valueToBytes(value);
                 if (valueBytes == null) {
@@ -225,7 +277,7 @@ public class RedisUtil {
         validateNotNull(key, value);
         validatePositiveDuration(duration);
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return execute("setIfAbsent", (RedisCallback<Boolean>) connection -> {
                 byte[] keyBytes = keyToBytes(key);
                 byte[] valueBytes = valueToBytes(value);
                 if (valueBytes == null) {
@@ -255,7 +307,7 @@ public class RedisUtil {
         validateNotNull(key, clazz);
 
         try {
-            return redisTemplate.execute((RedisCallback<T>) connection -> {
+            return execute("get", (RedisCallback<T>) connection -> {
                 byte[] valueBytes = connection.stringCommands().get(keyToBytes(key));
                 return bytesToObject(valueBytes, clazz);
             });
@@ -277,7 +329,7 @@ public class RedisUtil {
         validateNotNull(key, typeReference);
 
         try {
-            return redisTemplate.execute((RedisCallback<T>) connection -> {
+            return execute("get", (RedisCallback<T>) connection -> {
                 byte[] valueBytes = connection.stringCommands().get(keyToBytes(key));
                 return bytesToObject(valueBytes, typeReference);
             });
@@ -287,6 +339,45 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 设置原始字节值，不经过JSON序列化，带过期时间
+     *
+     * @param key      键
+     * @param value    字节值
+     * @param duration 过期时间
+     * @return 是否成功，操作异常时返回false
+     */
+    public Boolean setBytes(String key, byte[] value, Duration duration) {
+        validateNotNull(key, value);
+        validatePositiveDuration(duration);
+        try {
+            return execute("setBytes", (RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().set(keyToBytes(key), value,
+                            Expiration.seconds(duration.getSeconds()),
+                            RedisStringCommands.SetOption.UPSERT));
+        } catch (Exception e) {
+            log.error("设置字节值失败: key={}, error={}", key, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取原始字节值
+     *
+     * @param key 键
+     * @return 字节值，键不存在或操作异常时返回null
+     */
+    public byte[] getBytes(String key) {
+        validateNotNull(key);
+        try {
+            return execute("getBytes", (RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(keyToBytes(key)));
+        } catch (Exception e) {
+            log.error("获取字节值失败: key={}, error={}", key, e.getMessage(), e);
+            return null;
+        }
+    }
+
     /**
      * 删除键
      *
@@ -296,7 +387,7 @@ public class RedisUtil {
     public Boolean del(String key) {
         validateNotNull(key);
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return execute("del", (RedisCallback<Boolean>) connection -> {
                 Long result = connection.keyCommands().del(keyToBytes(key));
                 return result != null && result > 0;
             });
@@ -318,7 +409,7 @@ public class RedisUtil {
         }
 
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            return execute("delAll", (RedisCallback<Long>) connection -> {
                 byte[][] keyByteArray = keys.stream()
                         .map(this::keyToBytes)
                         .toArray(byte[][]::new);
@@ -339,7 +430,7 @@ public class RedisUtil {
     public Boolean exists(String key) {
         validateNotNull(key);
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection ->
+            return execute("exists", (RedisCallback<Boolean>) connection ->
                     connection.keyCommands().exists(keyToBytes(key)));
         } catch (Exception e) {
             log.error("检查键是否存在失败: key={}, error={}", key, e.getMessage(), e);
@@ -361,7 +452,7 @@ public class RedisUtil {
             throw new IllegalArgumentException("过期时间Duration必须为正数");
         }
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection ->
+            return execute("expire", (RedisCallback<Boolean>) connection ->
                     connection.keyCommands().expire(keyToBytes(key), duration.getSeconds()));
         } catch (Exception e) {
             log.error("设置过期时间失败: key={}, duration={}, error={}", key, duration, e.getMessage(), e);
@@ -378,7 +469,7 @@ public class RedisUtil {
     public Long ttl(String key) {
         validateNotNull(key);
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection ->
+            return execute("ttl", (RedisCallback<Long>) connection ->
                     connection.keyCommands().ttl(keyToBytes(key)));
         } catch (Exception e) {
             log.error("获取TTL失败: key={}, error={}", key, e.getMessage(), e);
@@ -396,7 +487,7 @@ public class RedisUtil {
     public Long incrBy(String key, long delta) {
         validateNotNull(key);
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection ->
+            return execute("incrBy", (RedisCallback<Long>) connection ->
                     connection.stringCommands().incrBy(keyToBytes(key), delta));
         } catch (Exception e) {
             log.error("增量操作失败: key={}, delta={}, error={}", key, delta, e.getMessage(), e);
@@ -447,7 +538,7 @@ public class RedisUtil {
     public <T> T hGet(String key, String field, Class<T> clazz) {
         validateNotNull(key, field, clazz);
         try {
-            return redisTemplate.execute((RedisCallback<T>) connection -> {
+            return execute("hGet", (RedisCallback<T>) connection -> {
                 byte[] valueBytes = connection.hashCommands().hGet(keyToBytes(key), field.getBytes(CHARSET));
                 return bytesToObject(valueBytes, clazz);
             });
@@ -475,7 +566,7 @@ public class RedisUtil {
                 return false;
             }
 
-            return redisTemplate.execute((RedisCallback<Boolean>) connection ->
+            return execute("hSet", (RedisCallback<Boolean>) connection ->
                     connection.hashCommands().hSet(keyToBytes(key), field.getBytes(CHARSET), valueBytes));
         } catch (Exception e) {
             log.error("设置哈希字段失败: key={}, field={}, error={}", key, field, e.getMessage(), e);
@@ -498,7 +589,7 @@ public class RedisUtil {
         }
 
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return execute("hSetAll", (RedisCallback<Boolean>) connection -> {
                 Map<byte[], byte[]> byteMap = new HashMap<>(map.size());
                 for (Map.Entry<String, T> entry : map.entrySet()) {
                     byte[] fieldBytes = entry.getKey().getBytes(CHARSET);
@@ -525,7 +616,7 @@ public class RedisUtil {
     public Set<String> hKeys(String key) {
         validateNotNull(key);
         try {
-            return redisTemplate.execute((RedisCallback<Set<String>>) connection -> {
+            return execute("hKeys", (RedisCallback<Set<String>>) connection -> {
                 Set<byte[]> fieldBytes = connection.hashCommands().hKeys(keyToBytes(key));
                 if (fieldBytes == null || fieldBytes.isEmpty()) {
                     return Set.of();
@@ -557,7 +648,7 @@ public class RedisUtil {
         }
 
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            return execute("hDel", (RedisCallback<Long>) connection -> {
                 byte[][] fieldBytes = new byte[fields.length][];
                 for (int i = 0; i < fields.length; i++) {
                     fieldBytes[i] = fields[i].getBytes(CHARSET);
@@ -581,7 +672,7 @@ public class RedisUtil {
     public Boolean hExists(String key, String field) {
         validateNotNull(key, field);
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection ->
+            return execute("hExists", (RedisCallback<Boolean>) connection ->
                     connection.hashCommands().hExists(keyToBytes(key), field.getBytes(CHARSET)));
         } catch (Exception e) {
             log.error("检查哈希字段是否存在失败: key={}, field={}, error={}",
@@ -601,7 +692,7 @@ public class RedisUtil {
     public Long hIncrBy(String key, String field, long delta) {
         validateNotNull(key, field);
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection ->
+            return execute("hIncrBy", (RedisCallback<Long>) connection ->
                     connection.hashCommands().hIncrBy(keyToBytes(key), field.getBytes(CHARSET), delta));
         } catch (Exception e) {
             log.error("哈希字段自增失败: key={}, field={}, delta={}, error={}",
@@ -644,6 +735,38 @@ public class RedisUtil {
         return hIncrBy(key, field, -1);
     }
 
+    /**
+     * 获取哈希表中的所有字段和值
+     *
+     * @param <T>   值类型
+     * @param key   键
+     * @param clazz 值类型
+     * @return 字段值映射，键不存在或操作异常时返回空Map
+     */
+    public <T> Map<String, T> hGetAll(String key, Class<T> clazz) {
+        validateNotNull(key, clazz);
+        try {
+            return execute("hGetAll", (RedisCallback<Map<String, T>>) connection -> {
+                Map<byte[], byte[]> entries = connection.hashCommands().hGetAll(keyToBytes(key));
+                if (entries == null || entries.isEmpty()) {
+                    return Map.of();
+                }
+
+                Map<String, T> result = new HashMap<>(entries.size());
+                for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+                    T value = bytesToObject(entry.getValue(), clazz);
+                    if (value != null) {
+                        result.put(new String(entry.getKey(), CHARSET), value);
+                    }
+                }
+                return result;
+            });
+        } catch (Exception e) {
+            log.error("获取哈希全部字段失败: key={}, error={}", key, e.getMessage(), e);
+            return Map.of();
+        }
+    }
+
     /**
      * 批量获取值
      *
@@ -658,7 +781,7 @@ public class RedisUtil {
         validateNotNull(keys, clazz);
 
         try {
-            return redisTemplate.execute((RedisCallback<Map<String, T>>) connection -> {
+            return execute("mGet", (RedisCallback<Map<String, T>>) connection -> {
                 List<String> keyList = new ArrayList<>(keys);
                 List<byte[]> results = connection.stringCommands().mGet(keysToBytes(keyList.toArray(new String[0])));
 
@@ -701,7 +824,7 @@ public class RedisUtil {
         validateNotNull(map);
 
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return execute("mSet", (RedisCallback<Boolean>) connection -> {
                 Map<byte[], byte[]> byteMap = new HashMap<>(map.size());
 
                 for (Map.Entry<String, T> entry : map.entrySet()) {
@@ -743,7 +866,7 @@ public class RedisUtil {
         validatePositiveDuration(duration);
 
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return execute("mSet", (RedisCallback<Boolean>) connection -> {
                 // 先批量设置值
                 Map<byte[], byte[]> byteMap = new HashMap<>(map.size());
                 List<String> validKeys = new ArrayList<>();
@@ -792,7 +915,7 @@ public class RedisUtil {
         validateNotNull(keys);
 
         try {
-            return redisTemplate.execute((RedisCallback<Set<String>>) connection -> {
+            return execute("existsAll", (RedisCallback<Set<String>>) connection -> {
                 // 过滤有效的键
                 List<String> validKeys = keys.stream()
                         .filter(key -> key != null && !key.trim().isEmpty())
@@ -844,7 +967,7 @@ public class RedisUtil {
 
         try {
             // 执行Lua脚本
-            return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            return Boolean.TRUE.equals(execute("releaseLock", (RedisCallback<Boolean>) connection -> {
                 // 使用与设置锁相同的字节数组方式
                 byte[] keyBytes = keyToBytes(key);
                 byte[] valueBytes = valueToBytes(lockValue);
@@ -909,7 +1032,7 @@ public class RedisUtil {
     public Boolean zAdd(String key, String member, double score) {
         validateNotNull(key, member);
         try {
-            return redisTemplate.execute((RedisCallback<Boolean>) connection ->
+            return execute("zAdd", (RedisCallback<Boolean>) connection ->
                     connection.zSetCommands().zAdd(keyToBytes(key), score, member.getBytes(CHARSET)));
         } catch (Exception e) {
             log.error("添加有序集合成员失败: key={}, member={}, score={}, error={}",
@@ -929,7 +1052,7 @@ public class RedisUtil {
     public Double zIncrBy(String key, String member, double delta) {
         validateNotNull(key, member);
         try {
-            return redisTemplate.execute((RedisCallback<Double>) connection ->
+            return execute("zIncrBy", (RedisCallback<Double>) connection ->
                     connection.zSetCommands().zIncrBy(keyToBytes(key), delta, member.getBytes(CHARSET)));
         } catch (Exception e) {
             log.error("增加有序集合成员分数失败: key={}, member={}, delta={}, error={}",
@@ -948,7 +1071,7 @@ public class RedisUtil {
     public Double zScore(String key, String member) {
         validateNotNull(key, member);
         try {
-            return redisTemplate.execute((RedisCallback<Double>) connection ->
+            return execute("zScore", (RedisCallback<Double>) connection ->
                     connection.zSetCommands().zScore(keyToBytes(key), member.getBytes(CHARSET)));
         } catch (Exception e) {
             log.error("获取有序集合成员分数失败: key={}, member={}, error={}",
@@ -967,7 +1090,7 @@ public class RedisUtil {
     public Long zRank(String key, String member) {
         validateNotNull(key, member);
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection ->
+            return execute("zRank", (RedisCallback<Long>) connection ->
                     connection.zSetCommands().zRank(keyToBytes(key), member.getBytes(CHARSET)));
         } catch (Exception e) {
             log.error("获取有序集合成员排名失败: key={}, member={}, error={}",
@@ -986,7 +1109,7 @@ public class RedisUtil {
     public Long zRevRank(String key, String member) {
         validateNotNull(key, member);
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection ->
+            return execute("zRevRank", (RedisCallback<Long>) connection ->
                     connection.zSetCommands().zRevRank(keyToBytes(key), member.getBytes(CHARSET)));
         } catch (Exception e) {
             log.error("获取有序集合成员逆序排名失败: key={}, member={}, error={}",
@@ -1009,7 +1132,7 @@ public class RedisUtil {
         }
 
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            return execute("zRem", (RedisCallback<Long>) connection -> {
                 byte[][] memberBytes = new byte[members.length][];
                 for (int i = 0; i < members.length; i++) {
                     memberBytes[i] = members[i].getBytes(CHARSET);
@@ -1032,7 +1155,7 @@ public class RedisUtil {
     public Long zCard(String key) {
         validateNotNull(key);
         try {
-            return redisTemplate.execute((RedisCallback<Long>) connection ->
+            return execute("zCard", (RedisCallback<Long>) connection ->
                     connection.zSetCommands().zCard(keyToBytes(key)));
         } catch (Exception e) {
             log.error("获取有序集合成员数量失败: key={}, error={}", key, e.getMessage(), e);
@@ -1051,7 +1174,7 @@ public class RedisUtil {
     public List<Map.Entry<String, Double>> zRevRangeWithScores(String key, long start, long end) {
         validateNotNull(key, start, end);
         try {
-            return redisTemplate.execute((RedisCallback<List<Map.Entry<String, Double>>>) connection -> {
+            return execute("zRevRangeWithScores", (RedisCallback<List<Map.Entry<String, Double>>>) connection -> {
                 Set<Tuple> tuples = connection.zSetCommands().zRevRangeWithScores(keyToBytes(key), start, end);
 
                 if (tuples == null || tuples.isEmpty()) {
@@ -1073,4 +1196,375 @@ public class RedisUtil {
             return List.of();
         }
     }
+
+    /**
+     * 从指定游标开始扫描有序集合的一批成员
+     * <p>
+     * 与一次性读取整个有序集合不同，每次只返回一小批，调用方可以保存游标并在中断后从该游标继续。
+     * 扫描期间有序集合发生变化时，成员可能重复返回，调用方需按成员去重或幂等写入。
+     *
+     * @param key    键
+     * @param cursor 游标，首次扫描传"0"
+     * @param count  每批数量提示，Redis可能返回更多或更少的成员
+     * @return 本批成员和下一个游标，操作异常时返回null
+     */
+    public ZScanPage zScan(String key, String cursor, long count) {
+        validateNotNull(key, cursor);
+        try {
+            return execute("zScan", (RedisCallback<ZScanPage>) connection -> {
+                List<Object> result = connection.scriptingCommands().eval(ZSCAN_LUA_SCRIPT.getBytes(CHARSET),
+                        ReturnType.MULTI, 1, keyToBytes(key), cursor.getBytes(CHARSET),
+                        String.valueOf(count).getBytes(CHARSET));
+                if (result == null || result.isEmpty()) {
+                    return new ZScanPage("0", List.of());
+                }
+
+                ImmutableList.Builder<Map.Entry<String, Double>> builder = ImmutableList.builder();
+                for (int i = 1; i + 1 < result.size(); i += 2) {
+                    String member = new String((byte[]) result.get(i), CHARSET);
+                    Double score = Double.valueOf(new String((byte[]) result.get(i + 1), CHARSET));
+                    builder.add(Maps.immutableEntry(member, score));
+                }
+                return new ZScanPage(new String((byte[]) result.getFirst(), CHARSET), builder.build());
+            });
+        } catch (Exception e) {
+            log.error("扫描有序集合失败: key={}, cursor={}, error={}", key, cursor, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 增加有序集合成员分数，键为本次新建（尚无过期时间）时才设置过期
+     * KEYS[1]: 有序集合；ARGV[1]: 增量，ARGV[2]: 成员，ARGV[3]: 过期秒数，不大于0时不设置
+     */
+    private static final String ZINCRBY_EXPIRE_IF_NEW_LUA_SCRIPT =
+            "redis.call('zincrby', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if tonumber(ARGV[3]) > 0 and redis.call('ttl', KEYS[1]) == -1 then " +
+            "  redis.call('expire', KEYS[1], ARGV[3]) " +
+            "end " +
+            "return 1";
+
+    /**
+     * 在多个有序集合中增加同一成员的分数，整批一次网络往返
+     * <p>
+     * 过期时间只在键首次创建时设置，之后的写入不会续期，周期榜单按创建时间到期
+     *
+     * @param keys   键及其过期时间，过期时间为null的键不设置过期
+     * @param member 成员
+     * @param delta  分数增量
+     * @return 是否执行成功
+     */
+    public boolean zIncrByAll(Map<String, Duration> keys, String member, double delta) {
+        validateNotNull(keys, member);
+        if (keys.isEmpty()) {
+            return true;
+        }
+
+        try {
+            executePipelined("zIncrByAll", (RedisCallback<Object>) connection -> {
+                byte[] script = ZINCRBY_EXPIRE_IF_NEW_LUA_SCRIPT.getBytes(CHARSET);
+                for (Map.Entry<String, Duration> entry : keys.entrySet()) {
+                    long ttlSeconds = entry.getValue() == null ? 0 : entry.getValue().getSeconds();
+                    // 每个脚本只访问一个键，集群模式下各键可以落在不同槽位
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                            toKeysAndArgs(List.of(entry.getKey()), delta, member, ttlSeconds));
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.error("批量增加有序集合成员分数失败: keys={}, member={}, delta={}, error={}",
+                    keys.keySet(), member, delta, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量获取多个有序集合的逆序范围成员和分数，整批一次网络往返
+     *
+     * @param keys  键列表
+     * @param start 开始索引
+     * @param end   结束索引
+     * @return 与键一一对应的成员和分数列表，操作异常时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public List<List<Map.Entry<String, Double>>> zRevRangeWithScoresAll(List<String> keys, long start, long end) {
+        validateNotNull(keys);
+        try {
+            List<Object> results = executePipelined("zRevRangeWithScoresAll", (RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.zSetCommands().zRevRangeWithScores(keyToBytes(key), start, end);
+                }
+                return null;
+            });
+
+            List<List<Map.Entry<String, Double>>> ranges = new ArrayList<>(results.size());
+            for (Object result : results) {
+                ImmutableList.Builder<Map.Entry<String, Double>> builder = ImmutableList.builder();
+                if (result instanceof Collection<?> tuples) {
+                    for (Object tuple : tuples) {
+                        ZSetOperations.TypedTuple<String> typed = (ZSetOperations.TypedTuple<String>) tuple;
+                        builder.add(Maps.immutableEntry(typed.getValue(), typed.getScore()));
+                    }
+                }
+                ranges.add(builder.build());
+            }
+            return ranges;
+        } catch (Exception e) {
+            log.error("批量获取有序集合逆序范围失败: keys={}, start={}, end={}, error={}",
+                    keys, start, end, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量获取同一成员在多个有序集合中的分数，整批一次网络往返
+     *
+     * @param keys   键列表
+     * @param member 成员
+     * @return 与键一一对应的分数，成员不存在的位置为null，操作异常时返回null
+     */
+    public List<Double> zScoreAll(List<String> keys, String member) {
+        validateNotNull(keys, member);
+        try {
+            List<Object> results = executePipelined("zScoreAll", (RedisCallback<Object>) connection -> {
+                byte[] memberBytes = member.getBytes(CHARSET);
+                for (String key : keys) {
+                    connection.zSetCommands().zScore(keyToBytes(key), memberBytes);
+                }
+                return null;
+            });
+
+            List<Double> scores = new ArrayList<>(results.size());
+            for (Object result : results) {
+                scores.add(result instanceof Number number ? number.doubleValue() : null);
+            }
+            return scores;
+        } catch (Exception e) {
+            log.error("批量获取有序集合成员分数失败: keys={}, member={}, error={}", keys, member, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量统计有序集合中分数严格大于指定值的成员数，整批一次网络往返
+     *
+     * @param keys   键列表
+     * @param scores 与键一一对应的分数下界（不含）
+     * @return 与键一一对应的成员数，操作异常时返回null
+     */
+    public List<Long> zCountAboveAll(List<String> keys, List<Double> scores) {
+        validateNotNull(keys, scores);
+        if (keys.size() != scores.size()) {
+            throw new IllegalArgumentException("键和分数的数量不一致");
+        }
+
+        try {
+            List<Object> results = executePipelined("zCountAboveAll", (RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    connection.zSetCommands().zCount(keyToBytes(keys.get(i)),
+                            Range.of(Range.Bound.exclusive(scores.get(i)), Range.Bound.unbounded()));
+                }
+                return null;
+            });
+
+            List<Long> counts = new ArrayList<>(results.size());
+            for (Object result : results) {
+                counts.add(result instanceof Number number ? number.longValue() : 0L);
+            }
+            return counts;
+        } catch (Exception e) {
+            log.error("批量统计有序集合成员数失败: keys={}, error={}", keys, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 向集合添加成员
+     *
+     * @param key     键
+     * @param members 成员数组
+     * @return 新增的成员数量，操作异常时返回0
+     */
+    public Long sAdd(String key, String... members) {
+        validateNotNull(key);
+        if (members == null || members.length == 0) {
+            return 0L;
+        }
+
+        try {
+            return execute("sAdd", (RedisCallback<Long>) connection -> {
+                byte[][] memberBytes = new byte[members.length][];
+                for (int i = 0; i < members.length; i++) {
+                    memberBytes[i] = members[i].getBytes(CHARSET);
+                }
+                return connection.setCommands().sAdd(keyToBytes(key), memberBytes);
+            });
+        } catch (Exception e) {
+            log.error("添加集合成员失败: key={}, members={}, error={}",
+                    key, Arrays.toString(members), e.getMessage(), e);
+            return 0L;
+        }
+    }
+
+    /**
+     * 随机弹出集合中的多个成员
+     *
+     * @param key   键
+     * @param count 弹出数量
+     * @return 弹出的成员列表，操作异常时返回空列表
+     */
+    public List<String> sPop(String key, long count) {
+        validateNotNull(key);
+        if (count <= 0) {
+            return List.of();
+        }
+
+        try {
+            return execute("sPop", (RedisCallback<List<String>>) connection -> {
+                List<byte[]> popped = connection.setCommands().sPop(keyToBytes(key), count);
+                if (popped == null || popped.isEmpty()) {
+                    return List.of();
+                }
+                return popped.stream().map(bytes -> new String(bytes, CHARSET)).toList();
+            });
+        } catch (Exception e) {
+            log.error("弹出集合成员失败: key={}, count={}, error={}", key, count, e.getMessage(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * 从列表尾部追加元素
+     *
+     * @param key    键
+     * @param values 元素数组
+     * @return 追加后的列表长度，操作异常时返回null
+     */
+    public Long rPush(String key, String... values) {
+        validateNotNull(key);
+        if (values == null || values.length == 0) {
+            return null;
+        }
+
+        try {
+            return execute("rPush", (RedisCallback<Long>) connection -> {
+                byte[][] valueBytes = new byte[values.length][];
+                for (int i = 0; i < values.length; i++) {
+                    valueBytes[i] = values[i].getBytes(CHARSET);
+                }
+                return connection.listCommands().rPush(keyToBytes(key), valueBytes);
+            });
+        } catch (Exception e) {
+            log.error("追加列表元素失败: key={}, size={}, error={}", key, values.length, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取列表指定范围的元素
+     *
+     * @param key   键
+     * @param start 起始下标
+     * @param end   结束下标（-1表示最后一个）
+     * @return 元素列表，操作异常时返回空列表
+     */
+    public List<String> lRange(String key, long start, long end) {
+        validateNotNull(key);
+        try {
+            return execute("lRange", (RedisCallback<List<String>>) connection -> {
+                List<byte[]> values = connection.listCommands().lRange(keyToBytes(key), start, end);
+                if (values == null || values.isEmpty()) {
+                    return List.of();
+                }
+                return values.stream().map(bytes -> new String(bytes, CHARSET)).toList();
+            });
+        } catch (Exception e) {
+            log.error("获取列表范围失败: key={}, start={}, end={}, error={}", key, start, end, e.getMessage(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * 执行返回整数的Lua脚本
+     *
+     * @param script Lua脚本
+     * @param keys   脚本使用的键
+     * @param args   脚本参数（按字符串传递）
+     * @return 脚本返回值，操作异常时返回null
+     */
+    public Long evalForLong(String script, List<String> keys, Object... args) {
+        validateNotNull(script, keys);
+        try {
+            return execute("evalForLong", (RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(script.getBytes(CHARSET), ReturnType.INTEGER,
+                            keys.size(), toKeysAndArgs(keys, args)));
+        } catch (Exception e) {
+            log.error("执行Lua脚本失败: keys={}, error={}", keys, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 执行返回字符串列表的Lua脚本
+     *
+     * @param script Lua脚本
+     * @param keys   脚本使用的键
+     * @param args   脚本参数（按字符串传递）
+     * @return 脚本返回的列表，操作异常时返回null
+     */
+    public List<String> evalForList(String script, List<String> keys, Object... args) {
+        validateNotNull(script, keys);
+        try {
+            return execute("evalForList", (RedisCallback<List<String>>) connection -> {
+                List<Object> result = connection.scriptingCommands().eval(script.getBytes(CHARSET),
+                        ReturnType.MULTI, keys.size(), toKeysAndArgs(keys, args));
+                if (result == null || result.isEmpty()) {
+                    return List.of();
+                }
+                List<String> values = new ArrayList<>(result.size());
+                for (Object item : result) {
+                    values.add(item instanceof byte[] bytes ? new String(bytes, CHARSET) : String.valueOf(item));
+                }
+                return values;
+            });
+        } catch (Exception e) {
+            log.error("执行Lua脚本失败: keys={}, error={}", keys, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 组装Lua脚本的键和参数字节数组
+     *
+     * @param keys 键列表
+     * @param args 参数（按字符串传递）
+     * @return 键在前、参数在后的字节数组
+     */
+    private byte[][] toKeysAndArgs(List<String> keys, Object... args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = keyToBytes(keys.get(i));
+        }
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[keys.size() + i] = String.valueOf(args[i]).getBytes(CHARSET);
+        }
+        return keysAndArgs;
+    }
+
+    /**
+     * 有序集合扫描结果
+     *
+     * @param cursor  下一次扫描的游标，"0"表示扫描结束
+     * @param entries 本批成员和分数
+     */
+    public record ZScanPage(String cursor, List<Map.Entry<String, Double>> entries) {
+
+        /**
+         * 是否已扫描完整个有序集合
+         */
+        public boolean finished() {
+            return "0".equals(cursor);
+        }
+    }
 }
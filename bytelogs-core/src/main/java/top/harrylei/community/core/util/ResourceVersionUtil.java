@@ -0,0 +1,92 @@
+package top.harrylei.community.core.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+
+import java.util.List;
+
+/**
+ * 资源版本号工具类
+ * <p>
+ * 为文章、分类、标签等可缓存的资源维护单调递增的版本号，写操作后递增，
+ * 读接口据此生成ETag，客户端携带 If-None-Match 重新请求时无需查询完整数据即可判断是否变化。
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResourceVersionUtil {
+
+    public static final String ARTICLE = "article";
+    public static final String CATEGORY = "category";
+    public static final String TAG = "tag";
+
+    /**
+     * 读取版本号，key不存在时返回0
+     * <p>
+     * 普通GET在key不存在和Redis异常时都返回null，无法区分；脚本执行失败时返回null，
+     * 据此把"从未变更"和"读取失败"分开。
+     */
+    private static final String GET_VERSION_SCRIPT = "return tonumber(redis.call('GET', KEYS[1]) or '0')";
+
+    private final RedisUtil redisUtil;
+    private final RedisHealthMonitor redisHealthMonitor;
+
+    /**
+     * 单篇文章的资源标识
+     *
+     * @param articleId 文章ID
+     * @return 资源标识
+     */
+    public static String article(Long articleId) {
+        return ARTICLE + ":" + articleId;
+    }
+
+    /**
+     * 获取资源当前版本号
+     *
+     * @param resource 资源标识
+     * @return 版本号，从未变更过时为0；Redis不可用或读取失败时返回null，由调用方放弃条件请求
+     */
+    public Long getVersion(String resource) {
+        if (redisHealthMonitor.isUnhealthy()) {
+            return null;
+        }
+        Long version = redisUtil.evalForLong(GET_VERSION_SCRIPT, List.of(RedisKeyConstants.getResourceVersionKey(resource)));
+        if (version == null) {
+            log.warn("读取资源版本号失败，跳过条件请求 resource={}", resource);
+        }
+        return version;
+    }
+
+    /**
+     * 递增资源版本号，在事务中调用时等提交后再递增，避免客户端在提交前拿到新版本号和旧数据
+     *
+     * @param resources 资源标识
+     */
+    public void bump(String... resources) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doBump(resources);
+                }
+            });
+        } else {
+            doBump(resources);
+        }
+    }
+
+    private void doBump(String... resources) {
+        for (String resource : resources) {
+            if (redisUtil.incr(RedisKeyConstants.getResourceVersionKey(resource)) == null) {
+                log.warn("递增资源版本号失败 resource={}", resource);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package top.harrylei.community.core.util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 文本相似度工具类
+ * <p>
+ * 在本地计算近似重复检测所需的特征，不依赖外部向量服务：文本先归一化，
+ * 再切分为相邻字符的二元组（shingle），据此计算MinHash签名和Jaccard相似度。
+ * MinHash签名分段后用于局部敏感哈希（LSH）快速筛选候选，Jaccard相似度用于最终判定。
+ *
+ * @author harry
+ */
+public class TextSimilarityUtil {
+
+    /**
+     * 标点、符号和空白
+     */
+    private static final Pattern SEPARATORS = Pattern.compile("[\\p{P}\\p{S}\\p{Z}\\s]+");
+
+    /**
+     * MinHash签名长度
+     */
+    public static final int MIN_HASH_SIZE = 32;
+
+    /**
+     * LSH每个分段包含的签名行数
+     */
+    public static final int LSH_ROWS_PER_BAND = 4;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private TextSimilarityUtil() {
+    }
+
+    /**
+     * 归一化文本：全半角统一、转小写、标点和连续空白合并为单个空格
+     *
+     * @param text 文本
+     * @return 归一化后的文本，空文本返回空串
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * 切分相邻字符二元组（忽略空格），不足两个字符时整体作为一个特征
+     *
+     * @param normalized 归一化后的文本
+     * @return 特征及出现次数
+     */
+    public static Map<String, Integer> shingles(String normalized) {
+        Map<String, Integer> shingles = new HashMap<>();
+        int[] codePoints = normalized.codePoints().filter(codePoint -> codePoint != ' ').toArray();
+        if (codePoints.length == 1) {
+            shingles.put(new String(codePoints, 0, 1), 1);
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            shingles.merge(new String(codePoints, i, 2), 1, Integer::sum);
+        }
+        return shingles;
+    }
+
+    /**
+     * 计算MinHash签名：对每个哈希函数取所有二元组哈希值的最小值，
+     * 两个签名对应位置相等的比例是两者Jaccard相似度的无偏估计
+     *
+     * @param normalized 归一化后的文本
+     * @return 长度为 {@link #MIN_HASH_SIZE} 的签名
+     */
+    public static long[] minHash(String normalized) {
+        long[] signature = new long[MIN_HASH_SIZE];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String shingle : shingles(normalized).keySet()) {
+            long hash = fnv1a64(shingle);
+            for (int i = 0; i < MIN_HASH_SIZE; i++) {
+                signature[i] = Math.min(signature[i], mix(hash ^ mix(i)));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 将MinHash签名按 {@link #LSH_ROWS_PER_BAND} 行一组分段并压缩为分段键，用于局部敏感哈希索引。
+     * 任一分段键相同即为近似候选，Jaccard相似度0.8时约98%的概率至少命中一段，0.3时约6%
+     *
+     * @param signature MinHash签名
+     * @return 每个分段的键，下标即分段序号
+     */
+    public static String[] lshBands(long[] signature) {
+        String[] bands = new String[signature.length / LSH_ROWS_PER_BAND];
+        for (int band = 0; band < bands.length; band++) {
+            long hash = 0L;
+            for (int row = 0; row < LSH_ROWS_PER_BAND; row++) {
+                hash = mix(hash ^ signature[band * LSH_ROWS_PER_BAND + row]);
+            }
+            bands[band] = Long.toHexString(hash);
+        }
+        return bands;
+    }
+
+    /**
+     * 计算两段归一化文本二元组集合的Jaccard相似度
+     *
+     * @return 0~1之间的相似度，两者均为空时返回1
+     */
+    public static double jaccard(String a, String b) {
+        Set<String> left = shingles(a).keySet();
+        Set<String> right = shingles(b).keySet();
+        if (left.isEmpty() && right.isEmpty()) {
+            return 1.0;
+        }
+
+        Set<String> intersection = new HashSet<>(left);
+        intersection.retainAll(right);
+        return (double) intersection.size() / (left.size() + right.size() - intersection.size());
+    }
+
+    private static long fnv1a64(String text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // FNV在短输入上分布较差，再做一次混合
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * SplitMix64混合函数，用于派生多个独立的哈希函数
+     */
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,96 @@
+package top.harrylei.community.core.util;
+
+/**
+ * Token估算工具类
+ * <p>
+ * 不依赖具体模型的分词器，按字符类别近似估算：中日韩字符约1个token，
+ * 其余连续字符约4个字符1个token，每条消息另加固定的角色开销。
+ *
+ * @author harry
+ */
+public class TokenUtil {
+
+    /**
+     * 每条消息的固定开销（角色标记、分隔符）
+     */
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 非中日韩字符平均每个token的字符数
+     */
+    private static final int LATIN_CHARS_PER_TOKEN = 4;
+
+    private TokenUtil() {
+    }
+
+    /**
+     * 估算文本的token数
+     *
+     * @param text 文本
+     * @return 估算的token数，空文本返回0
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        Counter counter = new Counter();
+        counter.append(text);
+        return (int) counter.tokens();
+    }
+
+    /**
+     * 估算一条对话消息的token数（含固定开销）
+     *
+     * @param content 消息内容
+     * @return 估算的token数
+     */
+    public static int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 增量估算器，用于流式输出：按片段累加字符数，结果与对拼接后的全文调用 {@link #estimate(String)} 一致，
+     * 不会因片段边界切开英文单词而重复向上取整。非线程安全。
+     */
+    public static final class Counter {
+
+        private long cjkCount;
+        private long latinCount;
+
+        /**
+         * 追加一段文本
+         *
+         * @param text 文本片段
+         */
+        public void append(String text) {
+            if (text == null) {
+                return;
+            }
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = text.codePointAt(i);
+                if (isCjk(codePoint)) {
+                    cjkCount++;
+                } else if (!Character.isWhitespace(codePoint)) {
+                    latinCount++;
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+
+        /**
+         * 当前累计的估算token数
+         */
+        public long tokens() {
+            return cjkCount + (latinCount + LATIN_CHARS_PER_TOKEN - 1) / LATIN_CHARS_PER_TOKEN;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package top.harrylei.community.core.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import top.harrylei.community.api.enums.article.ArticleStatisticsEnum;
+import top.harrylei.community.api.enums.rank.ActivityActionEnum;
+import top.harrylei.community.api.enums.rank.ActivityTargetEnum;
+import top.harrylei.community.api.event.ActivityRankEvent;
+import top.harrylei.community.api.event.ArticleStatisticsEvent;
+import top.harrylei.community.core.util.EventIdUtil;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 事件二进制编解码测试
+ *
+ * @author harry
+ */
+@DisplayName("BinaryEventCodec 测试")
+class BinaryEventCodecTest {
+
+    private static final String TOPIC = "topic-a";
+
+    private static ArticleStatisticsEvent statisticsEvent() {
+        return ArticleStatisticsEvent.builder()
+                .eventId(EventIdUtil.nextId())
+                .timestamp(LocalDateTime.of(2025, 6, 1, 12, 30, 45))
+                .source("article-statistics")
+                .extra("ip:192.168.1.10")
+                .articleId(123456L)
+                .actionType(ArticleStatisticsEnum.INCREMENT_READ)
+                .build();
+    }
+
+    private static ActivityRankEvent activityEvent() {
+        return ActivityRankEvent.builder()
+                .eventId(EventIdUtil.nextId())
+                .timestamp(LocalDateTime.of(2025, 6, 1, 12, 30, 45))
+                .source("activity-rank")
+                .userId(10086L)
+                .actionType(ActivityActionEnum.PRAISE)
+                .targetType(ActivityTargetEnum.ARTICLE)
+                .targetId(123456L)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("编解码测试")
+    class RoundTripTest {
+
+        @Test
+        @DisplayName("文章统计事件编码后解码一致，空字段保持为空")
+        void shouldRoundTripStatisticsEvent() {
+            ArticleStatisticsEvent event = statisticsEvent();
+
+            assertThat(BinaryEventCodec.decode(BinaryEventCodec.encode(event))).isEqualTo(event);
+            assertThat(((ArticleStatisticsEvent) BinaryEventCodec.decode(BinaryEventCodec.encode(event))).getUserId())
+                    .isNull();
+        }
+
+        @Test
+        @DisplayName("活跃度事件编码后解码一致")
+        void shouldRoundTripActivityEvent() {
+            ActivityRankEvent event = activityEvent();
+
+            assertThat(BinaryEventCodec.decode(BinaryEventCodec.encode(event))).isEqualTo(event);
+        }
+
+        @Test
+        @DisplayName("未知版本和截断的内容抛出序列化异常")
+        void shouldRejectInvalidData() {
+            byte[] data = BinaryEventCodec.encode(activityEvent());
+            byte[] futureVersion = data.clone();
+            futureVersion[1] = 99;
+            byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+            assertThatThrownBy(() -> BinaryEventCodec.decode(futureVersion)).isInstanceOf(SerializationException.class);
+            assertThatThrownBy(() -> BinaryEventCodec.decode(truncated)).isInstanceOf(SerializationException.class);
+        }
+
+        @Test
+        @DisplayName("二进制编码明显小于JSON编码")
+        void shouldBeSmallerThanJson() {
+            try (JsonSerializer<Object> jsonSerializer = new JsonSerializer<>()) {
+                for (Object event : new Object[]{statisticsEvent(), activityEvent()}) {
+                    int jsonSize = jsonSerializer.serialize(TOPIC, event).length;
+                    int binarySize = new BinaryEventSerializer().serialize(TOPIC, event).length;
+
+                    assertThat(binarySize).isLessThan(jsonSize / 2);
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("反序列化兼容测试")
+    class CompatibilityTest {
+
+        @Test
+        @DisplayName("同时兼容二进制消息和旧的JSON消息")
+        void shouldReadBinaryAndLegacyJson() {
+            ArticleStatisticsEvent event = statisticsEvent();
+            byte[] binary = new BinaryEventSerializer().serialize(TOPIC, event);
+            byte[] json;
+            try (JsonSerializer<Object> jsonSerializer = new JsonSerializer<>()) {
+                json = jsonSerializer.serialize(TOPIC, event);
+            }
+
+            try (BinaryEventDeserializer<ArticleStatisticsEvent> deserializer =
+                         new BinaryEventDeserializer<>(ArticleStatisticsEvent.class)) {
+                assertThat(deserializer.deserialize(TOPIC, binary)).isEqualTo(event);
+                assertThat(deserializer.deserialize(TOPIC, json).getArticleId()).isEqualTo(123456L);
+            }
+        }
+
+        @Test
+        @DisplayName("二进制消息的事件类型与目标类型不一致时抛出序列化异常")
+        void shouldRejectMismatchedType() {
+            byte[] binary = BinaryEventCodec.encode(activityEvent());
+
+            try (BinaryEventDeserializer<ArticleStatisticsEvent> deserializer =
+                         new BinaryEventDeserializer<>(ArticleStatisticsEvent.class)) {
+                assertThatThrownBy(() -> deserializer.deserialize(TOPIC, binary))
+                        .isInstanceOf(SerializationException.class);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package top.harrylei.community.core.security.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.core.config.RateLimitConfig;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 接口限流器测试
+ *
+ * @author harry
+ */
+@DisplayName("RateLimiter 测试")
+class RateLimiterTest {
+
+    private static final String SUBJECT = "u:1";
+    private static final String RATE_KEY = "byte_logs:rate_limit:comment-post:u:1";
+
+    private RedisUtil redisUtil;
+    private MetricsUtil metricsUtil;
+    private RateLimitConfig rateLimitConfig;
+    private AtomicLong nanos;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        metricsUtil = mock(MetricsUtil.class);
+        rateLimitConfig = new RateLimitConfig();
+        nanos = new AtomicLong();
+        rateLimiter = new RateLimiter(redisUtil, metricsUtil, rateLimitConfig, nanos::get);
+
+        when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(0L);
+    }
+
+    @RateLimit(policy = "comment-post", permits = 10, burst = 2)
+    private void commentPost() {
+    }
+
+    @RateLimit(policy = "ai-chat", permits = 10, burst = 2, adminMultiplier = 5)
+    private void aiChat() {
+    }
+
+    @RateLimit(policy = "ai-chat", permits = 10, burst = 2, adminMultiplier = 0)
+    private void adminExempt() {
+    }
+
+    private static RateLimit rateLimit(String method) {
+        try {
+            return RateLimiterTest.class.getDeclaredMethod(method).getAnnotation(RateLimit.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nested
+    @DisplayName("本地令牌桶测试")
+    class LocalTest {
+
+        @Test
+        @DisplayName("突发用尽后在本地拒绝，不访问Redis")
+        void shouldRejectLocallyWithoutRedis() {
+            RateLimit rateLimit = rateLimit("commentPost");
+
+            assertThat(rateLimiter.acquire(rateLimit, SUBJECT, false).allowed()).isTrue();
+            assertThat(rateLimiter.acquire(rateLimit, SUBJECT, false).allowed()).isTrue();
+            RateLimitDecision decision = rateLimiter.acquire(rateLimit, SUBJECT, false);
+
+            assertThat(decision.allowed()).isFalse();
+            assertThat(decision.retryAfterMs()).isEqualTo(6000);
+            verify(redisUtil, times(2)).evalForLong(anyString(), anyList(), any(Object[].class));
+            verify(metricsUtil).recordRateLimit("comment-post", RateLimiter.OUTCOME_REJECTED_LOCAL);
+        }
+
+        @Test
+        @DisplayName("按额度匀速补充令牌")
+        void shouldRefillOverTime() {
+            RateLimit rateLimit = rateLimit("commentPost");
+            rateLimiter.acquire(rateLimit, SUBJECT, false);
+            rateLimiter.acquire(rateLimit, SUBJECT, false);
+
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(6));
+
+            assertThat(rateLimiter.acquire(rateLimit, SUBJECT, false).allowed()).isTrue();
+        }
+
+        @Test
+        @DisplayName("被Redis拒绝时退回本地令牌")
+        void shouldRefundLocalTokenWhenRedisRejects() {
+            RateLimit rateLimit = rateLimit("commentPost");
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(1500L);
+
+            rateLimiter.acquire(rateLimit, SUBJECT, false);
+            rateLimiter.acquire(rateLimit, SUBJECT, false);
+            rateLimiter.acquire(rateLimit, SUBJECT, false);
+
+            verify(redisUtil, times(3)).evalForLong(anyString(), anyList(), any(Object[].class));
+            verify(metricsUtil, never()).recordRateLimit("comment-post", RateLimiter.OUTCOME_REJECTED_LOCAL);
+        }
+    }
+
+    @Nested
+    @DisplayName("Redis GCRA测试")
+    class RedisTest {
+
+        @Test
+        @DisplayName("按平均间隔和突发容量传参，Redis拒绝时返回等待时间")
+        void shouldRejectByGcra() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(1500L);
+
+            RateLimitDecision decision = rateLimiter.acquire(rateLimit("commentPost"), SUBJECT, false);
+
+            assertThat(decision.allowed()).isFalse();
+            assertThat(decision.retryAfterMs()).isEqualTo(1500);
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(), eq(List.of(RATE_KEY)), args.capture());
+            assertThat(Arrays.asList(args.getValue())).containsExactly(6000L, 6000L);
+            verify(metricsUtil).recordRateLimit("comment-post", RateLimiter.OUTCOME_REJECTED_REDIS);
+        }
+
+        @Test
+        @DisplayName("Redis不可用时放行")
+        void shouldFailOpen() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(null);
+
+            assertThat(rateLimiter.acquire(rateLimit("commentPost"), SUBJECT, false).allowed()).isTrue();
+            verify(metricsUtil).recordRateLimit("comment-post", RateLimiter.OUTCOME_FAIL_OPEN);
+        }
+    }
+
+    @Nested
+    @DisplayName("策略配置测试")
+    class PolicyTest {
+
+        @Test
+        @DisplayName("影子模式只记录本应拒绝的请求")
+        void shouldAllowInShadowMode() {
+            rateLimitConfig.setShadow(true);
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(1500L);
+
+            assertThat(rateLimiter.acquire(rateLimit("commentPost"), SUBJECT, false).allowed()).isTrue();
+            verify(metricsUtil).recordRateLimit("comment-post", RateLimiter.OUTCOME_SHADOW_REJECTED);
+        }
+
+        @Test
+        @DisplayName("配置覆盖注解上的额度")
+        void shouldApplyPolicyOverride() {
+            RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+            policy.setPermits(60);
+            policy.setBurst(5);
+            rateLimitConfig.getPolicies().put("comment-post", policy);
+
+            rateLimiter.acquire(rateLimit("commentPost"), SUBJECT, false);
+
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(), anyList(), args.capture());
+            assertThat(Arrays.asList(args.getValue())).containsExactly(1000L, 4000L);
+        }
+
+        @Test
+        @DisplayName("关闭的策略直接放行")
+        void shouldSkipDisabledPolicy() {
+            RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+            policy.setEnabled(false);
+            rateLimitConfig.getPolicies().put("comment-post", policy);
+
+            assertThat(rateLimiter.acquire(rateLimit("commentPost"), SUBJECT, false).allowed()).isTrue();
+            verify(redisUtil, never()).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("管理员按倍数放宽额度，倍数为0时不受限")
+        void shouldScaleOrExemptAdmin() {
+            rateLimiter.acquire(rateLimit("aiChat"), SUBJECT, true);
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(), anyList(), args.capture());
+            assertThat(Arrays.asList(args.getValue())).containsExactly(1200L, 10800L);
+
+            assertThat(rateLimiter.acquire(rateLimit("adminExempt"), SUBJECT, true).allowed()).isTrue();
+            verify(metricsUtil).recordRateLimit("ai-chat", RateLimiter.OUTCOME_EXEMPT);
+        }
+
+        @Test
+        @DisplayName("业务代码按给定额度限流，同样可被配置覆盖")
+        void shouldAcquireWithExplicitQuota() {
+            RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+            policy.setBurst(3);
+            rateLimitConfig.getPolicies().put("login-user", policy);
+
+            rateLimiter.acquire("login-user", "name:harry", 10, 600, 5);
+
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(), eq(List.of("byte_logs:rate_limit:login-user:name:harry")),
+                                          args.capture());
+            assertThat(Arrays.asList(args.getValue())).containsExactly(60000L, 120000L);
+        }
+    }
+}
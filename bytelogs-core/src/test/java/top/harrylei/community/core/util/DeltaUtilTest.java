@@ -0,0 +1,80 @@
+package top.harrylei.community.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 二进制增量编码工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("DeltaUtil 测试")
+class DeltaUtilTest {
+
+    private static byte[] article(Random random, int paragraphs) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            text.append("## 第").append(i).append("节\n这是文章正文的一段内容，包含 Markdown 和代码 `x = ")
+                    .append(random.nextInt(100000)).append("`。\n\n");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("随机修改后可以完整还原")
+    void shouldRoundTripRandomEdits() {
+        Random random = new Random(11L);
+        byte[] base = article(random, 500);
+        for (int round = 0; round < 100; round++) {
+            StringBuilder edited = new StringBuilder(new String(base, StandardCharsets.UTF_8));
+            for (int edit = random.nextInt(10); edit > 0; edit--) {
+                int pos = random.nextInt(edited.length());
+                switch (random.nextInt(3)) {
+                    case 0 -> edited.insert(pos, "新增的句子" + random.nextInt());
+                    case 1 -> edited.delete(pos, Math.min(edited.length(), pos + random.nextInt(100)));
+                    default -> edited.replace(pos, Math.min(edited.length(), pos + 3), "改");
+                }
+            }
+            byte[] target = edited.toString().getBytes(StandardCharsets.UTF_8);
+
+            assertThat(DeltaUtil.decode(base, DeltaUtil.encode(base, target))).isEqualTo(target);
+        }
+    }
+
+    @Test
+    @DisplayName("少量修改的增量远小于原文")
+    void shouldProduceSmallDeltaForSmallEdits() {
+        byte[] base = article(new Random(3L), 1000);
+        byte[] target = new String(base, StandardCharsets.UTF_8).replace("第500节", "第五百节")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(DeltaUtil.encode(base, target).length).isLessThan(base.length / 100);
+    }
+
+    @Test
+    @DisplayName("空内容和无公共内容的情况")
+    void shouldHandleEmptyAndUnrelatedContent() {
+        byte[] text = "hello world".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(DeltaUtil.decode(new byte[0], DeltaUtil.encode(new byte[0], text))).isEqualTo(text);
+        assertThat(DeltaUtil.decode(text, DeltaUtil.encode(text, new byte[0]))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("基准内容不匹配或增量损坏时抛出异常")
+    void shouldRejectMismatchedBaseOrCorruptedDelta() {
+        byte[] base = article(new Random(5L), 50);
+        byte[] delta = DeltaUtil.encode(base, base);
+
+        assertThatThrownBy(() -> DeltaUtil.decode("short".getBytes(StandardCharsets.UTF_8), delta))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DeltaUtil.decode(base, new byte[]{9, 1, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
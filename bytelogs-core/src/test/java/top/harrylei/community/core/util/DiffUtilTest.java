@@ -0,0 +1,267 @@
+package top.harrylei.community.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * 文本差异对比工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("DiffUtil 测试")
+class DiffUtilTest {
+
+    private static final String INSERT_PREFIX = "<span class='diff-insert'>";
+    private static final String DELETE_PREFIX = "<span class='diff-delete'>";
+    private static final String SPAN_SUFFIX = "</span>";
+
+    @Nested
+    @DisplayName("词级对比测试")
+    class InlineTest {
+
+        @Test
+        @DisplayName("相同文本返回原文")
+        void shouldReturnOriginalWhenEqual() {
+            assertThat(DiffUtil.diff("标题", "标题")).isEqualTo("标题");
+            assertThat(DiffUtil.diff(null, null)).isNull();
+        }
+
+        @Test
+        @DisplayName("按整词标记修改")
+        void shouldMarkWholeWords() {
+            assertThat(DiffUtil.diff("Spring Boot guide", "Spring Cloud guide"))
+                    .isEqualTo("Spring " + DELETE_PREFIX + "Boot" + SPAN_SUFFIX + INSERT_PREFIX + "Cloud" + SPAN_SUFFIX + " guide");
+        }
+
+        @Test
+        @DisplayName("汉字逐字对比")
+        void shouldSplitIdeographs() {
+            assertThat(DiffUtil.diff("如何发布文章", "如何删除文章"))
+                    .isEqualTo("如何" + DELETE_PREFIX + "发布" + SPAN_SUFFIX + INSERT_PREFIX + "删除" + SPAN_SUFFIX + "文章");
+        }
+
+        @Test
+        @DisplayName("空文本整体标记为插入或删除")
+        void shouldMarkWholeTextWhenOneSideEmpty() {
+            assertThat(DiffUtil.diff(null, "新标题")).isEqualTo(INSERT_PREFIX + "新标题" + SPAN_SUFFIX);
+            assertThat(DiffUtil.diff("旧标题", "")).isEqualTo(DELETE_PREFIX + "旧标题" + SPAN_SUFFIX);
+        }
+
+        @Test
+        @DisplayName("内容经过HTML转义")
+        void shouldEscapeHtml() {
+            assertThat(DiffUtil.diff("a <b>", "a <i>"))
+                    .isEqualTo("a &lt;" + DELETE_PREFIX + "b" + SPAN_SUFFIX + INSERT_PREFIX + "i" + SPAN_SUFFIX + "&gt;");
+        }
+    }
+
+    @Nested
+    @DisplayName("行级对比测试")
+    class LineTest {
+
+        @Test
+        @DisplayName("修改的行先输出删除再输出插入")
+        void shouldWriteDeletionsBeforeInsertions() {
+            assertThat(DiffUtil.diff("第一行\n第二行\n第三行", "第一行\n第2行\r\n第三行\n"))
+                    .isEqualTo("第一行\n" + DELETE_PREFIX + "第二行" + SPAN_SUFFIX + "\n"
+                            + INSERT_PREFIX + "第2行" + SPAN_SUFFIX + "\n第三行");
+        }
+
+        @Test
+        @DisplayName("保留行首缩进")
+        void shouldKeepIndentation() {
+            assertThat(DiffUtil.diff("    code()\nend", "    code()\nfinish"))
+                    .startsWith("    code()\n");
+        }
+
+        @Test
+        @DisplayName("流式输出与字符串结果一致")
+        void shouldStreamSameHtml() throws IOException {
+            String text1 = "# 标题\n正文 <script>\n结尾";
+            String text2 = "# 标题\n正文 & 更新\n结尾\n附录";
+            StringWriter writer = new StringWriter();
+
+            DiffUtil.diff(text1, text2, writer);
+
+            assertThat(writer.toString()).isEqualTo(DiffUtil.diff(text1, text2));
+        }
+
+        @Test
+        @DisplayName("超长文本返回提示信息")
+        void shouldRejectTooLongText() {
+            assertThat(DiffUtil.diff("a".repeat(500001), "b")).contains("文本过长");
+        }
+    }
+
+    @Nested
+    @DisplayName("随机对比测试")
+    class RandomizedTest {
+
+        @Test
+        @DisplayName("编辑脚本可还原两侧文本，且相同行数与LCS矩阵算法一致")
+        void shouldMatchLcsLength() {
+            Random random = new Random(20250601L);
+            for (int round = 0; round < 500; round++) {
+                List<String> lines1 = randomLines(random, random.nextInt(40));
+                List<String> lines2 = mutate(random, lines1);
+                String text1 = String.join("\n", lines1);
+                String text2 = String.join("\n", lines2);
+                if (text1.equals(text2) || !text1.contains("\n") && !text2.contains("\n")) {
+                    continue;
+                }
+
+                List<String> html = List.of(DiffUtil.diff(text1, text2).split("\n", -1));
+
+                assertThat(restore(html, DELETE_PREFIX, INSERT_PREFIX)).isEqualTo(lines1);
+                assertThat(restore(html, INSERT_PREFIX, DELETE_PREFIX)).isEqualTo(lines2);
+                assertThat(html.stream().filter(line -> !line.startsWith("<span")).count())
+                        .isEqualTo(lcsLength(lines1, lines2));
+            }
+        }
+
+        @Test
+        @DisplayName("大文本按直方图切分后仍可还原两侧文本")
+        void shouldRestoreLargeText() {
+            Random random = new Random(7L);
+            List<String> lines1 = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                lines1.add(i % 10 == 0 ? "" : "第" + i + "行 " + random.nextInt(1000));
+            }
+            List<String> lines2 = mutate(random, lines1);
+            String text1 = String.join("\n", lines1);
+            String text2 = String.join("\n", lines2);
+
+            List<String> html = List.of(DiffUtil.diff(text1, text2).split("\n", -1));
+
+            assertThat(restore(html, DELETE_PREFIX, INSERT_PREFIX)).isEqualTo(lines1);
+            assertThat(restore(html, INSERT_PREFIX, DELETE_PREFIX)).isEqualTo(lines2);
+        }
+
+        @Test
+        @DisplayName("差异极大的长文本在搜索步数用尽后整体替换，仍可还原两侧文本")
+        void shouldFallBackWhenEditCostExceeded() {
+            Random random = new Random(11L);
+            List<String> lines1 = new ArrayList<>();
+            List<String> lines2 = new ArrayList<>();
+            for (int i = 0; i < 200000; i++) {
+                lines1.add(random.nextBoolean() ? "a" : "b");
+                lines2.add(random.nextBoolean() ? "a" : "b");
+            }
+            String text1 = String.join("\n", lines1);
+            String text2 = String.join("\n", lines2);
+
+            String diff = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> DiffUtil.diff(text1, text2));
+            List<String> html = List.of(diff.split("\n", -1));
+
+            assertThat(restore(html, DELETE_PREFIX, INSERT_PREFIX)).isEqualTo(lines1);
+            assertThat(restore(html, INSERT_PREFIX, DELETE_PREFIX)).isEqualTo(lines2);
+        }
+
+        @Test
+        @DisplayName("词级对比可还原两侧文本")
+        void shouldRestoreInlineText() {
+            Random random = new Random(42L);
+            String[] words = {"文", "章", "Spring", "boot", " ", "，", "1", "<", "&"};
+            for (int round = 0; round < 500; round++) {
+                String text1 = randomText(random, words);
+                String text2 = randomText(random, words);
+                if (text1.equals(text2)) {
+                    continue;
+                }
+
+                String html = DiffUtil.diff(text1, text2);
+
+                assertThat(unescape(html.replaceAll(INSERT_PREFIX + "[^<]*" + SPAN_SUFFIX, "")
+                        .replaceAll(DELETE_PREFIX + "([^<]*)" + SPAN_SUFFIX, "$1"))).isEqualTo(text1);
+                assertThat(unescape(html.replaceAll(DELETE_PREFIX + "[^<]*" + SPAN_SUFFIX, "")
+                        .replaceAll(INSERT_PREFIX + "([^<]*)" + SPAN_SUFFIX, "$1"))).isEqualTo(text2);
+            }
+        }
+    }
+
+    private static List<String> randomLines(Random random, int size) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            lines.add("line" + random.nextInt(8));
+        }
+        return lines;
+    }
+
+    /**
+     * 随机删除、插入和修改若干行
+     */
+    private static List<String> mutate(Random random, List<String> lines) {
+        List<String> result = new ArrayList<>();
+        for (String line : lines) {
+            int action = random.nextInt(10);
+            if (action == 0) {
+                continue;
+            }
+            if (action == 1) {
+                result.add("line" + random.nextInt(8));
+            }
+            result.add(action == 2 ? "changed" + random.nextInt(8) : line);
+        }
+        if (random.nextBoolean()) {
+            result.add("tail" + random.nextInt(3));
+        }
+        return result;
+    }
+
+    private static String randomText(Random random, String[] words) {
+        StringBuilder text = new StringBuilder();
+        int size = random.nextInt(12);
+        for (int i = 0; i < size; i++) {
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 去掉另一侧的行、展开本侧的标记，还原一侧的行
+     */
+    private static List<String> restore(List<String> html, String keepPrefix, String dropPrefix) {
+        List<String> lines = new ArrayList<>();
+        for (String line : html) {
+            if (line.startsWith(dropPrefix)) {
+                continue;
+            }
+            if (line.startsWith(keepPrefix)) {
+                line = line.substring(keepPrefix.length(), line.length() - SPAN_SUFFIX.length());
+            }
+            lines.add(unescape(line));
+        }
+        return lines;
+    }
+
+    private static String unescape(String html) {
+        return html.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&#x27;", "'").replace("&amp;", "&");
+    }
+
+    /**
+     * 原实现使用的LCS矩阵算法，作为最短编辑脚本的参照
+     */
+    private static int lcsLength(List<String> lines1, List<String> lines2) {
+        int[][] dp = new int[lines1.size() + 1][lines2.size() + 1];
+        for (int i = 0; i < lines1.size(); i++) {
+            for (int j = 0; j < lines2.size(); j++) {
+                dp[i + 1][j + 1] = lines1.get(i).equals(lines2.get(j))
+                        ? dp[i][j] + 1
+                        : Math.max(dp[i][j + 1], dp[i + 1][j]);
+            }
+        }
+        return dp[lines1.size()][lines2.size()];
+    }
+}
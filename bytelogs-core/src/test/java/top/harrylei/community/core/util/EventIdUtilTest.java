@@ -0,0 +1,52 @@
+package top.harrylei.community.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 事件ID工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("EventIdUtil 测试")
+class EventIdUtilTest {
+
+    @Test
+    @DisplayName("生成26位Crockford Base32字符串")
+    void shouldGenerateCrockfordBase32() {
+        assertThat(EventIdUtil.nextId()).hasSize(26).matches("[0-9A-HJKMNP-TV-Z]{26}");
+    }
+
+    @Test
+    @DisplayName("连续生成的ID严格递增且不重复")
+    void shouldBeMonotonic() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(EventIdUtil.nextId());
+        }
+
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    @DisplayName("可以从ID中解析出生成时间")
+    void shouldDecodeTimestamp() {
+        long before = System.currentTimeMillis();
+        String id = EventIdUtil.nextId();
+        long after = System.currentTimeMillis();
+
+        assertThat(EventIdUtil.timestamp(id)).isBetween(before, after);
+    }
+
+    @Test
+    @DisplayName("非ULID格式的ID解析时间返回null")
+    void shouldReturnNullForUuid() {
+        assertThat(EventIdUtil.timestamp("550e8400-e29b-41d4-a716-446655440000")).isNull();
+        assertThat(EventIdUtil.timestamp("UUUUUUUUUUUUUUUUUUUUUUUUUU")).isNull();
+    }
+}
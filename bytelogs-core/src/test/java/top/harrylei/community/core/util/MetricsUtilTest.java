@@ -0,0 +1,76 @@
+package top.harrylei.community.core.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 指标工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("MetricsUtil 测试")
+class MetricsUtilTest {
+
+    private MeterRegistry meterRegistry;
+    private MetricsUtil metricsUtil;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metricsUtil = new MetricsUtil(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("缓存命中和未命中分别计数")
+    void shouldCountCacheHitsAndMisses() {
+        metricsUtil.recordCache(MetricsUtil.CACHE_USER, true);
+        metricsUtil.recordCache(MetricsUtil.CACHE_USER, true);
+        metricsUtil.recordCache(MetricsUtil.CACHE_USER, false);
+
+        assertThat(meterRegistry.get("bytelogs.cache.gets").tag("cache", "user").tag("result", "hit")
+                .counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("bytelogs.cache.gets").tag("cache", "user").tag("result", "miss")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Kafka处理抛出异常时按失败计时并继续抛出")
+    void shouldRecordKafkaFailure() {
+        metricsUtil.recordKafkaConsume("topic-a", () -> {
+        });
+        assertThatThrownBy(() -> metricsUtil.recordKafkaConsume("topic-a", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get("bytelogs.kafka.consume").tag("topic", "topic-a").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("bytelogs.kafka.consume").tag("topic", "topic-a").tag("outcome", "error")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("跳过数为0时不注册计数器")
+    void shouldIgnoreZeroSkipCount() {
+        metricsUtil.recordKafkaSkip("topic-a", MetricsUtil.SKIP_DUPLICATE, 0);
+        metricsUtil.recordKafkaSkip("topic-a", MetricsUtil.SKIP_INVALID, 3);
+
+        assertThat(meterRegistry.find("bytelogs.kafka.skipped").tag("reason", "duplicate").counter()).isNull();
+        assertThat(meterRegistry.get("bytelogs.kafka.skipped").tag("reason", "invalid").counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("无法计算输出速度时只记录首token耗时")
+    void shouldSkipTokensPerSecondWhenUnknown() {
+        metricsUtil.recordAiStream("OPENAI", "gpt-4o", 800, -1);
+
+        assertThat(meterRegistry.get("bytelogs.ai.stream.first.token").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("bytelogs.ai.stream.tokens.per.second").summary()).isNull();
+    }
+}
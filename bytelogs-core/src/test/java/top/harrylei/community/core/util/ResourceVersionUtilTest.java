@@ -0,0 +1,63 @@
+package top.harrylei.community.core.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 资源版本号工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("ResourceVersionUtil 测试")
+class ResourceVersionUtilTest {
+
+    private RedisUtil redisUtil;
+    private RedisHealthMonitor redisHealthMonitor;
+    private ResourceVersionUtil resourceVersionUtil;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        redisHealthMonitor = mock(RedisHealthMonitor.class);
+        resourceVersionUtil = new ResourceVersionUtil(redisUtil, redisHealthMonitor);
+    }
+
+    @Test
+    @DisplayName("返回Redis中的版本号，从未变更过时为0")
+    void shouldReturnStoredVersion() {
+        when(redisUtil.evalForLong(anyString(), eq(List.of("byte_logs:resource_version:tag"))))
+                .thenReturn(0L);
+
+        assertThat(resourceVersionUtil.getVersion(ResourceVersionUtil.TAG)).isZero();
+    }
+
+    @Test
+    @DisplayName("读取失败时返回null，不当作版本0")
+    void shouldReturnNullOnRedisError() {
+        when(redisUtil.evalForLong(anyString(), anyList())).thenReturn(null);
+
+        assertThat(resourceVersionUtil.getVersion(ResourceVersionUtil.TAG)).isNull();
+    }
+
+    @Test
+    @DisplayName("Redis不健康时直接返回null")
+    void shouldSkipWhenRedisUnhealthy() {
+        when(redisHealthMonitor.isUnhealthy()).thenReturn(true);
+
+        assertThat(resourceVersionUtil.getVersion(ResourceVersionUtil.TAG)).isNull();
+        verify(redisUtil, never()).evalForLong(anyString(), anyList(), any(Object[].class));
+    }
+}
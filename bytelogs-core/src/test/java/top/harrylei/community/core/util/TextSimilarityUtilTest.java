@@ -0,0 +1,66 @@
+package top.harrylei.community.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 文本相似度工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("TextSimilarityUtil 测试")
+class TextSimilarityUtilTest {
+
+    @Test
+    @DisplayName("归一化忽略大小写、全半角和标点")
+    void shouldNormalizeCaseWidthAndPunctuation() {
+        assertThat(TextSimilarityUtil.normalize("  如何发布ＡＲＴＩＣＬＥ？？ 需要审核吗！"))
+                .isEqualTo("如何发布article 需要审核吗");
+    }
+
+    @Test
+    @DisplayName("相同文本的MinHash签名一致")
+    void shouldProduceSameSignatureForSameText() {
+        String text = TextSimilarityUtil.normalize("博客平台如何修改个人头像");
+
+        assertThat(TextSimilarityUtil.minHash(text))
+                .hasSize(TextSimilarityUtil.MIN_HASH_SIZE)
+                .containsExactly(TextSimilarityUtil.minHash(text));
+    }
+
+    @Test
+    @DisplayName("近似文本至少有一个LSH分段相同，无关文本没有")
+    void shouldShareBandsOnlyForSimilarTexts() {
+        String[] base = bands("博客平台如何修改个人头像");
+        String[] similar = bands("博客平台如何修改个人头像呢？");
+        String[] unrelated = bands("Redis集群的主从复制原理是什么");
+
+        assertThat(sharedBands(base, similar)).isPositive();
+        assertThat(sharedBands(base, unrelated)).isZero();
+    }
+
+    @Test
+    @DisplayName("Jaccard相似度按二元组集合计算")
+    void shouldComputeJaccardOnShingles() {
+        assertThat(TextSimilarityUtil.jaccard("abcd", "abcd")).isEqualTo(1.0);
+        // {ab, bc, cd} 与 {ab, bc, ce}：交集2，并集4
+        assertThat(TextSimilarityUtil.jaccard("abcd", "abce")).isEqualTo(0.5);
+        assertThat(TextSimilarityUtil.jaccard("abcd", "wxyz")).isZero();
+    }
+
+    private static String[] bands(String text) {
+        return TextSimilarityUtil.lshBands(TextSimilarityUtil.minHash(TextSimilarityUtil.normalize(text)));
+    }
+
+    private static int sharedBands(String[] a, String[] b) {
+        int shared = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].equals(b[i])) {
+                shared++;
+            }
+        }
+        return shared;
+    }
+}
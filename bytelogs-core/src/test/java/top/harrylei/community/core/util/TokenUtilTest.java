@@ -0,0 +1,53 @@
+package top.harrylei.community.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token估算工具类测试
+ *
+ * @author harry
+ */
+@DisplayName("TokenUtil 测试")
+class TokenUtilTest {
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @DisplayName("空文本估算为0")
+    void shouldReturnZeroForEmptyText(String text) {
+        assertThat(TokenUtil.estimate(text)).isZero();
+    }
+
+    @Test
+    @DisplayName("中文按每字一个token估算")
+    void shouldCountCjkCharactersAsOneToken() {
+        assertThat(TokenUtil.estimate("你好世界")).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("英文按约4个字符一个token估算，忽略空白")
+    void shouldCountLatinCharactersByFour() {
+        assertThat(TokenUtil.estimate("hello world")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("消息估算包含固定开销")
+    void shouldAddMessageOverhead() {
+        assertThat(TokenUtil.estimateMessage("你好")).isEqualTo(2 + TokenUtil.MESSAGE_OVERHEAD_TOKENS);
+    }
+
+    @Test
+    @DisplayName("增量估算与全文估算一致")
+    void shouldMatchWholeTextWhenCountingIncrementally() {
+        TokenUtil.Counter counter = new TokenUtil.Counter();
+        for (String chunk : new String[]{"he", "llo wo", "rld", "，你好"}) {
+            counter.append(chunk);
+        }
+
+        assertThat(counter.tokens()).isEqualTo(TokenUtil.estimate("hello world，你好"));
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.context.annotation.Configuration;
         "top.harrylei.community.service.notify.repository.mapper",
         "top.harrylei.community.service.rank.repository.mapper",
         "top.harrylei.community.service.ai.repository.mapper",
+        "top.harrylei.community.service.outbox.repository.mapper",
 })
 public class CommunityServiceAutoConfig {
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package top.harrylei.community.service.ai.adapter;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * ChatClient选择器，根据提供商返回对应的ChatClient
+ *
+ * @author harry
+ */
+@Component
+public class ChatClientSelector {
+
+    private final Map<ChatClientTypeEnum, ChatClient> chatClients = new EnumMap<>(ChatClientTypeEnum.class);
+    private final AiProviderConfig aiProviderConfig;
+
+    public ChatClientSelector(@Qualifier("deepseekChatClient") ChatClient deepseekChatClient,
+                              @Qualifier("qwenChatClient") ChatClient qwenChatClient,
+                              @Qualifier("openaiChatClient") ObjectProvider<ChatClient> openaiChatClient,
+                              AiProviderConfig aiProviderConfig) {
+        this.chatClients.put(ChatClientTypeEnum.DEEPSEEK, deepseekChatClient);
+        this.chatClients.put(ChatClientTypeEnum.QWEN, qwenChatClient);
+        openaiChatClient.ifAvailable(client -> this.chatClients.put(ChatClientTypeEnum.OPENAI, client));
+        this.aiProviderConfig = aiProviderConfig;
+    }
+
+    /**
+     * 提供商是否可用：已配置ChatClient且在配置中启用
+     *
+     * @param provider AI提供商
+     * @return 是否可用
+     */
+    public boolean isAvailable(ChatClientTypeEnum provider) {
+        return provider != null && chatClients.containsKey(provider) && aiProviderConfig.isProviderEnabled(provider);
+    }
+
+    /**
+     * 根据provider选择对应的ChatClient，未指定时使用默认提供商
+     *
+     * @param provider AI提供商
+     * @return ChatClient
+     */
+    public ChatClient select(ChatClientTypeEnum provider) {
+        if (provider == null) {
+            provider = aiProviderConfig.getDefaultProvider();
+        }
+
+        ChatClient chatClient = chatClients.get(provider);
+        if (chatClient == null) {
+            throw new IllegalStateException(provider.getLabel() + " ChatClient未配置，请完成相关配置");
+        }
+        return chatClient;
+    }
+}
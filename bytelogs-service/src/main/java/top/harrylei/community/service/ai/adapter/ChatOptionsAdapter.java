@@ -36,21 +36,41 @@ public class ChatOptionsAdapter {
         }
 
         return switch (provider) {
-            case DEEPSEEK, QWEN, OPENAI -> buildOpenAiOptions(chatReq, provider);
+            case DEEPSEEK, QWEN, OPENAI -> buildOpenAiOptions(chatReq, provider, chatReq.getModel());
             // TODO 未来可以扩展其他提供商的特定Options
             // case CLAUDE -> buildClaudeOptions(chatReq, provider);
         };
     }
 
+    /**
+     * 为实际路由到的提供商构建ChatOptions
+     * <p>
+     * 故障转移到其他提供商时，用户指定的模型不适用，改用该提供商的默认模型
+     *
+     * @param chatReq  聊天请求
+     * @param provider 实际使用的提供商
+     * @return 对应的ChatOptions对象
+     */
+    public Object buildRoutedChatOptions(ChatReq chatReq, ChatClientTypeEnum provider) {
+        ChatClientTypeEnum requested = chatReq.getProvider() != null ? chatReq.getProvider() : aiProviderConfig.getDefaultProvider();
+        if (provider == requested) {
+            return buildChatOptions(chatReq, provider);
+        }
+
+        return switch (provider) {
+            case DEEPSEEK, QWEN, OPENAI -> buildOpenAiOptions(chatReq, provider, null);
+        };
+    }
+
     /**
      * 构建OpenAI的ChatOptions
      */
-    private OpenAiChatOptions buildOpenAiOptions(ChatReq chatReq, ChatClientTypeEnum provider) {
+    private OpenAiChatOptions buildOpenAiOptions(ChatReq chatReq, ChatClientTypeEnum provider, String userModel) {
         OpenAiChatOptions.Builder builder = OpenAiChatOptions.builder();
         boolean hasOptions = false;
 
         // 1. 设置模型
-        String model = determineModel(chatReq.getModel(), provider);
+        String model = determineModel(userModel, provider);
         if (StringUtils.hasText(model)) {
             builder.withModel(model);
             hasOptions = true;
@@ -71,6 +91,12 @@ public class ChatOptionsAdapter {
             hasOptions = true;
         }
 
+        // 4. 流式响应在最后一个片段返回用量，结束时无需再估算
+        if (aiProviderConfig.isStreamUsageEnabled(provider)) {
+            builder.withStreamUsage(true);
+            hasOptions = true;
+        }
+
         log.debug("构建{}的ChatOptions: model={}, temperature={}, maxTokens={}",
                 provider.getLabel(), model, chatReq.getTemperature(), chatReq.getMaxTokens());
 
@@ -0,0 +1,57 @@
+package top.harrylei.community.service.ai.adapter;
+
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.model.ai.dto.ChatTokenUsage;
+
+/**
+ * 用量适配器 - 从各提供商的响应元数据中读取token用量
+ *
+ * @author harry
+ */
+@Component
+public class ChatUsageAdapter {
+
+    /**
+     * 读取提供商返回的用量
+     *
+     * @param provider 实际响应的提供商
+     * @param metadata 响应元数据，流式响应取最后一个片段的元数据
+     * @return 用量，提供商未返回时为null
+     */
+    public ChatTokenUsage extractUsage(ChatClientTypeEnum provider, ChatResponseMetadata metadata) {
+        if (provider == null || metadata == null) {
+            return null;
+        }
+
+        return switch (provider) {
+            case DEEPSEEK, QWEN, OPENAI -> fromOpenAiUsage(metadata.getUsage());
+        };
+    }
+
+    /**
+     * OpenAI兼容接口的用量，未返回时各字段为0
+     */
+    private static ChatTokenUsage fromOpenAiUsage(Usage usage) {
+        if (usage == null) {
+            return null;
+        }
+
+        long promptTokens = valueOf(usage.getPromptTokens());
+        long completionTokens = valueOf(usage.getGenerationTokens());
+        long totalTokens = valueOf(usage.getTotalTokens());
+        if (totalTokens <= 0) {
+            totalTokens = promptTokens + completionTokens;
+        }
+        if (totalTokens <= 0) {
+            return null;
+        }
+        return new ChatTokenUsage(promptTokens, completionTokens, totalTokens, false);
+    }
+
+    private static long valueOf(Long tokens) {
+        return tokens != null && tokens > 0 ? tokens : 0L;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +33,16 @@ public class AiProviderConfig {
      */
     private DefaultSettings defaults = new DefaultSettings();
 
+    /**
+     * 提供商路由配置 - 熔断、并发限制、对冲请求和故障转移
+     */
+    private RouterSettings router = new RouterSettings();
+
+    /**
+     * 响应缓存配置 - 相同或近似的问题直接返回缓存的回答
+     */
+    private ResponseCacheSettings responseCache = new ResponseCacheSettings();
+
     /**
      * 获取默认提供商枚举
      */
@@ -151,6 +162,18 @@ public class AiProviderConfig {
     }
 
 
+    /**
+     * 检查提供商的流式响应是否返回用量，未配置时默认返回
+     */
+    public boolean isStreamUsageEnabled(ChatClientTypeEnum provider) {
+        if (provider == null) {
+            return false;
+        }
+
+        ProviderInfo providerInfo = providers.get(provider.getName());
+        return providerInfo == null || providerInfo.isStreamUsage();
+    }
+
     /**
      * 获取有效的默认温度范围
      */
@@ -203,6 +226,11 @@ public class AiProviderConfig {
          */
         private Integer maxTokens;
 
+        /**
+         * 流式响应是否要求在最后一个片段返回用量（OpenAI兼容接口的 stream_options.include_usage）
+         */
+        private boolean streamUsage = true;
+
         /**
          * 其他扩展配置
          */
@@ -229,4 +257,131 @@ public class AiProviderConfig {
          */
         private Integer maxTokens;
     }
-}
\ No newline at end of file
+
+    /**
+     * 提供商路由配置
+     */
+    @Data
+    public static class RouterSettings {
+        /**
+         * 首个token输出前失败时是否切换到其他提供商
+         */
+        private boolean failoverEnabled = true;
+
+        /**
+         * 非流式请求是否启用对冲请求
+         */
+        private boolean hedgeEnabled = true;
+
+        /**
+         * 对冲请求的最小等待时间，实际等待时间取该值与主提供商p95延迟的较大者
+         */
+        private Duration hedgeMinDelay = Duration.ofSeconds(1);
+
+        /**
+         * 延迟样本不足时的对冲等待时间
+         */
+        private Duration hedgeDefaultDelay = Duration.ofSeconds(5);
+
+        /**
+         * 非流式请求的最长等待时间
+         */
+        private Duration callTimeout = Duration.ofSeconds(60);
+
+        /**
+         * 熔断统计的滚动窗口
+         */
+        private Duration windowSize = Duration.ofSeconds(60);
+
+        /**
+         * 窗口内最少调用次数，达到后才计算失败率
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 失败率阈值，达到后熔断
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 慢调用阈值（流式请求按首个token耗时计算）
+         */
+        private Duration slowCallThreshold = Duration.ofSeconds(20);
+
+        /**
+         * 慢调用比例阈值，达到后熔断
+         */
+        private double slowCallRateThreshold = 0.8;
+
+        /**
+         * 熔断持续时间，之后放行一个探测请求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 初始并发上限
+         */
+        private int initialConcurrency = 20;
+
+        /**
+         * 最小并发上限
+         */
+        private int minConcurrency = 2;
+
+        /**
+         * 最大并发上限
+         */
+        private int maxConcurrency = 200;
+    }
+
+    /**
+     * 响应缓存配置
+     */
+    @Data
+    public static class ResponseCacheSettings {
+        /**
+         * 是否启用响应缓存，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓存有效期
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * 是否按用户隔离缓存，关闭后相同上下文中的问题可跨用户命中
+         */
+        private boolean perUser = true;
+
+        /**
+         * 是否启用近似问题匹配，默认关闭，只命中归一化后完全相同的问题
+         */
+        private boolean nearDuplicateEnabled = false;
+
+        /**
+         * 近似匹配的Jaccard相似度阈值
+         */
+        private double similarityThreshold = 0.8;
+
+        /**
+         * 参与近似匹配的最短问题长度（归一化后的字符数），过短的问题只做精确匹配
+         */
+        private int minNearDuplicateLength = 6;
+
+        /**
+         * 近似匹配时最多比对的候选数
+         */
+        private int maxCandidates = 20;
+
+        /**
+         * 单个LSH分段最多索引的问题数
+         */
+        private int maxBucketSize = 64;
+
+        /**
+         * 超过该长度的回答不缓存
+         */
+        private int maxResponseLength = 8000;
+    }
+}
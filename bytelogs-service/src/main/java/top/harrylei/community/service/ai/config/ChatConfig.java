@@ -6,8 +6,12 @@ import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 多厂商ChatClient配置
@@ -49,4 +53,53 @@ public class ChatConfig {
 
         return ChatClient.create(qwenModel);
     }
-}
\ No newline at end of file
+
+    /**
+     * OpenAI，配置了API Key时才创建，未创建时不参与故障转移
+     */
+    @Bean
+    @Qualifier("openaiChatClient")
+    @ConditionalOnProperty(prefix = "spring.ai.openai", name = "api-key")
+    public ChatClient openaiChatClient(
+            @Value("${spring.ai.openai.api-key}") String apiKey,
+            @Value("${spring.ai.openai.base-url:https://api.openai.com}") String baseUrl) {
+
+        log.info("初始化 OpenAI ChatClient");
+        OpenAiApi openaiApi = new OpenAiApi(baseUrl, apiKey);
+        OpenAiChatModel openaiModel = new OpenAiChatModel(openaiApi);
+
+        return ChatClient.create(openaiModel);
+    }
+
+    /**
+     * 对话标题生成线程池，容量有限，繁忙时放弃任务（对话保留临时标题）
+     */
+    @Bean("chatTitleExecutor")
+    public ThreadPoolTaskExecutor chatTitleExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(4);
+        executor.setThreadNamePrefix("chat-title-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * AI路由线程池，执行非流式调用以便对冲请求，满载时跳过对应提供商
+     */
+    @Bean("chatRouterExecutor")
+    public ThreadPoolTaskExecutor chatRouterExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("chat-router-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
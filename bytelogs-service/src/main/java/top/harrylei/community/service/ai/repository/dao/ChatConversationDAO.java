@@ -68,6 +68,19 @@ public class ChatConversationDAO extends ServiceImpl<ChatConversationMapper, Cha
         updateById(conversation);
     }
 
+    /**
+     * 更新对话标题，仅当当前标题与预期一致时生效
+     *
+     * @return 是否更新成功
+     */
+    public boolean updateTitle(Long conversationId, String expectedTitle, String title) {
+        return lambdaUpdate()
+                .eq(ChatConversationDO::getId, conversationId)
+                .eq(ChatConversationDO::getTitle, expectedTitle)
+                .set(ChatConversationDO::getTitle, title)
+                .update();
+    }
+
     /**
      * 软删除对话
      */
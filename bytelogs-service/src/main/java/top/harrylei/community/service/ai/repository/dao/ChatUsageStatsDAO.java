@@ -7,6 +7,7 @@ import top.harrylei.community.service.ai.repository.mapper.ChatUsageStatsMapper;
 import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * AI使用统计DAO
@@ -42,6 +43,16 @@ public class ChatUsageStatsDAO extends ServiceImpl<ChatUsageStatsMapper, ChatUsa
                 .sum();
     }
     
+    /**
+     * 查询用户某日的全部使用统计（各提供商、模型）
+     */
+    public List<ChatUsageStatsDO> listByUserIdAndDate(Long userId, LocalDate date) {
+        return lambdaQuery()
+                .eq(ChatUsageStatsDO::getUserId, userId)
+                .eq(ChatUsageStatsDO::getDate, date)
+                .list();
+    }
+
     /**
      * 根据用户ID、日期、提供商和模型查询使用统计
      */
@@ -54,4 +65,14 @@ public class ChatUsageStatsDAO extends ServiceImpl<ChatUsageStatsMapper, ChatUsa
                 .eq(ChatUsageStatsDO::getModelName, modelName)
                 .one();
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量累加使用统计，不存在时插入
+     */
+    public void upsertBatch(List<ChatUsageStatsDO> usages) {
+        if (usages == null || usages.isEmpty()) {
+            return;
+        }
+        getBaseMapper().upsertBatch(usages);
+    }
+}
@@ -2,9 +2,12 @@ package top.harrylei.community.service.ai.repository.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import top.harrylei.community.api.model.ai.dto.ChatUsageStatsDTO;
 import top.harrylei.community.service.ai.repository.entity.ChatUsageStatsDO;
 
+import java.util.List;
+
 /**
  * AI使用统计Mapper接口
  *
@@ -14,4 +17,12 @@ import top.harrylei.community.service.ai.repository.entity.ChatUsageStatsDO;
 public interface ChatUsageStatsMapper extends BaseMapper<ChatUsageStatsDO> {
 
     ChatUsageStatsDTO toDTO(ChatUsageStatsDO usage);
+
+    /**
+     * 批量累加使用统计，不存在时插入
+     *
+     * @param list 使用量增量列表（按用户、日期、提供商、模型已合并）
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("list") List<ChatUsageStatsDO> list);
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package top.harrylei.community.service.ai.router;
+
+/**
+ * 自适应并发限制器
+ * <p>
+ * 按AIMD调整并发上限：每次成功上限增加 1/limit（约每轮并发加一），
+ * 失败或慢调用时上限乘以 {@link #BACKOFF_RATIO}，上限始终在最小值与最大值之间。
+ *
+ * @author harry
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 失败时的收缩比例
+     */
+    static final double BACKOFF_RATIO = 0.7;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 占用一个并发名额
+     *
+     * @return 当前并发已满时返回false，占用后必须以 onSuccess、onDropped 或 onIgnored 之一归还
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 调用成功，归还名额并增加上限
+     */
+    public synchronized void onSuccess() {
+        release();
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+
+    /**
+     * 调用失败或过慢，归还名额并收缩上限
+     */
+    public synchronized void onDropped() {
+        release();
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    /**
+     * 调用被取消，只归还名额
+     */
+    public synchronized void onIgnored() {
+        release();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+}
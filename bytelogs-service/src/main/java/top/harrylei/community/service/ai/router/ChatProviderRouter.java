@@ -0,0 +1,400 @@
+package top.harrylei.community.service.ai.router;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.service.ai.adapter.ChatClientSelector;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.config.AiProviderConfig.RouterSettings;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * AI提供商路由器
+ * <p>
+ * 在现有ChatClient之上为每个提供商维护熔断器、自适应并发限制和耗时统计：
+ * <ul>
+ *     <li>首选提供商（未指定时为默认提供商）排在最前，其余已启用的提供商按p95耗时排序作为备选</li>
+ *     <li>熔断或并发已满的提供商直接跳过</li>
+ *     <li>非流式请求在主提供商超过p95耗时仍未返回时，向下一个提供商发出对冲请求，先成功者胜出</li>
+ *     <li>请求失败时切换到下一个提供商；流式请求只在尚未输出任何内容时切换，避免拼接两个模型的回答</li>
+ * </ul>
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+public class ChatProviderRouter {
+
+    private static final String NO_PROVIDER_AVAILABLE = "没有可用的AI提供商";
+
+    /**
+     * 对冲等待时间参考的耗时分位
+     */
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    /**
+     * 每个提供商保留的耗时样本数
+     */
+    private static final int LATENCY_SAMPLES = 200;
+
+    private final ChatClientSelector chatClientSelector;
+    private final AiProviderConfig aiProviderConfig;
+    private final Executor executor;
+    private final Clock clock;
+    private final Map<ChatClientTypeEnum, ProviderHealth> healths = new EnumMap<>(ChatClientTypeEnum.class);
+
+    public ChatProviderRouter(ChatClientSelector chatClientSelector,
+                              AiProviderConfig aiProviderConfig,
+                              @Qualifier("chatRouterExecutor") Executor executor) {
+        this(chatClientSelector, aiProviderConfig, executor, Clock.systemUTC());
+    }
+
+    public ChatProviderRouter(ChatClientSelector chatClientSelector, AiProviderConfig aiProviderConfig,
+                              Executor executor, Clock clock) {
+        this.chatClientSelector = chatClientSelector;
+        this.aiProviderConfig = aiProviderConfig;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * 路由结果
+     *
+     * @param provider 实际响应的提供商
+     * @param response 模型响应
+     */
+    public record RoutedResponse(ChatClientTypeEnum provider, ChatResponse response) {
+    }
+
+    /**
+     * 非流式调用，支持对冲请求和故障转移
+     *
+     * @param preferred     首选提供商，为null时使用默认提供商
+     * @param promptFactory 按提供商构建Prompt（不同提供商的模型参数不同）
+     * @return 先成功返回的响应
+     */
+    public RoutedResponse call(ChatClientTypeEnum preferred, Function<ChatClientTypeEnum, Prompt> promptFactory) {
+        RouterSettings settings = aiProviderConfig.getRouter();
+        Deque<ChatClientTypeEnum> candidates = new ArrayDeque<>(candidates(preferred));
+        BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+        List<Attempt> running = new ArrayList<>();
+        long deadline = System.nanoTime() + settings.getCallTimeout().toNanos();
+        boolean hedged = !settings.isHedgeEnabled();
+        Throwable lastError = null;
+
+        try {
+            while (true) {
+                if (running.isEmpty()) {
+                    Attempt attempt = launchNext(candidates, promptFactory, completed);
+                    if (attempt == null) {
+                        throw routingFailure(lastError);
+                    }
+                    running.add(attempt);
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("AI服务响应超时", new TimeoutException());
+                }
+
+                // 只有一个请求在途且还有备选时，等待对冲延迟，否则等到超时
+                boolean canHedge = !hedged && running.size() == 1 && !candidates.isEmpty();
+                long wait = canHedge ? Math.min(remaining, hedgeDelay(running.get(0).provider()).toNanos()) : remaining;
+                Attempt done = completed.poll(wait, TimeUnit.NANOSECONDS);
+
+                if (done == null) {
+                    if (canHedge) {
+                        hedged = true;
+                        Attempt hedge = launchNext(candidates, promptFactory, completed);
+                        if (hedge != null) {
+                            log.info("AI提供商{}响应较慢，对冲请求{}", running.get(0).provider(), hedge.provider());
+                            running.add(hedge);
+                        }
+                    }
+                    continue;
+                }
+
+                running.removeIf(attempt -> attempt.future() == done.future());
+                if (done.error() == null) {
+                    return new RoutedResponse(done.provider(), done.response());
+                }
+
+                lastError = done.error();
+                log.warn("AI提供商{}调用失败: {}", done.provider(), lastError.getMessage());
+                if (!settings.isFailoverEnabled() && running.isEmpty()) {
+                    throw routingFailure(lastError);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("AI调用被中断", e);
+        } finally {
+            // 输掉的请求已无法中断底层HTTP调用，只丢弃其结果，耗时和结果仍会计入统计
+            running.forEach(attempt -> attempt.future().cancel(false));
+        }
+    }
+
+    /**
+     * 流式调用，在尚未输出内容前失败时切换到下一个提供商
+     *
+     * @param preferred          首选提供商，为null时使用默认提供商
+     * @param promptFactory      按提供商构建Prompt
+     * @param onProviderSelected 每次开始请求某个提供商时回调，故障转移时会再次回调
+     * @return 响应流，首个有内容的片段之前的空片段会被过滤
+     */
+    public Flux<ChatResponse> stream(ChatClientTypeEnum preferred, Function<ChatClientTypeEnum, Prompt> promptFactory,
+                                     Consumer<ChatClientTypeEnum> onProviderSelected) {
+        return Flux.defer(() -> streamFrom(candidates(preferred), 0, promptFactory, onProviderSelected, null));
+    }
+
+    /**
+     * 获取提供商的熔断器状态
+     */
+    public ProviderCircuitBreaker.State getState(ChatClientTypeEnum provider) {
+        return health(provider).breaker.getState();
+    }
+
+    private Flux<ChatResponse> streamFrom(List<ChatClientTypeEnum> candidates, int index,
+                                          Function<ChatClientTypeEnum, Prompt> promptFactory,
+                                          Consumer<ChatClientTypeEnum> onProviderSelected, Throwable lastError) {
+        if (index >= candidates.size()) {
+            return Flux.error(routingFailure(lastError));
+        }
+
+        ChatClientTypeEnum provider = candidates.get(index);
+        ProviderHealth health = health(provider);
+        if (!health.tryAcquire()) {
+            log.info("AI提供商{}熔断或并发已满，跳过", provider);
+            return streamFrom(candidates, index + 1, promptFactory, onProviderSelected, lastError);
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean emitted = new AtomicBoolean();
+        AtomicBoolean finished = new AtomicBoolean();
+        Flux<ChatResponse> source;
+        try {
+            onProviderSelected.accept(provider);
+            source = chatClientSelector.select(provider).prompt(promptFactory.apply(provider)).stream().chatResponse();
+        } catch (Exception e) {
+            source = Flux.error(e);
+        }
+
+        return source
+                .doOnNext(response -> {
+                    if (!emitted.get() && hasContent(response) && emitted.compareAndSet(false, true)) {
+                        // 流式请求按首个token耗时判断慢调用
+                        health.breaker.onSuccess(elapsedMillis(start));
+                    }
+                })
+                .filter(response -> emitted.get())
+                .concatWith(Mono.defer(() -> emitted.get()
+                        ? Mono.<ChatResponse>empty()
+                        : Mono.error(new IllegalStateException("AI响应为空"))))
+                .doOnError(error -> {
+                    if (finished.compareAndSet(false, true)) {
+                        if (!emitted.get()) {
+                            health.breaker.onFailure(elapsedMillis(start));
+                        }
+                        health.limiter.onDropped();
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (finished.compareAndSet(false, true)) {
+                        health.limiter.onSuccess();
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (finished.compareAndSet(false, true)) {
+                        if (!emitted.get()) {
+                            health.breaker.onIgnored();
+                        }
+                        health.limiter.onIgnored();
+                    }
+                })
+                .onErrorResume(error -> !emitted.get() && aiProviderConfig.getRouter().isFailoverEnabled(), error -> {
+                    log.warn("AI提供商{}流式调用失败，尝试下一个提供商: {}", provider, error.getMessage());
+                    return streamFrom(candidates, index + 1, promptFactory, onProviderSelected, error);
+                });
+    }
+
+    /**
+     * 依次尝试发起请求，跳过熔断、并发已满或线程池已满的提供商
+     */
+    private Attempt launchNext(Deque<ChatClientTypeEnum> candidates, Function<ChatClientTypeEnum, Prompt> promptFactory,
+                               BlockingQueue<Attempt> completed) {
+        while (!candidates.isEmpty()) {
+            ChatClientTypeEnum provider = candidates.poll();
+            ProviderHealth health = health(provider);
+            if (!health.tryAcquire()) {
+                log.info("AI提供商{}熔断或并发已满，跳过", provider);
+                continue;
+            }
+
+            CompletableFuture<ChatResponse> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> invoke(provider, health, promptFactory), executor);
+            } catch (RejectedExecutionException e) {
+                log.warn("AI路由线程池已满，跳过提供商{}", provider);
+                health.breaker.onIgnored();
+                health.limiter.onIgnored();
+                continue;
+            }
+
+            CompletableFuture<ChatResponse> tracked = future;
+            tracked.whenComplete((response, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                completed.offer(new Attempt(provider, tracked, response, cause));
+            });
+            return new Attempt(provider, tracked, null, null);
+        }
+        return null;
+    }
+
+    private ChatResponse invoke(ChatClientTypeEnum provider, ProviderHealth health,
+                                Function<ChatClientTypeEnum, Prompt> promptFactory) {
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = chatClientSelector.select(provider).prompt(promptFactory.apply(provider)).call().chatResponse();
+            if (!hasContent(response)) {
+                throw new IllegalStateException("AI响应为空");
+            }
+            health.onSuccess(elapsedMillis(start));
+            return response;
+        } catch (RuntimeException e) {
+            health.onFailure(elapsedMillis(start));
+            throw e;
+        }
+    }
+
+    /**
+     * 候选提供商：首选在前，其余已配置、已启用且未熔断的按p95耗时升序，关闭故障转移时只有首选
+     */
+    private List<ChatClientTypeEnum> candidates(ChatClientTypeEnum preferred) {
+        ChatClientTypeEnum primary = preferred != null ? preferred : aiProviderConfig.getDefaultProvider();
+        List<ChatClientTypeEnum> result = new ArrayList<>();
+        result.add(primary);
+        if (!aiProviderConfig.getRouter().isFailoverEnabled()) {
+            return result;
+        }
+
+        List<ChatClientTypeEnum> fallbacks = new ArrayList<>();
+        for (ChatClientTypeEnum provider : ChatClientTypeEnum.values()) {
+            if (provider != primary && chatClientSelector.isAvailable(provider)
+                    && health(provider).breaker.isCallPermitted()) {
+                fallbacks.add(provider);
+            }
+        }
+        fallbacks.sort(Comparator.comparingLong(provider -> {
+            long p95 = health(provider).latency.percentile(HEDGE_QUANTILE);
+            return p95 < 0 ? Long.MAX_VALUE : p95;
+        }));
+        result.addAll(fallbacks);
+        return result;
+    }
+
+    private Duration hedgeDelay(ChatClientTypeEnum provider) {
+        RouterSettings settings = aiProviderConfig.getRouter();
+        long p95 = health(provider).latency.percentile(HEDGE_QUANTILE);
+        Duration observed = p95 < 0 ? settings.getHedgeDefaultDelay() : Duration.ofMillis(p95);
+        return observed.compareTo(settings.getHedgeMinDelay()) < 0 ? settings.getHedgeMinDelay() : observed;
+    }
+
+    private synchronized ProviderHealth health(ChatClientTypeEnum provider) {
+        return healths.computeIfAbsent(provider, key -> new ProviderHealth(key, aiProviderConfig.getRouter()));
+    }
+
+    private static IllegalStateException routingFailure(Throwable lastError) {
+        if (lastError instanceof IllegalStateException illegalState) {
+            return illegalState;
+        }
+        return lastError == null
+                ? new IllegalStateException(NO_PROVIDER_AVAILABLE)
+                : new IllegalStateException(lastError.getMessage(), lastError);
+    }
+
+    private static boolean hasContent(ChatResponse response) {
+        return response != null && response.getResult() != null && response.getResult().getOutput() != null
+                && StringUtils.hasLength(response.getResult().getOutput().getContent());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 一次非流式请求
+     */
+    private record Attempt(ChatClientTypeEnum provider, CompletableFuture<ChatResponse> future,
+                           ChatResponse response, Throwable error) {
+    }
+
+    /**
+     * 单个提供商的熔断器、并发限制和耗时统计
+     */
+    private final class ProviderHealth {
+
+        private final ProviderCircuitBreaker breaker;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final LatencyWindow latency = new LatencyWindow(LATENCY_SAMPLES);
+        private final long slowCallMillis;
+
+        private ProviderHealth(ChatClientTypeEnum provider, RouterSettings settings) {
+            this.breaker = new ProviderCircuitBreaker(provider.getLabel(), settings, clock);
+            this.limiter = new AdaptiveConcurrencyLimiter(settings.getInitialConcurrency(),
+                    settings.getMinConcurrency(), settings.getMaxConcurrency());
+            this.slowCallMillis = settings.getSlowCallThreshold().toMillis();
+        }
+
+        private boolean tryAcquire() {
+            if (!breaker.tryAcquirePermission()) {
+                return false;
+            }
+            if (!limiter.tryAcquire()) {
+                breaker.onIgnored();
+                return false;
+            }
+            return true;
+        }
+
+        private void onSuccess(long latencyMillis) {
+            breaker.onSuccess(latencyMillis);
+            latency.record(latencyMillis);
+            if (latencyMillis >= slowCallMillis) {
+                limiter.onDropped();
+            } else {
+                limiter.onSuccess();
+            }
+        }
+
+        private void onFailure(long latencyMillis) {
+            breaker.onFailure(latencyMillis);
+            limiter.onDropped();
+        }
+    }
+}
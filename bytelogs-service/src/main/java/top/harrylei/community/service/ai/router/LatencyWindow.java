@@ -0,0 +1,48 @@
+package top.harrylei.community.service.ai.router;
+
+import java.util.Arrays;
+
+/**
+ * 最近调用耗时的环形缓冲区，用于估算分位数
+ *
+ * @author harry
+ */
+public class LatencyWindow {
+
+    /**
+     * 计算分位数所需的最少样本数
+     */
+    static final int MIN_SAMPLES = 5;
+
+    private final long[] samples;
+    private int size;
+    private int next;
+
+    public LatencyWindow(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+    }
+
+    /**
+     * 计算分位数
+     *
+     * @param quantile 分位，如0.95
+     * @return 耗时毫秒数，样本不足时返回-1
+     */
+    public synchronized long percentile(double quantile) {
+        if (size < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,199 @@
+package top.harrylei.community.service.ai.router;
+
+import lombok.extern.slf4j.Slf4j;
+import top.harrylei.community.service.ai.config.AiProviderConfig.RouterSettings;
+
+import java.time.Clock;
+
+/**
+ * AI提供商熔断器
+ * <p>
+ * 按滚动时间窗口（分为 {@link #BUCKETS} 个桶）统计调用次数、失败次数和慢调用次数，
+ * 调用数达到下限后失败率或慢调用比例超过阈值即熔断。熔断持续一段时间后进入半开状态，
+ * 只放行一个探测请求，成功则恢复，失败则重新熔断。
+ *
+ * @author harry
+ */
+@Slf4j
+public class ProviderCircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * 滚动窗口的桶数
+     */
+    static final int BUCKETS = 10;
+
+    private final String name;
+    private final RouterSettings settings;
+    private final Clock clock;
+    private final long bucketMillis;
+
+    private final long[] bucketEpochs = new long[BUCKETS];
+    private final int[] calls = new int[BUCKETS];
+    private final int[] failures = new int[BUCKETS];
+    private final int[] slowCalls = new int[BUCKETS];
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public ProviderCircuitBreaker(String name, RouterSettings settings, Clock clock) {
+        this.name = name;
+        this.settings = settings;
+        this.clock = clock;
+        this.bucketMillis = Math.max(1, settings.getWindowSize().toMillis() / BUCKETS);
+    }
+
+    /**
+     * 申请调用许可
+     *
+     * @return 是否允许调用，允许后必须以 onSuccess、onFailure 或 onIgnored 之一结束
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.millis() - openedAt < settings.getOpenDuration().toMillis()) {
+                    return false;
+                }
+                log.info("AI提供商{}熔断结束，放行探测请求", name);
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * 调用成功
+     *
+     * @param latencyMillis 耗时，超过慢调用阈值时计为慢调用
+     */
+    public synchronized void onSuccess(long latencyMillis) {
+        boolean slow = latencyMillis >= settings.getSlowCallThreshold().toMillis();
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (slow) {
+                transitionToOpen();
+            } else {
+                log.info("AI提供商{}探测成功，恢复调用", name);
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        record(false, slow);
+    }
+
+    /**
+     * 调用失败
+     *
+     * @param latencyMillis 耗时
+     */
+    public synchronized void onFailure(long latencyMillis) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionToOpen();
+            return;
+        }
+        record(true, latencyMillis >= settings.getSlowCallThreshold().toMillis());
+    }
+
+    /**
+     * 调用被取消或未真正发出，不计入统计，只归还半开状态的探测许可
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    /**
+     * 当前是否会放行调用，只查询不改变状态，用于挑选故障转移的候选
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> clock.millis() - openedAt >= settings.getOpenDuration().toMillis();
+            case HALF_OPEN -> !probeInFlight;
+        };
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed, boolean slow) {
+        // 熔断期间返回的结果来自熔断前发出的请求，不再统计
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        long epoch = clock.millis() / bucketMillis;
+        int index = (int) (epoch % BUCKETS);
+        if (bucketEpochs[index] != epoch) {
+            bucketEpochs[index] = epoch;
+            calls[index] = 0;
+            failures[index] = 0;
+            slowCalls[index] = 0;
+        }
+        calls[index]++;
+        if (failed) {
+            failures[index]++;
+        }
+        if (slow) {
+            slowCalls[index]++;
+        }
+
+        int totalCalls = 0;
+        int totalFailures = 0;
+        int totalSlowCalls = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epoch - bucketEpochs[i] < BUCKETS) {
+                totalCalls += calls[i];
+                totalFailures += failures[i];
+                totalSlowCalls += slowCalls[i];
+            }
+        }
+        if (totalCalls < settings.getMinimumCalls()) {
+            return;
+        }
+
+        double failureRate = (double) totalFailures / totalCalls;
+        double slowCallRate = (double) totalSlowCalls / totalCalls;
+        if (failureRate >= settings.getFailureRateThreshold() || slowCallRate >= settings.getSlowCallRateThreshold()) {
+            log.warn("AI提供商{}触发熔断，calls: {}, failureRate: {}, slowCallRate: {}",
+                    name, totalCalls, failureRate, slowCallRate);
+            transitionToOpen();
+        }
+    }
+
+    private void transitionToOpen() {
+        state = State.OPEN;
+        openedAt = clock.millis();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketEpochs[i] = -1;
+            calls[i] = 0;
+            failures[i] = 0;
+            slowCalls[i] = 0;
+        }
+    }
+}
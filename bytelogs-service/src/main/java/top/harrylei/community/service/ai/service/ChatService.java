@@ -31,6 +31,22 @@ public interface ChatService {
      */
     void chatStream(ChatReq chatReq, StreamCallback streamCallback);
 
+    /**
+     * 中止对话进行中的流式响应，已生成的内容会被保存
+     *
+     * @param conversationId 对话ID
+     * @param userId         用户ID
+     * @return 是否存在进行中的响应
+     */
+    boolean cancelStream(Long conversationId, Long userId);
+
+    /**
+     * 中止用户所有进行中的流式响应（用户最后一个WebSocket连接断开时调用）
+     *
+     * @param userId 用户ID
+     */
+    void cancelUserStreams(Long userId);
+
     /**
      * 流式响应回调接口
      */
@@ -0,0 +1,29 @@
+package top.harrylei.community.service.ai.service;
+
+/**
+ * AI对话标题服务接口
+ *
+ * @author harry
+ */
+public interface ChatTitleService {
+
+    /**
+     * 根据用户首条消息本地生成临时标题，不调用AI
+     *
+     * @param message 用户消息
+     * @return 临时标题
+     */
+    String heuristicTitle(String message);
+
+    /**
+     * 提交异步标题生成任务，生成后更新对话标题并推送给用户
+     * <p>
+     * 队列已满时直接放弃，对话保留临时标题
+     *
+     * @param userId         用户ID
+     * @param conversationId 对话ID
+     * @param currentTitle   当前（临时）标题
+     * @param question       用户首条消息
+     */
+    void generateTitleAsync(Long userId, Long conversationId, String currentTitle, String question);
+}
@@ -1,6 +1,7 @@
 package top.harrylei.community.service.ai.service;
 
 import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.model.ai.dto.ChatQuotaReservation;
 import top.harrylei.community.api.model.ai.dto.ChatUsageStatsDTO;
 
 import java.time.LocalDate;
@@ -13,36 +14,34 @@ import java.time.LocalDate;
 public interface ChatUsageService {
 
     /**
-     * 检查用户今日使用量是否超限
+     * 检查并预占配额（每小时消息数、每日消息数、每日token数），超限时抛出业务异常
      *
-     * @param userId 用户ID
-     * @return true-未超限，false-已超限
+     * @param userId          用户ID
+     * @param estimatedTokens 预估token数
+     * @return 预占凭证，完成后结算或失败时释放
      */
-    boolean checkDailyLimit(Long userId);
+    ChatQuotaReservation reserveQuota(Long userId, long estimatedTokens);
 
     /**
-     * 检查用户每小时消息数量是否超限
+     * 按实际用量结算预占的配额，并异步批量落库
      *
-     * @param userId 用户ID
-     * @return true-未超限，false-已超限
+     * @param reservation       预占凭证
+     * @param provider          AI提供商
+     * @param modelName         模型名称
+     * @param promptTokens      提示词Token消耗
+     * @param completionTokens  完成Token消耗
+     * @param totalTokens       总Token消耗
+     * @param conversationCount 对话数量增量
      */
-    boolean checkHourlyMessageLimit(Long userId);
+    void settleUsage(ChatQuotaReservation reservation, ChatClientTypeEnum provider, String modelName,
+                     Long promptTokens, Long completionTokens, Long totalTokens, Integer conversationCount);
 
     /**
-     * 记录用户使用情况
+     * 释放预占的配额（请求失败时调用）
      *
-     * @param userId            用户ID
-     * @param provider          AI提供商
-     * @param modelName         模型名称
-     * @param messageCount      消息数量增量
-     * @param promptTokens      提示词Token消耗增量
-     * @param completionTokens  完成Token消耗增量
-     * @param totalTokens       总Token消耗增量
-     * @param conversationCount 对话数量增量
+     * @param reservation 预占凭证
      */
-    void recordUsage(Long userId, ChatClientTypeEnum provider, String modelName,
-                     Integer messageCount, Long promptTokens, Long completionTokens,
-                     Long totalTokens, Integer conversationCount);
+    void releaseQuota(ChatQuotaReservation reservation);
 
     /**
      * 获取用户今日使用统计
@@ -60,4 +59,20 @@ public interface ChatUsageService {
      * @return 剩余消息数量
      */
     Integer getRemainingMessages(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 获取用户今日剩余可用token数（已扣除进行中请求的预占），未启用限制时返回 {@link Long#MAX_VALUE}
+     *
+     * @param userId 用户ID
+     * @return 剩余token数
+     */
+    long getRemainingTokens(Long userId);
+
+    /**
+     * 将待落库的使用量增量批量写入数据库
+     *
+     * @param batchSize 本次最多处理的增量条数
+     * @return 实际处理的增量条数
+     */
+    int flushPendingUsage(int batchSize);
+}
@@ -0,0 +1,230 @@
+package top.harrylei.community.service.ai.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.config.AILimitConfig;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.core.util.TokenUtil;
+import top.harrylei.community.service.ai.repository.dao.ChatMessageDAO;
+import top.harrylei.community.service.ai.repository.entity.ChatMessageDO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对话上下文缓存服务
+ * <p>
+ * 每个对话一个Redis List，元素为消息JSON，按时间正序排列。追加通过Lua脚本原子完成
+ * RPUSH + LTRIM + EXPIRE，并发写入不会互相覆盖；读取时按估算token预算从最新消息向前截取。
+ * 列表首元素为 {@link #HYDRATED_MARKER} 时表示已从数据库回填，否则读取时懒加载回填并与已追加的消息合并。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatContextCacheService {
+
+    private final RedisUtil redisUtil;
+    private final ChatMessageDAO chatMessageDAO;
+    private final AILimitConfig aiLimitConfig;
+
+    /**
+     * 上下文缓存过期时间：30分钟
+     */
+    private static final Duration CONTEXT_CACHE_EXPIRE = Duration.ofMinutes(30);
+
+    /**
+     * 已回填标记，位于列表首位
+     */
+    private static final String HYDRATED_MARKER = "#hydrated";
+
+    /**
+     * 追加消息：RPUSH后超出上限时保留最新的N条（并保留回填标记）。列表不存在时直接创建，
+     * 此时列表无回填标记，下次读取会与数据库结果合并，保证回填期间追加的消息不丢失
+     * KEYS[1]: 上下文列表
+     * ARGV[1]: 消息JSON，ARGV[2]: 最大消息数，ARGV[3]: 过期秒数，ARGV[4]: 回填标记
+     * 返回列表长度
+     */
+    private static final String APPEND_LUA_SCRIPT =
+            "local t = redis.call('type', KEYS[1]).ok " +
+            "if t ~= 'list' and t ~= 'none' then redis.call('del', KEYS[1]) end " +
+            "local len = redis.call('rpush', KEYS[1], ARGV[1]) " +
+            "local max = tonumber(ARGV[2]) " +
+            "if redis.call('lindex', KEYS[1], 0) == ARGV[4] then " +
+            "  if len > max + 1 then " +
+            "    redis.call('ltrim', KEYS[1], -max, -1) " +
+            "    redis.call('lpush', KEYS[1], ARGV[4]) " +
+            "    len = max + 1 " +
+            "  end " +
+            "elseif len > max then " +
+            "  redis.call('ltrim', KEYS[1], -max, -1) " +
+            "  len = max " +
+            "end " +
+            "redis.call('expire', KEYS[1], ARGV[3]) " +
+            "return len";
+
+    /**
+     * 回填上下文：已回填时直接返回；否则以数据库消息为前缀，再接上列表中已追加的消息（按ID去重）
+     * KEYS[1]: 上下文列表
+     * ARGV[1]: 最大消息数，ARGV[2]: 过期秒数，ARGV[3]: 回填标记，ARGV[4..n]: 数据库消息JSON（时间正序）
+     * 返回回填后的完整列表
+     */
+    private static final String HYDRATE_LUA_SCRIPT =
+            "local existing = {} " +
+            "if redis.call('type', KEYS[1]).ok == 'list' then " +
+            "  if redis.call('lindex', KEYS[1], 0) == ARGV[3] then return redis.call('lrange', KEYS[1], 0, -1) end " +
+            "  existing = redis.call('lrange', KEYS[1], 0, -1) " +
+            "end " +
+            "local seen = {} " +
+            "for _, v in ipairs(existing) do " +
+            "  local ok, m = pcall(cjson.decode, v) " +
+            "  if ok and type(m) == 'table' and m.id then seen[tostring(m.id)] = true end " +
+            "end " +
+            "redis.call('del', KEYS[1]) " +
+            "redis.call('rpush', KEYS[1], ARGV[3]) " +
+            "for i = 4, #ARGV do " +
+            "  local ok, m = pcall(cjson.decode, ARGV[i]) " +
+            "  if not (ok and type(m) == 'table' and m.id and seen[tostring(m.id)]) then " +
+            "    redis.call('rpush', KEYS[1], ARGV[i]) " +
+            "  end " +
+            "end " +
+            "for _, v in ipairs(existing) do redis.call('rpush', KEYS[1], v) end " +
+            "local max = tonumber(ARGV[1]) " +
+            "if redis.call('llen', KEYS[1]) > max + 1 then " +
+            "  redis.call('ltrim', KEYS[1], -max, -1) " +
+            "  redis.call('lpush', KEYS[1], ARGV[3]) " +
+            "end " +
+            "redis.call('expire', KEYS[1], ARGV[2]) " +
+            "return redis.call('lrange', KEYS[1], 0, -1)";
+
+    /**
+     * 获取对话上下文，按token预算从最新消息向前截取，返回时间正序
+     *
+     * @param conversationId 对话ID
+     * @return 上下文消息列表
+     */
+    public List<ChatMessageDO> getContext(Long conversationId) {
+        return trimToTokenBudget(loadAll(conversationId), aiLimitConfig.getContextTokenBudget());
+    }
+
+    /**
+     * 追加一条消息到上下文缓存（消息需已落库）
+     *
+     * @param conversationId 对话ID
+     * @param message        已保存的消息
+     */
+    public void append(Long conversationId, ChatMessageDO message) {
+        if (conversationId == null || message == null) {
+            return;
+        }
+
+        Long len = redisUtil.evalForLong(APPEND_LUA_SCRIPT,
+                List.of(RedisKeyConstants.getChatContextKey(conversationId)),
+                JsonUtil.toJson(message), aiLimitConfig.getContextMaxMessages(),
+                CONTEXT_CACHE_EXPIRE.getSeconds(), HYDRATED_MARKER);
+        if (len == null) {
+            // 追加失败时删除缓存，避免上下文缺失消息，下次读取从数据库回填
+            log.warn("追加上下文缓存失败: conversationId={}", conversationId);
+            evict(conversationId);
+        }
+    }
+
+    /**
+     * 删除对话上下文缓存
+     *
+     * @param conversationId 对话ID
+     */
+    public void evict(Long conversationId) {
+        redisUtil.del(RedisKeyConstants.getChatContextKey(conversationId));
+    }
+
+    /**
+     * 读取缓存中的全部消息，未回填时从数据库懒加载
+     */
+    private List<ChatMessageDO> loadAll(Long conversationId) {
+        String cacheKey = RedisKeyConstants.getChatContextKey(conversationId);
+
+        List<String> entries = redisUtil.lRange(cacheKey, 0, -1);
+        if (entries.isEmpty() || !HYDRATED_MARKER.equals(entries.get(0))) {
+            entries = hydrate(conversationId, cacheKey);
+        }
+        return decode(conversationId, entries);
+    }
+
+    /**
+     * 从数据库回填上下文缓存
+     */
+    private List<String> hydrate(Long conversationId, String cacheKey) {
+        int maxMessages = aiLimitConfig.getContextMaxMessages();
+
+        // DAO返回倒序，转为时间正序
+        List<ChatMessageDO> dbMessages = new ArrayList<>(chatMessageDAO.getRecentMessages(conversationId, maxMessages));
+        Collections.reverse(dbMessages);
+
+        Object[] args = new Object[3 + dbMessages.size()];
+        args[0] = maxMessages;
+        args[1] = CONTEXT_CACHE_EXPIRE.getSeconds();
+        args[2] = HYDRATED_MARKER;
+        for (int i = 0; i < dbMessages.size(); i++) {
+            args[3 + i] = JsonUtil.toJson(dbMessages.get(i));
+        }
+
+        List<String> entries = redisUtil.evalForList(HYDRATE_LUA_SCRIPT, List.of(cacheKey), args);
+        if (entries == null) {
+            // Redis不可用时直接使用数据库结果
+            log.warn("回填上下文缓存失败，使用数据库结果: conversationId={}", conversationId);
+            return dbMessages.stream().map(JsonUtil::toJson).toList();
+        }
+        return entries;
+    }
+
+    /**
+     * 解析缓存消息，按消息ID去重并排序
+     * <p>
+     * 并发写入时追加顺序可能与落库顺序不一致，回填与追加交错时也可能出现重复，统一在读取时校正
+     */
+    private List<ChatMessageDO> decode(Long conversationId, List<String> entries) {
+        Map<Long, ChatMessageDO> messages = new TreeMap<>();
+        for (String entry : entries) {
+            if (HYDRATED_MARKER.equals(entry)) {
+                continue;
+            }
+            ChatMessageDO message = JsonUtil.fromJson(entry, ChatMessageDO.class);
+            if (message != null && message.getId() != null) {
+                messages.put(message.getId(), message);
+            } else {
+                log.warn("上下文缓存存在无法解析的消息: conversationId={}", conversationId);
+            }
+        }
+        return new ArrayList<>(messages.values());
+    }
+
+    /**
+     * 按token预算从最新消息向前截取，至少保留最新一条
+     *
+     * @param messages    时间正序的消息
+     * @param tokenBudget token预算
+     * @return 时间正序的截取结果
+     */
+    private static List<ChatMessageDO> trimToTokenBudget(List<ChatMessageDO> messages, int tokenBudget) {
+        int used = 0;
+        int from = messages.size();
+        while (from > 0) {
+            int tokens = TokenUtil.estimateMessage(messages.get(from - 1).getContent());
+            if (used + tokens > tokenBudget && from < messages.size()) {
+                break;
+            }
+            used += tokens;
+            from--;
+        }
+        return new ArrayList<>(messages.subList(from, messages.size()));
+    }
+}
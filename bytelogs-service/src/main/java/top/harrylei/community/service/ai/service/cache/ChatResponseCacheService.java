@@ -0,0 +1,285 @@
+package top.harrylei.community.service.ai.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.enums.ai.ChatMessageRoleEnum;
+import top.harrylei.community.api.model.ai.dto.ChatResponseCacheEntry;
+import top.harrylei.community.api.model.ai.req.ChatReq;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.core.util.TextSimilarityUtil;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.config.AiProviderConfig.ResponseCacheSettings;
+import top.harrylei.community.service.ai.repository.entity.ChatMessageDO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AI响应缓存服务
+ * <p>
+ * 缓存键由归一化问题、提供商与模型参数、系统提示词、上下文指纹和用户组成，只有同一用户在相同上下文中的请求
+ * 才会共享回答；关闭 ai.response-cache.per-user 后新对话中的常见问题可以跨用户命中。精确命中直接读取Redis中的
+ * 缓存条目；近似命中通过本地计算的MinHash签名做LSH分段索引，取出同一范围内分段相同的候选后按Jaccard相似度判定，
+ * 问题中的数字不同时不视为近似。缓存默认关闭，通过 ai.response-cache.enabled 开启，近似匹配需另行开启。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatResponseCacheService {
+
+    private final RedisUtil redisUtil;
+    private final AiProviderConfig aiProviderConfig;
+
+    /**
+     * 回放时每个片段的字符数
+     */
+    private static final int REPLAY_SEGMENT_CHARS = 8;
+
+    /**
+     * 回放时片段之间的间隔
+     */
+    private static final Duration REPLAY_INTERVAL = Duration.ofMillis(10);
+
+    /**
+     * 写入LSH分段索引：SADD后超出上限时随机淘汰，并刷新过期时间
+     * KEYS: 各分段索引
+     * ARGV[1]: 问题摘要，ARGV[2]: 单个分段最大成员数，ARGV[3]: 过期秒数
+     */
+    private static final String INDEX_LUA_SCRIPT =
+            "for i = 1, #KEYS do " +
+            "  redis.call('sadd', KEYS[i], ARGV[1]) " +
+            "  if redis.call('scard', KEYS[i]) > tonumber(ARGV[2]) then redis.call('spop', KEYS[i]) end " +
+            "  redis.call('expire', KEYS[i], ARGV[3]) " +
+            "end " +
+            "return #KEYS";
+
+    /**
+     * 查询近似候选：各分段索引的并集
+     */
+    private static final String CANDIDATES_LUA_SCRIPT = "return redis.call('sunion', unpack(KEYS))";
+
+    /**
+     * 问题中的数字，近似匹配时要求完全一致
+     */
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+(?:\\.\\d+)?");
+
+    /**
+     * 响应缓存键
+     *
+     * @param scope      用户、提供商、模型参数、系统提示词和上下文指纹的摘要
+     * @param promptHash 范围与归一化问题的摘要，即精确匹配的键
+     * @param prompt     归一化后的问题
+     * @param bands      LSH分段键，不参与近似匹配时为null
+     */
+    public record CacheKey(String scope, String promptHash, String prompt, String[] bands) {
+    }
+
+    /**
+     * 构建请求的缓存键
+     *
+     * @param userId       当前用户ID
+     * @param systemPrompt 系统提示词
+     * @param chatReq      聊天请求
+     * @param context      对话上下文（时间正序，可包含刚保存的当前问题）
+     * @return 缓存键，未启用缓存或问题为空时返回null
+     */
+    public CacheKey buildKey(Long userId, String systemPrompt, ChatReq chatReq, List<ChatMessageDO> context) {
+        ResponseCacheSettings settings = aiProviderConfig.getResponseCache();
+        if (!settings.isEnabled()) {
+            return null;
+        }
+
+        String prompt = TextSimilarityUtil.normalize(chatReq.getMessage());
+        if (prompt.isEmpty()) {
+            return null;
+        }
+
+        ChatClientTypeEnum provider = chatReq.getProvider() != null ? chatReq.getProvider() : aiProviderConfig.getDefaultProvider();
+        String model = StringUtils.hasText(chatReq.getModel()) ? chatReq.getModel() : aiProviderConfig.getDefaultModel(provider);
+        String scope = md5((settings.isPerUser() ? userId : "") + "|" + provider.getName() + "|" + model + "|"
+                + chatReq.getTemperature() + "|" + chatReq.getMaxTokens() + "|" + md5(systemPrompt) + "|"
+                + contextFingerprint(context, chatReq.getMessage()));
+        String promptHash = md5(scope + "|" + prompt);
+
+        String[] bands = null;
+        if (settings.isNearDuplicateEnabled() && prompt.codePointCount(0, prompt.length()) >= settings.getMinNearDuplicateLength()) {
+            bands = TextSimilarityUtil.lshBands(TextSimilarityUtil.minHash(prompt));
+        }
+        return new CacheKey(scope, promptHash, prompt, bands);
+    }
+
+    /**
+     * 查找缓存的回答：先精确匹配，再按相似度匹配近似问题
+     *
+     * @param key 缓存键，为null时直接返回null
+     * @return 缓存条目，未命中时返回null
+     */
+    public ChatResponseCacheEntry lookup(CacheKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        ChatResponseCacheEntry exact = redisUtil.get(RedisKeyConstants.getChatResponseCacheKey(key.promptHash()),
+                ChatResponseCacheEntry.class);
+        if (exact != null) {
+            log.debug("AI响应缓存精确命中，promptHash: {}", key.promptHash());
+            return exact;
+        }
+        if (key.bands() == null) {
+            return null;
+        }
+
+        List<String> candidates = redisUtil.evalForList(CANDIDATES_LUA_SCRIPT, bandKeys(key));
+        if (CollectionUtils.isEmpty(candidates)) {
+            return null;
+        }
+
+        ResponseCacheSettings settings = aiProviderConfig.getResponseCache();
+        List<String> entryKeys = new ArrayList<>();
+        for (String candidate : candidates) {
+            if (entryKeys.size() >= settings.getMaxCandidates()) {
+                break;
+            }
+            entryKeys.add(RedisKeyConstants.getChatResponseCacheKey(candidate));
+        }
+
+        ChatResponseCacheEntry best = null;
+        double bestSimilarity = settings.getSimilarityThreshold();
+        List<String> numbers = numbers(key.prompt());
+        for (Map.Entry<String, ChatResponseCacheEntry> candidate : redisUtil.mGet(entryKeys, ChatResponseCacheEntry.class).entrySet()) {
+            if (!numbers.equals(numbers(candidate.getValue().getPrompt()))) {
+                continue;
+            }
+            double similarity = TextSimilarityUtil.jaccard(key.prompt(), candidate.getValue().getPrompt());
+            if (similarity >= bestSimilarity) {
+                best = candidate.getValue();
+                bestSimilarity = similarity;
+            }
+        }
+
+        if (best != null) {
+            log.debug("AI响应缓存近似命中，promptHash: {}, similarity: {}", key.promptHash(), bestSimilarity);
+        }
+        return best;
+    }
+
+    /**
+     * 缓存完整的回答
+     *
+     * @param key      缓存键，为null时不缓存
+     * @param provider 实际生成回答的提供商
+     * @param model    实际生成回答的模型
+     * @param content  回答内容
+     */
+    public void store(CacheKey key, ChatClientTypeEnum provider, String model, String content) {
+        ResponseCacheSettings settings = aiProviderConfig.getResponseCache();
+        if (key == null || !StringUtils.hasText(content) || content.length() > settings.getMaxResponseLength()) {
+            return;
+        }
+
+        ChatResponseCacheEntry entry = ChatResponseCacheEntry.builder()
+                .prompt(key.prompt())
+                .provider(provider)
+                .model(model)
+                .content(content)
+                .createdAt(System.currentTimeMillis())
+                .build();
+        Boolean saved = redisUtil.set(RedisKeyConstants.getChatResponseCacheKey(key.promptHash()), entry, settings.getTtl());
+        if (Boolean.TRUE.equals(saved) && key.bands() != null) {
+            redisUtil.evalForLong(INDEX_LUA_SCRIPT, bandKeys(key),
+                    key.promptHash(), settings.getMaxBucketSize(), settings.getTtl().getSeconds());
+        }
+    }
+
+    /**
+     * 将缓存的回答回放为流式响应，按固定大小分段并保持一定间隔，前端与实时生成的体验一致
+     *
+     * @param entry 缓存条目
+     * @return 合成的响应流
+     */
+    public Flux<ChatResponse> replay(ChatResponseCacheEntry entry) {
+        return Flux.fromIterable(segments(entry.getContent()))
+                .map(segment -> new ChatResponse(List.of(new Generation(new AssistantMessage(segment)))))
+                .delayElements(REPLAY_INTERVAL);
+    }
+
+    /**
+     * 按码点切分，避免拆开代理对
+     */
+    static List<String> segments(String content) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (start < content.length()) {
+            int end = content.offsetByCodePoints(start, Math.min(REPLAY_SEGMENT_CHARS, content.codePointCount(start, content.length())));
+            segments.add(content.substring(start, end));
+            start = end;
+        }
+        return segments;
+    }
+
+    private List<String> bandKeys(CacheKey key) {
+        List<String> keys = new ArrayList<>(key.bands().length);
+        for (int band = 0; band < key.bands().length; band++) {
+            keys.add(RedisKeyConstants.getChatResponseBandKey(key.scope(), band, key.bands()[band]));
+        }
+        return keys;
+    }
+
+    /**
+     * 上下文指纹：当前问题之前的全部消息的摘要，新对话为空串
+     */
+    private static String contextFingerprint(List<ChatMessageDO> context, String message) {
+        if (CollectionUtils.isEmpty(context)) {
+            return "";
+        }
+
+        int size = context.size();
+        ChatMessageDO last = context.get(size - 1);
+        if (last.getMessageType() == ChatMessageRoleEnum.USER && message.equals(last.getContent())) {
+            size--;
+        }
+        if (size == 0) {
+            return "";
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            ChatMessageDO msg = context.get(i);
+            fingerprint.append(msg.getMessageType()).append(':').append(msg.getContent()).append('\n');
+        }
+        return md5(fingerprint.toString());
+    }
+
+    /**
+     * 按出现顺序提取问题中的数字，数字不同的问题（金额、版本、日期等）即使文字相近，回答也不同
+     */
+    private static List<String> numbers(String prompt) {
+        List<String> numbers = new ArrayList<>();
+        Matcher matcher = NUMBER_PATTERN.matcher(prompt);
+        while (matcher.find()) {
+            numbers.add(matcher.group());
+        }
+        return numbers;
+    }
+
+    private static String md5(String text) {
+        return DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,10 +1,8 @@
 package top.harrylei.community.service.ai.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
@@ -12,7 +10,6 @@ import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -23,32 +20,39 @@ import top.harrylei.community.api.enums.ai.ChatMessageRoleEnum;
 import top.harrylei.community.api.enums.response.ResultCode;
 import top.harrylei.community.api.model.ai.dto.ChatConversationDTO;
 import top.harrylei.community.api.model.ai.dto.ChatMessageDTO;
+import top.harrylei.community.api.model.ai.dto.ChatQuotaReservation;
+import top.harrylei.community.api.model.ai.dto.ChatResponseCacheEntry;
+import top.harrylei.community.api.model.ai.dto.ChatTokenUsage;
 import top.harrylei.community.api.model.ai.req.ChatReq;
 import top.harrylei.community.api.model.ai.req.ConversationsQueryParam;
 import top.harrylei.community.api.model.ai.req.MessagesQueryParam;
 import top.harrylei.community.api.model.ai.vo.ChatResult;
 import top.harrylei.community.api.model.page.PageVO;
-import top.harrylei.community.core.common.constans.RedisKeyConstants;
 import top.harrylei.community.core.config.AILimitConfig;
 import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.core.util.PageUtils;
-import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.core.util.TokenUtil;
 import top.harrylei.community.service.ai.adapter.ChatOptionsAdapter;
-import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.adapter.ChatUsageAdapter;
 import top.harrylei.community.service.ai.converted.ChatConversationStructMapper;
 import top.harrylei.community.service.ai.converted.ChatMessageStructMapper;
 import top.harrylei.community.service.ai.repository.dao.ChatConversationDAO;
 import top.harrylei.community.service.ai.repository.dao.ChatMessageDAO;
 import top.harrylei.community.service.ai.repository.entity.ChatConversationDO;
 import top.harrylei.community.service.ai.repository.entity.ChatMessageDO;
+import top.harrylei.community.service.ai.router.ChatProviderRouter;
 import top.harrylei.community.service.ai.service.ChatService;
+import top.harrylei.community.service.ai.service.ChatTitleService;
 import top.harrylei.community.service.ai.service.ChatUsageService;
+import top.harrylei.community.service.ai.service.cache.ChatContextCacheService;
+import top.harrylei.community.service.ai.service.cache.ChatResponseCacheService;
+import top.harrylei.community.service.ai.stream.ChatStreamRegistry;
+import top.harrylei.community.service.ai.stream.ChatStreamSubscriber;
+import top.harrylei.community.service.ai.stream.ChatUsageMeter;
 
-import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AI服务实现 - 基于Spring AI
@@ -60,10 +64,7 @@ import java.util.concurrent.atomic.AtomicReference;
 @Service
 public class ChatServiceImpl implements ChatService {
 
-    @Qualifier("deepseekChatClient")
-    private final ChatClient deepseekChatClient;
-    @Qualifier("qwenChatClient")
-    private final ChatClient qwenChatClient;
+    private static final String SYSTEM_PROMPT = "你是一个牛逼的AI助手，请用中文回答问题。";
 
     private final ChatConversationDAO chatConversationDAO;
     private final ChatMessageDAO chatMessageDAO;
@@ -72,8 +73,13 @@ public class ChatServiceImpl implements ChatService {
     private final ChatMessageStructMapper chatMessageStructMapper;
     private final ChatConversationStructMapper chatConversationStructMapper;
     private final ChatOptionsAdapter chatOptionsAdapter;
-    private final AiProviderConfig aiProviderConfig;
-    private final RedisUtil redisUtil;
+    private final ChatUsageAdapter chatUsageAdapter;
+    private final ChatContextCacheService chatContextCacheService;
+    private final ChatResponseCacheService chatResponseCacheService;
+    private final ChatProviderRouter chatProviderRouter;
+    private final ChatTitleService chatTitleService;
+    private final ChatStreamRegistry chatStreamRegistry;
+    private final MetricsUtil metricsUtil;
 
     @Override
     public void chatStream(ChatReq chatReq, StreamCallback streamCallback) {
@@ -83,9 +89,11 @@ public class ChatServiceImpl implements ChatService {
         log.info("用户发起AI流式对话，userId: {}, conversationId: {}, message长度: {}",
                 userId, chatReq.getConversationId(), userMessage.length());
 
+        ChatQuotaReservation reservation = null;
         try {
-            // 1. 验证请求
-            validateChatRequest(userMessage, userId);
+            // 1. 验证请求并预占配额
+            validateChatRequest(userMessage);
+            reservation = chatUsageService.reserveQuota(userId, TokenUtil.estimateMessage(userMessage));
 
             // 2. 准备对话
             boolean isNewConversation = (chatReq.getConversationId() == null);
@@ -95,10 +103,11 @@ public class ChatServiceImpl implements ChatService {
             saveUserMessage(conversationId, userId, userMessage);
 
             // 4. 执行流式聊天
-            executeChatStream(conversationId, userMessage, chatReq, streamCallback, userId, isNewConversation);
+            executeChatStream(conversationId, userMessage, chatReq, streamCallback, userId, isNewConversation, reservation);
 
         } catch (Exception e) {
             log.error("AI流式对话失败，userId: {}, error: {}", userId, e.getMessage(), e);
+            chatUsageService.releaseQuota(reservation);
             Long conversationId = chatReq.getConversationId();
             streamCallback.onError(conversationId, e.getMessage());
         }
@@ -113,21 +122,43 @@ public class ChatServiceImpl implements ChatService {
         log.info("用户发起AI对话，userId: {}, conversationId: {}, message长度: {}",
                 userId, chatReq.getConversationId(), userMessage.length());
 
-        // 1. 验证请求
-        validateChatRequest(userMessage, userId);
+        // 1. 验证请求并预占配额
+        validateChatRequest(userMessage);
+        ChatQuotaReservation reservation = chatUsageService.reserveQuota(userId, TokenUtil.estimateMessage(userMessage));
 
-        // 2. 准备对话
-        boolean isNewConversation = (chatReq.getConversationId() == null);
-        Long conversationId = prepareConversation(chatReq.getConversationId(), userId, userMessage);
+        try {
+            // 2. 准备对话
+            boolean isNewConversation = (chatReq.getConversationId() == null);
+            Long conversationId = prepareConversation(chatReq.getConversationId(), userId, userMessage);
+
+            // 3. 保存用户消息
+            saveUserMessage(conversationId, userId, userMessage);
+
+            // 4. 构建聊天上下文并调用AI
+            ChatResult chatResult = executeChat(conversationId, userMessage, chatReq, userId);
 
-        // 3. 保存用户消息
-        saveUserMessage(conversationId, userId, userMessage);
+            // 5. 保存AI回复
+            ChatMessageDTO response = saveChatResponse(conversationId, userId, chatResult, isNewConversation, reservation);
 
-        // 4. 构建聊天上下文并调用AI
-        ChatResult chatResult = executeChat(conversationId, userMessage, chatReq);
+            // 6. 新对话首轮完成后异步生成标题
+            if (isNewConversation) {
+                scheduleTitleGeneration(userId, conversationId, userMessage);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            chatUsageService.releaseQuota(reservation);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean cancelStream(Long conversationId, Long userId) {
+        return chatStreamRegistry.cancel(userId, conversationId);
+    }
 
-        // 5. 保存AI回复并返回
-        return saveChatResponse(conversationId, userId, chatResult, isNewConversation);
+    @Override
+    public void cancelUserStreams(Long userId) {
+        chatStreamRegistry.cancelAll(userId);
     }
 
     @Override
@@ -173,6 +204,7 @@ public class ChatServiceImpl implements ChatService {
         boolean deleted = chatConversationDAO.delete(conversationId, userId);
         if (deleted) {
             chatMessageDAO.deleteByConversationId(conversationId);
+            chatContextCacheService.evict(conversationId);
         }
     }
 
@@ -195,18 +227,10 @@ public class ChatServiceImpl implements ChatService {
     /**
      * 验证聊天请求
      */
-    private void validateChatRequest(String message, Long userId) {
+    private void validateChatRequest(String message) {
         if (message.length() > aiLimitConfig.getMaxMessageLength()) {
             ResultCode.AI_MESSAGE_TOO_LONG.throwException();
         }
-
-        if (!chatUsageService.checkHourlyMessageLimit(userId)) {
-            ResultCode.AI_HOURLY_LIMIT_EXCEEDED.throwException();
-        }
-
-        if (!chatUsageService.checkDailyLimit(userId)) {
-            ResultCode.AI_DAILY_LIMIT_EXCEEDED.throwException();
-        }
     }
 
     /**
@@ -214,8 +238,8 @@ public class ChatServiceImpl implements ChatService {
      */
     private Long prepareConversation(Long conversationId, Long userId, String message) {
         if (conversationId == null) {
-            // 新对话：让AI生成标题
-            String title = generateConversationTitle(message);
+            // 新对话：先使用本地规则生成临时标题，首轮对话完成后再异步生成正式标题
+            String title = chatTitleService.heuristicTitle(message);
             conversationId = chatConversationDAO.create(userId, title);
             log.info("创建新对话，conversationId: {}, title: {}", conversationId, title);
             return conversationId;
@@ -230,56 +254,10 @@ public class ChatServiceImpl implements ChatService {
     }
 
     /**
-     * 生成对话标题
+     * 提交异步标题生成，替换创建对话时的临时标题
      */
-    private String generateConversationTitle(String message) {
-        try {
-            // 使用配置化的方式生成标题，避免硬编码
-            ChatReq titleReq = new ChatReq();
-            ChatClientTypeEnum titleProvider = aiProviderConfig.getDefaultProvider();
-            titleReq.setProvider(titleProvider);
-            titleReq.setTemperature(0.3f);
-            titleReq.setMaxTokens(50);
-
-            Object titleOptions = chatOptionsAdapter.buildChatOptions(titleReq, titleProvider);
-
-            // 根据配置的默认提供商选择ChatClient生成标题
-            ChatClient titleClient = selectChatClient(titleProvider);
-
-            String title;
-            if (titleOptions instanceof OpenAiChatOptions options) {
-                title = titleClient.prompt()
-                        .system("你是一个标题生成助手，请为用户问题生成一个简洁的标题。要求：1）不超过20个字符 2）不包含引号 3）直接返回标题内容")
-                        .user("请为以下问题生成标题：" + message)
-                        .options(options)
-                        .call()
-                        .content();
-            } else {
-                title = titleClient.prompt()
-                        .system("你是一个标题生成助手，请为用户问题生成一个简洁的标题。要求：1）不超过20个字符 2）不包含引号 3）直接返回标题内容")
-                        .user("请为以下问题生成标题：" + message)
-                        .call()
-                        .content();
-            }
-
-            if (StringUtils.hasText(title)) {
-                // 清理AI返回的标题（去除可能的引号、换行等）
-                title = title.trim()
-                        .replaceAll("^[\"'《]|[\"'》]$", "")
-                        .replaceAll("\n\r", "");
-
-                if (title.length() <= 20) {
-                    return title;
-                }
-                // 如果标题太长，截取前20个字符
-                return title.substring(0, 20) + "...";
-            }
-        } catch (Exception e) {
-            log.warn("AI生成标题失败，使用默认方式: {}", e.getMessage());
-        }
-
-        // 降级方案：简单截取
-        return message.length() <= 20 ? message : message.substring(0, 20) + "...";
+    private void scheduleTitleGeneration(Long userId, Long conversationId, String message) {
+        chatTitleService.generateTitleAsync(userId, conversationId, chatTitleService.heuristicTitle(message), message);
     }
 
     /**
@@ -298,7 +276,7 @@ public class ChatServiceImpl implements ChatService {
 
         // 保存用户消息后立即更新缓存
         if (saved) {
-            updateMessagesContext(conversationId, userMessage);
+            chatContextCacheService.append(conversationId, userMessage);
         }
 
         return saved;
@@ -307,30 +285,46 @@ public class ChatServiceImpl implements ChatService {
     /**
      * 执行AI聊天 - 按照Spring AI最佳实践实现多厂商动态选择
      */
-    private ChatResult executeChat(Long conversationId, String userMessage, ChatReq chatReq) {
-        // 1. 根据前端参数选择ChatClient
-        ChatClient selectedClient = selectChatClient(chatReq.getProvider());
-
-        // 2. 构建ChatOptions - 使用适配器解决硬编码问题
-        Object chatOptions = chatOptionsAdapter.buildChatOptions(chatReq, chatReq.getProvider());
-
-        // 3. 获取最近10条消息作为上下文（带缓存）
-        List<ChatMessageDO> recentMessages = getMessagesContext(conversationId, 10);
+    private ChatResult executeChat(Long conversationId, String userMessage, ChatReq chatReq, Long userId) {
+        // 1. 按token预算获取最近消息作为上下文（带缓存）
+        List<ChatMessageDO> recentMessages = chatContextCacheService.getContext(conversationId);
+
+        // 2. 相同或近似的问题直接使用缓存的回答
+        ChatResponseCacheService.CacheKey cacheKey = chatResponseCacheService.buildKey(userId, SYSTEM_PROMPT, chatReq, recentMessages);
+        ChatResponseCacheEntry cached = chatResponseCacheService.lookup(cacheKey);
+        if (cached != null) {
+            log.info("AI响应缓存命中，conversationId: {}, provider: {}", conversationId, cached.getProvider());
+            return ChatResult.builder()
+                    .content(cached.getContent())
+                    .provider(cached.getProvider())
+                    .model(cached.getModel())
+                    .promptTokens(0L)
+                    .completionTokens(0L)
+                    .totalTokens(0L)
+                    .build();
+        }
 
         try {
-            // 4. 使用Spring AI推荐的方式构建消息列表，包含历史上下文
-            Prompt prompt = buildPrompt(userMessage, recentMessages, chatOptions);
-
-            // 8. 执行调用并获取完整响应
-            ChatResponse response = selectedClient.prompt(prompt).call().chatResponse();
+            // 3. 经路由器调用：熔断、对冲请求和故障转移，ChatOptions按实际提供商构建
+            ChatProviderRouter.RoutedResponse routed = chatProviderRouter.call(chatReq.getProvider(),
+                    provider -> buildPrompt(userMessage, recentMessages, chatOptionsAdapter.buildRoutedChatOptions(chatReq, provider)));
+            ChatResponse response = routed.response();
 
             String content = response.getResult().getOutput().getContent();
             if (!StringUtils.hasText(content)) {
                 ResultCode.AI_RESPONSE_EMPTY.throwException();
             }
 
-            // 9. 构建结果对象
-            return getChatResult(chatReq, response);
+            // 4. 以提供商返回的用量为准，未返回时按估算值记录
+            ChatUsageMeter usageMeter = new ChatUsageMeter(estimatePromptTokens(userMessage, recentMessages), Long.MAX_VALUE);
+            usageMeter.record(content);
+            ChatTokenUsage usage = usageMeter.reconcile(
+                    chatUsageAdapter.extractUsage(routed.provider(), response.getMetadata()));
+
+            // 5. 构建结果对象并写入响应缓存
+            ChatResult result = getChatResult(routed.provider(), response, usage);
+            chatResponseCacheService.store(cacheKey, result.getProvider(), result.getModel(), content);
+            return result;
         } catch (Exception e) {
             log.error("AI调用失败，Provider: {}, ConversationId: {}, Error: {} - {}, Cause: {}",
                     chatReq.getProvider(), conversationId, e.getClass().getSimpleName(), e.getMessage(),
@@ -348,18 +342,13 @@ public class ChatServiceImpl implements ChatService {
         }
     }
 
-    private static ChatResult getChatResult(ChatReq chatReq, ChatResponse response) {
+    private static ChatResult getChatResult(ChatClientTypeEnum provider, ChatResponse response, ChatTokenUsage usage) {
         ChatResult result = new ChatResult();
         result.setContent(response.getResult().getOutput().getContent());
-        result.setProvider(chatReq.getProvider());
-
-        // 提取Token使用量和模型信息
-        if (response.getMetadata() != null && response.getMetadata().getUsage() != null) {
-            var usage = response.getMetadata().getUsage();
-            result.setPromptTokens(usage.getPromptTokens());
-            result.setCompletionTokens(usage.getGenerationTokens());
-            result.setTotalTokens(usage.getTotalTokens());
-        }
+        result.setProvider(provider);
+        result.setPromptTokens(usage.getPromptTokens());
+        result.setCompletionTokens(usage.getCompletionTokens());
+        result.setTotalTokens(usage.getTotalTokens());
 
         // 获取模型信息
         if (response.getMetadata() != null) {
@@ -368,37 +357,23 @@ public class ChatServiceImpl implements ChatService {
         return result;
     }
 
-    /**
-     * 根据provider参数选择对应的ChatClient
-     */
-    private ChatClient selectChatClient(ChatClientTypeEnum provider) {
-        if (provider == null) {
-            provider = aiProviderConfig.getDefaultProvider();
-        }
-
-        return switch (provider) {
-            case DEEPSEEK -> deepseekChatClient;
-            case QWEN -> qwenChatClient;
-            case OPENAI -> throw new IllegalStateException("OpenAI ChatClient未配置，请完成相关配置");
-        };
-    }
-
     /**
      * 保存AI回复 - 使用Spring AI提供的完整信息
      */
-    private ChatMessageDTO saveChatResponse(Long conversationId, Long userId, ChatResult chatResult, boolean isNewConversation) {
+    private ChatMessageDTO saveChatResponse(Long conversationId, Long userId, ChatResult chatResult,
+                                            boolean isNewConversation, ChatQuotaReservation reservation) {
         // 保存AI消息，使用从Spring AI获取的真实信息
         ChatMessageDO chatMessage = buildChatMessageDO(conversationId, userId, chatResult);
 
         chatMessageDAO.save(chatMessage);
 
         // 更新上下文缓存
-        updateMessagesContext(conversationId, chatMessage);
+        chatContextCacheService.append(conversationId, chatMessage);
 
-        // 记录使用量统计
+        // 按实际用量结算配额
         Integer conversationIncrement = isNewConversation ? 1 : 0;
-        chatUsageService.recordUsage(userId, chatResult.getProvider(), chatResult.getModel(),
-                2, chatResult.getPromptTokens(), chatResult.getCompletionTokens(),
+        chatUsageService.settleUsage(reservation, chatResult.getProvider(), chatResult.getModel(),
+                chatResult.getPromptTokens(), chatResult.getCompletionTokens(),
                 chatResult.getTotalTokens(), conversationIncrement);
 
         log.info("AI对话完成，conversationId: {}, provider: {}, model: {}",
@@ -424,146 +399,225 @@ public class ChatServiceImpl implements ChatService {
      * 执行流式AI聊天
      */
     private void executeChatStream(Long conversationId, String userMessage, ChatReq chatReq,
-                                   StreamCallback streamCallback, Long userId, boolean isNewConversation) {
-        // 1. 根据前端参数选择ChatClient
-        ChatClient chatClient = selectChatClient(chatReq.getProvider());
-
-        // 2. 构建ChatOptions
-        Object chatOptions = chatOptionsAdapter.buildChatOptions(chatReq, chatReq.getProvider());
-
-        // 3. 获取最近10条消息作为上下文（带缓存）
-        List<ChatMessageDO> recentMessages = getMessagesContext(conversationId, 10);
+                                   StreamCallback streamCallback, Long userId, boolean isNewConversation,
+                                   ChatQuotaReservation reservation) {
+        // 1. 按token预算获取最近消息作为上下文（带缓存）
+        List<ChatMessageDO> recentMessages = chatContextCacheService.getContext(conversationId);
 
         try {
-            // 4. 构建消息列表
-            Prompt prompt = buildPrompt(userMessage, recentMessages, chatOptions);
+            // 2. 查找响应缓存
+            ChatResponseCacheService.CacheKey cacheKey = chatResponseCacheService.buildKey(userId, SYSTEM_PROMPT, chatReq, recentMessages);
+            ChatResponseCacheEntry cached = chatResponseCacheService.lookup(cacheKey);
 
-            // 5. 准备保存消息的ID（预分配，避免流式过程中的数据库操作）
-            // 使用时间戳作为临时ID，后续保存时会获取真实ID
+            // 3. 按今日剩余额度计算本次可用的token预算，输出过程中增量估算，超出时截断；缓存回放不计量
+            ChatUsageMeter usageMeter = cached != null ? null
+                    : new ChatUsageMeter(estimatePromptTokens(userMessage, recentMessages), tokenBudget(userId, reservation));
+
+            // 4. 流式过程中不访问数据库，使用时间戳作为临时消息ID，完成时一次性保存
             Long messageId = System.currentTimeMillis();
-            StringBuilder fullContent = new StringBuilder();
-            // 用于存储从响应中提取的模型名称和最终token统计
-            final String[] modelName = {null};
-            final AtomicReference<Long> finalTokens = new AtomicReference<>(0L);
-            final AtomicReference<Long> finalPromptTokens = new AtomicReference<>(0L);
-            final AtomicReference<Long> finalCompletionTokens = new AtomicReference<>(0L);
-            final AtomicReference<Object> finalMetadata = new AtomicReference<>();
-            final long[] startTimeRef = {System.currentTimeMillis()};
-
-            // 6. 执行流式调用（添加背压处理）
-            chatClient.prompt(prompt).stream().chatResponse()
-                    // 缓冲最多100个响应片段
-                    .onBackpressureBuffer(100)
-                    .doOnNext(chatResponse -> handleStreamingChunk(conversationId, streamCallback,
-                            chatResponse, fullContent, messageId, modelName, finalMetadata))
-                    .doOnComplete(() -> {
-                        handleStreamComplete(conversationId, chatReq, streamCallback, userId, isNewConversation,
-                                finalMetadata, finalTokens, finalPromptTokens, finalCompletionTokens,
-                                fullContent, modelName, startTimeRef);
-                    })
-                    .doOnError(error -> {
-                        log.error("AI流式调用失败，conversationId: {}, error: {}", conversationId, error.getMessage(), error);
-                        streamCallback.onError(conversationId, "AI服务暂时不可用: " + error.getMessage());
-                    })
-                    .subscribe(); // 订阅开始流式处理
+
+            // 5. 合并片段按帧推送，按处理进度向上游请求；结束、出错或取消时只触发一次回调
+            ChatStreamSubscriber subscriber = new ChatStreamSubscriber(
+                    frame -> streamCallback.onContent(conversationId, messageId, frame),
+                    new ChatStreamSubscriber.Listener() {
+                        @Override
+                        public void onComplete(ChatStreamSubscriber stream) {
+                            chatStreamRegistry.unregister(userId, conversationId, stream);
+                            handleStreamComplete(conversationId, chatReq, streamCallback, userId,
+                                    isNewConversation, reservation, stream);
+                            if (cached == null && !stream.isTruncated()) {
+                                chatResponseCacheService.store(cacheKey, stream.getProvider(), stream.getModel(),
+                                        stream.getFullContent());
+                            }
+                        }
+
+                        @Override
+                        public void onError(ChatStreamSubscriber stream, Throwable error) {
+                            chatStreamRegistry.unregister(userId, conversationId, stream);
+                            log.error("AI流式调用失败，conversationId: {}, error: {}", conversationId, error.getMessage(), error);
+                            chatUsageService.releaseQuota(reservation);
+                            streamCallback.onError(conversationId, "AI服务暂时不可用: " + error.getMessage());
+                        }
+
+                        @Override
+                        public void onCancel(ChatStreamSubscriber stream) {
+                            if (stream.isTruncated()) {
+                                // 超出token预算：保存已生成的内容并按完成通知前端
+                                chatStreamRegistry.unregister(userId, conversationId, stream);
+                                log.warn("AI流式对话超出token预算被截断，conversationId: {}, budget: {}",
+                                        conversationId, stream.getUsageMeter().getTokenBudget());
+                                handleStreamComplete(conversationId, chatReq, streamCallback, userId,
+                                        isNewConversation, reservation, stream);
+                                return;
+                            }
+                            handleStreamCancel(conversationId, userId, isNewConversation, reservation, stream);
+                        }
+                    });
+            subscriber.setUsageMeter(usageMeter);
+
+            chatStreamRegistry.register(userId, conversationId, subscriber);
+            // 6. 缓存命中时回放缓存的回答，否则经路由器调用：首个token输出前失败时切换提供商，记录实际响应的提供商
+            if (cached != null) {
+                log.info("AI响应缓存命中，conversationId: {}, provider: {}", conversationId, cached.getProvider());
+                subscriber.setProvider(cached.getProvider());
+                subscriber.setModel(cached.getModel());
+                chatResponseCacheService.replay(cached).subscribe(subscriber);
+            } else {
+                chatProviderRouter.stream(chatReq.getProvider(),
+                                provider -> buildPrompt(userMessage, recentMessages,
+                                        chatOptionsAdapter.buildRoutedChatOptions(chatReq, provider)),
+                                subscriber::setProvider)
+                        .subscribe(subscriber);
+            }
 
         } catch (Exception e) {
             log.error("AI流式对话执行失败，conversationId: {}, error: {}", conversationId, e.getMessage(), e);
+            chatUsageService.releaseQuota(reservation);
             streamCallback.onError(conversationId, "AI服务异常: " + e.getMessage());
         }
     }
 
     private void handleStreamComplete(Long conversationId, ChatReq chatReq, StreamCallback streamCallback, Long userId,
-                                      boolean isNewConversation, AtomicReference<Object> finalMetadata,
-                                      AtomicReference<Long> finalTokens, AtomicReference<Long> finalPromptTokens,
-                                      AtomicReference<Long> finalCompletionTokens, StringBuilder fullContent,
-                                      String[] modelName, long[] startTimeRef) {
-        // 流式响应完成，从最终metadata中获取准确的token统计
-        Object metadata = finalMetadata.get();
-        if (metadata != null) {
-            try {
-                // 通过反射获取usage统计信息，避免强类型依赖
-                Object usage = metadata.getClass().getMethod("getUsage").invoke(metadata);
-                if (usage != null) {
-                    // 获取各类token统计
-                    Long totalTokens = (Long) usage.getClass().getMethod("getTotalTokens").invoke(usage);
-                    Long promptTokens = (Long) usage.getClass().getMethod("getPromptTokens").invoke(usage);
-                    Long completionTokens = (Long) usage.getClass().getMethod("getGenerationTokens").invoke(usage);
-
-                    if (totalTokens != null && totalTokens > 0) {
-                        finalTokens.set(totalTokens);
-                    }
-                    if (promptTokens != null && promptTokens > 0) {
-                        finalPromptTokens.set(promptTokens);
-                    }
-                    if (completionTokens != null && completionTokens > 0) {
-                        finalCompletionTokens.set(completionTokens);
-                    }
-                }
-            } catch (Exception e) {
-                log.debug("无法获取token统计详情: {}, 使用内容长度作为近似值", e.getMessage());
-            }
-        }
-
-        // 直接使用从API返回的token统计
-        Long actualTotalTokens = finalTokens.get();
-        Long actualPromptTokens = finalPromptTokens.get();
-        Long actualCompletionTokens = finalCompletionTokens.get();
+                                      boolean isNewConversation, ChatQuotaReservation reservation,
+                                      ChatStreamSubscriber stream) {
+        // 以提供商在最后一个片段返回的用量为准，未返回或被截断时使用增量估算值
+        ChatTokenUsage usage = streamUsage(stream, true);
+        Long actualPromptTokens = usage.getPromptTokens();
+        Long actualCompletionTokens = usage.getCompletionTokens();
+        Long actualTotalTokens = usage.getTotalTokens();
 
         // 构建包含token信息的ChatResult
+        String fullContent = stream.getFullContent();
         ChatResult chatResult = ChatResult.builder()
-                .content(fullContent.toString())
-                .provider(chatReq.getProvider())
-                .model(modelName[0] != null ? modelName[0] : "undefined")
+                .content(fullContent)
+                .provider(stream.getProvider())
+                .model(stream.getModel() != null ? stream.getModel() : "undefined")
                 .promptTokens(actualPromptTokens)
                 .completionTokens(actualCompletionTokens)
                 .totalTokens(actualTotalTokens)
                 .build();
-        // 保存AI回复到数据库
+        // 保存AI回复到数据库（整个流式过程只写一次）
         ChatMessageDO chatMessage = buildChatMessageDO(conversationId, userId, chatResult);
         chatMessageDAO.save(chatMessage);
 
         // 更新上下文缓存
-        updateMessagesContext(conversationId, chatMessage);
+        chatContextCacheService.append(conversationId, chatMessage);
 
-        // 记录使用量统计
+        // 按实际用量结算配额
         Integer conversationIncrement = isNewConversation ? 1 : 0;
+        chatUsageService.settleUsage(reservation, chatResult.getProvider(), chatResult.getModel(),
+                actualPromptTokens, actualCompletionTokens, actualTotalTokens, conversationIncrement);
 
-        chatUsageService.recordUsage(userId, chatResult.getProvider(), chatResult.getModel(),
-                2, actualPromptTokens, actualCompletionTokens, actualTotalTokens, conversationIncrement);
+        // 新对话首轮完成后异步生成标题
+        if (isNewConversation) {
+            scheduleTitleGeneration(userId, conversationId, chatReq.getMessage());
+        }
 
         // 通知完成 - 传递完整的 token 统计给前端
         streamCallback.onComplete(conversationId, chatMessage.getId(), actualPromptTokens, actualCompletionTokens, actualTotalTokens);
 
         long endTime = System.currentTimeMillis();
-        log.info("AI流式对话完成，conversationId: {}, messageId: {}, contentLength: {}, totalTokens: {}, promptTokens: {}, completionTokens: {}, 耗时: {}ms",
-                conversationId, chatMessage.getId(), fullContent.length(), actualTotalTokens, actualPromptTokens, actualCompletionTokens, endTime - startTimeRef[0]);
+        recordStreamMetrics(stream, chatResult.getModel(), actualCompletionTokens, endTime);
+        log.info("AI流式对话完成，conversationId: {}, messageId: {}, contentLength: {}, chunks: {}, frames: {}, totalTokens: {}, promptTokens: {}, completionTokens: {}, 耗时: {}ms",
+                conversationId, chatMessage.getId(), fullContent.length(), stream.getChunkCount(), stream.getFrameCount(),
+                actualTotalTokens, actualPromptTokens, actualCompletionTokens, endTime - stream.getStartTime());
     }
 
-    private static void handleStreamingChunk(Long conversationId, StreamCallback streamCallback,
-                                             ChatResponse chatResponse, StringBuilder fullContent,
-                                             Long messageId, String[] modelName, AtomicReference<Object> finalMetadata) {
-        // 处理每个流式响应片段
-        String content = chatResponse.getResult().getOutput().getContent();
-        if (StringUtils.hasText(content)) {
-            fullContent.append(content);
-            streamCallback.onContent(conversationId, messageId, content);
+    /**
+     * 记录首token耗时和首token之后的输出速度，缓存回放和没有输出内容的流不计入
+     */
+    private void recordStreamMetrics(ChatStreamSubscriber stream, String model, Long completionTokens, long endTime) {
+        long firstChunkTime = stream.getFirstChunkTime();
+        if (stream.getUsageMeter() == null || stream.getProvider() == null || firstChunkTime == 0) {
+            return;
         }
+        long generateMillis = endTime - firstChunkTime;
+        double tokensPerSecond = completionTokens != null && generateMillis > 0
+                ? completionTokens * 1000.0 / generateMillis : -1;
+        metricsUtil.recordAiStream(stream.getProvider().name(), model,
+                firstChunkTime - stream.getStartTime(), tokensPerSecond);
+    }
 
-        // 提取模型信息（首次响应时）
-        if (modelName[0] == null && chatResponse.getMetadata() != null) {
-            modelName[0] = chatResponse.getMetadata().getModel();
+    /**
+     * 流式响应被取消（用户中止或连接断开）：已生成的内容照常保存，未生成任何内容时释放配额
+     */
+    private void handleStreamCancel(Long conversationId, Long userId, boolean isNewConversation,
+                                    ChatQuotaReservation reservation, ChatStreamSubscriber stream) {
+        String partialContent = stream.getFullContent();
+        log.info("AI流式对话已取消，conversationId: {}, contentLength: {}, chunks: {}, frames: {}",
+                conversationId, partialContent.length(), stream.getChunkCount(), stream.getFrameCount());
+
+        if (!StringUtils.hasText(partialContent)) {
+            chatUsageService.releaseQuota(reservation);
+            return;
         }
 
-        // 持续更新metadata，以获取最终的token统计
-        if (chatResponse.getMetadata() != null) {
-            finalMetadata.set(chatResponse.getMetadata());
+        try {
+            // 取消时上游不再返回用量，按增量估算值记录
+            ChatTokenUsage usage = streamUsage(stream, false);
+            ChatResult chatResult = ChatResult.builder()
+                    .content(partialContent)
+                    .provider(stream.getProvider())
+                    .model(stream.getModel() != null ? stream.getModel() : "undefined")
+                    .promptTokens(usage.getPromptTokens())
+                    .completionTokens(usage.getCompletionTokens())
+                    .totalTokens(usage.getTotalTokens())
+                    .build();
+            ChatMessageDO chatMessage = buildChatMessageDO(conversationId, userId, chatResult);
+            chatMessageDAO.save(chatMessage);
+            chatContextCacheService.append(conversationId, chatMessage);
+
+            chatUsageService.settleUsage(reservation, chatResult.getProvider(), chatResult.getModel(),
+                    usage.getPromptTokens(), usage.getCompletionTokens(), usage.getTotalTokens(), isNewConversation ? 1 : 0);
+        } catch (Exception e) {
+            log.error("保存已取消的AI回复失败，conversationId: {}", conversationId, e);
+            chatUsageService.releaseQuota(reservation);
         }
     }
 
+    /**
+     * 流式响应的用量，缓存回放（无计量）不消耗token
+     *
+     * @param useReported 是否采用提供商返回的用量，被截断或取消时上游未返回最终用量
+     */
+    private ChatTokenUsage streamUsage(ChatStreamSubscriber stream, boolean useReported) {
+        ChatUsageMeter usageMeter = stream.getUsageMeter();
+        if (usageMeter == null) {
+            return ChatTokenUsage.zero();
+        }
+        if (!useReported || stream.isTruncated()) {
+            return usageMeter.estimate();
+        }
+        return usageMeter.reconcile(chatUsageAdapter.extractUsage(stream.getProvider(), stream.getLastMetadata()));
+    }
+
+    /**
+     * 本次流式请求的token预算：今日剩余额度加回本次预占的估算值
+     */
+    private long tokenBudget(Long userId, ChatQuotaReservation reservation) {
+        long remaining = chatUsageService.getRemainingTokens(userId);
+        if (remaining == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return remaining + reservation.getEstimatedTokens();
+    }
+
+    /**
+     * 估算提示词token数，与 {@link #buildPrompt} 发送的消息一致
+     */
+    private static long estimatePromptTokens(String userMessage, List<ChatMessageDO> recentMessages) {
+        long tokens = TokenUtil.estimateMessage(SYSTEM_PROMPT) + TokenUtil.estimateMessage(userMessage);
+        if (!CollectionUtils.isEmpty(recentMessages)) {
+            for (ChatMessageDO msg : recentMessages) {
+                tokens += TokenUtil.estimateMessage(msg.getContent());
+            }
+        }
+        return tokens;
+    }
+
     private static Prompt buildPrompt(String userMessage, List<ChatMessageDO> recentMessages, Object chatOptions) {
         List<Message> messages = new ArrayList<>();
-        messages.add(new SystemMessage("你是一个牛逼的AI助手，请用中文回答问题。"));
+        messages.add(new SystemMessage(SYSTEM_PROMPT));
 
         // 5. 添加历史消息作为上下文（recentMessages已经是时间正序）
         if (!CollectionUtils.isEmpty(recentMessages)) {
@@ -588,95 +642,4 @@ public class ChatServiceImpl implements ChatService {
         }
         return prompt;
     }
-
-    /**
-     * 获取最近消息（带缓存）
-     */
-    private List<ChatMessageDO> getMessagesContext(Long conversationId, Integer limit) {
-        String cacheKey = RedisKeyConstants.getChatContextKey(conversationId);
-
-        try {
-            LinkedList<ChatMessageDO> messageQueue = redisUtil.get(cacheKey, new TypeReference<>() {
-            });
-            if (messageQueue != null && !messageQueue.isEmpty()) {
-                return new ArrayList<>(messageQueue);
-            }
-        } catch (Exception e) {
-            log.warn("读取上下文缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
-            try {
-                redisUtil.del(cacheKey);
-            } catch (Exception deleteException) {
-                log.warn("删除损坏缓存失败: {}", deleteException.getMessage());
-            }
-        }
-
-        // 缓存未命中，重建缓存队列
-        rebuildMessageQueue(conversationId, limit);
-
-        // 重新获取
-        try {
-            LinkedList<ChatMessageDO> messageQueue = redisUtil.get(cacheKey, new TypeReference<>() {
-            });
-            return messageQueue != null ? new ArrayList<>(messageQueue) : new ArrayList<>();
-        } catch (Exception e) {
-            log.warn("重新获取缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
-            return new ArrayList<>();
-        }
-    }
-
-    /**
-     * 增量更新对话上下文缓存
-     */
-    private void updateMessagesContext(Long conversationId, ChatMessageDO newMessage) {
-        String cacheKey = RedisKeyConstants.getChatContextKey(conversationId);
-
-        try {
-            LinkedList<ChatMessageDO> messageQueue = redisUtil.get(cacheKey, new TypeReference<>() {
-            });
-
-            if (messageQueue == null) {
-                messageQueue = new LinkedList<>();
-            }
-
-            // 直接添加到队尾（保持时间顺序）
-            messageQueue.addLast(newMessage);
-
-            // 保持队列大小限制：超出10条时移除队头
-            while (messageQueue.size() > 10) {
-                messageQueue.removeFirst();
-            }
-
-            // 更新缓存
-            redisUtil.set(cacheKey, messageQueue, Duration.ofMinutes(30));
-
-        } catch (Exception e) {
-            log.warn("更新上下文缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
-        }
-    }
-
-    /**
-     * 重建消息队列缓存
-     */
-    private void rebuildMessageQueue(Long conversationId, Integer limit) {
-        String cacheKey = RedisKeyConstants.getChatContextKey(conversationId);
-
-        try {
-            // 查询数据库获取最近消息
-            List<ChatMessageDO> dbMessages = chatMessageDAO.getRecentMessages(conversationId, limit);
-
-            // 构建有序队列：DAO返回倒序，需要转为正序队列
-            LinkedList<ChatMessageDO> messageQueue = new LinkedList<>();
-            for (int i = dbMessages.size() - 1; i >= 0; i--) {
-                messageQueue.addLast(dbMessages.get(i));
-            }
-
-            // 写入缓存
-            if (!messageQueue.isEmpty()) {
-                redisUtil.set(cacheKey, messageQueue, Duration.ofMinutes(30));
-            }
-
-        } catch (Exception e) {
-            log.warn("重建上下文缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,278 @@
+package top.harrylei.community.service.ai.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.model.ai.ChatTitleEvent;
+import top.harrylei.community.api.model.ai.req.ChatReq;
+import top.harrylei.community.service.ai.adapter.ChatClientSelector;
+import top.harrylei.community.service.ai.adapter.ChatOptionsAdapter;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.repository.dao.ChatConversationDAO;
+import top.harrylei.community.service.ai.service.ChatTitleService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AI对话标题服务实现
+ * <p>
+ * 创建对话时先用本地规则生成临时标题，首轮对话完成后再提交到有界队列，由标题线程池批量调用AI生成正式标题：
+ * 同一批次的多个问题合并为一次请求，按编号解析结果，未解析到的保留临时标题。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+public class ChatTitleServiceImpl implements ChatTitleService {
+
+    /**
+     * 标题最大长度
+     */
+    private static final int MAX_TITLE_LENGTH = 20;
+
+    /**
+     * 待生成队列容量，超出时放弃生成
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * 单次AI请求最多合并的标题数
+     */
+    private static final int BATCH_SIZE = 8;
+
+    /**
+     * 参与标题生成的问题最大长度
+     */
+    private static final int MAX_QUESTION_LENGTH = 200;
+
+    private static final String SINGLE_SYSTEM_PROMPT =
+            "你是一个标题生成助手，请为用户问题生成一个简洁的标题。要求：1）不超过20个字符 2）不包含引号 3）直接返回标题内容";
+
+    private static final String BATCH_SYSTEM_PROMPT =
+            "你是一个标题生成助手，请为每个带编号的用户问题分别生成一个简洁的标题。要求：1）每个标题不超过20个字符 " +
+            "2）不包含引号 3）每行一个，格式为\"编号. 标题\"，不要输出其他内容";
+
+    private static final Pattern NUMBERED_LINE = Pattern.compile("^\\s*(\\d+)\\s*[.、:：)）]\\s*(.+)$");
+
+    /**
+     * 句子结束符，临时标题优先取首句
+     */
+    private static final Pattern SENTENCE_END = Pattern.compile("[。？！?!；;\\n]");
+
+    /**
+     * Markdown标记和多余空白
+     */
+    private static final Pattern MARKDOWN_NOISE = Pattern.compile("```[\\s\\S]*?```|`|[#>*_~\\[\\]]");
+
+    private final ChatConversationDAO chatConversationDAO;
+    private final ChatClientSelector chatClientSelector;
+    private final ChatOptionsAdapter chatOptionsAdapter;
+    private final AiProviderConfig aiProviderConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskExecutor chatTitleExecutor;
+
+    private final BlockingQueue<TitleTask> pendingTasks = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    public ChatTitleServiceImpl(ChatConversationDAO chatConversationDAO,
+                                ChatClientSelector chatClientSelector,
+                                ChatOptionsAdapter chatOptionsAdapter,
+                                AiProviderConfig aiProviderConfig,
+                                ApplicationEventPublisher eventPublisher,
+                                @Qualifier("chatTitleExecutor") TaskExecutor chatTitleExecutor) {
+        this.chatConversationDAO = chatConversationDAO;
+        this.chatClientSelector = chatClientSelector;
+        this.chatOptionsAdapter = chatOptionsAdapter;
+        this.aiProviderConfig = aiProviderConfig;
+        this.eventPublisher = eventPublisher;
+        this.chatTitleExecutor = chatTitleExecutor;
+    }
+
+    @Override
+    public String heuristicTitle(String message) {
+        if (!StringUtils.hasText(message)) {
+            return "新对话";
+        }
+
+        String text = MARKDOWN_NOISE.matcher(message).replaceAll(" ").strip();
+        Matcher matcher = SENTENCE_END.matcher(text);
+        if (matcher.find() && matcher.start() > 0) {
+            text = text.substring(0, matcher.start());
+        }
+        text = text.replaceAll("\\s+", " ").strip();
+        if (text.isEmpty()) {
+            text = message.strip();
+        }
+        return truncate(text);
+    }
+
+    @Override
+    public void generateTitleAsync(Long userId, Long conversationId, String currentTitle, String question) {
+        if (conversationId == null || !StringUtils.hasText(question)) {
+            return;
+        }
+
+        String trimmedQuestion = question.length() > MAX_QUESTION_LENGTH ? question.substring(0, MAX_QUESTION_LENGTH) : question;
+        TitleTask task = new TitleTask(userId, conversationId, currentTitle, trimmedQuestion);
+
+        // 在事务中调用时等提交后再入队，避免异步线程读不到未提交的对话
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(task);
+                }
+            });
+        } else {
+            enqueue(task);
+        }
+    }
+
+    private void enqueue(TitleTask task) {
+        if (!pendingTasks.offer(task)) {
+            log.warn("标题生成队列已满，保留临时标题: conversationId={}", task.conversationId());
+            return;
+        }
+        triggerDrain();
+    }
+
+    /**
+     * 队列非空且没有线程在处理时提交处理任务，保证同一时刻最多一个批处理循环
+     */
+    private void triggerDrain() {
+        if (pendingTasks.isEmpty() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            chatTitleExecutor.execute(this::drain);
+        } catch (TaskRejectedException e) {
+            draining.set(false);
+            log.warn("标题生成线程池繁忙，稍后由下一次提交触发: {}", e.getMessage());
+        }
+    }
+
+    private void drain() {
+        try {
+            List<TitleTask> batch = new ArrayList<>(BATCH_SIZE);
+            while (pendingTasks.drainTo(batch, BATCH_SIZE) > 0) {
+                processBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 释放标记与新任务入队之间可能存在竞争，再检查一次
+        triggerDrain();
+    }
+
+    private void processBatch(List<TitleTask> batch) {
+        Map<Integer, String> titles;
+        try {
+            titles = generateTitles(batch);
+        } catch (Exception e) {
+            log.warn("AI生成标题失败，保留临时标题: size={}, error={}", batch.size(), e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            TitleTask task = batch.get(i);
+            String title = titles.get(i + 1);
+            if (!StringUtils.hasText(title) || title.equals(task.currentTitle())) {
+                continue;
+            }
+            try {
+                // 仅在标题未被修改时替换，避免覆盖用户手动设置的标题
+                if (chatConversationDAO.updateTitle(task.conversationId(), task.currentTitle(), title)) {
+                    eventPublisher.publishEvent(new ChatTitleEvent(this, task.userId(), task.conversationId(), title));
+                }
+            } catch (Exception e) {
+                log.warn("更新对话标题失败: conversationId={}, error={}", task.conversationId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 调用AI生成标题，返回 编号(从1开始) -> 标题
+     */
+    private Map<Integer, String> generateTitles(List<TitleTask> batch) {
+        ChatReq titleReq = new ChatReq();
+        ChatClientTypeEnum titleProvider = aiProviderConfig.getDefaultProvider();
+        titleReq.setProvider(titleProvider);
+        titleReq.setTemperature(0.3f);
+        titleReq.setMaxTokens(50 * batch.size());
+
+        Object titleOptions = chatOptionsAdapter.buildChatOptions(titleReq, titleProvider);
+        ChatClient titleClient = chatClientSelector.select(titleProvider);
+
+        String system;
+        String user;
+        if (batch.size() == 1) {
+            system = SINGLE_SYSTEM_PROMPT;
+            user = "请为以下问题生成标题：" + batch.get(0).question();
+        } else {
+            system = BATCH_SYSTEM_PROMPT;
+            StringBuilder sb = new StringBuilder("请为以下问题分别生成标题：\n");
+            for (int i = 0; i < batch.size(); i++) {
+                sb.append(i + 1).append(". ").append(batch.get(i).question().replaceAll("\\s+", " ")).append('\n');
+            }
+            user = sb.toString();
+        }
+
+        ChatClient.ChatClientRequestSpec request = titleClient.prompt().system(system).user(user);
+        if (titleOptions instanceof OpenAiChatOptions options) {
+            request = request.options(options);
+        }
+        String content = request.call().content();
+
+        Map<Integer, String> titles = new HashMap<>();
+        if (!StringUtils.hasText(content)) {
+            return titles;
+        }
+        if (batch.size() == 1) {
+            titles.put(1, cleanTitle(content));
+            return titles;
+        }
+        for (String line : content.split("\\R")) {
+            Matcher matcher = NUMBERED_LINE.matcher(line);
+            if (matcher.matches()) {
+                titles.putIfAbsent(Integer.parseInt(matcher.group(1)), cleanTitle(matcher.group(2)));
+            }
+        }
+        return titles;
+    }
+
+    /**
+     * 清理AI返回的标题（去除可能的引号、换行等）
+     */
+    private static String cleanTitle(String title) {
+        String cleaned = title.trim()
+                .replaceAll("^[\"'《“]|[\"'》”]$", "")
+                .replaceAll("[\r\n]", "")
+                .trim();
+        return cleaned.isEmpty() ? null : truncate(cleaned);
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_TITLE_LENGTH ? text : text.substring(0, MAX_TITLE_LENGTH) + "...";
+    }
+
+    private record TitleTask(Long userId, Long conversationId, String currentTitle, String question) {
+    }
+}
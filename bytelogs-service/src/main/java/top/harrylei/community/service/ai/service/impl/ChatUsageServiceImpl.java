@@ -3,22 +3,33 @@ package top.harrylei.community.service.ai.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.api.model.ai.dto.ChatQuotaReservation;
 import top.harrylei.community.api.model.ai.dto.ChatUsageStatsDTO;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
 import top.harrylei.community.core.config.AILimitConfig;
+import top.harrylei.community.core.util.JsonUtil;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.ai.repository.dao.ChatUsageStatsDAO;
 import top.harrylei.community.service.ai.repository.entity.ChatUsageStatsDO;
-import top.harrylei.community.service.ai.repository.mapper.ChatUsageStatsMapper;
 import top.harrylei.community.service.ai.service.ChatUsageService;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * AI使用量统计服务实现
+ * <p>
+ * 配额计数保存在Redis中：每日Hash（messages、tokens、conversations）和每小时消息计数器。
+ * 请求开始时通过Lua脚本原子地检查并预占，完成后按实际token结算，失败时释放；
+ * 结算产生的增量写入待落库队列，由定时任务批量累加到 chat_usage_stats：取出的增量先移入落库中队列，
+ * 写入数据库后才删除，落库失败或进程中断时留在落库中队列，下一轮优先重试。
  *
  * @author harry
  */
@@ -27,107 +38,231 @@ import java.time.LocalDate;
 @Service
 public class ChatUsageServiceImpl implements ChatUsageService {
 
-
     private final AILimitConfig aiLimitConfig;
     private final ChatUsageStatsDAO chatUsageStatsDAO;
     private final RedisUtil redisUtil;
-    private final ChatUsageStatsMapper chatUsageStatsMapper;
 
-    @Override
-    public boolean checkDailyLimit(Long userId) {
-        if (!aiLimitConfig.getEnabled()) {
-            return true;
-        }
+    /**
+     * 每轮对话预占的消息数（用户消息 + AI回复）
+     */
+    private static final int MESSAGES_PER_EXCHANGE = 2;
 
-        LocalDate today = LocalDate.now();
+    /**
+     * 每日计数过期时间，保留到次日以便跨天结算
+     */
+    private static final Duration DAILY_COUNTER_EXPIRE = Duration.ofDays(2);
 
-        // 检查每日消息限制
-        Integer totalMessages = chatUsageStatsDAO.getTotalMessagesByUserIdAndDate(userId, today);
-        if (totalMessages >= aiLimitConfig.getDailyMessageLimit()) {
-            log.warn("用户{}今日消息数量已超限: {}/{}",
-                    userId, totalMessages, aiLimitConfig.getDailyMessageLimit());
-            return false;
-        }
+    /**
+     * 每小时计数过期时间
+     */
+    private static final Duration HOURLY_COUNTER_EXPIRE = Duration.ofHours(1);
 
-        // 检查每日Token限制
-        Long totalTokens = chatUsageStatsDAO.getTotalTokensByUserIdAndDate(userId, today);
-        if (totalTokens >= aiLimitConfig.getDailyTokenLimit()) {
-            log.warn("用户{}今日Token消耗已超限: {}/{}",
-                    userId, totalTokens, aiLimitConfig.getDailyTokenLimit());
-            return false;
-        }
+    /**
+     * 落库锁标识，多实例同时只有一个在处理落库中队列
+     */
+    private static final String FLUSH_LOCK = "ai_usage_flush";
 
-        return true;
-    }
+    /**
+     * 落库锁租期，持锁实例中断后由其他实例接手落库中队列
+     */
+    private static final Duration FLUSH_LOCK_LEASE = Duration.ofSeconds(60);
+
+    private static final String FIELD_MESSAGES = "messages";
+    private static final String FIELD_TOKENS = "tokens";
+    private static final String FIELD_CONVERSATIONS = "conversations";
+
+    /**
+     * 预占结果：-1 每日计数未初始化，1 每小时超限，2 每日消息超限，3 每日token超限
+     */
+    private static final long RESERVE_NOT_SEEDED = -1L;
+    private static final long RESERVE_HOURLY_EXCEEDED = 1L;
+    private static final long RESERVE_DAILY_MESSAGES_EXCEEDED = 2L;
+    private static final long RESERVE_DAILY_TOKENS_EXCEEDED = 3L;
+
+    /**
+     * 检查并预占配额，限制值小于0表示不限制
+     * KEYS[1]: 每日Hash，KEYS[2]: 每小时计数器
+     * ARGV[1]: 每日消息上限，ARGV[2]: 每日token上限，ARGV[3]: 每小时消息上限，
+     * ARGV[4]: 预占消息数，ARGV[5]: 预占token数，ARGV[6]: 每日过期秒数，ARGV[7]: 每小时过期秒数
+     * 返回 -1 未初始化，0 成功，1 每小时超限，2 每日消息超限，3 每日token超限
+     */
+    private static final String RESERVE_LUA_SCRIPT =
+            "if redis.call('type', KEYS[1]).ok ~= 'hash' then return -1 end " +
+            "local messages = tonumber(redis.call('hget', KEYS[1], 'messages') or '0') " +
+            "local tokens = tonumber(redis.call('hget', KEYS[1], 'tokens') or '0') " +
+            "local hourly = tonumber(redis.call('get', KEYS[2]) or '0') " +
+            "local msgLimit, tokenLimit, hourlyLimit = tonumber(ARGV[1]), tonumber(ARGV[2]), tonumber(ARGV[3]) " +
+            "local reserveMessages, reserveTokens = tonumber(ARGV[4]), tonumber(ARGV[5]) " +
+            "if hourlyLimit >= 0 and hourly >= hourlyLimit then return 1 end " +
+            "if msgLimit >= 0 and messages >= msgLimit then return 2 end " +
+            "if tokenLimit >= 0 and tokens + reserveTokens > tokenLimit then return 3 end " +
+            "redis.call('hincrby', KEYS[1], 'messages', reserveMessages) " +
+            "redis.call('hincrby', KEYS[1], 'tokens', reserveTokens) " +
+            "redis.call('expire', KEYS[1], ARGV[6]) " +
+            "redis.call('incrby', KEYS[2], reserveMessages) " +
+            "if redis.call('ttl', KEYS[2]) < 0 then redis.call('expire', KEYS[2], ARGV[7]) end " +
+            "return 0";
+
+    /**
+     * 以数据库统计初始化每日Hash，已存在的字段不覆盖（兼容旧版本的字符串缓存）
+     * KEYS[1]: 每日Hash
+     * ARGV[1]: 消息数，ARGV[2]: token数，ARGV[3]: 对话数，ARGV[4]: 过期秒数
+     */
+    private static final String SEED_LUA_SCRIPT =
+            "local t = redis.call('type', KEYS[1]).ok " +
+            "if t ~= 'hash' and t ~= 'none' then redis.call('del', KEYS[1]) end " +
+            "redis.call('hsetnx', KEYS[1], 'messages', ARGV[1]) " +
+            "redis.call('hsetnx', KEYS[1], 'tokens', ARGV[2]) " +
+            "redis.call('hsetnx', KEYS[1], 'conversations', ARGV[3]) " +
+            "redis.call('expire', KEYS[1], ARGV[4]) " +
+            "return 1";
+
+    /**
+     * 结算：以实际token修正预占值，并将增量写入待落库队列
+     * KEYS[1]: 每日Hash，KEYS[2]: 待落库队列
+     * ARGV[1]: token修正值，ARGV[2]: 对话数增量，ARGV[3]: 增量JSON，ARGV[4]: 过期秒数
+     */
+    private static final String SETTLE_LUA_SCRIPT =
+            "if redis.call('type', KEYS[1]).ok == 'hash' then " +
+            "  local tokens = redis.call('hincrby', KEYS[1], 'tokens', ARGV[1]) " +
+            "  if tokens < 0 then redis.call('hset', KEYS[1], 'tokens', 0) end " +
+            "  redis.call('hincrby', KEYS[1], 'conversations', ARGV[2]) " +
+            "  redis.call('expire', KEYS[1], ARGV[4]) " +
+            "end " +
+            "return redis.call('rpush', KEYS[2], ARGV[3])";
+
+    /**
+     * 释放预占，计数不低于0
+     * KEYS[1]: 每日Hash，KEYS[2]: 每小时计数器
+     * ARGV[1]: 消息数，ARGV[2]: token数
+     */
+    private static final String RELEASE_LUA_SCRIPT =
+            "if redis.call('type', KEYS[1]).ok == 'hash' then " +
+            "  if redis.call('hincrby', KEYS[1], 'messages', -tonumber(ARGV[1])) < 0 then redis.call('hset', KEYS[1], 'messages', 0) end " +
+            "  if redis.call('hincrby', KEYS[1], 'tokens', -tonumber(ARGV[2])) < 0 then redis.call('hset', KEYS[1], 'tokens', 0) end " +
+            "end " +
+            "if redis.call('exists', KEYS[2]) == 1 and redis.call('decrby', KEYS[2], ARGV[1]) < 0 then " +
+            "  redis.call('set', KEYS[2], 0, 'KEEPTTL') " +
+            "end " +
+            "return 1";
+
+    /**
+     * 取出本轮要落库的增量：落库中队列有上一轮未完成的增量时原样返回，否则从待落库队列头部移入最多N条
+     * KEYS[1]: 待落库队列，KEYS[2]: 落库中队列，ARGV[1]: 条数
+     */
+    private static final String DRAIN_LUA_SCRIPT =
+            "if redis.call('exists', KEYS[2]) == 1 then return redis.call('lrange', KEYS[2], 0, -1) end " +
+            "local n = tonumber(ARGV[1]) " +
+            "local items = redis.call('lrange', KEYS[1], 0, n - 1) " +
+            "if #items > 0 then " +
+            "  redis.call('rpush', KEYS[2], unpack(items)) " +
+            "  redis.call('ltrim', KEYS[1], #items, -1) " +
+            "end " +
+            "return items";
 
     @Override
-    public boolean checkHourlyMessageLimit(Long userId) {
-        if (!aiLimitConfig.getEnabled()) {
-            return true;
+    public ChatQuotaReservation reserveQuota(Long userId, long estimatedTokens) {
+        String date = LocalDate.now().toString();
+        ChatQuotaReservation reservation = ChatQuotaReservation.builder()
+                .userId(userId)
+                .date(date)
+                .messages(MESSAGES_PER_EXCHANGE)
+                .estimatedTokens(Math.max(0L, estimatedTokens))
+                .build();
+
+        Long result = evalReserve(reservation);
+        if (result != null && result == RESERVE_NOT_SEEDED) {
+            seedDailyCounter(userId, date);
+            result = evalReserve(reservation);
         }
 
-        String key = RedisKeyConstants.getChatHourlyLimitKey(userId);
-        Integer currentCount = redisUtil.get(key, Integer.class);
-        currentCount = currentCount != null ? currentCount : 0;
-
-        return currentCount < aiLimitConfig.getHourlyMessageLimit();
+        if (result == null || result == RESERVE_NOT_SEEDED) {
+            // Redis不可用时放行，避免配额组件故障导致对话功能不可用
+            log.warn("预占AI使用配额失败，放行请求: userId={}", userId);
+            return reservation;
+        }
+        if (result == RESERVE_HOURLY_EXCEEDED) {
+            log.warn("用户{}每小时消息数量已超限: limit={}", userId, aiLimitConfig.getHourlyMessageLimit());
+            ResultCode.AI_HOURLY_LIMIT_EXCEEDED.throwException();
+        }
+        if (result == RESERVE_DAILY_MESSAGES_EXCEEDED) {
+            log.warn("用户{}今日消息数量已超限: limit={}", userId, aiLimitConfig.getDailyMessageLimit());
+            ResultCode.AI_DAILY_LIMIT_EXCEEDED.throwException();
+        }
+        if (result == RESERVE_DAILY_TOKENS_EXCEEDED) {
+            log.warn("用户{}今日Token消耗已超限: limit={}", userId, aiLimitConfig.getDailyTokenLimit());
+            ResultCode.AI_DAILY_LIMIT_EXCEEDED.throwException();
+        }
+        return reservation;
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void recordUsage(Long userId, ChatClientTypeEnum provider, String modelName,
-                            Integer messageCount, Long promptTokens, Long completionTokens,
-                            Long totalTokens, Integer conversationCount) {
-        LocalDate today = LocalDate.now();
-
-        ChatUsageStatsDO usageStats = getDailyUsageFromDB(userId, today, provider, modelName);
-        if (usageStats == null) {
-            usageStats = new ChatUsageStatsDO();
-            usageStats.setUserId(userId);
-            usageStats.setDate(today);
-            usageStats.setProvider(provider);
-            usageStats.setModelName(modelName);
-            usageStats.setMessageCount(messageCount != null ? messageCount : 0);
-            usageStats.setPromptTokens(promptTokens != null ? promptTokens : 0L);
-            usageStats.setCompletionTokens(completionTokens != null ? completionTokens : 0L);
-            usageStats.setTotalTokens(totalTokens != null ? totalTokens : 0L);
-            usageStats.setConversationCount(conversationCount != null ? conversationCount : 0);
-
-            chatUsageStatsDAO.save(usageStats);
-        } else {
-            usageStats.setMessageCount(usageStats.getMessageCount() + (messageCount != null ? messageCount : 0));
-            usageStats.setPromptTokens(usageStats.getPromptTokens() + (promptTokens != null ? promptTokens : 0L));
-            usageStats.setCompletionTokens(usageStats.getCompletionTokens() + (completionTokens != null ? completionTokens : 0L));
-            usageStats.setTotalTokens(usageStats.getTotalTokens() + (totalTokens != null ? totalTokens : 0L));
-            usageStats.setConversationCount(usageStats.getConversationCount() + (conversationCount != null ? conversationCount : 0));
-
-            chatUsageStatsDAO.updateById(usageStats);
-        }
-
-        // 更新每小时限制计数器
-        if (messageCount != null && messageCount > 0) {
-            updateHourlyCounter(userId, messageCount);
-        }
-
-        // 清除缓存
-        clearDailyUsageCache(userId, today);
+    public void settleUsage(ChatQuotaReservation reservation, ChatClientTypeEnum provider, String modelName,
+                            Long promptTokens, Long completionTokens, Long totalTokens, Integer conversationCount) {
+        if (reservation == null || reservation.isFinished()) {
+            return;
+        }
+        reservation.setFinished(true);
+
+        long actualTokens = totalTokens != null ? totalTokens : 0L;
+        int conversations = conversationCount != null ? conversationCount : 0;
+
+        ChatUsageStatsDO delta = new ChatUsageStatsDO();
+        delta.setUserId(reservation.getUserId());
+        delta.setDate(LocalDate.parse(reservation.getDate()));
+        delta.setProvider(provider);
+        delta.setModelName(modelName);
+        delta.setMessageCount(reservation.getMessages());
+        delta.setConversationCount(conversations);
+        delta.setPromptTokens(promptTokens != null ? promptTokens : 0L);
+        delta.setCompletionTokens(completionTokens != null ? completionTokens : 0L);
+        delta.setTotalTokens(actualTokens);
+
+        Long result = redisUtil.evalForLong(SETTLE_LUA_SCRIPT,
+                List.of(dailyKey(reservation.getUserId(), reservation.getDate()),
+                        RedisKeyConstants.getChatUsagePendingKey()),
+                actualTokens - reservation.getEstimatedTokens(), conversations,
+                JsonUtil.toJson(delta), DAILY_COUNTER_EXPIRE.getSeconds());
+        if (result == null) {
+            // Redis不可用时直接落库，保证统计不丢失
+            log.warn("结算AI使用量失败，直接写入数据库: userId={}", reservation.getUserId());
+            chatUsageStatsDAO.upsertBatch(List.of(delta));
+        }
 
         log.info("记录用户{}使用量: messages={}, promptTokens={}, completionTokens={}, totalTokens={}, conversations={}",
-                userId, messageCount, promptTokens, completionTokens, totalTokens, conversationCount);
+                reservation.getUserId(), delta.getMessageCount(), delta.getPromptTokens(),
+                delta.getCompletionTokens(), actualTokens, conversations);
     }
 
     @Override
-    public ChatUsageStatsDTO getDailyUsage(Long userId, LocalDate date) {
-        String cacheKey = RedisKeyConstants.getChatDailyUsageKey(userId, date.toString());
-        ChatUsageStatsDTO cachedUsage = redisUtil.get(cacheKey, ChatUsageStatsDTO.class);
-        if (cachedUsage != null) {
-            return cachedUsage;
+    public void releaseQuota(ChatQuotaReservation reservation) {
+        if (reservation == null || reservation.isFinished()) {
+            return;
         }
+        reservation.setFinished(true);
+
+        Long result = redisUtil.evalForLong(RELEASE_LUA_SCRIPT,
+                List.of(dailyKey(reservation.getUserId(), reservation.getDate()),
+                        RedisKeyConstants.getChatHourlyLimitKey(reservation.getUserId())),
+                reservation.getMessages(), reservation.getEstimatedTokens());
+        if (result == null) {
+            log.warn("释放AI使用配额失败: userId={}", reservation.getUserId());
+        }
+    }
 
-        Long totalTokens = chatUsageStatsDAO.getTotalTokensByUserIdAndDate(userId, date);
-        Integer totalMessages = chatUsageStatsDAO.getTotalMessagesByUserIdAndDate(userId, date);
+    @Override
+    public ChatUsageStatsDTO getDailyUsage(Long userId, LocalDate date) {
+        String cacheKey = dailyKey(userId, date.toString());
+        Map<String, Long> counters = redisUtil.hGetAll(cacheKey, Long.class);
+        if (counters.isEmpty()) {
+            seedDailyCounter(userId, date.toString());
+            counters = redisUtil.hGetAll(cacheKey, Long.class);
+        }
 
-        if (totalTokens == 0 && totalMessages == 0) {
+        long totalMessages = counters.getOrDefault(FIELD_MESSAGES, 0L);
+        long totalTokens = counters.getOrDefault(FIELD_TOKENS, 0L);
+        long totalConversations = counters.getOrDefault(FIELD_CONVERSATIONS, 0L);
+        if (totalMessages == 0 && totalTokens == 0) {
             return null;
         }
 
@@ -135,11 +270,8 @@ public class ChatUsageServiceImpl implements ChatUsageService {
         usageStats.setUserId(userId);
         usageStats.setDate(date);
         usageStats.setTotalTokens(totalTokens);
-        usageStats.setMessageCount(totalMessages);
-        usageStats.setConversationCount(0);
-
-        redisUtil.set(cacheKey, usageStats, Duration.ofMinutes(30));
-
+        usageStats.setMessageCount((int) totalMessages);
+        usageStats.setConversationCount((int) totalConversations);
         return usageStats;
     }
 
@@ -149,40 +281,108 @@ public class ChatUsageServiceImpl implements ChatUsageService {
             return Integer.MAX_VALUE;
         }
 
-        Integer used = chatUsageStatsDAO.getTotalMessagesByUserIdAndDate(userId, LocalDate.now());
+        ChatUsageStatsDTO usage = getDailyUsage(userId, LocalDate.now());
+        int used = usage != null ? usage.getMessageCount() : 0;
 
         return Math.max(0, aiLimitConfig.getDailyMessageLimit() - used);
     }
 
+    @Override
+    public long getRemainingTokens(Long userId) {
+        if (!aiLimitConfig.getEnabled()) {
+            return Long.MAX_VALUE;
+        }
+
+        ChatUsageStatsDTO usage = getDailyUsage(userId, LocalDate.now());
+        long used = usage != null && usage.getTotalTokens() != null ? usage.getTotalTokens() : 0L;
+
+        return Math.max(0L, aiLimitConfig.getDailyTokenLimit() - used);
+    }
+
+    @Override
+    public int flushPendingUsage(int batchSize) {
+        String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.setIfAbsent(RedisKeyConstants.getDistributedLockKey(FLUSH_LOCK),
+                lockValue, FLUSH_LOCK_LEASE))) {
+            return 0;
+        }
 
-    /**
-     * 根据用户ID、日期、提供商和模型获取统计数据
-     */
-    private ChatUsageStatsDO getDailyUsageFromDB(Long userId, LocalDate date,
-                                                 ChatClientTypeEnum provider, String modelName) {
-        return chatUsageStatsDAO.getByUserIdDateProviderAndModel(userId, date, provider, modelName);
+        try {
+            return flushProcessingUsage(batchSize);
+        } finally {
+            redisUtil.releaseLock(FLUSH_LOCK, lockValue);
+        }
     }
 
     /**
-     * 更新每小时计数器
+     * 持锁处理一批增量，写入数据库后才删除落库中队列
      */
-    private void updateHourlyCounter(Long userId, Integer messageCount) {
-        String key = RedisKeyConstants.getChatHourlyLimitKey(userId);
+    private int flushProcessingUsage(int batchSize) {
+        String processingKey = RedisKeyConstants.getChatUsageProcessingKey();
+        List<String> items = redisUtil.evalForList(DRAIN_LUA_SCRIPT,
+                List.of(RedisKeyConstants.getChatUsagePendingKey(), processingKey), batchSize);
+        if (items == null || items.isEmpty()) {
+            return 0;
+        }
 
-        // 先尝试自增，如果key不存在会自动创建并设置为0+messageCount
-        Long result = redisUtil.incrBy(key, messageCount);
+        // 同一用户、日期、提供商、模型的增量合并为一行
+        Map<String, ChatUsageStatsDO> merged = new LinkedHashMap<>();
+        for (String item : items) {
+            ChatUsageStatsDO delta = JsonUtil.fromJson(item, ChatUsageStatsDO.class);
+            if (delta == null || delta.getUserId() == null || delta.getDate() == null) {
+                log.warn("丢弃无法解析的AI使用量增量: {}", item);
+                continue;
+            }
+            merged.merge(delta.getUserId() + "|" + delta.getDate() + "|" + delta.getProvider() + "|" + delta.getModelName(),
+                    delta, ChatUsageServiceImpl::mergeDelta);
+        }
 
-        // 如果是第一次创建这个key（result等于messageCount），设置过期时间
-        if (result.equals(messageCount.longValue())) {
-            redisUtil.expire(key, Duration.ofHours(1));
+        try {
+            chatUsageStatsDAO.upsertBatch(new ArrayList<>(merged.values()));
+        } catch (Exception e) {
+            // 落库失败时增量留在落库中队列，下一轮重试
+            log.error("批量写入AI使用量失败，下一轮重试: size={}", items.size(), e);
+            return 0;
         }
+        redisUtil.del(processingKey);
+        return items.size();
+    }
+
+    private Long evalReserve(ChatQuotaReservation reservation) {
+        boolean enabled = Boolean.TRUE.equals(aiLimitConfig.getEnabled());
+        return redisUtil.evalForLong(RESERVE_LUA_SCRIPT,
+                List.of(dailyKey(reservation.getUserId(), reservation.getDate()),
+                        RedisKeyConstants.getChatHourlyLimitKey(reservation.getUserId())),
+                enabled ? aiLimitConfig.getDailyMessageLimit() : -1,
+                enabled ? aiLimitConfig.getDailyTokenLimit() : -1,
+                enabled ? aiLimitConfig.getHourlyMessageLimit() : -1,
+                reservation.getMessages(), reservation.getEstimatedTokens(),
+                DAILY_COUNTER_EXPIRE.getSeconds(), HOURLY_COUNTER_EXPIRE.getSeconds());
     }
 
     /**
-     * 清除每日使用量缓存
+     * 以数据库中的当日统计初始化Redis计数
      */
-    private void clearDailyUsageCache(Long userId, LocalDate date) {
-        String cacheKey = RedisKeyConstants.getChatDailyUsageKey(userId, date.toString());
-        redisUtil.del(cacheKey);
+    private void seedDailyCounter(Long userId, String date) {
+        List<ChatUsageStatsDO> stats = chatUsageStatsDAO.listByUserIdAndDate(userId, LocalDate.parse(date));
+        long messages = stats.stream().mapToLong(ChatUsageStatsDO::getMessageCount).sum();
+        long tokens = stats.stream().mapToLong(ChatUsageStatsDO::getTotalTokens).sum();
+        long conversations = stats.stream().mapToLong(ChatUsageStatsDO::getConversationCount).sum();
+
+        redisUtil.evalForLong(SEED_LUA_SCRIPT, List.of(dailyKey(userId, date)),
+                messages, tokens, conversations, DAILY_COUNTER_EXPIRE.getSeconds());
+    }
+
+    private static String dailyKey(Long userId, String date) {
+        return RedisKeyConstants.getChatDailyUsageKey(userId, date);
+    }
+
+    private static ChatUsageStatsDO mergeDelta(ChatUsageStatsDO a, ChatUsageStatsDO b) {
+        a.setMessageCount(a.getMessageCount() + b.getMessageCount());
+        a.setConversationCount(a.getConversationCount() + b.getConversationCount());
+        a.setPromptTokens(a.getPromptTokens() + b.getPromptTokens());
+        a.setCompletionTokens(a.getCompletionTokens() + b.getCompletionTokens());
+        a.setTotalTokens(a.getTotalTokens() + b.getTotalTokens());
+        return a;
     }
-}
\ No newline at end of file
+}
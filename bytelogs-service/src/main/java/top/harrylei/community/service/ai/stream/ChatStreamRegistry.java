@@ -0,0 +1,73 @@
+package top.harrylei.community.service.ai.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进行中的AI流式响应登记表，用于用户中止和连接断开时取消上游请求
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+public class ChatStreamRegistry {
+
+    /**
+     * 用户ID -> (对话ID -> 订阅)
+     */
+    private final Map<Long, Map<Long, Disposable>> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 登记流式响应，同一对话已有进行中的响应时先取消旧的
+     */
+    public void register(Long userId, Long conversationId, Disposable stream) {
+        Disposable previous = streams.computeIfAbsent(userId, k -> new ConcurrentHashMap<>()).put(conversationId, stream);
+        if (previous != null && previous != stream) {
+            previous.dispose();
+        }
+    }
+
+    /**
+     * 流式响应结束后移除登记（仅移除同一订阅，避免误删新请求）
+     */
+    public void unregister(Long userId, Long conversationId, Disposable stream) {
+        streams.computeIfPresent(userId, (k, userStreams) -> {
+            userStreams.remove(conversationId, stream);
+            return userStreams.isEmpty() ? null : userStreams;
+        });
+    }
+
+    /**
+     * 取消指定对话进行中的流式响应
+     *
+     * @return 是否存在并已取消
+     */
+    public boolean cancel(Long userId, Long conversationId) {
+        Map<Long, Disposable> userStreams = streams.get(userId);
+        Disposable stream = userStreams != null ? userStreams.remove(conversationId) : null;
+        if (stream == null) {
+            return false;
+        }
+        stream.dispose();
+        return true;
+    }
+
+    /**
+     * 取消用户所有进行中的流式响应
+     *
+     * @return 取消的数量
+     */
+    public int cancelAll(Long userId) {
+        Map<Long, Disposable> userStreams = streams.remove(userId);
+        if (userStreams == null) {
+            return 0;
+        }
+        userStreams.values().forEach(Disposable::dispose);
+        log.info("取消用户进行中的AI流式响应: userId={}, count={}", userId, userStreams.size());
+        return userStreams.size();
+    }
+}
@@ -0,0 +1,252 @@
+package top.harrylei.community.service.ai.stream;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI流式响应订阅者
+ * <p>
+ * 将模型输出的token片段合并为帧再推送：累计达到 {@link #FRAME_MAX_BYTES} 字节立即发送，
+ * 否则最多等待 {@link #FRAME_INTERVAL} 由定时器发送。每处理完一个片段才向上游补充一个请求，
+ * 未处理的请求数不超过 {@link #PREFETCH}，推送变慢时上游随之放缓，不再无界缓冲。
+ * 取消订阅（用户中止或连接断开）会向上游传播，终止模型请求。设置 {@link ChatUsageMeter} 后，
+ * 累计估算用量超出预算时同样取消上游，此时 {@link #isTruncated()} 为true。
+ *
+ * @author harry
+ */
+@Slf4j
+public class ChatStreamSubscriber extends BaseSubscriber<ChatResponse> {
+
+    /**
+     * 单帧最大等待时间
+     */
+    public static final Duration FRAME_INTERVAL = Duration.ofMillis(16);
+
+    /**
+     * 单帧字节数阈值，达到后立即发送
+     */
+    public static final int FRAME_MAX_BYTES = 64;
+
+    /**
+     * 向上游请求的最大未处理片段数
+     */
+    public static final int PREFETCH = 32;
+
+    /**
+     * 帧发送器
+     */
+    @FunctionalInterface
+    public interface FrameSink {
+
+        /**
+         * 发送一帧内容
+         *
+         * @param frame 合并后的内容
+         */
+        void send(String frame);
+    }
+
+    /**
+     * 流结束回调，三者只会触发其一
+     */
+    public interface Listener {
+
+        /**
+         * 上游正常结束，所有帧已发送
+         */
+        void onComplete(ChatStreamSubscriber subscriber);
+
+        /**
+         * 上游出错
+         */
+        void onError(ChatStreamSubscriber subscriber, Throwable error);
+
+        /**
+         * 订阅被取消（用户中止、连接断开或超出token预算）
+         */
+        void onCancel(ChatStreamSubscriber subscriber);
+    }
+
+    private final FrameSink frameSink;
+    private final Listener listener;
+    private final Scheduler scheduler;
+
+    private final StringBuilder fullContent = new StringBuilder();
+    private final StringBuilder pendingFrame = new StringBuilder();
+    private int pendingBytes;
+    private Disposable flushTimer;
+
+    /**
+     * 实际提供响应的AI提供商，故障转移后可能与请求的不同
+     */
+    @Getter
+    @Setter
+    private volatile ChatClientTypeEnum provider;
+
+    /**
+     * 模型名称，未预先设置时取首个响应中的模型
+     */
+    @Getter
+    @Setter
+    private volatile String model;
+
+    /**
+     * 最后一个响应的元数据，包含最终的token统计
+     */
+    @Getter
+    private volatile ChatResponseMetadata lastMetadata;
+
+    /**
+     * 用量计量，设置后按片段增量估算，超出预算时截断
+     */
+    @Getter
+    @Setter
+    private volatile ChatUsageMeter usageMeter;
+
+    /**
+     * 是否因超出token预算被截断
+     */
+    @Getter
+    private volatile boolean truncated;
+
+    /**
+     * 收到的片段数
+     */
+    @Getter
+    private int chunkCount;
+
+    /**
+     * 发送的帧数
+     */
+    @Getter
+    private int frameCount;
+
+    @Getter
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * 收到首个非空片段的时间，尚未收到时为0
+     */
+    @Getter
+    private volatile long firstChunkTime;
+
+    public ChatStreamSubscriber(FrameSink frameSink, Listener listener) {
+        this(frameSink, listener, Schedulers.parallel());
+    }
+
+    public ChatStreamSubscriber(FrameSink frameSink, Listener listener, Scheduler scheduler) {
+        this.frameSink = frameSink;
+        this.listener = listener;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 获取已接收的完整内容
+     */
+    public synchronized String getFullContent() {
+        return fullContent.toString();
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        long intervalNanos = FRAME_INTERVAL.toNanos();
+        flushTimer = scheduler.schedulePeriodically(this::flush, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        subscription.request(PREFETCH);
+    }
+
+    @Override
+    protected void hookOnNext(ChatResponse response) {
+        if (response.getMetadata() != null) {
+            if (model == null) {
+                model = response.getMetadata().getModel();
+            }
+            lastMetadata = response.getMetadata();
+        }
+
+        String content = response.getResult() != null && response.getResult().getOutput() != null
+                ? response.getResult().getOutput().getContent() : null;
+        if (StringUtils.hasLength(content)) {
+            append(content);
+            ChatUsageMeter meter = usageMeter;
+            if (meter != null && !meter.record(content)) {
+                // 超出预算：发送已生成的内容后取消上游，由 onCancel 回调按截断处理
+                truncated = true;
+                flush();
+                cancel();
+                return;
+            }
+        }
+        request(1);
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        stopTimer();
+        flush();
+        log.debug("流式响应完成: chunks={}, frames={}", chunkCount, frameCount);
+        listener.onComplete(this);
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        stopTimer();
+        listener.onError(this, throwable);
+    }
+
+    @Override
+    protected void hookOnCancel() {
+        stopTimer();
+        listener.onCancel(this);
+    }
+
+    private synchronized void append(String content) {
+        if (chunkCount == 0) {
+            firstChunkTime = System.currentTimeMillis();
+        }
+        chunkCount++;
+        fullContent.append(content);
+        pendingFrame.append(content);
+        pendingBytes += content.getBytes(StandardCharsets.UTF_8).length;
+        if (pendingBytes >= FRAME_MAX_BYTES) {
+            flush();
+        }
+    }
+
+    /**
+     * 发送已合并的内容；由片段到达线程和定时器调用，加锁保证帧顺序
+     */
+    private synchronized void flush() {
+        if (pendingFrame.isEmpty()) {
+            return;
+        }
+        String frame = pendingFrame.toString();
+        pendingFrame.setLength(0);
+        pendingBytes = 0;
+        frameCount++;
+        try {
+            frameSink.send(frame);
+        } catch (Exception e) {
+            log.warn("发送流式帧失败: {}", e.getMessage());
+        }
+    }
+
+    private void stopTimer() {
+        if (flushTimer != null) {
+            flushTimer.dispose();
+        }
+    }
+}
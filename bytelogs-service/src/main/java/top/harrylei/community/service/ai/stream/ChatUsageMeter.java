@@ -0,0 +1,90 @@
+package top.harrylei.community.service.ai.stream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import top.harrylei.community.api.model.ai.dto.ChatTokenUsage;
+import top.harrylei.community.core.util.TokenUtil;
+
+/**
+ * 单次AI调用的用量计量
+ * <p>
+ * 请求开始时估算提示词token，流式输出过程中按片段增量估算生成token，超出预算时通知调用方截断；
+ * 结束时以提供商返回的用量为准，未返回（如中途取消）时使用本地估算值。
+ *
+ * @author harry
+ */
+@Slf4j
+public class ChatUsageMeter {
+
+    /**
+     * 估算值与实际用量偏差超过该比例时记录日志，用于校准估算规则
+     */
+    private static final double DEVIATION_LOG_RATIO = 0.3;
+
+    /**
+     * 估算的提示词token数
+     */
+    @Getter
+    private final long estimatedPromptTokens;
+
+    /**
+     * 本次调用可用的token总数，不限制时为 {@link Long#MAX_VALUE}
+     */
+    @Getter
+    private final long tokenBudget;
+
+    private final TokenUtil.Counter completion = new TokenUtil.Counter();
+
+    public ChatUsageMeter(long estimatedPromptTokens, long tokenBudget) {
+        this.estimatedPromptTokens = estimatedPromptTokens;
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * 累加生成的内容
+     *
+     * @param content 内容片段
+     * @return 累计估算用量仍在预算内时返回true
+     */
+    public synchronized boolean record(String content) {
+        completion.append(content);
+        return estimatedPromptTokens + completion.tokens() <= tokenBudget;
+    }
+
+    /**
+     * 估算的生成token数
+     */
+    public synchronized long getEstimatedCompletionTokens() {
+        return completion.tokens();
+    }
+
+    /**
+     * 本地估算的用量
+     */
+    public ChatTokenUsage estimate() {
+        long completionTokens = getEstimatedCompletionTokens();
+        return new ChatTokenUsage(estimatedPromptTokens, completionTokens, estimatedPromptTokens + completionTokens, true);
+    }
+
+    /**
+     * 以提供商返回的用量为准核对估算值
+     *
+     * @param reported 提供商返回的用量，可为null
+     * @return 最终计入的用量
+     */
+    public ChatTokenUsage reconcile(ChatTokenUsage reported) {
+        ChatTokenUsage estimated = estimate();
+        if (reported == null) {
+            log.debug("提供商未返回用量，使用估算值: totalTokens={}", estimated.getTotalTokens());
+            return estimated;
+        }
+
+        long deviation = Math.abs(reported.getTotalTokens() - estimated.getTotalTokens());
+        if (deviation > reported.getTotalTokens() * DEVIATION_LOG_RATIO) {
+            log.info("token估算偏差较大: reported={}/{}, estimated={}/{}",
+                    reported.getPromptTokens(), reported.getCompletionTokens(),
+                    estimated.getPromptTokens(), estimated.getCompletionTokens());
+        }
+        return reported;
+    }
+}
@@ -0,0 +1,46 @@
+package top.harrylei.community.service.ai.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.service.ai.service.ChatUsageService;
+
+/**
+ * AI使用量落库定时任务
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatUsageFlushTask {
+
+    private final ChatUsageService chatUsageService;
+
+    /**
+     * 每轮最多处理的增量条数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 每5秒将待落库的使用量增量批量写入数据库，积压时连续处理直到队列不足一批
+     */
+    @Scheduled(fixedDelay = 5 * 1000L, initialDelay = 30 * 1000L)
+    public void flushPendingUsage() {
+        try {
+            int total = 0;
+            int flushed;
+            do {
+                flushed = chatUsageService.flushPendingUsage(FLUSH_BATCH_SIZE);
+                total += flushed;
+            } while (flushed == FLUSH_BATCH_SIZE);
+
+            if (total > 0) {
+                log.debug("AI使用量落库完成: count={}", total);
+            }
+        } catch (Exception e) {
+            log.error("AI使用量落库失败", e);
+        }
+    }
+}
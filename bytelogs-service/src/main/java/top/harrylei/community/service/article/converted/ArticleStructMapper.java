@@ -74,6 +74,9 @@ public interface ArticleStructMapper {
     @Mapping(target = "publishTime", ignore = true)
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "deleted", ignore = true)
+    @Mapping(target = "storageType", ignore = true)
+    @Mapping(target = "baseVersion", ignore = true)
+    @Mapping(target = "contentDelta", ignore = true)
     ArticleDetailDO toDetailDO(ArticleDTO articleDTO);
 
     @Mapping(target = "tags", ignore = true)
@@ -105,5 +108,8 @@ public interface ArticleStructMapper {
     @Mapping(target = "status", constant = "DRAFT")
     @Mapping(target = "publishTime", ignore = true)
     @Mapping(target = "deleted", constant = "NOT_DELETED")
+    @Mapping(target = "storageType", constant = "FULL")
+    @Mapping(target = "baseVersion", ignore = true)
+    @Mapping(target = "contentDelta", ignore = true)
     ArticleDetailDO copyForNewVersion(ArticleDetailDO source);
 }
@@ -1,7 +1,9 @@
 package top.harrylei.community.service.article.repository.dao;
 
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Repository;
+import top.harrylei.community.api.enums.article.ContentStorageEnum;
 import top.harrylei.community.api.enums.article.LatestFlagEnum;
 import top.harrylei.community.api.enums.article.PublishedFlagEnum;
 import top.harrylei.community.api.enums.common.DeleteStatusEnum;
@@ -78,10 +80,10 @@ public class ArticleDetailDAO extends ServiceImpl<ArticleDetailMapper, ArticleDe
     }
 
     /**
-     * 获取版本历史列表
+     * 获取版本历史列表，不查询正文和增量
      */
     public List<ArticleDetailDO> getVersionHistory(Long articleId) {
-        return lambdaQuery()
+        return versionInfoQuery()
                 .eq(ArticleDetailDO::getArticleId, articleId)
                 .eq(ArticleDetailDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
                 .orderByDesc(ArticleDetailDO::getVersion)
@@ -103,6 +105,111 @@ public class ArticleDetailDAO extends ServiceImpl<ArticleDetailMapper, ArticleDe
                 .one();
     }
 
+    /**
+     * 获取特定版本的基本信息，不查询正文和增量
+     *
+     * @param articleId 文章ID
+     * @param version   版本号
+     * @return 版本基本信息，不存在时返回null
+     */
+    public ArticleDetailDO getVersionInfo(Long articleId, Integer version) {
+        return versionInfoQuery()
+                .eq(ArticleDetailDO::getArticleId, articleId)
+                .eq(ArticleDetailDO::getVersion, version)
+                .eq(ArticleDetailDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
+                .one();
+    }
+
+    /**
+     * 版本基本信息查询，只包含版本列表展示需要的列
+     */
+    private LambdaQueryChainWrapper<ArticleDetailDO> versionInfoQuery() {
+        return lambdaQuery()
+                .select(ArticleDetailDO::getId,
+                        ArticleDetailDO::getArticleId,
+                        ArticleDetailDO::getVersion,
+                        ArticleDetailDO::getTitle,
+                        ArticleDetailDO::getShortTitle,
+                        ArticleDetailDO::getStatus,
+                        ArticleDetailDO::getLatest,
+                        ArticleDetailDO::getPublished,
+                        ArticleDetailDO::getPublishTime,
+                        ArticleDetailDO::getCreateTime,
+                        ArticleDetailDO::getUpdateTime);
+    }
+
+    /**
+     * 获取版本的存储方式和正文，用于读取增量的基准内容
+     *
+     * @param articleId 文章ID
+     * @param version   版本号
+     * @return 仅包含存储方式和正文的版本，不存在时返回null
+     */
+    public ArticleDetailDO getVersionContent(Long articleId, Integer version) {
+        return lambdaQuery()
+                .select(ArticleDetailDO::getId, ArticleDetailDO::getStorageType, ArticleDetailDO::getContent)
+                .eq(ArticleDetailDO::getArticleId, articleId)
+                .eq(ArticleDetailDO::getVersion, version)
+                .one();
+    }
+
+    /**
+     * 按主键顺序查询待压缩整理的历史版本：完整存储且既不是最新版本也不是发布版本
+     *
+     * @param lastId 上一批最后一条的主键
+     * @param limit  查询条数
+     * @return 待整理的版本
+     */
+    public List<ArticleDetailDO> listCompactCandidates(Long lastId, int limit) {
+        return lambdaQuery()
+                .select(ArticleDetailDO::getId,
+                        ArticleDetailDO::getArticleId,
+                        ArticleDetailDO::getVersion,
+                        ArticleDetailDO::getContent)
+                .eq(ArticleDetailDO::getStorageType, ContentStorageEnum.FULL)
+                .eq(ArticleDetailDO::getLatest, LatestFlagEnum.NO)
+                .eq(ArticleDetailDO::getPublished, PublishedFlagEnum.NO)
+                .gt(ArticleDetailDO::getId, lastId)
+                .orderByAsc(ArticleDetailDO::getId)
+                .last("LIMIT " + limit)
+                .list();
+    }
+
+    /**
+     * 标记为关键帧，保留完整内容
+     *
+     * @param id 主键
+     * @return 是否更新成功
+     */
+    public boolean markKeyframe(Long id) {
+        return lambdaUpdate()
+                .eq(ArticleDetailDO::getId, id)
+                .eq(ArticleDetailDO::getStorageType, ContentStorageEnum.FULL)
+                .set(ArticleDetailDO::getStorageType, ContentStorageEnum.KEYFRAME)
+                .update();
+    }
+
+    /**
+     * 将完整内容替换为增量，已重新成为最新或发布版本的记录不更新
+     *
+     * @param id          主键
+     * @param baseVersion 基准版本号
+     * @param delta       压缩增量
+     * @return 是否更新成功
+     */
+    public boolean compactToDelta(Long id, Integer baseVersion, byte[] delta) {
+        return lambdaUpdate()
+                .eq(ArticleDetailDO::getId, id)
+                .eq(ArticleDetailDO::getStorageType, ContentStorageEnum.FULL)
+                .eq(ArticleDetailDO::getLatest, LatestFlagEnum.NO)
+                .eq(ArticleDetailDO::getPublished, PublishedFlagEnum.NO)
+                .set(ArticleDetailDO::getStorageType, ContentStorageEnum.DELTA)
+                .set(ArticleDetailDO::getBaseVersion, baseVersion)
+                .set(ArticleDetailDO::getContentDelta, delta)
+                .set(ArticleDetailDO::getContent, "")
+                .update();
+    }
+
     /**
      * 批量获取文章的分类ID
      *
@@ -129,4 +236,31 @@ public class ArticleDetailDAO extends ServiceImpl<ArticleDetailMapper, ArticleDe
                     (existing, replacement) -> existing // 如果有重复，保留第一个
                 ));
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量获取文章的发布版本标题
+     *
+     * @param articleIds 文章ID列表
+     * @return 文章ID和标题的映射
+     */
+    public Map<Long, String> batchGetPublishedTitles(List<Long> articleIds) {
+        if (articleIds == null || articleIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<ArticleDetailDO> details = lambdaQuery()
+                .in(ArticleDetailDO::getArticleId, articleIds)
+                .eq(ArticleDetailDO::getPublished, PublishedFlagEnum.YES)
+                .eq(ArticleDetailDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
+                .select(ArticleDetailDO::getArticleId, ArticleDetailDO::getTitle)
+                .list();
+
+        return details.stream()
+                .filter(detail -> detail.getTitle() != null)
+                .collect(Collectors.toMap(
+                    ArticleDetailDO::getArticleId,
+                    ArticleDetailDO::getTitle,
+                    (existing, replacement) -> existing
+                ));
+    }
+}
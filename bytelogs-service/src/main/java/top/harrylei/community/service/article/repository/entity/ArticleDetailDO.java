@@ -7,6 +7,7 @@ import lombok.experimental.Accessors;
 import top.harrylei.community.api.enums.common.DeleteStatusEnum;
 import top.harrylei.community.api.enums.article.ArticlePublishStatusEnum;
 import top.harrylei.community.api.enums.article.ArticleSourceEnum;
+import top.harrylei.community.api.enums.article.ContentStorageEnum;
 import top.harrylei.community.api.enums.article.LatestFlagEnum;
 import top.harrylei.community.api.enums.article.PublishedFlagEnum;
 import top.harrylei.community.api.model.base.BaseDO;
@@ -78,6 +79,21 @@ public class ArticleDetailDO extends BaseDO {
      */
     private String content;
 
+    /**
+     * 内容存储方式：0-完整内容，1-关键帧，2-增量
+     */
+    private ContentStorageEnum storageType;
+
+    /**
+     * 增量的基准版本号，仅增量存储时有效
+     */
+    private Integer baseVersion;
+
+    /**
+     * 相对基准版本的压缩增量，仅增量存储时有效
+     */
+    private byte[] contentDelta;
+
     /**
      * 状态：0-草稿，1-已发布，2-待审核，3-审核拒绝
      */
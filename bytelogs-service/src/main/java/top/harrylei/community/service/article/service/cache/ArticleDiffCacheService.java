@@ -0,0 +1,216 @@
+package top.harrylei.community.service.article.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.api.model.article.dto.VersionDiffCacheEntry;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.DiffUtil;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 文章版本对比结果缓存服务
+ * <p>
+ * 版本内容不可变，同一对版本的对比结果也不会变化，按（文章、原版本、目标版本、对比模式）缓存：
+ * 本地缓存在前，Redis中存放GZIP压缩的结果在后。两层都按大小准入，过大的结果不进入本地缓存，
+ * 压缩后仍过大的结果不写入Redis，避免少数超大对比挤掉其他条目。
+ * 版本发布后异步预计算与上一版本的对比，作者和审核人员打开时直接命中。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+public class ArticleDiffCacheService {
+
+    /**
+     * 对比模式：HTML输出，DiffUtil 输出格式变化时递增版本使旧结果失效
+     */
+    public static final String MODE_HTML = "html-v2";
+
+    /**
+     * Redis缓存有效期
+     */
+    private static final Duration REDIS_TTL = Duration.ofDays(7);
+
+    /**
+     * Redis中单个条目压缩后的最大字节数
+     */
+    private static final int REDIS_MAX_ENTRY_BYTES = 512 * 1024;
+
+    /**
+     * 本地缓存的最大字符数
+     */
+    private static final long LOCAL_MAX_CHARS = 8L * 1024 * 1024;
+
+    /**
+     * 本地缓存单个条目的最大字符数
+     */
+    private static final long LOCAL_MAX_ENTRY_CHARS = LOCAL_MAX_CHARS / 32;
+
+    private final ArticleVersionStorageService articleVersionStorageService;
+    private final RedisUtil redisUtil;
+    private final MetricsUtil metricsUtil;
+    private final TaskExecutor articleDiffExecutor;
+
+    private final Cache<String, VersionDiffCacheEntry> localCache = CacheBuilder.newBuilder()
+            .maximumWeight(LOCAL_MAX_CHARS)
+            .weigher((String key, VersionDiffCacheEntry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.totalLength()))
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    public ArticleDiffCacheService(ArticleVersionStorageService articleVersionStorageService,
+                                   RedisUtil redisUtil,
+                                   MetricsUtil metricsUtil,
+                                   @Qualifier("articleDiffExecutor") TaskExecutor articleDiffExecutor) {
+        this.articleVersionStorageService = articleVersionStorageService;
+        this.redisUtil = redisUtil;
+        this.metricsUtil = metricsUtil;
+        this.articleDiffExecutor = articleDiffExecutor;
+    }
+
+    /**
+     * 获取两个版本的对比结果，未缓存时加载版本内容计算并写入缓存
+     *
+     * @param articleId 文章ID
+     * @param version1  原版本号
+     * @param version2  目标版本号
+     * @return 对比结果
+     */
+    public VersionDiffCacheEntry getDiff(Long articleId, Integer version1, Integer version2) {
+        String key = RedisKeyConstants.getArticleVersionDiffKey(articleId, version1, version2, MODE_HTML);
+        VersionDiffCacheEntry entry = localCache.getIfPresent(key);
+        metricsUtil.recordCache(MetricsUtil.CACHE_ARTICLE_DIFF_LOCAL, entry != null);
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = readRedis(key);
+        metricsUtil.recordCache(MetricsUtil.CACHE_ARTICLE_DIFF_REDIS, entry != null);
+        if (entry == null) {
+            entry = compute(articleId, version1, version2);
+            writeRedis(key, entry);
+        }
+        if (entry.totalLength() <= LOCAL_MAX_ENTRY_CHARS) {
+            localCache.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 异步预计算两个版本的对比结果，在事务中调用时等提交后再执行，线程池繁忙时放弃
+     *
+     * @param articleId 文章ID
+     * @param version1  原版本号
+     * @param version2  目标版本号
+     */
+    public void precomputeAsync(Long articleId, Integer version1, Integer version2) {
+        if (version1 == null || version1 < 1 || version2 == null) {
+            return;
+        }
+
+        Runnable task = () -> {
+            try {
+                getDiff(articleId, version1, version2);
+            } catch (Exception e) {
+                log.warn("版本对比预计算失败 articleId={} version1={} version2={}: {}",
+                        articleId, version1, version2, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(task, articleId);
+                }
+            });
+        } else {
+            submit(task, articleId);
+        }
+    }
+
+    private void submit(Runnable task, Long articleId) {
+        try {
+            articleDiffExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            log.debug("版本对比预计算线程池繁忙，放弃预计算 articleId={}", articleId);
+        }
+    }
+
+    private VersionDiffCacheEntry compute(Long articleId, Integer version1, Integer version2) {
+        ArticleDetailDO detail1 = articleVersionStorageService.getVersion(articleId, version1);
+        ArticleDetailDO detail2 = articleVersionStorageService.getVersion(articleId, version2);
+        if (detail1 == null || detail2 == null) {
+            ResultCode.ARTICLE_NOT_EXISTS.throwException();
+        }
+
+        return VersionDiffCacheEntry.builder()
+                .titleDiff(DiffUtil.diff(detail1.getTitle(), detail2.getTitle()))
+                .contentDiff(DiffUtil.diff(detail1.getContent(), detail2.getContent()))
+                .summaryDiff(DiffUtil.diff(detail1.getSummary(), detail2.getSummary()))
+                .build();
+    }
+
+    private VersionDiffCacheEntry readRedis(String key) {
+        byte[] compressed = redisUtil.getBytes(key);
+        if (compressed == null) {
+            return null;
+        }
+        try {
+            return JsonUtil.fromBytes(gunzip(compressed), VersionDiffCacheEntry.class);
+        } catch (UncheckedIOException e) {
+            log.warn("版本对比缓存解压失败 key={}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, VersionDiffCacheEntry entry) {
+        byte[] json = JsonUtil.toBytes(entry);
+        if (json == null) {
+            return;
+        }
+        byte[] compressed = gzip(json);
+        if (compressed.length > REDIS_MAX_ENTRY_BYTES) {
+            log.debug("版本对比结果过大，不写入Redis key={} bytes={}", key, compressed.length);
+            return;
+        }
+        redisUtil.setBytes(key, compressed, REDIS_TTL);
+    }
+
+    static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
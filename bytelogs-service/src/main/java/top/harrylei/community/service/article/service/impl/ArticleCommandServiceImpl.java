@@ -6,12 +6,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import top.harrylei.community.api.enums.article.*;
 import top.harrylei.community.api.enums.common.DeleteStatusEnum;
-import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
 import top.harrylei.community.api.enums.response.ResultCode;
 import top.harrylei.community.api.enums.user.OperateTypeEnum;
 import top.harrylei.community.api.model.article.dto.ArticleDTO;
 import top.harrylei.community.core.context.ReqInfoContext;
-import top.harrylei.community.core.util.KafkaEventPublisher;
+import top.harrylei.community.core.util.ResourceVersionUtil;
 import top.harrylei.community.service.article.converted.ArticleStructMapper;
 import top.harrylei.community.service.article.repository.dao.ArticleDAO;
 import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
@@ -19,7 +18,10 @@ import top.harrylei.community.service.article.repository.entity.ArticleDO;
 import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
 import top.harrylei.community.service.article.service.ArticleCommandService;
 import top.harrylei.community.service.article.service.ArticleTagService;
-import top.harrylei.community.service.user.service.UserFollowService;
+import top.harrylei.community.service.article.service.cache.ArticleDiffCacheService;
+import top.harrylei.community.service.article.service.notify.ArticleNotifyService;
+import top.harrylei.community.service.article.service.render.ArticleRenderService;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
 import top.harrylei.community.service.user.service.UserFootService;
 
 import java.time.LocalDateTime;
@@ -43,8 +45,11 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
     private final ArticleStructMapper articleStructMapper;
     private final ArticleTagService articleTagService;
     private final UserFootService userFootService;
-    private final UserFollowService userFollowService;
-    private final KafkaEventPublisher kafkaEventPublisher;
+    private final ArticleNotifyService articleNotifyService;
+    private final ArticleVersionStorageService articleVersionStorageService;
+    private final ArticleDiffCacheService articleDiffCacheService;
+    private final ArticleRenderService articleRenderService;
+    private final ResourceVersionUtil resourceVersionUtil;
 
     @Override
     public Long saveArticle(ArticleDTO articleDTO) {
@@ -67,9 +72,10 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
 
         // 5. 如果是发布状态，发送文章发布通知给关注者
         if (ArticlePublishStatusEnum.PUBLISHED.equals(status)) {
-            publishArticleNotificationEvent(articleId, articleDO.getUserId());
+            articleNotifyService.notifyFollowersAfterCommit(articleId, articleDO.getUserId());
         }
 
+        bumpArticleVersion(articleId);
         log.info("新建文章成功 articleId={} title={}", articleId, articleDTO.getTitle());
         return articleId;
     }
@@ -104,6 +110,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
 
         // 6. 返回最新文章信息
         ArticleDTO article = articleStructMapper.buildArticleDTO(articleDO, newDetail);
+        bumpArticleVersion(articleId);
         log.info("文章内容更新成功 articleId={} status={}", articleId, status);
         return article;
     }
@@ -151,6 +158,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         handlePublishStatus(detail, articleId, finalStatus);
 
         articleDetailDAO.updateById(detail);
+        bumpArticleVersion(articleId);
         log.info("文章状态更新成功 articleId={} status={}", articleId, finalStatus);
     }
 
@@ -168,7 +176,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         checkArticlePermission(article.getUserId());
 
         // 获取目标版本
-        ArticleDetailDO targetVersion = articleDetailDAO.getByArticleIdAndVersion(articleId, version);
+        ArticleDetailDO targetVersion = articleVersionStorageService.getVersion(articleId, version);
         if (targetVersion == null) {
             ResultCode.ARTICLE_NOT_EXISTS.throwException();
         }
@@ -193,6 +201,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         List<Long> tagIds = articleTagService.listTagIdsByArticleId(articleId);
         result.setTagIds(tagIds);
 
+        bumpArticleVersion(articleId);
         log.info("文章版本回滚成功 articleId={} fromVersion={} toVersion={}", articleId, version, newVersion);
         return result;
     }
@@ -208,6 +217,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         if (ArticlePublishStatusEnum.PUBLISHED.equals(status)) {
             detail.setPublished(PublishedFlagEnum.YES);
             detail.setPublishTime(LocalDateTime.now());
+            articleRenderService.prerenderAsync(articleId, detail.getContent());
         }
 
         articleDetailDAO.save(detail);
@@ -265,6 +275,13 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         return getArticleBasicInfo(articleId, null);
     }
 
+    /**
+     * 文章及文章列表的版本号递增，已缓存的ETag随之失效
+     */
+    private void bumpArticleVersion(Long articleId) {
+        resourceVersionUtil.bump(ResourceVersionUtil.article(articleId), ResourceVersionUtil.ARTICLE);
+    }
+
     /**
      * 处理文章发布状态设置
      */
@@ -273,6 +290,11 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
             articleDetailDAO.clearPublishedFlag(articleId);
             detail.setPublished(PublishedFlagEnum.YES);
             detail.setPublishTime(LocalDateTime.now());
+            // 提交后预热渲染结果并预计算与上一版本的对比，读者和作者打开时直接命中缓存
+            articleRenderService.prerenderAsync(articleId, detail.getContent());
+            if (detail.getVersion() != null && detail.getVersion() > 1) {
+                articleDiffCacheService.precomputeAsync(articleId, detail.getVersion() - 1, detail.getVersion());
+            }
         } else {
             detail.setPublished(PublishedFlagEnum.NO);
             detail.setPublishTime(null);
@@ -300,6 +322,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
 
         // 4. 记录日志
         String operation = DeleteStatusEnum.DELETED.equals(status) ? "删除" : "恢复";
+        bumpArticleVersion(articleId);
         log.info("{}文章成功 articleId={} operatorId={}", operation, articleId, ReqInfoContext.getContext().getUserId());
     }
 
@@ -323,30 +346,13 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         }
     }
 
-    private void publishArticleNotificationEvent(Long articleId, Long authorUserId) {
-        // 获取所有关注者
-        List<Long> followerIds = userFollowService.listFollowerIds(authorUserId);
-        for (Long followerId : followerIds) {
-            try {
-                kafkaEventPublisher.publishUserBehaviorEvent(
-                        authorUserId,
-                        followerId,
-                        articleId,
-                        ContentTypeEnum.ARTICLE,
-                        NotifyTypeEnum.ARTICLE_PUBLISH
-                );
-            } catch (Exception e) {
-                log.warn("发送文章发布通知失败 articleId={} followerId={}", articleId, followerId, e);
-            }
-        }
-    }
-
     @Override
     public void updateArticleTopping(Long articleId, ToppingStatusEnum toppingStat) {
         ArticleDO article = getArticleBasicInfo(articleId);
         checkArticlePermission(article.getUserId());
 
         articleDAO.updateTopping(articleId, toppingStat);
+        bumpArticleVersion(articleId);
         log.info("文章置顶状态更新成功 articleId={} toppingStat={}", articleId, toppingStat);
     }
 
@@ -356,6 +362,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         checkArticlePermission(article.getUserId());
 
         articleDAO.updateCream(articleId, creamStat);
+        bumpArticleVersion(articleId);
         log.info("文章加精状态更新成功 articleId={} creamStat={}", articleId, creamStat);
     }
 
@@ -365,6 +372,7 @@ public class ArticleCommandServiceImpl implements ArticleCommandService {
         checkArticlePermission(article.getUserId());
 
         articleDAO.updateOfficial(articleId, officialStat);
+        bumpArticleVersion(articleId);
         log.info("文章官方状态更新成功 articleId={} officialStat={}", articleId, officialStat);
     }
 }
\ No newline at end of file
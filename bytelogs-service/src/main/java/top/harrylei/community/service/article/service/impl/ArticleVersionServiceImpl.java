@@ -5,16 +5,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import top.harrylei.community.api.enums.response.ResultCode;
 import top.harrylei.community.api.model.article.dto.ArticleDTO;
+import top.harrylei.community.api.model.article.dto.VersionDiffCacheEntry;
 import top.harrylei.community.api.model.article.vo.ArticleVersionVO;
 import top.harrylei.community.api.model.article.vo.VersionDiffVO;
 import top.harrylei.community.core.context.ReqInfoContext;
-import top.harrylei.community.core.util.DiffUtil;
 import top.harrylei.community.service.article.converted.ArticleStructMapper;
 import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
 import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
 import top.harrylei.community.service.article.service.ArticleQueryService;
 import top.harrylei.community.service.article.service.ArticleTagService;
 import top.harrylei.community.service.article.service.ArticleVersionService;
+import top.harrylei.community.service.article.service.cache.ArticleDiffCacheService;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
 
 import java.util.List;
 import java.util.Objects;
@@ -33,6 +35,8 @@ public class ArticleVersionServiceImpl implements ArticleVersionService {
     private final ArticleDetailDAO articleDetailDAO;
     private final ArticleStructMapper articleStructMapper;
     private final ArticleTagService articleTagService;
+    private final ArticleVersionStorageService articleVersionStorageService;
+    private final ArticleDiffCacheService articleDiffCacheService;
 
     @Override
     public List<ArticleVersionVO> getVersionHistory(Long articleId) {
@@ -92,19 +96,31 @@ public class ArticleVersionServiceImpl implements ArticleVersionService {
         // 2. 权限校验
         validateAuthorPermission(articleDTO.getUserId());
 
-        // 3. 获取两个版本的详情
-        ArticleDetailDO detail1 = getArticleVersion(articleId, version1);
-        ArticleDetailDO detail2 = getArticleVersion(articleId, version2);
+        // 3. 获取两个版本的元信息，状态和标记可能变化，不走缓存
+        ArticleDetailDO info1 = getVersionInfo(articleId, version1);
+        ArticleDetailDO info2 = getVersionInfo(articleId, version2);
 
-        // 4. 执行对比
-        return buildVersionDiff(detail1, detail2);
+        // 4. 对比结果只取决于版本内容，走缓存
+        VersionDiffCacheEntry diff = articleDiffCacheService.getDiff(articleId, version1, version2);
+        return buildVersionDiff(info1, info2, diff);
+    }
+
+    /**
+     * 获取版本元信息并进行存在性检查
+     */
+    private ArticleDetailDO getVersionInfo(Long articleId, Integer version) {
+        ArticleDetailDO info = articleDetailDAO.getVersionInfo(articleId, version);
+        if (info == null) {
+            ResultCode.ARTICLE_NOT_EXISTS.throwException();
+        }
+        return info;
     }
 
     /**
      * 获取版本并进行存在性检查
      */
     private ArticleDetailDO getArticleVersion(Long articleId, Integer version) {
-        ArticleDetailDO detail = articleDetailDAO.getByArticleIdAndVersion(articleId, version);
+        ArticleDetailDO detail = articleVersionStorageService.getVersion(articleId, version);
         if (detail == null) {
             ResultCode.ARTICLE_NOT_EXISTS.throwException();
         }
@@ -114,13 +130,13 @@ public class ArticleVersionServiceImpl implements ArticleVersionService {
     /**
      * 构建版本对比结果
      */
-    private VersionDiffVO buildVersionDiff(ArticleDetailDO detail1, ArticleDetailDO detail2) {
+    private VersionDiffVO buildVersionDiff(ArticleDetailDO info1, ArticleDetailDO info2, VersionDiffCacheEntry diff) {
         return new VersionDiffVO()
-                .setVersion1(articleStructMapper.toVersionVO(detail1))
-                .setVersion2(articleStructMapper.toVersionVO(detail2))
-                .setTitleDiff(DiffUtil.diff(detail1.getTitle(), detail2.getTitle()))
-                .setContentDiff(DiffUtil.diff(detail1.getContent(), detail2.getContent()))
-                .setSummaryDiff(DiffUtil.diff(detail1.getSummary(), detail2.getSummary()));
+                .setVersion1(articleStructMapper.toVersionVO(info1))
+                .setVersion2(articleStructMapper.toVersionVO(info2))
+                .setTitleDiff(diff.getTitleDiff())
+                .setContentDiff(diff.getContentDiff())
+                .setSummaryDiff(diff.getSummaryDiff());
     }
 
     private Long getCurrentUserId() {
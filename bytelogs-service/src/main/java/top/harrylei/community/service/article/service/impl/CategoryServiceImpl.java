@@ -13,6 +13,7 @@ import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.api.model.page.param.CategoryQueryParam;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.util.PageUtils;
+import top.harrylei.community.core.util.ResourceVersionUtil;
 import top.harrylei.community.service.article.converted.CategoryStructMapper;
 import top.harrylei.community.service.article.repository.dao.CategoryDAO;
 import top.harrylei.community.service.article.repository.entity.CategoryDO;
@@ -34,6 +35,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryDAO categoryDAO;
     private final CategoryStructMapper categoryStructMapper;
+    private final ResourceVersionUtil resourceVersionUtil;
 
     /**
      * 新建分类
@@ -52,6 +54,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         try {
             categoryDAO.save(category);
+            resourceVersionUtil.bump(ResourceVersionUtil.CATEGORY);
             log.info("新建分类成功 category={}", category.getCategoryName());
         } catch (Exception e) {
             ResultCode.INTERNAL_ERROR.throwException();
@@ -81,6 +84,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         try {
             categoryDAO.updateById(category);
+            resourceVersionUtil.bump(ResourceVersionUtil.CATEGORY);
             return categoryStructMapper.toDTO(category);
         } catch (Exception e) {
             ResultCode.INTERNAL_ERROR.throwException();
@@ -138,6 +142,7 @@ public class CategoryServiceImpl implements CategoryService {
         try {
             category.setDeleted(status);
             categoryDAO.updateById(category);
+            resourceVersionUtil.bump(ResourceVersionUtil.CATEGORY);
             log.info("更新分类删除状态成功 category={} operatorId={}", category.getCategoryName(), operatorId);
         } catch (Exception e) {
             ResultCode.INTERNAL_ERROR.throwException();
@@ -13,6 +13,7 @@ import top.harrylei.community.api.model.article.dto.TagSimpleDTO;
 import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.api.model.page.param.TagQueryParam;
 import top.harrylei.community.core.util.PageUtils;
+import top.harrylei.community.core.util.ResourceVersionUtil;
 import top.harrylei.community.service.article.converted.TagStructMapper;
 import top.harrylei.community.service.article.repository.dao.TagDAO;
 import top.harrylei.community.service.article.repository.entity.TagDO;
@@ -33,6 +34,7 @@ public class TagServiceImpl implements TagService {
 
     private final TagDAO tagDAO;
     private final TagStructMapper tagStructMapper;
+    private final ResourceVersionUtil resourceVersionUtil;
 
     /**
      * 新建标签
@@ -53,6 +55,7 @@ public class TagServiceImpl implements TagService {
 
         try {
             tagDAO.save(tagDO);
+            resourceVersionUtil.bump(ResourceVersionUtil.TAG);
         } catch (Exception e) {
             ResultCode.INTERNAL_ERROR.throwException();
         }
@@ -100,6 +103,7 @@ public class TagServiceImpl implements TagService {
         tagDO.setTagName(tagDTO.getTagName());
         tagDO.setTagType(tagDTO.getTagType());
         tagDAO.updateById(tagDO);
+        resourceVersionUtil.bump(ResourceVersionUtil.TAG);
         return tagStructMapper.toDTO(tagDO);
     }
 
@@ -123,6 +127,7 @@ public class TagServiceImpl implements TagService {
 
         tag.setDeleted(deleteStatusEnum);
         tagDAO.updateById(tag);
+        resourceVersionUtil.bump(ResourceVersionUtil.TAG);
     }
 
     /**
@@ -161,6 +166,7 @@ public class TagServiceImpl implements TagService {
                 .setDeleted(DeleteStatusEnum.NOT_DELETED);
 
         tagDAO.save(newTag);
+        resourceVersionUtil.bump(ResourceVersionUtil.TAG);
         return newTag.getId();
     }
 
@@ -0,0 +1,102 @@
+package top.harrylei.community.service.article.service.notify;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.harrylei.community.api.enums.article.ContentTypeEnum;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.core.util.KafkaEventPublisher;
+import top.harrylei.community.service.user.service.UserFollowService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文章发布通知服务
+ * <p>
+ * 文章事务提交后在独立线程池中向粉丝扇出通知，不占用发布请求的线程。
+ * afterCommit回调仍处于已提交的原事务中，之后不会再提交，因此每批通知都在新开启的事务中写入发件箱。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+public class ArticleNotifyService {
+
+    /**
+     * 每批写入发件箱的粉丝数
+     */
+    private static final int FOLLOWER_BATCH_SIZE = 500;
+
+    private final UserFollowService userFollowService;
+    private final KafkaEventPublisher kafkaEventPublisher;
+    private final TaskExecutor articleNotifyExecutor;
+    private final TransactionTemplate batchTransactionTemplate;
+
+    public ArticleNotifyService(UserFollowService userFollowService,
+                                KafkaEventPublisher kafkaEventPublisher,
+                                @Qualifier("articleNotifyExecutor") TaskExecutor articleNotifyExecutor,
+                                PlatformTransactionManager transactionManager) {
+        this.userFollowService = userFollowService;
+        this.kafkaEventPublisher = kafkaEventPublisher;
+        this.articleNotifyExecutor = articleNotifyExecutor;
+        this.batchTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 通知作者的粉丝文章已发布，在事务中调用时等提交后再执行，文章回滚时不发出通知
+     *
+     * @param articleId    文章ID
+     * @param authorUserId 作者ID
+     */
+    public void notifyFollowersAfterCommit(Long articleId, Long authorUserId) {
+        Runnable task = () -> fanOut(articleId, authorUserId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    articleNotifyExecutor.execute(task);
+                }
+            });
+        } else {
+            articleNotifyExecutor.execute(task);
+        }
+    }
+
+    /**
+     * 从粉丝位图按批遍历，每批在各自的事务中整体写入发件箱，单批失败只记录日志，不影响其他批次
+     */
+    void fanOut(Long articleId, Long authorUserId) {
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        try {
+            userFollowService.forEachFollowerBatch(authorUserId, FOLLOWER_BATCH_SIZE, followerIds -> {
+                try {
+                    Integer written = batchTransactionTemplate.execute(status ->
+                            kafkaEventPublisher.publishUserBehaviorEvents(
+                                    authorUserId,
+                                    followerIds,
+                                    articleId,
+                                    ContentTypeEnum.ARTICLE,
+                                    NotifyTypeEnum.ARTICLE_PUBLISH
+                            ));
+                    count.addAndGet(written == null ? 0 : written);
+                } catch (Exception e) {
+                    failed.addAndGet(followerIds.size());
+                    log.warn("文章发布通知写入失败 articleId={} batchSize={}", articleId, followerIds.size(), e);
+                }
+            });
+            log.debug("文章发布通知已写入发件箱 articleId={} followerCount={} failedCount={}",
+                    articleId, count.get(), failed.get());
+        } catch (Exception e) {
+            log.warn("遍历粉丝失败，文章发布通知未全部发出 articleId={} publishedCount={}", articleId, count.get(), e);
+        }
+    }
+}
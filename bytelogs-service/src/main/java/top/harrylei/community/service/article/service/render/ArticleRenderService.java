@@ -0,0 +1,257 @@
+package top.harrylei.community.service.article.service.render;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.ast.TextCollectingVisitor;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.harrylei.community.api.model.article.vo.ArticleRenderVO;
+import top.harrylei.community.api.model.article.vo.ArticleTocVO;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文章渲染服务
+ * <p>
+ * 使用 flexmark 将 Markdown 正文渲染为HTML，同时提取目录、纯文本摘要和阅读时长。
+ * 原始HTML一律转义，链接和图片地址经 {@link SafeLinkResolver} 按协议白名单检查。渲染结果按正文的 SHA-256 缓存：
+ * 本地缓存在前，Redis在后，相同内容只渲染一次；文章发布后异步预热，读者首次打开时直接命中。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+public class ArticleRenderService {
+
+    /**
+     * 渲染器版本，渲染选项或输出结构变化时递增使旧结果失效
+     */
+    private static final String RENDERER_VERSION = "v2";
+
+    /**
+     * 摘要的最大字符数
+     */
+    private static final int SUMMARY_MAX_LENGTH = 200;
+
+    /**
+     * 汉字阅读速度（字/分钟）
+     */
+    private static final int CJK_CHARS_PER_MINUTE = 400;
+
+    /**
+     * 其他文字阅读速度（词/分钟）
+     */
+    private static final int WORDS_PER_MINUTE = 200;
+
+    /**
+     * Redis缓存有效期，内容寻址的结果不会过时，只需控制冷数据占用
+     */
+    private static final Duration REDIS_TTL = Duration.ofDays(30);
+
+    /**
+     * 本地缓存的最大字符数
+     */
+    private static final long LOCAL_MAX_CHARS = 32L * 1024 * 1024;
+
+    /**
+     * 单个结果的最大字符数，超过时不进入任何一层缓存，避免挤掉其他文章
+     */
+    private static final int MAX_CACHED_HTML_LENGTH = 1024 * 1024;
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+
+    private final RedisUtil redisUtil;
+    private final MetricsUtil metricsUtil;
+    private final TaskExecutor articleRenderExecutor;
+
+    private final Cache<String, ArticleRenderVO> localCache = CacheBuilder.newBuilder()
+            .maximumWeight(LOCAL_MAX_CHARS)
+            .weigher((String key, ArticleRenderVO render) -> render.getHtml().length())
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public ArticleRenderService(RedisUtil redisUtil,
+                                MetricsUtil metricsUtil,
+                                @Qualifier("articleRenderExecutor") TaskExecutor articleRenderExecutor) {
+        this.redisUtil = redisUtil;
+        this.metricsUtil = metricsUtil;
+        this.articleRenderExecutor = articleRenderExecutor;
+
+        MutableDataSet options = new MutableDataSet()
+                .set(Parser.EXTENSIONS, List.of(
+                        TablesExtension.create(),
+                        StrikethroughExtension.create(),
+                        TaskListExtension.create(),
+                        AutolinkExtension.create()))
+                .set(HtmlRenderer.ESCAPE_HTML, true)
+                .set(HtmlRenderer.GENERATE_HEADER_ID, true)
+                .set(HtmlRenderer.RENDER_HEADER_ID, true);
+        this.parser = Parser.builder(options).build();
+        this.renderer = HtmlRenderer.builder(options)
+                .linkResolverFactory(new SafeLinkResolver.Factory())
+                .build();
+    }
+
+    /**
+     * 获取正文的渲染结果，未缓存时渲染并写入缓存
+     *
+     * @param content Markdown正文
+     * @return 渲染结果
+     */
+    public ArticleRenderVO render(String content) {
+        String markdown = content == null ? "" : content;
+        String key = RedisKeyConstants.getArticleRenderKey(RENDERER_VERSION, DigestUtils.sha256Hex(markdown));
+        ArticleRenderVO result = localCache.getIfPresent(key);
+        metricsUtil.recordCache(MetricsUtil.CACHE_ARTICLE_RENDER_LOCAL, result != null);
+        if (result != null) {
+            return result;
+        }
+
+        result = redisUtil.get(key, ArticleRenderVO.class);
+        metricsUtil.recordCache(MetricsUtil.CACHE_ARTICLE_RENDER_REDIS, result != null);
+        if (result == null) {
+            result = doRender(markdown);
+            if (result.getHtml().length() <= MAX_CACHED_HTML_LENGTH) {
+                redisUtil.set(key, result, REDIS_TTL);
+            }
+        }
+        if (result.getHtml().length() <= MAX_CACHED_HTML_LENGTH) {
+            localCache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 异步预热渲染结果，在事务中调用时等提交后再执行，线程池繁忙时放弃
+     *
+     * @param articleId 文章ID，仅用于日志
+     * @param content   Markdown正文
+     */
+    public void prerenderAsync(Long articleId, String content) {
+        Runnable task = () -> {
+            try {
+                render(content);
+            } catch (Exception e) {
+                log.warn("文章渲染预热失败 articleId={}: {}", articleId, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(task, articleId);
+                }
+            });
+        } else {
+            submit(task, articleId);
+        }
+    }
+
+    private void submit(Runnable task, Long articleId) {
+        try {
+            articleRenderExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            log.debug("文章渲染线程池繁忙，放弃预热 articleId={}", articleId);
+        }
+    }
+
+    /**
+     * 解析并渲染正文，标题ID在渲染时生成，目录在渲染之后提取以保证锚点一致
+     */
+    private ArticleRenderVO doRender(String markdown) {
+        Document document = parser.parse(markdown);
+        String html = renderer.render(document);
+
+        List<ArticleTocVO> toc = new ArrayList<>();
+        StringBuilder summary = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        TextCollectingVisitor textCollector = new TextCollectingVisitor();
+        for (Node node : document.getDescendants()) {
+            if (node instanceof Heading heading) {
+                toc.add(new ArticleTocVO()
+                        .setLevel(heading.getLevel())
+                        .setId(heading.getAnchorRefId())
+                        .setText(heading.getAnchorRefText().trim()));
+            }
+            if (node instanceof Heading || node instanceof Paragraph) {
+                String blockText = textCollector.collectAndGetText(node).trim();
+                text.append(blockText).append('\n');
+                if (node instanceof Paragraph && summary.length() < SUMMARY_MAX_LENGTH && !blockText.isEmpty()) {
+                    appendSummary(summary, blockText);
+                }
+            }
+        }
+
+        int[] counts = countWords(text);
+        int minutes = (int) Math.ceil((double) counts[0] / CJK_CHARS_PER_MINUTE + (double) counts[1] / WORDS_PER_MINUTE);
+        return new ArticleRenderVO()
+                .setHtml(html)
+                .setToc(toc)
+                .setSummary(summary.toString())
+                .setWordCount(counts[0] + counts[1])
+                .setReadingMinutes(Math.max(1, minutes));
+    }
+
+    private static void appendSummary(StringBuilder summary, String blockText) {
+        if (!summary.isEmpty()) {
+            summary.append(' ');
+        }
+        String collapsed = blockText.replaceAll("\\s+", " ");
+        int remaining = SUMMARY_MAX_LENGTH - summary.length();
+        if (collapsed.length() <= remaining) {
+            summary.append(collapsed);
+        } else {
+            summary.append(collapsed, 0, remaining).append('…');
+        }
+    }
+
+    /**
+     * 统计字数
+     *
+     * @return [汉字数, 其他文字的词数]
+     */
+    private static int[] countWords(CharSequence text) {
+        int cjk = 0;
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isIdeographic(c)) {
+                cjk++;
+                inWord = false;
+            } else if (Character.isLetterOrDigit(c)) {
+                if (!inWord) {
+                    words++;
+                    inWord = true;
+                }
+            } else {
+                inWord = false;
+            }
+        }
+        return new int[]{cjk, words};
+    }
+}
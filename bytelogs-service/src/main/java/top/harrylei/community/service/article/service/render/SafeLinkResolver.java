@@ -0,0 +1,82 @@
+package top.harrylei.community.service.article.service.render;
+
+import com.vladsch.flexmark.html.IndependentLinkResolverFactory;
+import com.vladsch.flexmark.html.LinkResolver;
+import com.vladsch.flexmark.html.renderer.LinkResolverBasicContext;
+import com.vladsch.flexmark.html.renderer.LinkStatus;
+import com.vladsch.flexmark.html.renderer.LinkType;
+import com.vladsch.flexmark.html.renderer.ResolvedLink;
+import com.vladsch.flexmark.util.ast.Node;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 链接协议白名单
+ * <p>
+ * 对解析后的链接地址（实体和转义已还原）做检查：链接只允许 http、https、mailto 和相对地址，
+ * 图片只允许 http、https 和相对地址，其他一律替换为 {@link #BLOCKED_URL}。
+ * 检查前先去掉空白和控制字符，与浏览器解析协议时的行为一致，避免拆分协议名绕过。
+ *
+ * @author harry
+ */
+public class SafeLinkResolver implements LinkResolver {
+
+    /**
+     * 被拦截链接的替换地址
+     */
+    static final String BLOCKED_URL = "#";
+
+    private static final Set<String> LINK_SCHEMES = Set.of("http", "https", "mailto");
+
+    private static final Set<String> IMAGE_SCHEMES = Set.of("http", "https");
+
+    private static final Pattern SCHEME = Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.\\-]*):");
+
+    /**
+     * 空白、C0/C1控制字符以及零宽等格式字符
+     */
+    private static final Pattern IGNORED_CHARS = Pattern.compile("[\\p{Cc}\\p{Cf}\\s\\u00A0]");
+
+    @Override
+    public ResolvedLink resolveLink(Node node, LinkResolverBasicContext context, ResolvedLink link) {
+        Set<String> allowed = LinkType.IMAGE.equals(link.getLinkType()) ? IMAGE_SCHEMES : LINK_SCHEMES;
+        if (isAllowed(link.getUrl(), allowed)) {
+            return link;
+        }
+        return link.withStatus(LinkStatus.INVALID).withUrl(BLOCKED_URL);
+    }
+
+    /**
+     * 地址是否为相对地址或白名单中的协议
+     *
+     * @param url     解析后的地址
+     * @param allowed 允许的协议
+     * @return 是否允许输出
+     */
+    static boolean isAllowed(String url, Set<String> allowed) {
+        if (url == null) {
+            return true;
+        }
+        String normalized = IGNORED_CHARS.matcher(url).replaceAll("");
+        Matcher matcher = SCHEME.matcher(normalized);
+        if (!matcher.find()) {
+            // 冒号前出现 / ? # 或没有冒号，都是相对地址
+            return true;
+        }
+        return allowed.contains(matcher.group(1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 注册到 HtmlRenderer 的工厂
+     */
+    public static class Factory extends IndependentLinkResolverFactory {
+
+        @Override
+        public LinkResolver apply(LinkResolverBasicContext context) {
+            return new SafeLinkResolver();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package top.harrylei.community.service.article.service.storage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.api.enums.article.ContentStorageEnum;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.core.util.DeltaUtil;
+import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
+import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 文章版本存储服务
+ * <p>
+ * 新版本总是完整写入，最新版本和发布版本始终保留完整内容，读取路径不受影响。历史版本由后台任务压缩整理：
+ * 版本号为 1、11、21…… 的版本作为关键帧保留完整内容，其余版本改为相对所在区间关键帧的压缩增量，
+ * 读取任意版本最多需要关键帧和增量两行，还原结果按版本缓存在本地LRU中。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArticleVersionStorageService {
+
+    private final ArticleDetailDAO articleDetailDAO;
+
+    /**
+     * 关键帧间隔
+     */
+    static final int KEYFRAME_INTERVAL = 10;
+
+    /**
+     * 增量超过原文的该比例时不值得压缩，保留完整内容
+     */
+    private static final double MAX_DELTA_RATIO = 0.5;
+
+    /**
+     * 内容缓存的最大字符数
+     */
+    private static final long CONTENT_CACHE_MAX_CHARS = 16L * 1024 * 1024;
+
+    /**
+     * 版本内容不可变，缓存只按容量和访问时间淘汰
+     */
+    private final Cache<String, String> contentCache = CacheBuilder.newBuilder()
+            .maximumWeight(CONTENT_CACHE_MAX_CHARS)
+            .weigher((String key, String content) -> content.length())
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * 获取指定版本，增量存储的版本还原为完整内容
+     *
+     * @param articleId 文章ID
+     * @param version   版本号
+     * @return 文章版本详情，不存在时返回null
+     */
+    public ArticleDetailDO getVersion(Long articleId, Integer version) {
+        ArticleDetailDO detail = articleDetailDAO.getByArticleIdAndVersion(articleId, version);
+        if (detail != null && ContentStorageEnum.DELTA.equals(detail.getStorageType())) {
+            detail.setContent(reconstruct(detail));
+        }
+        return detail;
+    }
+
+    /**
+     * 压缩整理一批历史版本
+     *
+     * @param lastId    上一批最后一条的主键，首批传0
+     * @param batchSize 每批条数
+     * @return 本批最后一条的主键，没有待整理的版本时返回null
+     */
+    public Long compactBatch(Long lastId, int batchSize) {
+        List<ArticleDetailDO> candidates = articleDetailDAO.listCompactCandidates(lastId, batchSize);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        int compacted = 0;
+        for (ArticleDetailDO candidate : candidates) {
+            try {
+                if (compact(candidate)) {
+                    compacted++;
+                }
+            } catch (Exception e) {
+                log.error("文章版本压缩失败 articleId={} version={}", candidate.getArticleId(), candidate.getVersion(), e);
+            }
+        }
+
+        log.debug("文章版本压缩整理 batch={} compacted={}", candidates.size(), compacted);
+        return candidates.get(candidates.size() - 1).getId();
+    }
+
+    /**
+     * 版本所在区间的关键帧版本号
+     */
+    static int keyframeVersion(int version) {
+        return (version - 1) / KEYFRAME_INTERVAL * KEYFRAME_INTERVAL + 1;
+    }
+
+    /**
+     * 压缩单个版本，关键帧、缺少基准或增量不划算时标记为关键帧
+     *
+     * @return 是否改为增量存储
+     */
+    private boolean compact(ArticleDetailDO detail) {
+        int baseVersion = keyframeVersion(detail.getVersion());
+        String base = baseVersion == detail.getVersion() ? null : baseContent(detail.getArticleId(), baseVersion);
+        if (base == null) {
+            articleDetailDAO.markKeyframe(detail.getId());
+            return false;
+        }
+
+        byte[] baseBytes = base.getBytes(StandardCharsets.UTF_8);
+        byte[] content = (detail.getContent() == null ? "" : detail.getContent()).getBytes(StandardCharsets.UTF_8);
+        byte[] delta = DeltaUtil.encode(baseBytes, content);
+        if (delta.length > content.length * MAX_DELTA_RATIO) {
+            articleDetailDAO.markKeyframe(detail.getId());
+            return false;
+        }
+
+        // 写入前校验还原结果，确保不会丢失内容
+        if (!Arrays.equals(DeltaUtil.decode(baseBytes, delta), content)) {
+            log.error("文章版本增量校验失败 articleId={} version={}", detail.getArticleId(), detail.getVersion());
+            articleDetailDAO.markKeyframe(detail.getId());
+            return false;
+        }
+
+        return articleDetailDAO.compactToDelta(detail.getId(), baseVersion, delta);
+    }
+
+    private String reconstruct(ArticleDetailDO detail) {
+        String key = cacheKey(detail.getArticleId(), detail.getVersion());
+        String cached = contentCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        String base = baseContent(detail.getArticleId(), detail.getBaseVersion());
+        if (base == null) {
+            log.error("文章版本缺少增量基准 articleId={} version={} baseVersion={}",
+                    detail.getArticleId(), detail.getVersion(), detail.getBaseVersion());
+            ResultCode.INTERNAL_ERROR.throwException();
+        }
+
+        byte[] content;
+        try {
+            content = DeltaUtil.decode(base.getBytes(StandardCharsets.UTF_8), detail.getContentDelta());
+        } catch (IllegalArgumentException e) {
+            log.error("文章版本增量还原失败 articleId={} version={}", detail.getArticleId(), detail.getVersion(), e);
+            ResultCode.INTERNAL_ERROR.throwException();
+            return null;
+        }
+
+        String result = new String(content, StandardCharsets.UTF_8);
+        contentCache.put(key, result);
+        return result;
+    }
+
+    /**
+     * 读取基准版本的完整内容，基准不存在或本身是增量时返回null
+     */
+    private String baseContent(Long articleId, Integer baseVersion) {
+        String key = cacheKey(articleId, baseVersion);
+        String cached = contentCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ArticleDetailDO base = articleDetailDAO.getVersionContent(articleId, baseVersion);
+        if (base == null || ContentStorageEnum.DELTA.equals(base.getStorageType()) || base.getContent() == null) {
+            return null;
+        }
+        contentCache.put(key, base.getContent());
+        return base.getContent();
+    }
+
+    private static String cacheKey(Long articleId, Integer version) {
+        return articleId + ":" + version;
+    }
+}
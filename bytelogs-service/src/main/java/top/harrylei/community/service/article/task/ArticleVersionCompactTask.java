@@ -0,0 +1,48 @@
+package top.harrylei.community.service.article.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
+
+/**
+ * 文章历史版本压缩整理定时任务
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArticleVersionCompactTask {
+
+    private final ArticleVersionStorageService articleVersionStorageService;
+
+    /**
+     * 每批处理的版本数
+     */
+    private static final int COMPACT_BATCH_SIZE = 100;
+
+    /**
+     * 每轮最多处理的批数，存量数据分多轮迁移，避免单轮占用数据库过久
+     */
+    private static final int MAX_BATCHES_PER_ROUND = 50;
+
+    /**
+     * 每10分钟把不再是最新或发布版本的历史版本压缩为关键帧加增量，存量数据也由该任务逐步迁移
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000L, initialDelay = 2 * 60 * 1000L)
+    public void compactVersions() {
+        try {
+            Long cursor = 0L;
+            int batches = 0;
+            while (cursor != null && batches < MAX_BATCHES_PER_ROUND) {
+                cursor = articleVersionStorageService.compactBatch(cursor, COMPACT_BATCH_SIZE);
+                batches++;
+            }
+            log.debug("文章版本压缩整理完成: batches={}", batches);
+        } catch (Exception e) {
+            log.error("文章版本压缩整理失败", e);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import top.harrylei.community.api.enums.user.UserStatusEnum;
 import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
 import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.security.ratelimit.RateLimiter;
 import top.harrylei.community.core.util.BCryptUtil;
 import top.harrylei.community.core.util.JwtUtil;
 import top.harrylei.community.core.util.PasswordUtil;
@@ -23,6 +24,8 @@ import top.harrylei.community.service.user.repository.entity.UserInfoDO;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * 登录注册服务实现类
@@ -34,11 +37,40 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
+    /**
+     * 按用户名和IP的登录限流策略，防止同一来源对账号撞库；不同IP互不影响，他人无法借此锁定账号
+     */
+    private static final String LOGIN_USER_POLICY = "login-user";
+
+    /**
+     * 同一用户名在窗口内允许的密码校验失败次数，防止换IP对同一账号撞库；只统计失败，正常登录不占用额度
+     */
+    private static final int LOGIN_FAILURE_LIMIT = 50;
+
+    /**
+     * 登录失败计数窗口
+     */
+    private static final Duration LOGIN_FAILURE_WINDOW = Duration.ofMinutes(10);
+
+    /**
+     * 登录失败计数脚本：自增并在窗口开始时设置过期时间
+     * <p>
+     * KEYS[1] 计数key；ARGV[1] 窗口长度（毫秒）。返回自增后的失败次数
+     */
+    private static final String LOGIN_FAILURE_SCRIPT = """
+            local count = redis.call('INCR', KEYS[1])
+            if count == 1 then
+                redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            end
+            return count
+            """;
+
     private final UserDAO userDAO;
     private final UserInfoDAO userInfoDAO;
     private final RedisUtil redisUtil;
     private final UserCacheService userCacheService;
     private final JwtUtil jwtUtil;
+    private final RateLimiter rateLimiter;
 
     /**
      * 用户注册
@@ -126,10 +158,19 @@ public class AuthServiceImpl implements AuthService {
      */
     @Override
     public String login(String username, String password, boolean keepLogin, UserRoleEnum userRole) {
+        // 按用户名和IP限流，同一用户名失败次数过多时拒绝，均在查库和校验密码之前判定
+        String name = username.trim().toLowerCase(Locale.ROOT);
+        String subject = "name:" + name + ":ip:" + ReqInfoContext.getContext().getClientIp();
+        if (!rateLimiter.acquire(LOGIN_USER_POLICY, subject, 10, 600, 5).allowed()
+                || loginFailures(name) >= LOGIN_FAILURE_LIMIT) {
+            ResultCode.TOO_MANY_REQUESTS.throwException();
+        }
+
         // 查找用户
         UserDO user = userDAO.getUserByUsername(username);
         if (user == null) {
             // 为了安全，不暴露用户是否存在，统一返回用户名或密码错误
+            recordLoginFailure(name);
             ResultCode.AUTH_LOGIN_FAILED.throwException();
         }
 
@@ -141,6 +182,7 @@ public class AuthServiceImpl implements AuthService {
 
         // 校验密码
         if (BCryptUtil.notMatches(password, user.getPassword())) {
+            recordLoginFailure(name);
             ResultCode.AUTH_LOGIN_FAILED.throwException();
         }
 
@@ -167,6 +209,22 @@ public class AuthServiceImpl implements AuthService {
         return token;
     }
 
+    /**
+     * 当前窗口内用户名的登录失败次数，Redis不可用时视为0
+     */
+    private long loginFailures(String name) {
+        Long failures = redisUtil.get(RedisKeyConstants.getUserLoginFailureKey(name), Long.class);
+        return failures == null ? 0 : failures;
+    }
+
+    /**
+     * 记录一次登录失败
+     */
+    private void recordLoginFailure(String name) {
+        redisUtil.evalForLong(LOGIN_FAILURE_SCRIPT, List.of(RedisKeyConstants.getUserLoginFailureKey(name)),
+                LOGIN_FAILURE_WINDOW.toMillis());
+    }
+
     /**
      * 用户登出
      *
@@ -3,20 +3,27 @@ package top.harrylei.community.service.notify.consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 import top.harrylei.community.api.event.NotificationEvent;
 import top.harrylei.community.core.common.constans.KafkaTopics;
-import top.harrylei.community.api.exception.NonRetryableException;
-import top.harrylei.community.api.exception.RetryableException;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.service.notify.service.KafkaIdempotencyService;
 import top.harrylei.community.service.notify.service.NotifyMsgService;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * 通知事件消费者
+ * <p>
+ * 批量消费：批次内按eventId去重后统一落库，一次确认整批消息；
+ * 整批落库失败时逐条处理并逐条标记完成，只从失败的那条消息开始重试
  *
  * @author harry
  */
@@ -27,120 +34,115 @@ public class NotificationEventConsumer {
 
     private final NotifyMsgService notifyMsgService;
     private final KafkaIdempotencyService kafkaIdempotencyService;
+    private final MetricsUtil metricsUtil;
 
     /**
-     * 处理通知事件
+     * 批量处理通知事件
      *
-     * @param event          通知事件
-     * @param partition      分区
-     * @param offset         偏移量
+     * @param events         通知事件列表
      * @param acknowledgment 手动确认
      */
-    @KafkaListener(topics = KafkaTopics.NOTIFICATION_EVENTS, containerFactory = "notificationKafkaListenerContainerFactory")
-    public void handleNotificationEvent(@Payload NotificationEvent event,
-                                        @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-                                        @Header(KafkaHeaders.OFFSET) long offset,
-                                        Acknowledgment acknowledgment) {
-
-        log.debug("收到通知事件: eventId={}, partition={}, offset={}", event.getEventId(), partition, offset);
-
-        try {
-            // 参数验证
-            if (event.getEventId() == null || event.getEventId().trim().isEmpty()) {
-                log.error("通知事件eventId为空: event={}", event);
-                acknowledgment.acknowledge();
-                throw new NonRetryableException("通知事件eventId为空");
-            }
-
-            // 幂等性检查 - 尝试获取消息处理权限
-            if (!kafkaIdempotencyService.tryAcquireProcessingPermission(event.getEventId())) {
-                log.debug("通知事件已处理过，跳过: eventId={}", event.getEventId());
-                acknowledgment.acknowledge();
-                return;
-            }
-
-            // 处理通知事件
-            notifyMsgService.saveNotificationFromEvent(event);
-
-            // 标记消息处理完成
-            kafkaIdempotencyService.markMessageAsProcessed(event.getEventId());
-
-            // 手动确认消息
-            acknowledgment.acknowledge();
-            log.debug("通知事件处理成功: eventId={}", event.getEventId());
-
-        } catch (IllegalArgumentException e) {
-            // 参数错误，不重试，释放处理权限
-            log.error("通知事件参数错误: eventId={}, error={}", event.getEventId(), e.getMessage());
-            kafkaIdempotencyService.releaseProcessingPermission(event.getEventId());
-            // 确认消息，避免重复处理
-            acknowledgment.acknowledge();
-            throw new NonRetryableException("通知事件参数错误", e);
-
-        } catch (Exception e) {
-            log.error("处理通知事件失败: eventId={}, event={}", event.getEventId(), event, e);
-            // 释放处理权限，允许重试
-            kafkaIdempotencyService.releaseProcessingPermission(event.getEventId());
-            // 不确认消息，让重试机制处理
-            throw new RetryableException("处理通知事件失败", e);
-        }
+    @KafkaListener(topics = KafkaTopics.NOTIFICATION_EVENTS, containerFactory = "notificationBatchKafkaListenerContainerFactory")
+    public void handleNotificationEvents(@Payload List<NotificationEvent> events, Acknowledgment acknowledgment) {
+        metricsUtil.recordKafkaConsume(KafkaTopics.NOTIFICATION_EVENTS,
+                () -> handleBatch(events, acknowledgment, KafkaTopics.NOTIFICATION_EVENTS, "通知事件"));
     }
 
     /**
-     * 处理系统事件
+     * 批量处理系统事件
      *
-     * @param event          系统事件
-     * @param partition      分区
-     * @param offset         偏移量
+     * @param events         系统事件列表
      * @param acknowledgment 手动确认
      */
-    @KafkaListener(topics = KafkaTopics.SYSTEM_EVENTS, containerFactory = "notificationKafkaListenerContainerFactory")
-    public void handleSystemEvent(@Payload NotificationEvent event,
-                                  @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-                                  @Header(KafkaHeaders.OFFSET) long offset,
-                                  Acknowledgment acknowledgment) {
-
-        log.debug("收到系统事件: eventId={}, partition={}, offset={}", event.getEventId(), partition, offset);
+    @KafkaListener(topics = KafkaTopics.SYSTEM_EVENTS, containerFactory = "notificationBatchKafkaListenerContainerFactory")
+    public void handleSystemEvents(@Payload List<NotificationEvent> events, Acknowledgment acknowledgment) {
+        // 系统事件也通过通知服务处理
+        metricsUtil.recordKafkaConsume(KafkaTopics.SYSTEM_EVENTS,
+                () -> handleBatch(events, acknowledgment, KafkaTopics.SYSTEM_EVENTS, "系统事件"));
+    }
 
-        try {
-            // 参数验证
-            if (event.getEventId() == null || event.getEventId().trim().isEmpty()) {
-                log.error("系统事件eventId为空: event={}", event);
-                acknowledgment.acknowledge();
-                throw new NonRetryableException("系统事件eventId为空");
+    /**
+     * 处理一批事件
+     *
+     * @param events         事件列表
+     * @param acknowledgment 手动确认
+     * @param topic          Topic（指标用）
+     * @param eventName      事件名称（日志用）
+     */
+    private void handleBatch(List<NotificationEvent> events, Acknowledgment acknowledgment, String topic, String eventName) {
+        log.debug("收到{}批次: size={}", eventName, events.size());
+
+        // 1. 参数验证并按eventId去重，记录每个事件在批次中的位置
+        Map<String, Integer> uniqueIndexes = new LinkedHashMap<>();
+        List<NotificationEvent> unique = new ArrayList<>();
+        int invalid = 0;
+        for (int i = 0; i < events.size(); i++) {
+            NotificationEvent event = events.get(i);
+            if (event == null || event.getEventId() == null || event.getEventId().trim().isEmpty()) {
+                log.error("{}eventId为空，丢弃: event={}", eventName, event);
+                invalid++;
+                continue;
             }
-
-            // 幂等性检查 - 尝试获取消息处理权限
-            if (!kafkaIdempotencyService.tryAcquireProcessingPermission(event.getEventId())) {
-                log.debug("系统事件已处理过，跳过: eventId={}", event.getEventId());
-                acknowledgment.acknowledge();
-                return;
+            if (uniqueIndexes.putIfAbsent(event.getEventId(), i) == null) {
+                unique.add(event);
             }
+        }
+        metricsUtil.recordKafkaSkip(topic, MetricsUtil.SKIP_INVALID, invalid);
+
+        // 2. 幂等性检查 - 整批获取处理权限，Redis不可用时整批重试
+        Set<String> acquiredIds = kafkaIdempotencyService.tryBeginAll(topic, unique);
+        List<NotificationEvent> acquired = new ArrayList<>(acquiredIds.size());
+        for (Map.Entry<String, Integer> entry : uniqueIndexes.entrySet()) {
+            if (acquiredIds.contains(entry.getKey())) {
+                acquired.add(events.get(entry.getValue()));
+            } else {
+                log.debug("{}已处理过，跳过: eventId={}", eventName, entry.getKey());
+            }
+        }
+        metricsUtil.recordKafkaSkip(topic, MetricsUtil.SKIP_DUPLICATE, events.size() - invalid - acquired.size());
 
-            // 系统事件也通过通知服务处理
-            notifyMsgService.saveNotificationFromEvent(event);
-
-            // 标记消息处理完成
-            kafkaIdempotencyService.markMessageAsProcessed(event.getEventId());
+        // 3. 批量处理，整批在一个事务中落库，失败时没有任何事件生效
+        boolean batchSaved = true;
+        try {
+            if (!acquired.isEmpty()) {
+                notifyMsgService.saveNotificationsFromEvents(acquired);
+            }
+        } catch (Exception e) {
+            log.warn("{}批次落库失败，逐条处理: size={}", eventName, acquired.size(), e);
+            batchSaved = false;
+        }
 
-            // 手动确认消息
-            acknowledgment.acknowledge();
-            log.debug("系统事件处理成功: eventId={}", event.getEventId());
+        // 4. 标记消息处理完成，逐条处理时每条成功后已单独标记
+        if (batchSaved) {
+            kafkaIdempotencyService.completeAll(topic, acquired);
+        } else {
+            handleOneByOne(acquired, uniqueIndexes, topic, eventName);
+        }
 
-        } catch (IllegalArgumentException e) {
-            // 参数错误，不重试，释放处理权限
-            log.error("系统事件参数错误: eventId={}, error={}", event.getEventId(), e.getMessage());
-            kafkaIdempotencyService.releaseProcessingPermission(event.getEventId());
-            // 确认消息，避免重复处理
-            acknowledgment.acknowledge();
-            throw new NonRetryableException("系统事件参数错误", e);
+        // 5. 手动确认整批消息
+        acknowledgment.acknowledge();
+        log.debug("{}批次处理成功: received={}, processed={}", eventName, events.size(), acquired.size());
+    }
 
-        } catch (Exception e) {
-            log.error("处理系统事件失败: eventId={}, event={}", event.getEventId(), event, e);
-            // 释放处理权限，允许重试
-            kafkaIdempotencyService.releaseProcessingPermission(event.getEventId());
-            // 不确认消息，让重试机制处理
-            throw new RetryableException("处理系统事件失败", e);
+    /**
+     * 批量落库失败后逐条处理，每条成功后立即标记完成
+     * <p>
+     * 遇到失败的事件时停止，释放它和之后事件的处理权限，并告知容器失败位置：
+     * 之前的消息提交位移，只从失败的消息开始重新投递，已完成的事件重新投递时会被幂等检查跳过。
+     */
+    private void handleOneByOne(List<NotificationEvent> acquired, Map<String, Integer> indexes, String topic,
+                                String eventName) {
+        for (int i = 0; i < acquired.size(); i++) {
+            NotificationEvent event = acquired.get(i);
+            try {
+                notifyMsgService.saveNotificationFromEvent(event);
+            } catch (Exception e) {
+                log.error("处理{}失败: eventId={}", eventName, event.getEventId(), e);
+                kafkaIdempotencyService.releaseAll(topic, acquired.subList(i, acquired.size()));
+                throw new BatchListenerFailedException("处理" + eventName + "失败: eventId=" + event.getEventId(), e,
+                                                       indexes.get(event.getEventId()));
+            }
+            kafkaIdempotencyService.complete(topic, event);
         }
     }
-}
\ No newline at end of file
+}
@@ -19,5 +19,6 @@ public interface NotifyMsgStructMapper {
     @Mapping(target = "operateUserAvatar", ignore = true)
     NotifyMsgDTO toDTO(NotifyMsgDO notifyMsg);
 
+    @Mapping(target = "recentActors", ignore = true)
     NotifyMsgVO toVO(NotifyMsgDTO dto);
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package top.harrylei.community.service.notify.repository.dao;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Repository;
+import top.harrylei.community.service.notify.repository.entity.NotifyMsgActorDO;
+import top.harrylei.community.service.notify.repository.mapper.NotifyMsgActorMapper;
+
+import java.util.List;
+
+/**
+ * 聚合通知操作用户访问对象
+ *
+ * @author harry
+ */
+@Repository
+public class NotifyMsgActorDAO extends ServiceImpl<NotifyMsgActorMapper, NotifyMsgActorDO> {
+
+    /**
+     * 批量写入操作用户，已存在的操作用户忽略
+     *
+     * @param actors 操作用户列表
+     * @return 实际新增的操作用户数
+     */
+    public int insertIgnoreBatch(List<NotifyMsgActorDO> actors) {
+        if (actors == null || actors.isEmpty()) {
+            return 0;
+        }
+        return getBaseMapper().insertIgnoreBatch(actors);
+    }
+
+    /**
+     * 为单个聚合通知写入操作用户
+     *
+     * @param notifyId       聚合通知ID
+     * @param operateUserIds 操作用户ID列表
+     * @return 实际新增的操作用户数
+     */
+    public int insertIgnoreBatch(Long notifyId, List<Long> operateUserIds) {
+        return insertIgnoreBatch(operateUserIds.stream()
+                .map(operateUserId -> new NotifyMsgActorDO().setNotifyId(notifyId).setOperateUserId(operateUserId))
+                .toList());
+    }
+
+    /**
+     * 分页查询聚合通知的操作用户，最新在前
+     *
+     * @param notifyId 聚合通知ID
+     * @param pageNum  页码
+     * @param pageSize 页大小
+     * @return 操作用户分页
+     */
+    public Page<NotifyMsgActorDO> pageByNotifyId(Long notifyId, Integer pageNum, Integer pageSize) {
+        return lambdaQuery()
+                .eq(NotifyMsgActorDO::getNotifyId, notifyId)
+                .orderByDesc(NotifyMsgActorDO::getId)
+                .page(new Page<>(pageNum, pageSize));
+    }
+}
@@ -1,12 +1,20 @@
 package top.harrylei.community.service.notify.repository.dao;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Repository;
 import top.harrylei.community.api.enums.notify.NotifyMsgStateEnum;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
 import top.harrylei.community.service.notify.repository.entity.NotifyMsgDO;
 import top.harrylei.community.service.notify.repository.mapper.NotifyMsgMapper;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 通知消息访问对象
  *
@@ -30,6 +38,27 @@ public class NotifyMsgDAO extends ServiceImpl<NotifyMsgMapper, NotifyMsgDO> {
                 .page(new Page<>(pageNum, pageSize));
     }
 
+    /**
+     * 单批次最大插入行数，避免单条SQL过大
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 批量插入通知消息，每批使用一条多值INSERT语句
+     *
+     * @param notifyMsgs 通知消息列表
+     */
+    public void insertBatch(List<NotifyMsgDO> notifyMsgs) {
+        if (notifyMsgs == null || notifyMsgs.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < notifyMsgs.size(); from += INSERT_BATCH_SIZE) {
+            int to = Math.min(from + INSERT_BATCH_SIZE, notifyMsgs.size());
+            getBaseMapper().insertBatch(notifyMsgs.subList(from, to));
+        }
+    }
+
     /**
      * 查询用户未读通知数量
      *
@@ -43,8 +72,48 @@ public class NotifyMsgDAO extends ServiceImpl<NotifyMsgMapper, NotifyMsgDO> {
                 .count();
     }
 
+    /**
+     * 按通知类型分组统计用户未读通知数量
+     *
+     * @param userId 用户ID
+     * @return 通知类型编码 -> 未读数量，无未读的类型不包含在结果中
+     */
+    public Map<Integer, Long> countUnreadGroupByType(Long userId) {
+        QueryWrapper<NotifyMsgDO> wrapper = new QueryWrapper<NotifyMsgDO>()
+                .select("type", "COUNT(*) AS cnt")
+                .eq("notify_user_id", userId)
+                .eq("state", NotifyMsgStateEnum.UNREAD.getCode())
+                .groupBy("type");
+        List<Map<String, Object>> rows = listMaps(wrapper);
+
+        Map<Integer, Long> result = new HashMap<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Number type = (Number) row.get("type");
+            Number count = (Number) row.get("cnt");
+            if (type != null && count != null) {
+                result.put(type.intValue(), count.longValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 根据ID和接收用户查询通知
+     *
+     * @param notifyId 通知ID
+     * @param userId   用户ID（防止越权）
+     * @return 通知消息，不存在时返回null
+     */
+    public NotifyMsgDO getByIdAndUserId(Long notifyId, Long userId) {
+        return lambdaQuery()
+                .eq(NotifyMsgDO::getId, notifyId)
+                .eq(NotifyMsgDO::getNotifyUserId, userId)
+                .one();
+    }
+
     /**
      * 标记通知为已读
+     * 仅更新未读状态的通知，保证同一条通知只会被计数一次
      *
      * @param notifyId 通知ID
      * @param userId   用户ID（防止越权）
@@ -54,6 +123,7 @@ public class NotifyMsgDAO extends ServiceImpl<NotifyMsgMapper, NotifyMsgDO> {
         return lambdaUpdate()
                 .eq(NotifyMsgDO::getId, notifyId)
                 .eq(NotifyMsgDO::getNotifyUserId, userId)
+                .eq(NotifyMsgDO::getState, NotifyMsgStateEnum.UNREAD)
                 .set(NotifyMsgDO::getState, NotifyMsgStateEnum.READ)
                 .update();
     }
@@ -71,4 +141,63 @@ public class NotifyMsgDAO extends ServiceImpl<NotifyMsgMapper, NotifyMsgDO> {
                 .set(NotifyMsgDO::getState, NotifyMsgStateEnum.READ)
                 .update();
     }
-}
\ No newline at end of file
+
+    /**
+     * 查询窗口内仍可合并的未读聚合通知
+     *
+     * @param notifyUserIds 接收用户ID列表
+     * @param relatedIds    关联ID列表
+     * @param types         通知类型列表
+     * @param windowStart   窗口起始时间，最后更新早于该时间的通知不再合并
+     * @return 候选聚合通知，由调用方按聚合键精确匹配
+     */
+    public List<NotifyMsgDO> listOpenAggregates(Collection<Long> notifyUserIds, Collection<Long> relatedIds,
+                                                Collection<NotifyTypeEnum> types, LocalDateTime windowStart) {
+        if (notifyUserIds.isEmpty() || relatedIds.isEmpty() || types.isEmpty()) {
+            return List.of();
+        }
+
+        return lambdaQuery()
+                .in(NotifyMsgDO::getNotifyUserId, notifyUserIds)
+                .in(NotifyMsgDO::getRelatedId, relatedIds)
+                .in(NotifyMsgDO::getType, types)
+                .eq(NotifyMsgDO::getState, NotifyMsgStateEnum.UNREAD)
+                .ge(NotifyMsgDO::getUpdateTime, windowStart)
+                .orderByDesc(NotifyMsgDO::getId)
+                .list();
+    }
+
+    /**
+     * 锁定仍未读的聚合通知，需在事务中调用
+     * <p>
+     * 持锁期间标记已读会等待，保证写入操作用户和更新聚合计数作用在同一条未读通知上
+     *
+     * @param notifyId 聚合通知ID
+     * @return 锁定的聚合通知，已读或不存在时返回null
+     */
+    public NotifyMsgDO lockOpenAggregate(Long notifyId) {
+        return lambdaQuery()
+                .eq(NotifyMsgDO::getId, notifyId)
+                .eq(NotifyMsgDO::getState, NotifyMsgStateEnum.UNREAD)
+                .last("FOR UPDATE")
+                .one();
+    }
+
+    /**
+     * 更新聚合通知的操作用户信息，仅在通知仍未读时生效
+     *
+     * @param notifyMsg 聚合通知（需包含id、operateUserId、msg、recentActorIds）
+     * @param added     新增的操作用户数
+     * @return 是否更新成功
+     */
+    public boolean updateAggregate(NotifyMsgDO notifyMsg, int added) {
+        return lambdaUpdate()
+                .eq(NotifyMsgDO::getId, notifyMsg.getId())
+                .eq(NotifyMsgDO::getState, NotifyMsgStateEnum.UNREAD)
+                .setSql("actor_count = actor_count + " + added)
+                .set(NotifyMsgDO::getOperateUserId, notifyMsg.getOperateUserId())
+                .set(NotifyMsgDO::getMsg, notifyMsg.getMsg())
+                .set(NotifyMsgDO::getRecentActorIds, notifyMsg.getRecentActorIds())
+                .update();
+    }
+}
@@ -0,0 +1,34 @@
+package top.harrylei.community.service.notify.repository.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import top.harrylei.community.api.model.base.BaseDO;
+
+import java.io.Serial;
+
+/**
+ * 聚合通知操作用户实体对象
+ *
+ * @author harry
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("notify_msg_actor")
+@Accessors(chain = true)
+public class NotifyMsgActorDO extends BaseDO {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 聚合通知ID
+     */
+    private Long notifyId;
+
+    /**
+     * 操作用户ID
+     */
+    private Long operateUserId;
+}
@@ -59,4 +59,14 @@ public class NotifyMsgDO extends BaseDO {
      * 阅读状态：0-未读，1-已读
      */
     private NotifyMsgStateEnum state;
-}
\ No newline at end of file
+
+    /**
+     * 聚合的操作用户数，非聚合通知为1
+     */
+    private Integer actorCount;
+
+    /**
+     * 最近操作用户ID，逗号分隔，最新在前
+     */
+    private String recentActorIds;
+}
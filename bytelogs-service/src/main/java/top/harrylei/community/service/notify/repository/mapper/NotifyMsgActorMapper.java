@@ -0,0 +1,23 @@
+package top.harrylei.community.service.notify.repository.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import top.harrylei.community.service.notify.repository.entity.NotifyMsgActorDO;
+
+import java.util.List;
+
+/**
+ * 聚合通知操作用户Mapper接口
+ *
+ * @author harry
+ */
+public interface NotifyMsgActorMapper extends BaseMapper<NotifyMsgActorDO> {
+
+    /**
+     * 批量写入操作用户，已存在的记录忽略
+     *
+     * @param list 操作用户列表
+     * @return 实际新增行数
+     */
+    int insertIgnoreBatch(@Param("list") List<NotifyMsgActorDO> list);
+}
@@ -1,12 +1,23 @@
 package top.harrylei.community.service.notify.repository.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import top.harrylei.community.service.notify.repository.entity.NotifyMsgDO;
 
+import java.util.List;
+
 /**
  * 通知消息Mapper接口
  *
  * @author harry
  */
 public interface NotifyMsgMapper extends BaseMapper<NotifyMsgDO> {
-}
\ No newline at end of file
+
+    /**
+     * 批量插入通知消息
+     *
+     * @param list 通知消息列表
+     * @return 插入行数
+     */
+    int insertBatch(@Param("list") List<NotifyMsgDO> list);
+}
@@ -3,13 +3,31 @@ package top.harrylei.community.service.notify.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import top.harrylei.community.api.event.BaseEvent;
+import top.harrylei.community.api.exception.RetryableException;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.EventIdUtil;
 import top.harrylei.community.core.util.RedisUtil;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Kafka 消息幂等性服务
+ * <p>
+ * 按 Topic + 小时桶 + 分片把事件ID存入Redis哈希，字段值为处理中的租约截止时间或已完成标记，
+ * 整个桶到期后一起删除，不再为每条消息单独建key和设置过期时间。
+ * 时间桶取自事件ID中的时间戳，无法解析时间的旧格式ID取事件自身的发生时间，同一事件重复投递时总是落在同一个桶。
+ * 同一批事件按桶各执行一次Lua脚本，每批只需两次往返（开始、完成）。
  *
  * @author harry
  */
@@ -18,117 +36,229 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class KafkaIdempotencyService {
 
-    private final RedisUtil redisUtil;
+    /**
+     * 时间桶大小
+     */
+    private static final Duration BUCKET_SIZE = Duration.ofHours(1);
 
     /**
-     * 幂等性检查TTL - 24小时
+     * 时间桶保留时间，从桶结束时开始计算
      */
-    private static final Duration KAFKA_IDEMPOTENCY_TTL = Duration.ofHours(24);
+    private static final Duration RETENTION = Duration.ofHours(24);
 
     /**
-     * 尝试获取消息处理权限
-     *
-     * @param eventId Kafka消息的事件ID
-     * @return true: 获得处理权限，可以处理; false: 消息已处理过，跳过
+     * 每个时间桶的分片数，分片越小哈希越容易保持紧凑编码
      */
-    public boolean tryAcquireProcessingPermission(String eventId) {
-        if (eventId == null || eventId.trim().isEmpty()) {
-            log.warn("尝试获取Kafka消息处理权限失败: eventId为空");
-            return false;
-        }
+    private static final int SHARDS = 16;
+
+    /**
+     * 处理中状态的租约，消费者宕机未完成的消息在租约过期后允许重新处理
+     */
+    private static final Duration PROCESSING_LEASE = Duration.ofMinutes(10);
 
-        String key = RedisKeyConstants.getKafkaIdempotencyKey(eventId);
-        Boolean acquired = redisUtil.setIfAbsent(key, "processing", KAFKA_IDEMPOTENCY_TTL);
+    /**
+     * 已完成标记
+     */
+    private static final String COMPLETED = "c";
 
-        if (Boolean.TRUE.equals(acquired)) {
-            log.debug("获取Kafka消息处理权限成功: eventId={}", eventId);
-            return true;
-        } else {
-            log.debug("Kafka消息已处理过，跳过: eventId={}", eventId);
-            return false;
-        }
+    /**
+     * 尝试开始处理：ID不存在或租约已过期时写入新的租约并返回该ID
+     * KEYS[i]: 第i个ID所在的分桶key；ARGV[1]: 当前时间；ARGV[2]: 租约截止时间；ARGV[3]: 桶过期秒数；ARGV[i+3]: 第i个ID
+     */
+    private static final String BEGIN_LUA_SCRIPT =
+            "local now = tonumber(ARGV[1]) " +
+            "local acquired = {} " +
+            "for i = 1, #KEYS do " +
+            "  local id = ARGV[i + 3] " +
+            "  local state = redis.call('hget', KEYS[i], id) " +
+            "  if not state or (state ~= '" + COMPLETED + "' and (tonumber(state) or 0) < now) then " +
+            "    redis.call('hset', KEYS[i], id, ARGV[2]) " +
+            "    if redis.call('ttl', KEYS[i]) < 0 then redis.call('expire', KEYS[i], ARGV[3]) end " +
+            "    acquired[#acquired + 1] = id " +
+            "  end " +
+            "end " +
+            "return acquired";
+
+    /**
+     * 标记完成
+     * KEYS[i]: 第i个ID所在的分桶key；ARGV[1]: 桶过期秒数；ARGV[i+1]: 第i个ID
+     */
+    private static final String COMPLETE_LUA_SCRIPT =
+            "for i = 1, #KEYS do " +
+            "  redis.call('hset', KEYS[i], ARGV[i + 1], '" + COMPLETED + "') " +
+            "  if redis.call('ttl', KEYS[i]) < 0 then redis.call('expire', KEYS[i], ARGV[1]) end " +
+            "end " +
+            "return #KEYS";
+
+    /**
+     * 释放处理权限，已完成的不释放
+     * KEYS[i]: 第i个ID所在的分桶key；ARGV[i]: 第i个ID
+     */
+    private static final String RELEASE_LUA_SCRIPT =
+            "local released = 0 " +
+            "for i = 1, #KEYS do " +
+            "  if redis.call('hget', KEYS[i], ARGV[i]) ~= '" + COMPLETED + "' then " +
+            "    released = released + redis.call('hdel', KEYS[i], ARGV[i]) " +
+            "  end " +
+            "end " +
+            "return released";
+
+    private final RedisUtil redisUtil;
+
+    /**
+     * 尝试获取消息处理权限
+     *
+     * @param topic Topic
+     * @param event 事件
+     * @return true: 获得处理权限，可以处理; false: 消息已处理过或正在处理，跳过
+     */
+    public boolean tryBegin(String topic, BaseEvent event) {
+        return event != null && tryBeginAll(topic, Collections.singletonList(event)).contains(event.getEventId());
     }
 
     /**
-     * 检查消息是否已被处理
+     * 批量获取消息处理权限
      *
-     * @param eventId Kafka消息的事件ID
-     * @return true: 已处理过; false: 未处理过
+     * @param topic  Topic
+     * @param events 事件集合
+     * @return 获得处理权限的事件ID，未包含的为已处理过、正在处理或ID为空
+     * @throws RetryableException Redis不可用时抛出，由调用方整批重试，避免误判为重复而丢弃消息
      */
-    public boolean isMessageProcessed(String eventId) {
-        if (eventId == null || eventId.trim().isEmpty()) {
-            log.warn("检查Kafka消息处理状态失败: eventId为空");
-            return false;
-        }
+    public Set<String> tryBeginAll(String topic, Collection<? extends BaseEvent> events) {
+        long now = System.currentTimeMillis();
+        Set<String> acquired = new HashSet<>();
+        Map<Long, List<String>> acquiredByBucket = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<String>> bucket : groupByBucket(events, now).entrySet()) {
+            List<String> ids = bucket.getValue();
+            List<Object> args = new ArrayList<>(ids.size() + 3);
+            args.add(now);
+            args.add(now + PROCESSING_LEASE.toMillis());
+            args.add(bucketTtlSeconds(bucket.getKey(), now));
+            args.addAll(ids);
 
-        String key = RedisKeyConstants.getKafkaIdempotencyKey(eventId);
-        Boolean exists = redisUtil.exists(key);
+            List<String> result = redisUtil.evalForList(BEGIN_LUA_SCRIPT, keys(topic, bucket.getKey(), ids), args.toArray());
+            if (result == null) {
+                // 已获得的处理权限尽量释放，否则要等租约过期才能重试
+                acquiredByBucket.forEach((acquiredBucket, acquiredIds) -> release(topic, acquiredBucket, acquiredIds));
+                throw new RetryableException("Kafka消息幂等性检查失败: topic=" + topic);
+            }
+            acquired.addAll(result);
+            acquiredByBucket.put(bucket.getKey(), result);
+        }
 
-        log.debug("检查Kafka消息处理状态: eventId={}, 已处理={}", eventId, exists);
-        return Boolean.TRUE.equals(exists);
+        log.debug("获取Kafka消息处理权限: topic={}, requested={}, acquired={}", topic, events.size(), acquired.size());
+        return acquired;
     }
 
     /**
-     * 释放消息处理权限
+     * 标记消息处理完成
      *
-     * @param eventId Kafka消息的事件ID
-     * @return true: 释放成功; false: 释放失败
+     * @param topic Topic
+     * @param event 事件
      */
-    public boolean releaseProcessingPermission(String eventId) {
-        if (eventId == null || eventId.trim().isEmpty()) {
-            log.warn("释放Kafka消息处理权限失败: eventId为空");
-            return false;
-        }
+    public void complete(String topic, BaseEvent event) {
+        completeAll(topic, Collections.singletonList(event));
+    }
 
-        String key = RedisKeyConstants.getKafkaIdempotencyKey(eventId);
-        Boolean released = redisUtil.del(key);
+    /**
+     * 批量标记消息处理完成
+     *
+     * @param topic  Topic
+     * @param events 事件集合
+     */
+    public void completeAll(String topic, Collection<? extends BaseEvent> events) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, List<String>> bucket : groupByBucket(events, now).entrySet()) {
+            List<String> ids = bucket.getValue();
+            List<Object> args = new ArrayList<>(ids.size() + 1);
+            args.add(bucketTtlSeconds(bucket.getKey(), now));
+            args.addAll(ids);
 
-        if (Boolean.TRUE.equals(released)) {
-            log.debug("释放Kafka消息处理权限成功: eventId={}", eventId);
-            return true;
-        } else {
-            log.warn("释放Kafka消息处理权限失败: eventId={}", eventId);
-            return false;
+            if (redisUtil.evalForLong(COMPLETE_LUA_SCRIPT, keys(topic, bucket.getKey(), ids), args.toArray()) == null) {
+                // 处理中状态仍在，租约过期前的重复投递依然会被跳过
+                log.warn("标记Kafka消息处理完成失败: topic={}, count={}", topic, ids.size());
+            }
         }
     }
 
     /**
-     * 标记消息处理完成
-     * 将状态从"processing"更新为"completed"
+     * 释放消息处理权限，允许重试
+     *
+     * @param topic Topic
+     * @param event 事件
+     */
+    public void release(String topic, BaseEvent event) {
+        releaseAll(topic, Collections.singletonList(event));
+    }
+
+    /**
+     * 批量释放消息处理权限，已完成的消息不受影响
      *
-     * @param eventId Kafka消息的事件ID
-     * @return true: 标记成功; false: 标记失败
+     * @param topic  Topic
+     * @param events 事件集合
      */
-    public boolean markMessageAsProcessed(String eventId) {
-        if (eventId == null || eventId.trim().isEmpty()) {
-            log.warn("标记Kafka消息处理完成失败: eventId为空");
-            return false;
+    public void releaseAll(String topic, Collection<? extends BaseEvent> events) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, List<String>> bucket : groupByBucket(events, now).entrySet()) {
+            release(topic, bucket.getKey(), bucket.getValue());
         }
+    }
 
-        String key = RedisKeyConstants.getKafkaIdempotencyKey(eventId);
-        Boolean marked = redisUtil.set(key, "completed", KAFKA_IDEMPOTENCY_TTL);
+    private void release(String topic, long bucket, List<String> ids) {
+        if (redisUtil.evalForLong(RELEASE_LUA_SCRIPT, keys(topic, bucket, ids), ids.toArray()) == null) {
+            log.warn("释放Kafka消息处理权限失败，等待租约过期: topic={}, count={}", topic, ids.size());
+        }
+    }
 
-        if (Boolean.TRUE.equals(marked)) {
-            log.debug("标记Kafka消息处理完成: eventId={}", eventId);
-            return true;
-        } else {
-            log.warn("标记Kafka消息处理完成失败: eventId={}", eventId);
-            return false;
+    /**
+     * 按时间桶分组并按事件ID去重，忽略空ID
+     */
+    private Map<Long, List<String>> groupByBucket(Collection<? extends BaseEvent> events, long now) {
+        Map<Long, List<String>> buckets = new LinkedHashMap<>();
+        if (events == null) {
+            return buckets;
+        }
+        Set<String> seen = new HashSet<>();
+        for (BaseEvent event : events) {
+            String eventId = event == null ? null : event.getEventId();
+            if (eventId == null || eventId.isBlank()) {
+                log.warn("Kafka消息幂等性检查忽略空的eventId");
+                continue;
+            }
+            if (seen.add(eventId)) {
+                buckets.computeIfAbsent(bucketOf(eventId, event.getTimestamp(), now), k -> new ArrayList<>()).add(eventId);
+            }
         }
+        return buckets;
     }
 
     /**
-     * 清理消息处理记录
-     *
-     * @param eventId Kafka消息的事件ID
-     * @return true: 清理成功; false: 清理失败
+     * 事件所在的时间桶
+     * <p>
+     * 优先取事件ID中的时间戳，旧格式ID取事件的发生时间，都没有时才按当前时间处理；时间明显超前时按当前时间处理。
      */
-    public boolean cleanupProcessingRecord(String eventId) {
-        if (eventId == null || eventId.trim().isEmpty()) {
-            log.warn("清理Kafka消息处理记录失败: eventId为空");
-            return false;
+    static long bucketOf(String eventId, LocalDateTime eventTime, long now) {
+        Long timestamp = EventIdUtil.timestamp(eventId);
+        if (timestamp == null && eventTime != null) {
+            timestamp = eventTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
         }
+        long time = timestamp != null && timestamp <= now + BUCKET_SIZE.toMillis() ? timestamp : now;
+        return time / BUCKET_SIZE.toMillis();
+    }
+
+    /**
+     * 桶的剩余保留秒数，过旧事件所在的桶至少保留一个桶的时长
+     */
+    private static long bucketTtlSeconds(long bucket, long now) {
+        long expireAt = (bucket + 1) * BUCKET_SIZE.toMillis() + RETENTION.toMillis();
+        return Math.max(expireAt - now, BUCKET_SIZE.toMillis()) / 1000;
+    }
 
-        return releaseProcessingPermission(eventId);
+    private static List<String> keys(String topic, long bucket, List<String> eventIds) {
+        List<String> keys = new ArrayList<>(eventIds.size());
+        for (String eventId : eventIds) {
+            keys.add(RedisKeyConstants.getKafkaIdempotencyKey(topic, bucket, Math.floorMod(eventId.hashCode(), SHARDS)));
+        }
+        return keys;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,15 @@
 package top.harrylei.community.service.notify.service;
 
 import top.harrylei.community.api.event.NotificationEvent;
+import top.harrylei.community.api.model.base.BasePage;
+import top.harrylei.community.api.model.notify.vo.NotifyActorVO;
 import top.harrylei.community.api.model.notify.vo.NotifyMsgVO;
 import top.harrylei.community.api.model.notify.req.NotifyMsgQueryParam;
 import top.harrylei.community.api.model.page.PageVO;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 通知消息服务接口
  *
@@ -19,6 +24,23 @@ public interface NotifyMsgService {
      */
     void saveNotificationFromEvent(NotificationEvent event);
 
+    /**
+     * 批量从事件保存通知消息
+     *
+     * @param events 通知事件列表
+     */
+    void saveNotificationsFromEvents(List<NotificationEvent> events);
+
+    /**
+     * 分页展开聚合通知的操作用户
+     *
+     * @param notifyId 通知ID
+     * @param userId   当前用户ID
+     * @param param    分页参数
+     * @return 操作用户列表，最新在前
+     */
+    PageVO<NotifyActorVO> getNotificationActors(Long notifyId, Long userId, BasePage param);
+
     /**
      * 分页查询我的通知消息
      *
@@ -50,4 +72,12 @@ public interface NotifyMsgService {
      * @return 未读消息数量
      */
     Long getUnreadCount(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 获取用户各通知类型的未读数量
+     *
+     * @param userId 用户ID
+     * @return 通知类型编码 -> 未读数量
+     */
+    Map<Integer, Long> getUnreadCountByType(Long userId);
+}
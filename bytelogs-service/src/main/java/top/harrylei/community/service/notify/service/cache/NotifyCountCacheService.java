@@ -0,0 +1,192 @@
+package top.harrylei.community.service.notify.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.notify.repository.dao.NotifyMsgDAO;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 未读通知计数缓存服务
+ * <p>
+ * 每个用户一个Redis Hash，字段为通知类型编码，值为该类型的未读数量。
+ * 写入时原子增减，缓存未命中时从MySQL分组统计回填，定时任务对近期变更过的用户做漂移校准。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotifyCountCacheService {
+
+    private final RedisUtil redisUtil;
+    private final NotifyMsgDAO notifyMsgDAO;
+
+    /**
+     * 未读计数缓存过期时间：7天
+     */
+    private static final Duration UNREAD_COUNT_CACHE_EXPIRE = Duration.ofDays(7);
+
+    /**
+     * 仅当计数Hash存在时才增减，并把用户记入待校准集合；结果小于0时归零
+     * KEYS[1]: 计数Hash，KEYS[2]: 待校准集合
+     * ARGV[1]: 类型字段，ARGV[2]: 增量，ARGV[3]: 用户ID，ARGV[4]: 过期秒数
+     * 返回 -1 表示缓存不存在
+     */
+    private static final String INCR_IF_EXISTS_LUA_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+            "local v = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if v < 0 then redis.call('hset', KEYS[1], ARGV[1], 0) v = 0 end " +
+            "redis.call('expire', KEYS[1], ARGV[4]) " +
+            "redis.call('sadd', KEYS[2], ARGV[3]) " +
+            "return v";
+
+    /**
+     * 获取用户各类型未读数量
+     *
+     * @param userId 用户ID
+     * @return 通知类型编码 -> 未读数量
+     */
+    public Map<Integer, Long> getUnreadCounts(Long userId) {
+        if (userId == null) {
+            return Map.of();
+        }
+
+        Map<String, Long> cached = redisUtil.hGetAll(RedisKeyConstants.getNotifyUnreadKey(userId), Long.class);
+        if (!cached.isEmpty()) {
+            Map<Integer, Long> result = new HashMap<>(cached.size());
+            cached.forEach((field, count) -> result.put(Integer.valueOf(field), count));
+            return result;
+        }
+
+        // 缓存未命中，从数据库回填
+        log.debug("未读计数缓存未命中，从数据库回填: userId={}", userId);
+        return reconcile(userId);
+    }
+
+    /**
+     * 获取用户未读总数
+     *
+     * @param userId 用户ID
+     * @return 未读总数
+     */
+    public Long getUnreadTotal(Long userId) {
+        return getUnreadCounts(userId).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 未读数量加一
+     *
+     * @param userId 用户ID
+     * @param type   通知类型
+     */
+    public void increment(Long userId, NotifyTypeEnum type) {
+        adjust(userId, type, 1);
+    }
+
+    /**
+     * 未读数量增加指定值，用于批量写入后合并更新
+     *
+     * @param userId 用户ID
+     * @param type   通知类型
+     * @param delta  增量
+     */
+    public void incrementBy(Long userId, NotifyTypeEnum type, long delta) {
+        if (delta <= 0) {
+            return;
+        }
+        adjust(userId, type, delta);
+    }
+
+    /**
+     * 未读数量减一
+     *
+     * @param userId 用户ID
+     * @param type   通知类型
+     */
+    public void decrement(Long userId, NotifyTypeEnum type) {
+        adjust(userId, type, -1);
+    }
+
+    /**
+     * 全部标记已读后将所有类型计数归零
+     *
+     * @param userId 用户ID
+     */
+    public void resetAll(Long userId) {
+        if (userId == null) {
+            return;
+        }
+
+        Map<String, Long> zeroCounts = new HashMap<>();
+        for (NotifyTypeEnum type : NotifyTypeEnum.values()) {
+            zeroCounts.put(type.getCode().toString(), 0L);
+        }
+        writeCounts(userId, zeroCounts);
+    }
+
+    /**
+     * 从数据库重新统计并覆盖缓存
+     *
+     * @param userId 用户ID
+     * @return 通知类型编码 -> 未读数量
+     */
+    public Map<Integer, Long> reconcile(Long userId) {
+        Map<Integer, Long> dbCounts = notifyMsgDAO.countUnreadGroupByType(userId);
+
+        // 所有类型都写入（含0），保证Hash非空，以便区分"无未读"与"缓存缺失"
+        Map<Integer, Long> result = new HashMap<>();
+        Map<String, Long> fieldCounts = new HashMap<>();
+        for (NotifyTypeEnum type : NotifyTypeEnum.values()) {
+            long count = dbCounts.getOrDefault(type.getCode(), 0L);
+            result.put(type.getCode(), count);
+            fieldCounts.put(type.getCode().toString(), count);
+        }
+        writeCounts(userId, fieldCounts);
+        return result;
+    }
+
+    /**
+     * 校准近期发生过计数变更的用户，修正并发写入造成的漂移
+     *
+     * @param batchSize 本次最多校准的用户数
+     * @return 实际校准的用户数
+     */
+    public int reconcileDirtyUsers(int batchSize) {
+        List<String> userIds = redisUtil.sPop(RedisKeyConstants.getNotifyUnreadDirtyKey(), batchSize);
+        int reconciled = 0;
+        for (String userId : userIds) {
+            try {
+                reconcile(Long.valueOf(userId));
+                reconciled++;
+            } catch (Exception e) {
+                log.warn("校准未读计数失败: userId={}", userId, e);
+            }
+        }
+        return reconciled;
+    }
+
+    private void adjust(Long userId, NotifyTypeEnum type, long delta) {
+        if (userId == null || type == null) {
+            return;
+        }
+
+        // 缓存不存在时不做处理，下次读取时会从数据库完整回填
+        redisUtil.evalForLong(INCR_IF_EXISTS_LUA_SCRIPT,
+                List.of(RedisKeyConstants.getNotifyUnreadKey(userId), RedisKeyConstants.getNotifyUnreadDirtyKey()),
+                type.getCode(), delta, userId, UNREAD_COUNT_CACHE_EXPIRE.getSeconds());
+    }
+
+    private void writeCounts(Long userId, Map<String, Long> fieldCounts) {
+        String key = RedisKeyConstants.getNotifyUnreadKey(userId);
+        redisUtil.hSetAll(key, fieldCounts);
+        redisUtil.expire(key, UNREAD_COUNT_CACHE_EXPIRE);
+    }
+}
@@ -3,21 +3,53 @@ package top.harrylei.community.service.notify.service.impl;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.harrylei.community.api.enums.article.ContentTypeEnum;
 import top.harrylei.community.api.enums.notify.NotifyMsgStateEnum;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.api.enums.response.ResultCode;
 import top.harrylei.community.api.event.NotificationEvent;
+import top.harrylei.community.api.model.base.BasePage;
+import top.harrylei.community.api.model.notify.NotifyMsgEvent;
 import top.harrylei.community.api.model.notify.dto.NotifyMsgDTO;
 import top.harrylei.community.api.model.notify.req.NotifyMsgQueryParam;
+import top.harrylei.community.api.model.notify.vo.NotifyActorVO;
 import top.harrylei.community.api.model.notify.vo.NotifyMsgVO;
 import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.api.model.user.dto.UserInfoDTO;
+import top.harrylei.community.api.model.websocket.message.NotificationMessage;
 import top.harrylei.community.core.util.PageUtils;
+import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
 import top.harrylei.community.service.notify.converted.NotifyMsgStructMapper;
+import top.harrylei.community.service.notify.repository.dao.NotifyMsgActorDAO;
 import top.harrylei.community.service.notify.repository.dao.NotifyMsgDAO;
+import top.harrylei.community.service.notify.repository.entity.NotifyMsgActorDO;
 import top.harrylei.community.service.notify.repository.entity.NotifyMsgDO;
 import top.harrylei.community.service.notify.service.NotifyMsgService;
+import top.harrylei.community.service.notify.service.cache.NotifyCountCacheService;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * 通知消息服务实现
  *
@@ -29,29 +61,320 @@ import top.harrylei.community.service.user.service.cache.UserCacheService;
 public class NotifyMsgServiceImpl implements NotifyMsgService {
 
     private final NotifyMsgDAO notifyMsgDAO;
+    private final NotifyMsgActorDAO notifyMsgActorDAO;
     private final UserCacheService userCacheService;
     private final NotifyMsgStructMapper notifyMsgStructMapper;
+    private final NotifyCountCacheService notifyCountCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArticleDetailDAO articleDetailDAO;
+
+    /**
+     * 可聚合的通知类型：窗口内同一对象上的同类通知合并为一条
+     */
+    private static final Set<NotifyTypeEnum> AGGREGATABLE_TYPES =
+            EnumSet.of(NotifyTypeEnum.PRAISE, NotifyTypeEnum.COLLECT, NotifyTypeEnum.COMMENT, NotifyTypeEnum.FOLLOW);
+
+    /**
+     * 聚合滑动窗口：最后更新时间在窗口内的未读聚合通知继续合并
+     */
+    private static final Duration AGGREGATE_WINDOW = Duration.ofHours(24);
+
+    /**
+     * 聚合通知中保留的最近操作用户数
+     */
+    private static final int RECENT_ACTOR_LIMIT = 3;
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void saveNotificationFromEvent(NotificationEvent event) {
-        try {
-            // 1. 业务过滤：检查是否需要保存通知
+        saveNotificationsFromEvents(List.of(event));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void saveNotificationsFromEvents(List<NotificationEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        // 1. 业务过滤，可聚合事件按聚合键分组，其余逐条保存
+        Map<String, List<NotificationEvent>> aggregateGroups = new LinkedHashMap<>();
+        List<NotificationEvent> singleEvents = new ArrayList<>();
+        for (NotificationEvent event : events) {
             if (!shouldSaveNotification(event)) {
                 log.debug("跳过通知事件: eventId={}, 原因=业务过滤", event.getEventId());
+                continue;
+            }
+            if (AGGREGATABLE_TYPES.contains(event.getNotifyType())) {
+                aggregateGroups.computeIfAbsent(buildAggregateKey(event), k -> new ArrayList<>()).add(event);
+            } else {
+                singleEvents.add(event);
+            }
+        }
+        if (aggregateGroups.isEmpty() && singleEvents.isEmpty()) {
+            return;
+        }
+
+        // 2. 批量获取操作用户信息
+        Map<Long, UserInfoDTO> operateUsers = loadUserMap(events.stream()
+                .map(NotificationEvent::getOperateUserId).toList());
+
+        // 3. 可聚合事件优先合并进窗口内的已有聚合通知
+        List<NotifyMsgDO> created = new ArrayList<>();
+        List<NotifyMsgDO> merged = new ArrayList<>();
+        Map<NotifyMsgDO, List<Long>> createdActors = new IdentityHashMap<>();
+        Map<String, NotifyMsgDO> openAggregates = loadOpenAggregates(aggregateGroups);
+        aggregateGroups.forEach((key, group) -> {
+            List<Long> actorIds = group.stream().map(NotificationEvent::getOperateUserId).distinct().toList();
+            NotifyMsgDO existing = openAggregates.get(key);
+            if (existing != null && mergeIntoAggregate(existing, group, actorIds, operateUsers)) {
+                merged.add(existing);
                 return;
             }
+            NotifyMsgDO aggregate = buildAggregateMessage(group, actorIds, operateUsers);
+            created.add(aggregate);
+            createdActors.put(aggregate, actorIds);
+        });
+        singleEvents.forEach(event ->
+                created.add(buildNotifyMessage(event, operateUsers.get(event.getOperateUserId()))));
 
-            // 2. 构建通知消息
-            NotifyMsgDO notifyMsg = buildNotifyMessage(event);
+        // 4. 多值INSERT批量落库，新建聚合的操作用户一并批量写入
+        notifyMsgDAO.insertBatch(created);
+        List<NotifyMsgActorDO> actors = new ArrayList<>();
+        createdActors.forEach((aggregate, actorIds) -> actorIds.forEach(actorId ->
+                actors.add(new NotifyMsgActorDO().setNotifyId(aggregate.getId()).setOperateUserId(actorId))));
+        notifyMsgActorDAO.insertIgnoreBatch(actors);
 
-            // 3. 保存到数据库
-            notifyMsgDAO.save(notifyMsg);
+        // 5. 未读计数和推送在提交后执行，回滚时不会留下错误的计数
+        afterCommit(() -> {
+            // 只有新建的通知计入未读，按用户和类型合并更新
+            Map<Long, Map<NotifyTypeEnum, Long>> countDeltas = new HashMap<>();
+            for (NotifyMsgDO notifyMsg : created) {
+                countDeltas.computeIfAbsent(notifyMsg.getNotifyUserId(), k -> new EnumMap<>(NotifyTypeEnum.class))
+                        .merge(notifyMsg.getType(), 1L, Long::sum);
+            }
+            countDeltas.forEach((userId, deltas) ->
+                    deltas.forEach((type, delta) -> notifyCountCacheService.incrementBy(userId, type, delta)));
 
+            // 每个接收者只推送一次，携带最新一条通知和合并后的未读计数
+            Map<Long, NotifyMsgDO> latestByUser = new LinkedHashMap<>();
+            merged.forEach(notifyMsg -> latestByUser.put(notifyMsg.getNotifyUserId(), notifyMsg));
+            created.forEach(notifyMsg -> latestByUser.put(notifyMsg.getNotifyUserId(), notifyMsg));
+            latestByUser.values().forEach(this::publishNotifyPush);
+        });
 
-        } catch (Exception e) {
-            log.error("处理通知事件失败: eventId={}", event.getEventId(), e);
-            throw e;
+        log.debug("批量保存通知完成: 事件数={}, 新建数={}, 合并数={}", events.size(), created.size(), merged.size());
+    }
+
+    /**
+     * 在当前事务提交后执行，没有事务时立即执行
+     *
+     * @param action 提交后的操作
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public PageVO<NotifyActorVO> getNotificationActors(Long notifyId, Long userId, BasePage param) {
+        NotifyMsgDO notifyMsg = notifyMsgDAO.getByIdAndUserId(notifyId, userId);
+        if (notifyMsg == null) {
+            ResultCode.RESOURCE_NOT_FOUND.throwException();
+        }
+
+        Page<NotifyMsgActorDO> page = notifyMsgActorDAO.pageByNotifyId(notifyId, param.getPageNum(), param.getPageSize());
+        if (page.getTotal() == 0) {
+            // 非聚合通知没有操作用户明细，直接返回触发用户
+            page.setRecords(List.of(new NotifyMsgActorDO().setNotifyId(notifyId)
+                    .setOperateUserId(notifyMsg.getOperateUserId())));
+            page.setTotal(1);
+        }
+
+        return PageUtils.fromList(page, actors -> {
+            Map<Long, UserInfoDTO> users = loadUserMap(actors.stream()
+                    .map(NotifyMsgActorDO::getOperateUserId).toList());
+            return actors.stream()
+                    .map(actor -> toActorVO(actor.getOperateUserId(), users.get(actor.getOperateUserId())))
+                    .toList();
+        });
+    }
+
+    /**
+     * 构建聚合键：接收者 + 关联对象 + 通知类型 + 内容类型
+     *
+     * @param notifyUserId 接收用户ID
+     * @param relatedId    关联ID
+     * @param type         通知类型
+     * @param contentType  内容类型
+     * @return 聚合键
+     */
+    private String buildAggregateKey(Long notifyUserId, Long relatedId, NotifyTypeEnum type, ContentTypeEnum contentType) {
+        return notifyUserId + ":" + relatedId + ":" + type.getCode() + ":"
+                + (contentType != null ? contentType.getCode() : null);
+    }
+
+    private String buildAggregateKey(NotificationEvent event) {
+        return buildAggregateKey(event.getTargetUserId(), event.getRelatedId(), event.getNotifyType(),
+                event.getContentType());
+    }
+
+    /**
+     * 一次查询加载本批次涉及的窗口内未读聚合通知
+     *
+     * @param aggregateGroups 聚合键 -> 事件分组
+     * @return 聚合键 -> 最新的聚合通知
+     */
+    private Map<String, NotifyMsgDO> loadOpenAggregates(Map<String, List<NotificationEvent>> aggregateGroups) {
+        if (aggregateGroups.isEmpty()) {
+            return Map.of();
+        }
+
+        List<NotificationEvent> firstEvents = aggregateGroups.values().stream().map(group -> group.get(0)).toList();
+        Set<Long> userIds = firstEvents.stream().map(NotificationEvent::getTargetUserId).collect(Collectors.toSet());
+        Set<Long> relatedIds = firstEvents.stream().map(NotificationEvent::getRelatedId).collect(Collectors.toSet());
+        Set<NotifyTypeEnum> types = firstEvents.stream().map(NotificationEvent::getNotifyType).collect(Collectors.toSet());
+
+        List<NotifyMsgDO> candidates = notifyMsgDAO.listOpenAggregates(userIds, relatedIds, types,
+                LocalDateTime.now().minus(AGGREGATE_WINDOW));
+
+        // 候选按ID倒序，同一聚合键保留最新一条
+        Map<String, NotifyMsgDO> result = new HashMap<>();
+        for (NotifyMsgDO candidate : candidates) {
+            String key = buildAggregateKey(candidate.getNotifyUserId(), candidate.getRelatedId(),
+                    candidate.getType(), candidate.getContentType());
+            if (aggregateGroups.containsKey(key)) {
+                result.putIfAbsent(key, candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将一组事件合并进已有聚合通知
+     *
+     * @param aggregate    已有聚合通知
+     * @param group        同一聚合键下的事件
+     * @param actorIds     本批次的操作用户ID（去重，按发生顺序）
+     * @param operateUsers 操作用户信息
+     * @return 是否合并成功，聚合通知已被读取等情况返回false
+     */
+    private boolean mergeIntoAggregate(NotifyMsgDO aggregate, List<NotificationEvent> group, List<Long> actorIds,
+                                       Map<Long, UserInfoDTO> operateUsers) {
+        // 先锁定仍未读的聚合通知，已读的不再写入操作用户，避免留下孤立的操作用户记录
+        NotifyMsgDO locked = notifyMsgDAO.lockOpenAggregate(aggregate.getId());
+        if (locked == null) {
+            return false;
+        }
+        aggregate.setActorCount(locked.getActorCount() != null ? locked.getActorCount() : 1)
+                .setRecentActorIds(locked.getRecentActorIds());
+        // 只有一个操作用户的通知可能是聚合上线前写入的，没有操作用户明细：先补写原操作用户，
+        // 同一用户再次操作时会被忽略，不会重复计数；已有明细时这次写入同样被忽略
+        if (aggregate.getActorCount() <= 1 && locked.getOperateUserId() != null) {
+            notifyMsgActorDAO.insertIgnoreBatch(aggregate.getId(), List.of(locked.getOperateUserId()));
+            if (parseActorIds(aggregate.getRecentActorIds()).isEmpty()) {
+                aggregate.setRecentActorIds(String.valueOf(locked.getOperateUserId()));
+            }
+        }
+        int added = notifyMsgActorDAO.insertIgnoreBatch(aggregate.getId(), actorIds);
+
+        NotificationEvent latest = group.get(group.size() - 1);
+        int actorCount = aggregate.getActorCount() + added;
+        aggregate.setOperateUserId(latest.getOperateUserId())
+                .setActorCount(actorCount)
+                .setRecentActorIds(mergeRecentActorIds(actorIds, aggregate.getRecentActorIds()))
+                .setMsg(buildMessageContent(latest,
+                        buildActorDisplayName(operateUsers.get(latest.getOperateUserId()), actorCount)));
+
+        return notifyMsgDAO.updateAggregate(aggregate, added);
+    }
+
+    /**
+     * 为一组事件新建聚合通知
+     *
+     * @param group        同一聚合键下的事件
+     * @param actorIds     操作用户ID（去重，按发生顺序）
+     * @param operateUsers 操作用户信息
+     * @return 聚合通知DO
+     */
+    private NotifyMsgDO buildAggregateMessage(List<NotificationEvent> group, List<Long> actorIds,
+                                              Map<Long, UserInfoDTO> operateUsers) {
+        NotificationEvent latest = group.get(group.size() - 1);
+        String displayName = buildActorDisplayName(operateUsers.get(latest.getOperateUserId()), actorIds.size());
+
+        return new NotifyMsgDO()
+                .setRelatedId(latest.getRelatedId())
+                .setNotifyUserId(latest.getTargetUserId())
+                .setOperateUserId(latest.getOperateUserId())
+                .setMsg(buildMessageContent(latest, displayName))
+                .setType(latest.getNotifyType())
+                .setContentType(latest.getContentType())
+                .setState(NotifyMsgStateEnum.UNREAD)
+                .setActorCount(actorIds.size())
+                .setRecentActorIds(mergeRecentActorIds(actorIds, null));
+    }
+
+    /**
+     * 合并最近操作用户ID，最新在前，最多保留 {@link #RECENT_ACTOR_LIMIT} 个
+     *
+     * @param newActorIds 新增的操作用户ID（按发生顺序）
+     * @param recentIds   已有的最近操作用户ID字符串
+     * @return 合并后的ID字符串
+     */
+    private String mergeRecentActorIds(List<Long> newActorIds, String recentIds) {
+        LinkedHashSet<Long> merged = new LinkedHashSet<>();
+        for (int i = newActorIds.size() - 1; i >= 0; i--) {
+            merged.add(newActorIds.get(i));
+        }
+        merged.addAll(parseActorIds(recentIds));
+        return merged.stream().limit(RECENT_ACTOR_LIMIT).map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private List<Long> parseActorIds(String actorIds) {
+        if (actorIds == null || actorIds.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(actorIds.split(",")).filter(id -> !id.isBlank()).map(Long::valueOf).toList();
+    }
+
+    /**
+     * 构建操作用户展示名，聚合时为"张三 等 24 人"
+     *
+     * @param latestUser 最新的操作用户
+     * @param actorCount 操作用户总数
+     * @return 展示名
+     */
+    private String buildActorDisplayName(UserInfoDTO latestUser, int actorCount) {
+        String userName = latestUser != null ? latestUser.getUserName() : "";
+        return actorCount > 1 ? String.format("%s 等 %d 人", userName, actorCount) : userName;
+    }
+
+    private NotifyActorVO toActorVO(Long userId, UserInfoDTO user) {
+        NotifyActorVO actor = new NotifyActorVO().setUserId(userId);
+        if (user != null) {
+            actor.setUserName(user.getUserName()).setAvatar(user.getAvatar());
         }
+        return actor;
+    }
+
+    /**
+     * 批量获取用户信息
+     *
+     * @param userIds 用户ID列表（可重复、可含null）
+     * @return 用户ID -> 用户信息
+     */
+    private Map<Long, UserInfoDTO> loadUserMap(List<Long> userIds) {
+        List<Long> distinctIds = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        return userCacheService.listUserInfosByIds(distinctIds).stream()
+                .collect(Collectors.toMap(UserInfoDTO::getUserId, Function.identity(), (a, b) -> a));
     }
 
     /**
@@ -80,13 +403,12 @@ public class NotifyMsgServiceImpl implements NotifyMsgService {
     /**
      * 构建通知消息
      *
-     * @param event 通知事件
+     * @param event       通知事件
+     * @param operateUser 操作用户信息
      * @return 通知消息DO
      */
-    private NotifyMsgDO buildNotifyMessage(NotificationEvent event) {
-        // 获取操作用户信息
-        UserInfoDTO operateUser = userCacheService.getUserInfo(event.getOperateUserId());
-        String operateUserName = operateUser.getUserName();
+    private NotifyMsgDO buildNotifyMessage(NotificationEvent event, UserInfoDTO operateUser) {
+        String operateUserName = operateUser != null ? operateUser.getUserName() : "";
 
         // 构建通知消息内容
         String message = buildMessageContent(event, operateUserName);
@@ -98,7 +420,9 @@ public class NotifyMsgServiceImpl implements NotifyMsgService {
                 .setMsg(message)
                 .setType(event.getNotifyType())
                 .setContentType(event.getContentType())
-                .setState(NotifyMsgStateEnum.UNREAD);
+                .setState(NotifyMsgStateEnum.UNREAD)
+                .setActorCount(1)
+                .setRecentActorIds(String.valueOf(event.getOperateUserId()));
     }
 
     /**
@@ -127,13 +451,20 @@ public class NotifyMsgServiceImpl implements NotifyMsgService {
     public PageVO<NotifyMsgVO> getMyNotifications(Long userId, NotifyMsgQueryParam param) {
         // TODO: 根据查询参数构建查询条件（状态、类型过滤）
         Page<NotifyMsgDO> page = notifyMsgDAO.pageByUserId(userId, param.getPageNum(), param.getPageSize());
-        return PageUtils.from(page, this::fillNotifyMsgVO);
+        return PageUtils.fromList(page, this::fillNotifyMsgVOs);
     }
 
     @Override
     public void markAsRead(Long msgId, Long userId) {
+        NotifyMsgDO notifyMsg = notifyMsgDAO.getByIdAndUserId(msgId, userId);
+        if (notifyMsg == null || notifyMsg.getState() != NotifyMsgStateEnum.UNREAD) {
+            log.debug("消息不存在或已读，跳过: msgId={}, userId={}", msgId, userId);
+            return;
+        }
+
         boolean success = notifyMsgDAO.markAsRead(msgId, userId);
         if (success) {
+            notifyCountCacheService.decrement(userId, notifyMsg.getType());
             log.info("标记消息为已读: msgId={}, userId={}", msgId, userId);
         } else {
             log.warn("标记消息为已读失败: msgId={}, userId={}", msgId, userId);
@@ -144,6 +475,7 @@ public class NotifyMsgServiceImpl implements NotifyMsgService {
     public void markAllAsRead(Long userId) {
         boolean success = notifyMsgDAO.markAllAsRead(userId);
         if (success) {
+            notifyCountCacheService.resetAll(userId);
             log.info("标记全部消息为已读: userId={}", userId);
         } else {
             log.warn("标记全部消息为已读失败: userId={}", userId);
@@ -152,28 +484,85 @@ public class NotifyMsgServiceImpl implements NotifyMsgService {
 
     @Override
     public Long getUnreadCount(Long userId) {
-        return notifyMsgDAO.countUnreadByUserId(userId);
+        return notifyCountCacheService.getUnreadTotal(userId);
+    }
+
+    @Override
+    public Map<Integer, Long> getUnreadCountByType(Long userId) {
+        return notifyCountCacheService.getUnreadCounts(userId);
     }
 
     /**
-     * 填充通知消息VO信息
+     * 发布通知推送事件，携带最新未读计数，由Web层通过WebSocket推送给在线用户
      *
-     * @param notifyMsg 通知消息DO
-     * @return 通知消息VO
+     * @param notifyMsg 已保存的通知消息
      */
-    private NotifyMsgVO fillNotifyMsgVO(NotifyMsgDO notifyMsg) {
-        NotifyMsgDTO dto = notifyMsgStructMapper.toDTO(notifyMsg);
+    private void publishNotifyPush(NotifyMsgDO notifyMsg) {
+        try {
+            Map<Integer, Long> unreadCounts = notifyCountCacheService.getUnreadCounts(notifyMsg.getNotifyUserId());
+            long unreadTotal = unreadCounts.values().stream().mapToLong(Long::longValue).sum();
 
-        // 填充操作用户信息
-        if (notifyMsg.getOperateUserId() != null) {
-            UserInfoDTO operateUser = userCacheService.getUserInfo(notifyMsg.getOperateUserId());
+            NotificationMessage message = NotificationMessage.builder()
+                    .notificationId(notifyMsg.getId())
+                    .type(notifyMsg.getType())
+                    .title(notifyMsg.getType().getLabel())
+                    .content(notifyMsg.getMsg())
+                    .entityId(notifyMsg.getRelatedId())
+                    .entityType(notifyMsg.getContentType() != null ? notifyMsg.getContentType().name() : null)
+                    .unreadCount(unreadTotal)
+                    .unreadCountByType(unreadCounts)
+                    .build();
+
+            eventPublisher.publishEvent(new NotifyMsgEvent<>(this, notifyMsg.getType(), message,
+                    notifyMsg.getNotifyUserId()));
+        } catch (Exception e) {
+            // 推送失败不影响通知落库
+            log.warn("发布通知推送事件失败: notifyId={}", notifyMsg.getId(), e);
+        }
+    }
+
+    /**
+     * 批量填充通知消息VO信息，操作用户和关联文章标题各一次批量查询
+     *
+     * @param notifyMsgs 通知消息DO列表
+     * @return 通知消息VO列表
+     */
+    private List<NotifyMsgVO> fillNotifyMsgVOs(List<NotifyMsgDO> notifyMsgs) {
+        // 操作用户与聚合通知的最近操作用户一次批量获取
+        List<Long> userIds = new ArrayList<>();
+        notifyMsgs.forEach(msg -> {
+            userIds.add(msg.getOperateUserId());
+            userIds.addAll(parseActorIds(msg.getRecentActorIds()));
+        });
+        Map<Long, UserInfoDTO> operateUsers = loadUserMap(userIds);
+
+        List<Long> articleIds = notifyMsgs.stream()
+                .filter(msg -> msg.getContentType() == ContentTypeEnum.ARTICLE && msg.getRelatedId() != null)
+                .map(NotifyMsgDO::getRelatedId)
+                .distinct()
+                .toList();
+        Map<Long, String> articleTitles = articleDetailDAO.batchGetPublishedTitles(articleIds);
+
+        return notifyMsgs.stream().map(notifyMsg -> {
+            NotifyMsgDTO dto = notifyMsgStructMapper.toDTO(notifyMsg);
+
+            // 填充操作用户信息
+            UserInfoDTO operateUser = operateUsers.get(notifyMsg.getOperateUserId());
             if (operateUser != null) {
                 dto.setOperateUserName(operateUser.getUserName());
                 dto.setOperateUserAvatar(operateUser.getAvatar());
             }
-        }
 
-        // 转换为VO
-        return notifyMsgStructMapper.toVO(dto);
+            // 填充关联文章标题
+            if (notifyMsg.getContentType() == ContentTypeEnum.ARTICLE) {
+                dto.setRelatedInfo(articleTitles.get(notifyMsg.getRelatedId()));
+            }
+
+            NotifyMsgVO vo = notifyMsgStructMapper.toVO(dto);
+            vo.setRecentActors(parseActorIds(notifyMsg.getRecentActorIds()).stream()
+                    .map(actorId -> toActorVO(actorId, operateUsers.get(actorId)))
+                    .toList());
+            return vo;
+        }).toList();
     }
-}
\ No newline at end of file
+}
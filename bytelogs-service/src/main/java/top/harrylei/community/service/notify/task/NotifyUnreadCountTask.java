@@ -0,0 +1,40 @@
+package top.harrylei.community.service.notify.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.service.notify.service.cache.NotifyCountCacheService;
+
+/**
+ * 未读通知计数校准定时任务
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotifyUnreadCountTask {
+
+    private final NotifyCountCacheService notifyCountCacheService;
+
+    /**
+     * 每轮最多校准的用户数
+     */
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    /**
+     * 每10分钟校准一次近期有计数变更的用户
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000L, initialDelay = 60 * 1000L)
+    public void reconcileUnreadCounts() {
+        try {
+            int reconciled = notifyCountCacheService.reconcileDirtyUsers(RECONCILE_BATCH_SIZE);
+            if (reconciled > 0) {
+                log.info("未读通知计数校准完成: count={}", reconciled);
+            }
+        } catch (Exception e) {
+            log.error("未读通知计数校准失败", e);
+        }
+    }
+}
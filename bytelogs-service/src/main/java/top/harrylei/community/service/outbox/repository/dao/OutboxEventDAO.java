@@ -0,0 +1,118 @@
+package top.harrylei.community.service.outbox.repository.dao;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import top.harrylei.community.service.outbox.repository.entity.OutboxEventDO;
+import top.harrylei.community.service.outbox.repository.mapper.OutboxEventMapper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 发件箱事件访问对象
+ *
+ * @author harry
+ */
+@Repository
+public class OutboxEventDAO extends ServiceImpl<OutboxEventMapper, OutboxEventDO> {
+
+    /**
+     * 单批次最大插入行数，避免单条SQL过大
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 批量写入事件，每批使用一条多值INSERT语句
+     *
+     * @param outboxEvents 事件列表
+     */
+    public void insertBatch(List<OutboxEventDO> outboxEvents) {
+        if (outboxEvents == null || outboxEvents.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < outboxEvents.size(); from += INSERT_BATCH_SIZE) {
+            int to = Math.min(from + INSERT_BATCH_SIZE, outboxEvents.size());
+            getBaseMapper().insertBatch(outboxEvents.subList(from, to));
+        }
+    }
+
+    /**
+     * 认领一批待发送的事件：锁定后标记为发送中并立即提交，发送期间不持有行锁
+     * <p>
+     * 实例在发送途中宕机时，发送中的事件在租约过期后会被重新认领
+     *
+     * @param limit 最大条数
+     * @param lease 认领租约
+     * @return 按ID升序的已认领事件
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<OutboxEventDO> claimPending(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEventDO> events = getBaseMapper().lockPending(limit, now, now.minus(lease));
+        if (!events.isEmpty()) {
+            getBaseMapper().markSending(events.stream().map(OutboxEventDO::getId).toList());
+        }
+        return events;
+    }
+
+    /**
+     * 在一个事务中记录一批事件的投递结果
+     *
+     * @param sentIds     已发送的事件ID
+     * @param failedIds   发送失败的事件ID，按下次投递时间分组，累加失败次数，达到上限的不再重试
+     * @param releasedIds 未发送的事件ID，按下次投递时间分组，放回待发送且不计失败次数
+     * @param maxRetries  最大失败次数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void complete(List<Long> sentIds, Map<LocalDateTime, List<Long>> failedIds,
+                         Map<LocalDateTime, List<Long>> releasedIds, int maxRetries) {
+        if (!sentIds.isEmpty()) {
+            getBaseMapper().markSent(sentIds);
+        }
+        failedIds.forEach((nextAttemptTime, ids) -> getBaseMapper().markRetry(ids, maxRetries, nextAttemptTime));
+        releasedIds.forEach((nextAttemptTime, ids) -> getBaseMapper().release(ids, nextAttemptTime));
+    }
+
+    /**
+     * 查询所有分区名
+     *
+     * @return 分区名列表
+     */
+    public List<String> listPartitions() {
+        return getBaseMapper().listPartitions();
+    }
+
+    /**
+     * 统计分区内尚未投递的事件数，包括发送中的事件
+     *
+     * @param partition 分区名
+     * @return 待发送事件数
+     */
+    public long countPendingInPartition(String partition) {
+        return getBaseMapper().countPendingInPartition(partition);
+    }
+
+    /**
+     * 新增按天的分区
+     *
+     * @param partition 分区名
+     * @param lessThan  分区上界日期（不含）
+     */
+    public void addDailyPartition(String partition, LocalDate lessThan) {
+        getBaseMapper().addDailyPartition(partition, lessThan);
+    }
+
+    /**
+     * 删除分区
+     *
+     * @param partition 分区名
+     */
+    public void dropPartition(String partition) {
+        getBaseMapper().dropPartition(partition);
+    }
+}
@@ -0,0 +1,55 @@
+package top.harrylei.community.service.outbox.repository.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import top.harrylei.community.api.enums.common.OutboxStatusEnum;
+import top.harrylei.community.api.model.base.BaseDO;
+
+import java.io.Serial;
+
+/**
+ * 发件箱事件实体对象
+ *
+ * @author harry
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("outbox")
+@Accessors(chain = true)
+public class OutboxEventDO extends BaseDO {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 目标Topic
+     */
+    private String topic;
+
+    /**
+     * 消息Key（分区键），如接收用户ID、文章ID
+     */
+    private String eventKey;
+
+    /**
+     * 事件类名，投递时据此反序列化
+     */
+    private String eventType;
+
+    /**
+     * 事件JSON
+     */
+    private String payload;
+
+    /**
+     * 状态：0-待发送，1-已发送，2-发送失败
+     */
+    private OutboxStatusEnum status;
+
+    /**
+     * 投递失败次数
+     */
+    private Integer retryCount;
+}
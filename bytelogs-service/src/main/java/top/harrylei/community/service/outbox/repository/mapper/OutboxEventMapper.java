@@ -0,0 +1,103 @@
+package top.harrylei.community.service.outbox.repository.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import top.harrylei.community.service.outbox.repository.entity.OutboxEventDO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 发件箱事件Mapper接口
+ *
+ * @author harry
+ */
+public interface OutboxEventMapper extends BaseMapper<OutboxEventDO> {
+
+    /**
+     * 批量插入事件
+     *
+     * @param list 事件列表
+     * @return 插入行数
+     */
+    int insertBatch(@Param("list") List<OutboxEventDO> list);
+
+    /**
+     * 按ID顺序锁定一批已到重试时间的待发送事件，包括租约已过期的发送中事件，已被其他实例锁定的行直接跳过
+     *
+     * @param limit              最大条数
+     * @param now                当前时间，下次投递时间不晚于该时间的待发送事件可被认领
+     * @param leaseExpiredBefore 发送中事件的最后更新时间早于该时间视为租约过期
+     * @return 待发送事件
+     */
+    List<OutboxEventDO> lockPending(@Param("limit") int limit,
+                                    @Param("now") LocalDateTime now,
+                                    @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore);
+
+    /**
+     * 批量标记为发送中
+     *
+     * @param ids 事件ID列表
+     * @return 更新行数
+     */
+    int markSending(@Param("ids") List<Long> ids);
+
+    /**
+     * 批量标记为已发送
+     *
+     * @param ids 事件ID列表
+     * @return 更新行数
+     */
+    int markSent(@Param("ids") List<Long> ids);
+
+    /**
+     * 批量累加失败次数，达到上限的标记为发送失败，其余到下次投递时间后再认领
+     *
+     * @param ids             事件ID列表
+     * @param maxRetries      最大失败次数
+     * @param nextAttemptTime 下次投递时间
+     * @return 更新行数
+     */
+    int markRetry(@Param("ids") List<Long> ids, @Param("maxRetries") int maxRetries,
+                  @Param("nextAttemptTime") LocalDateTime nextAttemptTime);
+
+    /**
+     * 批量放回待发送，不计失败次数
+     *
+     * @param ids             事件ID列表
+     * @param nextAttemptTime 下次投递时间
+     * @return 更新行数
+     */
+    int release(@Param("ids") List<Long> ids, @Param("nextAttemptTime") LocalDateTime nextAttemptTime);
+
+    /**
+     * 查询发件箱表的分区名，按分区上界升序
+     *
+     * @return 分区名列表
+     */
+    List<String> listPartitions();
+
+    /**
+     * 统计分区内尚未投递的事件数
+     *
+     * @param partition 分区名
+     * @return 待发送事件数
+     */
+    long countPendingInPartition(@Param("partition") String partition);
+
+    /**
+     * 从兜底分区中拆分出按天的分区
+     *
+     * @param partition 新分区名
+     * @param lessThan  新分区的上界日期（不含）
+     */
+    void addDailyPartition(@Param("partition") String partition, @Param("lessThan") LocalDate lessThan);
+
+    /**
+     * 删除分区，整块回收已投递的事件
+     *
+     * @param partition 分区名
+     */
+    void dropPartition(@Param("partition") String partition);
+}
@@ -0,0 +1,24 @@
+package top.harrylei.community.service.outbox.service;
+
+import top.harrylei.community.core.outbox.EventOutbox;
+
+/**
+ * 发件箱事件服务接口
+ *
+ * @author harry
+ */
+public interface OutboxEventService extends EventOutbox {
+
+    /**
+     * 投递一批待发送的事件：按ID顺序认领，不同Key并发、同一Key按序发送，成功的标记为已发送，失败的留待下轮重试
+     *
+     * @param batchSize 每批最大条数
+     * @return 本批认领的事件数，小于 batchSize 说明已无积压
+     */
+    int relayBatch(int batchSize);
+
+    /**
+     * 维护按天的分区：预建未来几天的分区，整块删除超过保留期且已全部投递的分区
+     */
+    void maintainPartitions();
+}
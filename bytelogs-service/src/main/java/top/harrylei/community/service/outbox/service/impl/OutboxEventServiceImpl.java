@@ -0,0 +1,287 @@
+package top.harrylei.community.service.outbox.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.api.enums.common.OutboxStatusEnum;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.api.event.BaseEvent;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.KafkaProducerRouter;
+import top.harrylei.community.service.outbox.repository.dao.OutboxEventDAO;
+import top.harrylei.community.service.outbox.repository.entity.OutboxEventDO;
+import top.harrylei.community.service.outbox.service.OutboxEventService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 发件箱事件服务实现
+ * <p>
+ * 事件与业务数据同事务写入 outbox 表；中继用 FOR UPDATE SKIP LOCKED 按ID顺序认领一批并标记为发送中，
+ * 多个实例可以并发投递而互不等待，发送在事务之外进行。投递为至少一次语义，消费端按 eventId 幂等。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxEventServiceImpl implements OutboxEventService {
+
+    /**
+     * 最大投递失败次数，超过后标记为发送失败，不再占用批次
+     */
+    static final int MAX_RETRIES = 10;
+
+    /**
+     * 首次投递失败后的退避时间，之后每次失败翻倍，避免Broker或Topic异常时每轮都重发同一批事件
+     */
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * 退避时间上限
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    /**
+     * 等待一批消息发送结果的超时时间
+     */
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 认领租约，需明显长于发送超时，实例宕机后发送中的事件在租约过期后被重新认领
+     */
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(1);
+
+    /**
+     * 预建未来分区的天数
+     */
+    private static final int PARTITION_DAYS_AHEAD = 3;
+
+    /**
+     * 已投递事件的保留天数
+     */
+    private static final int RETENTION_DAYS = 3;
+
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final OutboxEventDAO outboxEventDAO;
+    private final KafkaProducerRouter kafkaProducerRouter;
+
+    private final Map<String, Class<? extends BaseEvent>> eventClasses = new ConcurrentHashMap<>();
+
+    @Override
+    public void append(String topic, String key, BaseEvent event) {
+        outboxEventDAO.save(toOutboxEvent(topic, key, event));
+    }
+
+    @Override
+    public <E extends BaseEvent> void appendAll(String topic, List<E> events, Function<E, String> keyMapper) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        List<OutboxEventDO> outboxEvents = new ArrayList<>(events.size());
+        for (E event : events) {
+            outboxEvents.add(toOutboxEvent(topic, keyMapper.apply(event), event));
+        }
+        outboxEventDAO.insertBatch(outboxEvents);
+    }
+
+    private OutboxEventDO toOutboxEvent(String topic, String key, BaseEvent event) {
+        String payload = JsonUtil.toJson(event);
+        if (payload == null) {
+            ResultCode.INTERNAL_ERROR.throwException();
+        }
+
+        return new OutboxEventDO()
+                .setTopic(topic)
+                .setEventKey(key)
+                .setEventType(event.getClass().getName())
+                .setPayload(payload)
+                .setStatus(OutboxStatusEnum.PENDING)
+                .setRetryCount(0);
+    }
+
+    @Override
+    public int relayBatch(int batchSize) {
+        // 1. 短事务认领一批事件，提交后再发送，等待Kafka期间不持有行锁
+        List<OutboxEventDO> events = outboxEventDAO.claimPending(batchSize, CLAIM_LEASE);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // 2. 不同Key并发发送，由生产者按 linger.ms 和 batch.size 合并成批；同一Key按ID顺序逐条发送，
+        // 前一条失败后不再发送后续事件，保证同一Key的事件不乱序
+        Set<Long> sentIds = ConcurrentHashMap.newKeySet();
+        Set<Long> failedIds = ConcurrentHashMap.newKeySet();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Map<String, List<OutboxEventDO>> eventsByKey = new LinkedHashMap<>();
+        for (OutboxEventDO event : events) {
+            eventsByKey.computeIfAbsent(event.getTopic() + ":" + event.getEventKey(), k -> new ArrayList<>()).add(event);
+        }
+        List<CompletableFuture<Void>> chains = new ArrayList<>(eventsByKey.size());
+        eventsByKey.values().forEach(keyEvents -> chains.add(sendInOrder(keyEvents, 0, sentIds, failedIds, stopped)));
+
+        // 3. 统一等待本批结果，超时后不再发起新的发送
+        try {
+            CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new))
+                    .get(SEND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("发件箱事件批量投递未全部完成: size={}, error={}", events.size(), e.getMessage());
+        }
+        stopped.set(true);
+
+        // 4. 短事务记录结果：失败的累加失败次数并按失败次数退避，同一Key排在其后的与失败事件同时放回，
+        // 保证重试时仍按ID顺序发送；未确认的放回待发送，立即可被认领
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sent = new ArrayList<>(events.size());
+        Map<LocalDateTime, List<Long>> failed = new HashMap<>();
+        Map<LocalDateTime, List<Long>> released = new HashMap<>();
+        for (List<OutboxEventDO> keyEvents : eventsByKey.values()) {
+            LocalDateTime nextAttemptTime = now;
+            for (OutboxEventDO event : keyEvents) {
+                if (sentIds.contains(event.getId())) {
+                    sent.add(event.getId());
+                } else if (failedIds.contains(event.getId())) {
+                    nextAttemptTime = now.plus(backoff(event.getRetryCount()));
+                    failed.computeIfAbsent(nextAttemptTime, k -> new ArrayList<>()).add(event.getId());
+                } else {
+                    released.computeIfAbsent(nextAttemptTime, k -> new ArrayList<>()).add(event.getId());
+                }
+            }
+        }
+        outboxEventDAO.complete(sent, failed, released, MAX_RETRIES);
+        if (!failed.isEmpty() || !released.isEmpty()) {
+            log.warn("发件箱事件投递失败，等待重试: failed={}, released={}", count(failed), count(released));
+        }
+        return events.size();
+    }
+
+    /**
+     * 第 retryCount + 1 次失败后的退避时间，从 BASE_BACKOFF 开始每次翻倍，不超过 MAX_BACKOFF
+     */
+    private static Duration backoff(int retryCount) {
+        Duration backoff = BASE_BACKOFF.multipliedBy(1L << Math.min(retryCount, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+    private static int count(Map<LocalDateTime, List<Long>> ids) {
+        return ids.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * 按顺序发送同一Key的事件，上一条确认成功后才发送下一条
+     */
+    private CompletableFuture<Void> sendInOrder(List<OutboxEventDO> keyEvents, int index, Set<Long> sentIds,
+                                                Set<Long> failedIds, AtomicBoolean stopped) {
+        if (index >= keyEvents.size() || stopped.get()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        OutboxEventDO event = keyEvents.get(index);
+        return send(event).handle((result, e) -> {
+            if (e != null) {
+                failedIds.add(event.getId());
+                return false;
+            }
+            sentIds.add(event.getId());
+            return true;
+        }).thenCompose(success -> success
+                ? sendInOrder(keyEvents, index + 1, sentIds, failedIds, stopped)
+                : CompletableFuture.completedFuture(null));
+    }
+
+    @Override
+    public void maintainPartitions() {
+        List<String> partitions = outboxEventDAO.listPartitions();
+        if (partitions.isEmpty()) {
+            log.warn("发件箱表未分区，跳过分区维护");
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate lastDay = null;
+        for (String partition : partitions) {
+            LocalDate day = partitionDay(partition);
+            if (day == null) {
+                continue;
+            }
+            lastDay = day;
+
+            // 1. 超过保留期且已全部投递的分区整块删除，仍有积压的保留到投递完成
+            if (day.isBefore(today.minusDays(RETENTION_DAYS))) {
+                if (outboxEventDAO.countPendingInPartition(partition) == 0) {
+                    outboxEventDAO.dropPartition(partition);
+                    log.info("发件箱分区已删除: partition={}", partition);
+                } else {
+                    log.warn("发件箱分区仍有未投递事件，暂不删除: partition={}", partition);
+                }
+            }
+        }
+
+        // 2. 从兜底分区中依次拆分出未来几天的分区，新分区的上界必须大于已有分区
+        LocalDate day = lastDay == null || lastDay.isBefore(today) ? today : lastDay.plusDays(1);
+        for (; !day.isAfter(today.plusDays(PARTITION_DAYS_AHEAD)); day = day.plusDays(1)) {
+            String partition = PARTITION_FORMAT.format(day);
+            outboxEventDAO.addDailyPartition(partition, day.plusDays(1));
+            log.info("发件箱分区已创建: partition={}", partition);
+        }
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEventDO event) {
+        try {
+            BaseEvent payload = JsonUtil.fromJson(event.getPayload(), eventClass(event.getEventType()));
+            if (payload == null) {
+                throw new IllegalStateException("事件反序列化失败");
+            }
+            return kafkaProducerRouter.route(event.getTopic()).send(event.getTopic(), event.getEventKey(), payload);
+        } catch (Exception e) {
+            log.error("发件箱事件发送异常: id={}, topic={}, type={}", event.getId(), event.getTopic(), event.getEventType(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 按类名加载事件类，只允许 BaseEvent 的子类
+     */
+    private Class<? extends BaseEvent> eventClass(String eventType) {
+        return eventClasses.computeIfAbsent(eventType, type -> {
+            try {
+                return Class.forName(type).asSubclass(BaseEvent.class);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("未知的事件类型: " + type, e);
+            }
+        });
+    }
+
+    /**
+     * 解析按天分区的日期，兜底分区等其他分区返回null
+     */
+    static LocalDate partitionDay(String partition) {
+        try {
+            return LocalDate.parse(partition, PARTITION_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package top.harrylei.community.service.outbox.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.service.outbox.service.OutboxEventService;
+
+/**
+ * 发件箱中继定时任务
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelayTask {
+
+    private final OutboxEventService outboxEventService;
+
+    /**
+     * 每批投递的事件数
+     */
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 每轮最多处理的批数，积压严重时分多轮投递，让分区维护等任务有机会执行
+     */
+    private static final int MAX_BATCHES_PER_ROUND = 50;
+
+    /**
+     * 无积压时按 linger 间隔拉取，积压时连续处理直到不足一批
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.linger-ms:100}", initialDelay = 5 * 1000L)
+    public void relay() {
+        try {
+            int total = 0;
+            int batches = 0;
+            int relayed;
+            do {
+                relayed = outboxEventService.relayBatch(batchSize);
+                total += relayed;
+                batches++;
+            } while (relayed == batchSize && batches < MAX_BATCHES_PER_ROUND);
+
+            if (total > 0) {
+                log.debug("发件箱事件投递完成: count={}, batches={}", total, batches);
+            }
+        } catch (Exception e) {
+            log.error("发件箱事件投递失败", e);
+        }
+    }
+
+    /**
+     * 每小时维护一次分区，启动后尽快执行以保证当天分区存在
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 10 * 1000L)
+    public void maintainPartitions() {
+        try {
+            outboxEventService.maintainPartitions();
+        } catch (Exception e) {
+            log.error("发件箱分区维护失败", e);
+        }
+    }
+}
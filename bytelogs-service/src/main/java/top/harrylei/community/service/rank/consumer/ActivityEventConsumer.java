@@ -12,6 +12,7 @@ import top.harrylei.community.api.event.ActivityRankEvent;
 import top.harrylei.community.core.common.constans.KafkaTopics;
 import top.harrylei.community.api.exception.NonRetryableException;
 import top.harrylei.community.api.exception.RetryableException;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.service.notify.service.KafkaIdempotencyService;
 import top.harrylei.community.service.rank.service.ActivityService;
 
@@ -27,6 +28,7 @@ public class ActivityEventConsumer {
 
     private final ActivityService activityService;
     private final KafkaIdempotencyService kafkaIdempotencyService;
+    private final MetricsUtil metricsUtil;
 
     /**
      * 处理用户活跃度事件
@@ -41,26 +43,33 @@ public class ActivityEventConsumer {
                                     @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
                                     @Header(KafkaHeaders.OFFSET) long offset,
                                     Acknowledgment acknowledgment) {
+        metricsUtil.recordKafkaConsume(KafkaTopics.ACTIVITY_RANK_EVENTS,
+                () -> processActivityEvent(event, partition, offset, acknowledgment));
+    }
 
+    private void processActivityEvent(ActivityRankEvent event, int partition, long offset, Acknowledgment acknowledgment) {
         log.debug("收到活跃度事件: eventId={}, partition={}, offset={}", event.getEventId(), partition, offset);
 
         try {
             // 参数验证
             if (event.getEventId() == null || event.getEventId().trim().isEmpty()) {
                 log.error("活跃度事件eventId为空: event={}", event);
+                metricsUtil.recordKafkaSkip(KafkaTopics.ACTIVITY_RANK_EVENTS, MetricsUtil.SKIP_INVALID, 1);
                 acknowledgment.acknowledge();
                 throw new NonRetryableException("活跃度事件eventId为空");
             }
 
             if (event.getUserId() == null || event.getActionType() == null) {
                 log.error("活跃度事件缺少必要参数: userId={}, actionType={}", event.getUserId(), event.getActionType());
+                metricsUtil.recordKafkaSkip(KafkaTopics.ACTIVITY_RANK_EVENTS, MetricsUtil.SKIP_INVALID, 1);
                 acknowledgment.acknowledge();
                 throw new NonRetryableException("活跃度事件缺少必要参数");
             }
 
             // 幂等性检查 - 尝试获取消息处理权限
-            if (!kafkaIdempotencyService.tryAcquireProcessingPermission(event.getEventId())) {
+            if (!kafkaIdempotencyService.tryBegin(KafkaTopics.ACTIVITY_RANK_EVENTS, event)) {
                 log.debug("活跃度事件已处理过，跳过: eventId={}", event.getEventId());
+                metricsUtil.recordKafkaSkip(KafkaTopics.ACTIVITY_RANK_EVENTS, MetricsUtil.SKIP_DUPLICATE, 1);
                 acknowledgment.acknowledge();
                 return;
             }
@@ -69,7 +78,7 @@ public class ActivityEventConsumer {
             activityService.handleActivityEvent(event);
 
             // 标记消息处理完成
-            kafkaIdempotencyService.markMessageAsProcessed(event.getEventId());
+            kafkaIdempotencyService.complete(KafkaTopics.ACTIVITY_RANK_EVENTS, event);
 
             // 手动确认消息
             acknowledgment.acknowledge();
@@ -79,7 +88,7 @@ public class ActivityEventConsumer {
         } catch (IllegalArgumentException e) {
             // 参数错误，不重试，释放处理权限
             log.error("活跃度事件参数错误: eventId={}, error={}", event.getEventId(), e.getMessage());
-            kafkaIdempotencyService.releaseProcessingPermission(event.getEventId());
+            kafkaIdempotencyService.release(KafkaTopics.ACTIVITY_RANK_EVENTS, event);
             // 确认消息，避免重复处理
             acknowledgment.acknowledge();
             throw new NonRetryableException("活跃度事件参数错误", e);
@@ -87,7 +96,7 @@ public class ActivityEventConsumer {
         } catch (Exception e) {
             log.error("处理活跃度事件失败: eventId={}, event={}", event.getEventId(), event, e);
             // 释放处理权限，允许重试
-            kafkaIdempotencyService.releaseProcessingPermission(event.getEventId());
+            kafkaIdempotencyService.release(KafkaTopics.ACTIVITY_RANK_EVENTS, event);
             // 不确认消息，让重试机制处理
             throw new RetryableException("处理活跃度事件失败", e);
         }
@@ -17,36 +17,89 @@ import java.util.List;
 public class ActivityRankDAO extends ServiceImpl<ActivityRankMapper, ActivityRankDO> {
 
     /**
-     * 物理删除指定类型和期间的排行榜数据
+     * 批量写入快照数据，调用方控制每批大小
      */
-    public boolean removeByTypeAndPeriod(ActivityRankTypeEnum rankType, String rankPeriod) {
+    public void upsertBatch(List<ActivityRankDO> rankList) {
+        if (rankList == null || rankList.isEmpty()) {
+            return;
+        }
+        getBaseMapper().upsertBatch(rankList);
+    }
+
+    /**
+     * 按积分降序、用户ID升序查询一批待排名的数据，从上一批最后一行之后开始
+     *
+     * @param lastScore  上一批最后一行的积分，为null时从第一行开始
+     * @param lastUserId 上一批最后一行的用户ID
+     * @param limit      最大条数
+     */
+    public List<ActivityRankDO> listForRanking(ActivityRankTypeEnum rankType, String rankPeriod, Integer version,
+                                               Integer lastScore, Long lastUserId, int limit) {
+        return lambdaQuery()
+                .select(ActivityRankDO::getId, ActivityRankDO::getUserId, ActivityRankDO::getScore)
+                .eq(ActivityRankDO::getRankType, rankType)
+                .eq(ActivityRankDO::getRankPeriod, rankPeriod)
+                .eq(ActivityRankDO::getSnapshotVersion, version)
+                .and(lastScore != null, wrapper -> wrapper
+                        .lt(ActivityRankDO::getScore, lastScore)
+                        .or(inner -> inner
+                                .eq(ActivityRankDO::getScore, lastScore)
+                                .gt(ActivityRankDO::getUserId, lastUserId)))
+                .orderByDesc(ActivityRankDO::getScore)
+                .orderByAsc(ActivityRankDO::getUserId)
+                .last("LIMIT " + limit)
+                .list();
+    }
+
+    /**
+     * 按ID批量设置排名
+     */
+    public void assignRanks(List<ActivityRankDO> rankList) {
+        if (rankList == null || rankList.isEmpty()) {
+            return;
+        }
+        getBaseMapper().assignRanks(rankList);
+    }
+
+    /**
+     * 物理删除指定版本以外的一批数据
+     *
+     * @return 是否删除了数据，没有剩余数据时返回false
+     */
+    public boolean removeOtherVersions(ActivityRankTypeEnum rankType, String rankPeriod, Integer keepVersion, int limit) {
         return lambdaUpdate()
                 .eq(ActivityRankDO::getRankType, rankType)
                 .eq(ActivityRankDO::getRankPeriod, rankPeriod)
+                .ne(ActivityRankDO::getSnapshotVersion, keepVersion)
+                .last("LIMIT " + limit)
                 .remove();
     }
 
     /**
-     * 查询指定类型和期间的历史排行榜数据
+     * 查询指定类型和期间某个快照版本的排行榜前100名
      */
-    public List<ActivityRankDO> listRanking(ActivityRankTypeEnum rankType, String rankPeriod) {
+    public List<ActivityRankDO> listRanking(ActivityRankTypeEnum rankType, String rankPeriod, Integer version) {
         return lambdaQuery()
                 .eq(ActivityRankDO::getRankType, rankType)
                 .eq(ActivityRankDO::getRankPeriod, rankPeriod)
+                .eq(ActivityRankDO::getSnapshotVersion, version)
                 .orderByDesc(ActivityRankDO::getScore)
+                .orderByAsc(ActivityRankDO::getUserId)
                 .last("LIMIT 100")
                 .list();
     }
 
     /**
-     * 查询指定用户在某期间某类型排行榜中的排名和积分
+     * 查询指定用户在某期间某类型排行榜某个快照版本中的排名和积分
      */
-    public ActivityRankDO getUserHistoryRank(Long userId, ActivityRankTypeEnum rankType, String rankPeriod) {
+    public ActivityRankDO getUserHistoryRank(Long userId, ActivityRankTypeEnum rankType, String rankPeriod,
+                                             Integer version) {
         return lambdaQuery()
                 .eq(ActivityRankDO::getUserId, userId)
                 .eq(ActivityRankDO::getRankType, rankType)
                 .eq(ActivityRankDO::getRankPeriod, rankPeriod)
+                .eq(ActivityRankDO::getSnapshotVersion, version)
                 .one();
     }
 
-}
\ No newline at end of file
+}
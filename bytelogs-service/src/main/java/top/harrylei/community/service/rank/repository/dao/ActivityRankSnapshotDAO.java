@@ -0,0 +1,111 @@
+package top.harrylei.community.service.rank.repository.dao;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Repository;
+import top.harrylei.community.api.enums.rank.ActivityRankSnapshotStatusEnum;
+import top.harrylei.community.api.enums.rank.ActivityRankTypeEnum;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankSnapshotDO;
+import top.harrylei.community.service.rank.repository.mapper.ActivityRankSnapshotMapper;
+
+import java.util.List;
+
+/**
+ * 活跃度排行榜快照DAO
+ *
+ * @author harry
+ */
+@Repository
+public class ActivityRankSnapshotDAO extends ServiceImpl<ActivityRankSnapshotMapper, ActivityRankSnapshotDO> {
+
+    /**
+     * 查询指定类型和期间的快照记录
+     */
+    public ActivityRankSnapshotDO getSnapshot(ActivityRankTypeEnum rankType, String rankPeriod) {
+        return lambdaQuery()
+                .eq(ActivityRankSnapshotDO::getRankType, rankType)
+                .eq(ActivityRankSnapshotDO::getRankPeriod, rankPeriod)
+                .one();
+    }
+
+    /**
+     * 查询所有未完成的快照
+     */
+    public List<ActivityRankSnapshotDO> listUnfinished() {
+        return lambdaQuery()
+                .in(ActivityRankSnapshotDO::getStatus,
+                        ActivityRankSnapshotStatusEnum.STAGING, ActivityRankSnapshotStatusEnum.RANKING)
+                .list();
+    }
+
+    /**
+     * 开始生成新版本的快照，重置全部检查点
+     */
+    public boolean startStaging(Long id, Integer stagingVersion) {
+        return lambdaUpdate()
+                .set(ActivityRankSnapshotDO::getStagingVersion, stagingVersion)
+                .set(ActivityRankSnapshotDO::getStatus, ActivityRankSnapshotStatusEnum.STAGING)
+                .set(ActivityRankSnapshotDO::getScanShard, 0)
+                .set(ActivityRankSnapshotDO::getScanCursor, "0")
+                .set(ActivityRankSnapshotDO::getStagedCount, 0)
+                .set(ActivityRankSnapshotDO::getRankedCount, 0)
+                .set(ActivityRankSnapshotDO::getLastScore, 0)
+                .set(ActivityRankSnapshotDO::getLastUserId, 0L)
+                .eq(ActivityRankSnapshotDO::getId, id)
+                .update();
+    }
+
+    /**
+     * 保存暂存检查点，全部分片扫描结束时同时进入排名阶段
+     *
+     * @param shard    正在扫描的分片
+     * @param cursor   该分片下一次扫描的游标
+     * @param staged   本批暂存的行数
+     * @param finished 是否已扫描完全部分片
+     */
+    public boolean saveScanCheckpoint(Long id, int shard, String cursor, int staged, boolean finished) {
+        return lambdaUpdate()
+                .set(ActivityRankSnapshotDO::getScanShard, shard)
+                .set(ActivityRankSnapshotDO::getScanCursor, cursor)
+                .setSql("staged_count = staged_count + " + staged)
+                .set(finished, ActivityRankSnapshotDO::getStatus, ActivityRankSnapshotStatusEnum.RANKING)
+                .eq(ActivityRankSnapshotDO::getId, id)
+                .update();
+    }
+
+    /**
+     * 保存排名检查点
+     */
+    public boolean saveRankCheckpoint(Long id, Integer rankedCount, Integer lastScore, Long lastUserId) {
+        return lambdaUpdate()
+                .set(ActivityRankSnapshotDO::getRankedCount, rankedCount)
+                .set(ActivityRankSnapshotDO::getLastScore, lastScore)
+                .set(ActivityRankSnapshotDO::getLastUserId, lastUserId)
+                .eq(ActivityRankSnapshotDO::getId, id)
+                .update();
+    }
+
+    /**
+     * 切换生效版本，单行更新，读取方要么看到旧版本，要么看到完整的新版本
+     *
+     * @return 是否切换成功，快照已被其他实例切换或放弃时返回false
+     */
+    public boolean activate(Long id, Integer version) {
+        return lambdaUpdate()
+                .set(ActivityRankSnapshotDO::getActiveVersion, version)
+                .set(ActivityRankSnapshotDO::getStatus, ActivityRankSnapshotStatusEnum.READY)
+                .eq(ActivityRankSnapshotDO::getId, id)
+                .eq(ActivityRankSnapshotDO::getStagingVersion, version)
+                .eq(ActivityRankSnapshotDO::getStatus, ActivityRankSnapshotStatusEnum.RANKING)
+                .update();
+    }
+
+    /**
+     * 放弃未完成的快照，生效版本保持不变
+     */
+    public boolean abandon(Long id) {
+        return lambdaUpdate()
+                .set(ActivityRankSnapshotDO::getStatus, ActivityRankSnapshotStatusEnum.READY)
+                .eq(ActivityRankSnapshotDO::getId, id)
+                .update();
+    }
+}
@@ -46,6 +46,11 @@ public class ActivityRankDO extends BaseDO {
     @TableField("`rank`")
     private Integer rank;
 
+    /**
+     * 快照版本，只有与快照记录中生效版本一致的数据对外可见
+     */
+    private Integer snapshotVersion;
+
     /**
      * 是否删除,0:未删除,1:已删除
      */
@@ -0,0 +1,84 @@
+package top.harrylei.community.service.rank.repository.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import top.harrylei.community.api.enums.common.DeleteStatusEnum;
+import top.harrylei.community.api.enums.rank.ActivityRankSnapshotStatusEnum;
+import top.harrylei.community.api.enums.rank.ActivityRankTypeEnum;
+import top.harrylei.community.api.model.base.BaseDO;
+
+/**
+ * 活跃度排行榜快照实体
+ * <p>
+ * 每个排行榜周期一条记录，保存对外可见的快照版本以及正在生成的快照的检查点。
+ *
+ * @author harry
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = true)
+@TableName("activity_rank_snapshot")
+public class ActivityRankSnapshotDO extends BaseDO {
+
+    /**
+     * 排行榜类型: 1-总榜,2-月榜,3-日榜
+     */
+    private ActivityRankTypeEnum rankType;
+
+    /**
+     * 排行榜周期: 日榜2025-01-15, 月榜2025-01, 总榜total
+     */
+    private String rankPeriod;
+
+    /**
+     * 对外可见的快照版本
+     */
+    private Integer activeVersion;
+
+    /**
+     * 正在生成的快照版本
+     */
+    private Integer stagingVersion;
+
+    /**
+     * 状态: 0-已就绪，1-暂存中，2-排名中
+     */
+    private ActivityRankSnapshotStatusEnum status;
+
+    /**
+     * 暂存检查点：正在扫描的排行榜分片
+     */
+    private Integer scanShard;
+
+    /**
+     * 暂存检查点：该分片下一次ZSCAN的游标
+     */
+    private String scanCursor;
+
+    /**
+     * 已暂存的行数（含重复扫描的成员）
+     */
+    private Integer stagedCount;
+
+    /**
+     * 排名检查点：已分配排名的行数
+     */
+    private Integer rankedCount;
+
+    /**
+     * 排名检查点：最后一个已排名行的积分
+     */
+    private Integer lastScore;
+
+    /**
+     * 排名检查点：最后一个已排名行的用户ID
+     */
+    private Long lastUserId;
+
+    /**
+     * 是否删除,0:未删除,1:已删除
+     */
+    private DeleteStatusEnum deleted;
+}
@@ -1,8 +1,11 @@
 package top.harrylei.community.service.rank.repository.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import top.harrylei.community.service.rank.repository.entity.ActivityRankDO;
 
+import java.util.List;
+
 /**
  * 活跃度排行榜Mapper接口
  *
@@ -10,4 +13,19 @@ import top.harrylei.community.service.rank.repository.entity.ActivityRankDO;
  */
 public interface ActivityRankMapper extends BaseMapper<ActivityRankDO> {
 
-}
\ No newline at end of file
+    /**
+     * 批量写入快照数据，同一用户在同一版本中已存在时覆盖积分
+     *
+     * @param list 排行榜数据
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("list") List<ActivityRankDO> list);
+
+    /**
+     * 按ID批量设置排名
+     *
+     * @param list 带ID和排名的排行榜数据
+     * @return 更新行数
+     */
+    int assignRanks(@Param("list") List<ActivityRankDO> list);
+}
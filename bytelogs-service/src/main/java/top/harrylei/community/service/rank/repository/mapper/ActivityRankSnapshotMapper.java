@@ -0,0 +1,13 @@
+package top.harrylei.community.service.rank.repository.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankSnapshotDO;
+
+/**
+ * 活跃度排行榜快照Mapper接口
+ *
+ * @author harry
+ */
+public interface ActivityRankSnapshotMapper extends BaseMapper<ActivityRankSnapshotDO> {
+
+}
@@ -0,0 +1,295 @@
+package top.harrylei.community.service.rank.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.RedisUtil;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 活跃度排行榜存储
+ * <p>
+ * 每个排行榜按用户ID拆成多个分片有序集合，积分写入分散到各分片，不再集中在一个热点key上。
+ * 用户只落在一个分片中，积分取所在分片的分数，排名为各分片中积分更高的成员数之和加一，
+ * 各分片的ZCOUNT通过管道一次往返完成，结果是精确排名（同分用户排名相同）。
+ * 前N名由各分片的前N名归并得到，定时任务把归并结果写入合并视图，读取时优先读视图，视图缺失时现场归并。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityLeaderboardService {
+
+    /**
+     * 每个排行榜的分片数，调整分片数需要先把各分片的成员重新分配
+     */
+    static final int SHARDS = 8;
+
+    /**
+     * 合并视图保存的名次数
+     */
+    public static final int TOP_SIZE = 100;
+
+    /**
+     * 合并视图的过期时间，定时刷新中断后读取自动回退为现场归并
+     */
+    private static final Duration TOP_VIEW_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 迁移未分片排行榜时每批处理的成员数
+     */
+    private static final int MIGRATE_CHUNK_SIZE = 500;
+
+    /**
+     * 迁移未分片排行榜的锁租约
+     */
+    private static final Duration MIGRATE_LOCK_LEASE = Duration.ofMinutes(5);
+
+    /**
+     * 用归并结果整体替换合并视图
+     * KEYS[1]: 合并视图key；ARGV[1]: 过期毫秒数；ARGV[2i], ARGV[2i+1]: 第i个成员的分数和成员
+     */
+    private static final String REPLACE_TOP_LUA_SCRIPT =
+            "redis.call('del', KEYS[1]) " +
+            "for i = 2, #ARGV, 2 do redis.call('zadd', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+            "return (#ARGV - 1) / 2";
+
+    /**
+     * 把一批成员的积分累加到分片，分片没有过期时间时补上
+     * KEYS[1]: 分片key；ARGV[1]: 过期秒数，0表示不过期；ARGV[2i], ARGV[2i+1]: 第i个成员的分数和成员
+     */
+    private static final String MERGE_INTO_SHARD_LUA_SCRIPT =
+            "for i = 2, #ARGV, 2 do redis.call('zincrby', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "if tonumber(ARGV[1]) > 0 and redis.call('ttl', KEYS[1]) < 0 then " +
+            "  redis.call('expire', KEYS[1], ARGV[1]) " +
+            "end " +
+            "return (#ARGV - 1) / 2";
+
+    private final RedisUtil redisUtil;
+
+    /**
+     * 用户所在的分片
+     *
+     * @param userId 用户ID
+     * @return 分片序号
+     */
+    public static int shardOf(Long userId) {
+        return (int) Math.floorMod(userId, (long) SHARDS);
+    }
+
+    /**
+     * 排行榜的全部分片key
+     *
+     * @param rankKey 排行榜key
+     * @return 按分片序号排列的分片key
+     */
+    public List<String> shardKeys(String rankKey) {
+        List<String> keys = new ArrayList<>(SHARDS);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            keys.add(RedisKeyConstants.getActivityRankShardKey(rankKey, shard));
+        }
+        return keys;
+    }
+
+    /**
+     * 在多个排行榜中增加用户积分，各排行榜只写用户所在的分片，整批一次往返
+     *
+     * @param userId   用户ID
+     * @param delta    积分增量
+     * @param rankKeys 排行榜key及其过期时间，过期时间为null的不设置过期
+     * @return 是否执行成功
+     */
+    public boolean increment(Long userId, double delta, Map<String, Duration> rankKeys) {
+        int shard = shardOf(userId);
+        Map<String, Duration> shardKeys = new LinkedHashMap<>();
+        rankKeys.forEach((rankKey, ttl) ->
+                shardKeys.put(RedisKeyConstants.getActivityRankShardKey(rankKey, shard), ttl));
+        return redisUtil.zIncrByAll(shardKeys, userId.toString(), delta);
+    }
+
+    /**
+     * 查询排行榜前N名，优先读取合并视图
+     *
+     * @param rankKey 排行榜key
+     * @param limit   名次数，不超过{@link #TOP_SIZE}
+     * @return 按积分降序的成员和积分
+     */
+    public List<Map.Entry<String, Double>> top(String rankKey, int limit) {
+        List<Map.Entry<String, Double>> view =
+                redisUtil.zRevRangeWithScores(RedisKeyConstants.getActivityRankTopKey(rankKey), 0, limit - 1);
+        if (!view.isEmpty()) {
+            return view;
+        }
+        return mergeTop(rankKey, limit);
+    }
+
+    /**
+     * 归并各分片的前N名得到排行榜前N名
+     *
+     * @param rankKey 排行榜key
+     * @param limit   名次数
+     * @return 按积分降序的成员和积分，同分时与ZREVRANGE一致按成员逆序
+     */
+    public List<Map.Entry<String, Double>> mergeTop(String rankKey, int limit) {
+        List<List<Map.Entry<String, Double>>> heads =
+                redisUtil.zRevRangeWithScoresAll(shardKeys(rankKey), 0, limit - 1);
+        if (heads == null) {
+            return List.of();
+        }
+
+        List<Map.Entry<String, Double>> merged = new ArrayList<>();
+        heads.forEach(merged::addAll);
+        merged.sort(Map.Entry.<String, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey())
+                .reversed());
+        return merged.size() > limit ? List.copyOf(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * 批量查询用户在多个排行榜中的排名和积分，共两次往返：先取各排行榜的积分，再统计各分片中积分更高的成员数
+     *
+     * @param userId   用户ID
+     * @param rankKeys 排行榜key列表
+     * @return 与排行榜一一对应的[排名, 积分]，未上榜或查询失败的位置为null
+     */
+    public List<Integer[]> rankScores(Long userId, List<String> rankKeys) {
+        List<Integer[]> rankScores = new ArrayList<>(Collections.nCopies(rankKeys.size(), null));
+        int shard = shardOf(userId);
+        List<String> userShardKeys = rankKeys.stream()
+                .map(rankKey -> RedisKeyConstants.getActivityRankShardKey(rankKey, shard))
+                .toList();
+        List<Double> scores = redisUtil.zScoreAll(userShardKeys, userId.toString());
+        if (scores == null) {
+            return rankScores;
+        }
+
+        List<String> countKeys = new ArrayList<>();
+        List<Double> countScores = new ArrayList<>();
+        for (int i = 0; i < rankKeys.size(); i++) {
+            if (scores.get(i) != null) {
+                countKeys.addAll(shardKeys(rankKeys.get(i)));
+                countScores.addAll(Collections.nCopies(SHARDS, scores.get(i)));
+            }
+        }
+        if (countKeys.isEmpty()) {
+            return rankScores;
+        }
+
+        List<Long> counts = redisUtil.zCountAboveAll(countKeys, countScores);
+        if (counts == null) {
+            return rankScores;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < rankKeys.size(); i++) {
+            Double score = scores.get(i);
+            if (score == null) {
+                continue;
+            }
+            long higher = 0;
+            for (int s = 0; s < SHARDS; s++) {
+                higher += counts.get(offset + s);
+            }
+            offset += SHARDS;
+            rankScores.set(i, new Integer[]{(int) (higher + 1), score.intValue()});
+        }
+        return rankScores;
+    }
+
+    /**
+     * 刷新合并视图，排行榜为空时不写入，旧视图到期后自然消失
+     *
+     * @param rankKey 排行榜key
+     */
+    public void refreshTopView(String rankKey) {
+        List<Map.Entry<String, Double>> merged = mergeTop(rankKey, TOP_SIZE);
+        if (merged.isEmpty()) {
+            return;
+        }
+
+        List<Object> args = new ArrayList<>(merged.size() * 2 + 1);
+        args.add(TOP_VIEW_TTL.toMillis());
+        for (Map.Entry<String, Double> entry : merged) {
+            args.add(entry.getValue());
+            args.add(entry.getKey());
+        }
+        if (redisUtil.evalForLong(REPLACE_TOP_LUA_SCRIPT, List.of(RedisKeyConstants.getActivityRankTopKey(rankKey)),
+                args.toArray()) == null) {
+            log.warn("刷新排行榜合并视图失败: rankKey={}", rankKey);
+        }
+    }
+
+    /**
+     * 把分片之前写入的未分片排行榜按批迁移到各分片，迁移完成后原key被删空
+     * <p>
+     * 每批先累加到分片再从原key删除，进程在两步之间中断时该批会在下次迁移时重复累加一次。
+     *
+     * @param rankKey 排行榜key
+     * @param ttl     分片的过期时间，为null时不设置过期
+     */
+    public void migrateLegacy(String rankKey, Duration ttl) {
+        if (!Boolean.TRUE.equals(redisUtil.exists(rankKey))) {
+            return;
+        }
+
+        String lockKey = "activity_rank_migrate:" + rankKey;
+        String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.setIfAbsent(RedisKeyConstants.getDistributedLockKey(lockKey), lockValue,
+                MIGRATE_LOCK_LEASE))) {
+            return;
+        }
+
+        try {
+            long migrated = 0;
+            while (true) {
+                // 已迁移的成员会从原key删除，每批都从头扫描剩余成员
+                RedisUtil.ZScanPage page = redisUtil.zScan(rankKey, "0", MIGRATE_CHUNK_SIZE);
+                if (page == null || page.entries().isEmpty()) {
+                    break;
+                }
+                if (!mergeIntoShards(rankKey, page.entries(), ttl)) {
+                    log.warn("迁移未分片排行榜中断，等待下次继续: rankKey={}, migrated={}", rankKey, migrated);
+                    return;
+                }
+                redisUtil.zRem(rankKey, page.entries().stream().map(Map.Entry::getKey).toArray(String[]::new));
+                migrated += page.entries().size();
+            }
+            log.info("未分片排行榜迁移完成: rankKey={}, migrated={}", rankKey, migrated);
+        } finally {
+            redisUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    /**
+     * 按分片分组，每个分片执行一次脚本累加积分
+     */
+    private boolean mergeIntoShards(String rankKey, List<Map.Entry<String, Double>> entries, Duration ttl) {
+        long ttlSeconds = ttl == null ? 0 : ttl.getSeconds();
+        Map<Integer, List<Object>> argsByShard = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : entries) {
+            List<Object> args = argsByShard.computeIfAbsent(shardOf(Long.valueOf(entry.getKey())),
+                    shard -> new ArrayList<>(List.of(ttlSeconds)));
+            args.add(entry.getValue());
+            args.add(entry.getKey());
+        }
+
+        for (Map.Entry<Integer, List<Object>> shard : argsByShard.entrySet()) {
+            String shardKey = RedisKeyConstants.getActivityRankShardKey(rankKey, shard.getKey());
+            Long merged = redisUtil.evalForLong(MERGE_INTO_SHARD_LUA_SCRIPT, List.of(shardKey), shard.getValue().toArray());
+            if (merged == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,283 @@
+package top.harrylei.community.service.rank.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.api.enums.rank.ActivityRankSnapshotStatusEnum;
+import top.harrylei.community.api.enums.rank.ActivityRankTypeEnum;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.rank.repository.dao.ActivityRankDAO;
+import top.harrylei.community.service.rank.repository.dao.ActivityRankSnapshotDAO;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankDO;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankSnapshotDO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 活跃度排行榜快照服务
+ * <p>
+ * 每个排行榜周期的数据按版本存放，快照记录中的生效版本对外可见。生成快照分三个阶段：
+ * 用ZSCAN逐个分片分批把Redis排行榜写入新版本（暂存），按积分分批分配排名（排名），最后单行更新切换生效版本。
+ * 每批单独提交并记录检查点，中断后从检查点继续；切换前旧版本一直可读，切换后再分批删除旧版本。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityRankSnapshotService {
+
+    /**
+     * 每批扫描、写入、排名的行数
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * 生成快照的锁租约，租约过期后其他实例重复执行也只是写入相同的数据
+     */
+    private static final Duration LOCK_LEASE = Duration.ofMinutes(30);
+
+    private final RedisUtil redisUtil;
+    private final ActivityRankDAO activityRankDAO;
+    private final ActivityRankSnapshotDAO activityRankSnapshotDAO;
+
+    /**
+     * 为指定周期生成新的快照，上一次未完成时先继续上一次
+     *
+     * @param rankType 排行榜类型
+     * @param period   排行榜周期
+     * @param rankKeys Redis排行榜的全部分片key
+     */
+    public void snapshot(ActivityRankTypeEnum rankType, String period, List<String> rankKeys) {
+        withLock(rankType, period, () -> {
+            ActivityRankSnapshotDO snapshot = activityRankSnapshotDAO.getSnapshot(rankType, period);
+            if (snapshot == null || snapshot.getStatus() == ActivityRankSnapshotStatusEnum.READY) {
+                if (redisUtil.existsAll(rankKeys).isEmpty()) {
+                    log.info("排行榜无数据，跳过快照: rankType={}, period={}", rankType, period);
+                    return;
+                }
+                snapshot = begin(snapshot, rankType, period);
+            }
+            run(snapshot, rankKeys);
+        });
+    }
+
+    /**
+     * 继续未完成的快照，Redis排行榜已不存在的放弃，生效版本保持不变
+     *
+     * @param snapshot 未完成的快照记录
+     * @param rankKeys Redis排行榜的全部分片key
+     */
+    public void resume(ActivityRankSnapshotDO snapshot, List<String> rankKeys) {
+        withLock(snapshot.getRankType(), snapshot.getRankPeriod(), () -> {
+            ActivityRankSnapshotDO current = activityRankSnapshotDAO.getById(snapshot.getId());
+            if (current == null || current.getStatus() == ActivityRankSnapshotStatusEnum.READY) {
+                return;
+            }
+            // 排行榜key过期后游标失效，继续扫描得到的是不完整的数据
+            if (current.getStatus() == ActivityRankSnapshotStatusEnum.STAGING
+                    && redisUtil.existsAll(rankKeys).isEmpty()) {
+                abandon(current);
+                return;
+            }
+            log.info("继续未完成的排行榜快照: rankType={}, period={}, status={}, staged={}, ranked={}",
+                    current.getRankType(), current.getRankPeriod(), current.getStatus(),
+                    current.getStagedCount(), current.getRankedCount());
+            run(current, rankKeys);
+        });
+    }
+
+    /**
+     * 查询所有未完成的快照
+     */
+    public List<ActivityRankSnapshotDO> listUnfinished() {
+        return activityRankSnapshotDAO.listUnfinished();
+    }
+
+    /**
+     * 查询生效快照中的前100名
+     *
+     * @param rankType 排行榜类型
+     * @param period   排行榜周期
+     * @return 按排名升序的排行榜数据
+     */
+    public List<ActivityRankDO> listRanking(ActivityRankTypeEnum rankType, String period) {
+        return activityRankDAO.listRanking(rankType, period, getActiveVersion(rankType, period));
+    }
+
+    /**
+     * 查询用户在生效快照中的排名和积分
+     *
+     * @param userId   用户ID
+     * @param rankType 排行榜类型
+     * @param period   排行榜周期
+     * @return 用户的排行榜数据，未上榜返回null
+     */
+    public ActivityRankDO getUserRank(Long userId, ActivityRankTypeEnum rankType, String period) {
+        return activityRankDAO.getUserHistoryRank(userId, rankType, period, getActiveVersion(rankType, period));
+    }
+
+    /**
+     * 生效版本，没有快照记录时为0，兼容引入快照版本之前备份的数据
+     */
+    private Integer getActiveVersion(ActivityRankTypeEnum rankType, String period) {
+        ActivityRankSnapshotDO snapshot = activityRankSnapshotDAO.getSnapshot(rankType, period);
+        return snapshot == null ? 0 : snapshot.getActiveVersion();
+    }
+
+    private void withLock(ActivityRankTypeEnum rankType, String period, Runnable action) {
+        String lockKey = "activity_rank_snapshot:" + rankType.getCode() + ":" + period;
+        String lockValue = UUID.randomUUID().toString();
+        String lockRedisKey = RedisKeyConstants.getDistributedLockKey(lockKey);
+        if (!Boolean.TRUE.equals(redisUtil.setIfAbsent(lockRedisKey, lockValue, LOCK_LEASE))) {
+            log.info("排行榜快照正在其他实例生成，跳过: rankType={}, period={}", rankType, period);
+            return;
+        }
+        try {
+            action.run();
+        } finally {
+            redisUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    /**
+     * 开始新版本，先清理上一次遗留的非生效版本数据
+     */
+    private ActivityRankSnapshotDO begin(ActivityRankSnapshotDO snapshot, ActivityRankTypeEnum rankType, String period) {
+        if (snapshot == null) {
+            snapshot = new ActivityRankSnapshotDO()
+                    .setRankType(rankType)
+                    .setRankPeriod(period)
+                    .setActiveVersion(0)
+                    .setStagingVersion(1)
+                    .setStatus(ActivityRankSnapshotStatusEnum.STAGING)
+                    .setScanShard(0)
+                    .setScanCursor("0")
+                    .setStagedCount(0)
+                    .setRankedCount(0)
+                    .setLastScore(0)
+                    .setLastUserId(0L);
+            removeOtherVersions(rankType, period, 0);
+            activityRankSnapshotDAO.save(snapshot);
+            return snapshot;
+        }
+
+        removeOtherVersions(rankType, period, snapshot.getActiveVersion());
+        int stagingVersion = snapshot.getActiveVersion() + 1;
+        activityRankSnapshotDAO.startStaging(snapshot.getId(), stagingVersion);
+        return snapshot.setStagingVersion(stagingVersion)
+                .setStatus(ActivityRankSnapshotStatusEnum.STAGING)
+                .setScanShard(0)
+                .setScanCursor("0")
+                .setStagedCount(0)
+                .setRankedCount(0)
+                .setLastScore(0)
+                .setLastUserId(0L);
+    }
+
+    private void run(ActivityRankSnapshotDO snapshot, List<String> rankKeys) {
+        if (snapshot.getStatus() == ActivityRankSnapshotStatusEnum.STAGING && !stage(snapshot, rankKeys)) {
+            return;
+        }
+        rank(snapshot);
+
+        if (!activityRankSnapshotDAO.activate(snapshot.getId(), snapshot.getStagingVersion())) {
+            log.warn("排行榜快照切换失败，可能已被其他实例处理: rankType={}, period={}, version={}",
+                    snapshot.getRankType(), snapshot.getRankPeriod(), snapshot.getStagingVersion());
+            return;
+        }
+        removeOtherVersions(snapshot.getRankType(), snapshot.getRankPeriod(), snapshot.getStagingVersion());
+
+        log.info("排行榜快照完成: rankType={}, period={}, version={}, count={}", snapshot.getRankType(),
+                snapshot.getRankPeriod(), snapshot.getStagingVersion(), snapshot.getRankedCount());
+    }
+
+    /**
+     * 从检查点的分片和游标开始，逐个分片分批扫描Redis排行榜并写入暂存版本
+     *
+     * @return 是否扫描完成，Redis不可用时保留检查点并返回false
+     */
+    private boolean stage(ActivityRankSnapshotDO snapshot, List<String> rankKeys) {
+        int shard = snapshot.getScanShard();
+        String cursor = snapshot.getScanCursor();
+        while (shard < rankKeys.size()) {
+            RedisUtil.ZScanPage page = redisUtil.zScan(rankKeys.get(shard), cursor, CHUNK_SIZE);
+            if (page == null) {
+                log.warn("扫描排行榜失败，等待下次继续: rankType={}, period={}, shard={}, cursor={}",
+                        snapshot.getRankType(), snapshot.getRankPeriod(), shard, cursor);
+                return false;
+            }
+
+            List<ActivityRankDO> rows = new ArrayList<>(page.entries().size());
+            for (Map.Entry<String, Double> entry : page.entries()) {
+                rows.add(new ActivityRankDO()
+                        .setUserId(Long.valueOf(entry.getKey()))
+                        .setRankType(snapshot.getRankType())
+                        .setRankPeriod(snapshot.getRankPeriod())
+                        .setSnapshotVersion(snapshot.getStagingVersion())
+                        .setScore(entry.getValue().intValue()));
+            }
+            activityRankDAO.upsertBatch(rows);
+
+            cursor = page.cursor();
+            if (page.finished()) {
+                shard++;
+                cursor = "0";
+            }
+            // 写入与检查点不在同一事务，中断后重复写入同一批也只是覆盖相同的积分
+            boolean finished = shard >= rankKeys.size();
+            activityRankSnapshotDAO.saveScanCheckpoint(snapshot.getId(), shard, cursor, rows.size(), finished);
+            snapshot.setScanShard(shard).setScanCursor(cursor).setStagedCount(snapshot.getStagedCount() + rows.size());
+        }
+        snapshot.setStatus(ActivityRankSnapshotStatusEnum.RANKING);
+        return true;
+    }
+
+    /**
+     * 从检查点的位置开始按积分降序、用户ID升序分批分配排名
+     */
+    private void rank(ActivityRankSnapshotDO snapshot) {
+        int rankedCount = snapshot.getRankedCount();
+        Integer lastScore = rankedCount > 0 ? snapshot.getLastScore() : null;
+        Long lastUserId = snapshot.getLastUserId();
+        while (true) {
+            List<ActivityRankDO> rows = activityRankDAO.listForRanking(snapshot.getRankType(), snapshot.getRankPeriod(),
+                    snapshot.getStagingVersion(), lastScore, lastUserId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            for (ActivityRankDO row : rows) {
+                row.setRank(++rankedCount);
+            }
+            activityRankDAO.assignRanks(rows);
+
+            ActivityRankDO last = rows.getLast();
+            lastScore = last.getScore();
+            lastUserId = last.getUserId();
+            activityRankSnapshotDAO.saveRankCheckpoint(snapshot.getId(), rankedCount, lastScore, lastUserId);
+            snapshot.setRankedCount(rankedCount).setLastScore(lastScore).setLastUserId(lastUserId);
+        }
+    }
+
+    private void abandon(ActivityRankSnapshotDO snapshot) {
+        log.warn("排行榜已过期，放弃未完成的快照: rankType={}, period={}, version={}",
+                snapshot.getRankType(), snapshot.getRankPeriod(), snapshot.getStagingVersion());
+        activityRankSnapshotDAO.abandon(snapshot.getId());
+        removeOtherVersions(snapshot.getRankType(), snapshot.getRankPeriod(), snapshot.getActiveVersion());
+    }
+
+    /**
+     * 分批删除非生效版本，每批单独提交
+     */
+    private void removeOtherVersions(ActivityRankTypeEnum rankType, String period, Integer keepVersion) {
+        while (activityRankDAO.removeOtherVersions(rankType, period, keepVersion, CHUNK_SIZE)) {
+            log.debug("删除排行榜旧版本数据: rankType={}, period={}, keepVersion={}", rankType, period, keepVersion);
+        }
+    }
+}
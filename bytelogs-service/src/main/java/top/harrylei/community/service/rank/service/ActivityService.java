@@ -52,4 +52,14 @@ public interface ActivityService {
      */
     void backupAllRankingData();
 
+    /**
+     * 继续中断的排行榜备份
+     */
+    void resumeRankingBackup();
+
+    /**
+     * 刷新排行榜合并视图
+     */
+    void refreshLeaderboards();
+
 }
\ No newline at end of file
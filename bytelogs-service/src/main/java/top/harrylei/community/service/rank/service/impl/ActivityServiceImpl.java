@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import top.harrylei.community.api.enums.rank.ActivityActionEnum;
 import top.harrylei.community.api.enums.rank.ActivityRankTypeEnum;
 import top.harrylei.community.api.event.ActivityRankEvent;
@@ -15,8 +14,10 @@ import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
 import top.harrylei.community.core.util.NumUtil;
 import top.harrylei.community.core.util.RedisUtil;
-import top.harrylei.community.service.rank.repository.dao.ActivityRankDAO;
 import top.harrylei.community.service.rank.repository.entity.ActivityRankDO;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankSnapshotDO;
+import top.harrylei.community.service.rank.service.ActivityLeaderboardService;
+import top.harrylei.community.service.rank.service.ActivityRankSnapshotService;
 import top.harrylei.community.service.rank.service.ActivityService;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
 
@@ -24,6 +25,7 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,7 +43,8 @@ import java.util.stream.Collectors;
 public class ActivityServiceImpl implements ActivityService {
 
     private final RedisUtil redisUtil;
-    private final ActivityRankDAO activityRankDAO;
+    private final ActivityRankSnapshotService activityRankSnapshotService;
+    private final ActivityLeaderboardService activityLeaderboardService;
 
     private static final String SCORE_TOTAL_FIELD = "score_total";
     private static final Integer DAILY_SCORE_LIMIT = 100;
@@ -49,17 +52,6 @@ public class ActivityServiceImpl implements ActivityService {
     private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
     private final UserCacheService userCacheService;
 
-    private static String getDayKey() {
-        String dayStr = getDateStr();
-        return RedisKeyConstants.getActivityDailyRankKey(dayStr);
-    }
-
-    private static String getMonthKey() {
-        LocalDate now = LocalDate.now();
-        String monthStr = now.format(MONTH_FORMATTER);
-        return RedisKeyConstants.getActivityMonthlyRankKey(monthStr);
-    }
-
     @Override
     public void handleActivityEvent(ActivityRankEvent event) {
         ActivityActionEnum actionType = event.getActionType();
@@ -119,26 +111,12 @@ public class ActivityServiceImpl implements ActivityService {
             return;
         }
 
-        String userIdStr = userId.toString();
-
-        // 更新总排行榜
-        redisUtil.zIncrBy(RedisKeyConstants.getActivityTotalRankKey(), userIdStr, score);
-
-        // 更新日排行榜
-        String dailyRankKey = getDayKey();
-        redisUtil.zIncrBy(dailyRankKey, userIdStr, score);
-        Long ttl = redisUtil.ttl(dailyRankKey);
-        if (!NumUtil.upZero(ttl)) {
-            redisUtil.expire(dailyRankKey, Duration.ofDays(7));
-        }
-
-        // 更新月排行榜
-        String monthlyRankKey = getMonthKey();
-        redisUtil.zIncrBy(monthlyRankKey, userIdStr, score);
-        ttl = redisUtil.ttl(monthlyRankKey);
-        if (!NumUtil.upZero(ttl)) {
-            redisUtil.expire(monthlyRankKey, Duration.ofDays(180));
+        // 总榜、日榜、月榜在同一次往返中更新
+        Map<String, Duration> rankKeys = new LinkedHashMap<>();
+        for (ActivityRankTypeEnum rankType : ActivityRankTypeEnum.values()) {
+            rankKeys.put(getRankKey(rankType), getRankTtl(rankType));
         }
+        activityLeaderboardService.increment(userId, score, rankKeys);
     }
 
     @Override
@@ -155,11 +133,12 @@ public class ActivityServiceImpl implements ActivityService {
         }
 
         // 获取排行榜数据
-        List<Map.Entry<String, Double>> rankedList = redisUtil.zRevRangeWithScores(rankKey, 0, 99);
+        List<Map.Entry<String, Double>> rankedList =
+                activityLeaderboardService.top(rankKey, ActivityLeaderboardService.TOP_SIZE);
 
-        // 如果Redis无数据且是历史查询，尝试从MySQL恢复
+        // 如果Redis无数据且是历史查询，从MySQL快照读取
         if (rankedList.isEmpty() && period != null) {
-            return getHistoryRanking(rankType, period, rankKey);
+            return getHistoryRanking(rankType, period);
         }
 
         if (rankedList.isEmpty()) {
@@ -356,6 +335,29 @@ public class ActivityServiceImpl implements ActivityService {
         };
     }
 
+    /**
+     * 上一周期的排行榜key，总榜没有周期返回null
+     */
+    private String getPreviousRankKey(ActivityRankTypeEnum rankType) {
+        LocalDate now = LocalDate.now();
+        return switch (rankType) {
+            case TOTAL -> null;
+            case MONTHLY -> getRankKey(rankType, now.minusMonths(1).format(MONTH_FORMATTER));
+            case DAILY -> getRankKey(rankType, now.minusDays(1).format(DAY_FORMATTER));
+        };
+    }
+
+    /**
+     * 排行榜的过期时间，总榜不过期
+     */
+    private Duration getRankTtl(ActivityRankTypeEnum rankType) {
+        return switch (rankType) {
+            case TOTAL -> null;
+            case MONTHLY -> Duration.ofDays(180);
+            case DAILY -> Duration.ofDays(7);
+        };
+    }
+
     private String getCurrentMonth() {
         LocalDate now = LocalDate.now();
         return now.format(MONTH_FORMATTER);
@@ -373,20 +375,26 @@ public class ActivityServiceImpl implements ActivityService {
 
         ActivityStatsVO stats = new ActivityStatsVO();
 
+        // 三个排行榜的积分和排名一起查询
+        List<Integer[]> rankScores = activityLeaderboardService.rankScores(userId, List.of(
+                getRankKey(ActivityRankTypeEnum.DAILY),
+                getRankKey(ActivityRankTypeEnum.MONTHLY),
+                getRankKey(ActivityRankTypeEnum.TOTAL)));
+
         // 获取日榜数据
-        Integer[] dailyRankScore = getUserRankScore(userId, ActivityRankTypeEnum.DAILY);
+        Integer[] dailyRankScore = rankScores.get(0);
         if (dailyRankScore != null) {
             stats.setDailyRank(dailyRankScore[0]).setDailyScore(dailyRankScore[1]);
         }
 
         // 获取月榜数据
-        Integer[] monthlyRankScore = getUserRankScore(userId, ActivityRankTypeEnum.MONTHLY);
+        Integer[] monthlyRankScore = rankScores.get(1);
         if (monthlyRankScore != null) {
             stats.setMonthlyRank(monthlyRankScore[0]).setMonthlyScore(monthlyRankScore[1]);
         }
 
         // 获取总榜数据
-        Integer[] totalRankScore = getUserRankScore(userId, ActivityRankTypeEnum.TOTAL);
+        Integer[] totalRankScore = rankScores.get(2);
         if (totalRankScore != null) {
             stats.setTotalRank(totalRankScore[0]).setTotalScore(totalRankScore[1]);
         }
@@ -399,12 +407,9 @@ public class ActivityServiceImpl implements ActivityService {
      *
      * @param userId   用户ID
      * @param rankType 排行榜类型
+     * @param period   排行榜周期，为null时取当前周期
      * @return [排名, 积分]数组，无数据时返回null
      */
-    private Integer[] getUserRankScore(Long userId, ActivityRankTypeEnum rankType) {
-        return getUserRankScore(userId, rankType, null);
-    }
-
     private Integer[] getUserRankScore(Long userId, ActivityRankTypeEnum rankType, String period) {
         if (userId == null || rankType == null) {
             return null;
@@ -415,24 +420,18 @@ public class ActivityServiceImpl implements ActivityService {
             return null;
         }
 
-        String userIdStr = userId.toString();
-        Double score = redisUtil.zScore(rankKey, userIdStr);
-        Long rank = redisUtil.zRevRank(rankKey, userIdStr);
+        Integer[] rankScore = activityLeaderboardService.rankScores(userId, List.of(rankKey)).getFirst();
 
         // 如果Redis中没有数据且是历史查询，从MySQL查询
-        if ((score == null || rank == null) && period != null) {
-            ActivityRankDO userRank = activityRankDAO.getUserHistoryRank(userId, rankType, period);
+        if (rankScore == null && period != null) {
+            ActivityRankDO userRank = activityRankSnapshotService.getUserRank(userId, rankType, period);
             if (userRank != null) {
                 return new Integer[]{userRank.getRank(), userRank.getScore()};
             }
             return null;
         }
 
-        if (score == null || rank == null) {
-            return null;
-        }
-
-        return new Integer[]{(int) (rank + 1), score.intValue()};
+        return rankScore;
     }
 
     /**
@@ -449,40 +448,13 @@ public class ActivityServiceImpl implements ActivityService {
             return;
         }
 
-        // 从Redis获取排行榜数据
-        List<Map.Entry<String, Double>> rankedList = redisUtil.zRevRangeWithScores(rankKey, 0, -1);
-        if (rankedList.isEmpty()) {
-            log.info("排行榜无数据，跳过备份: rankType={}, period={}", rankType, period);
-            return;
-        }
-
-        // 转换为DO对象
-        List<ActivityRankDO> rankDataList = new ArrayList<>();
-        int rank = 1;
-        for (Map.Entry<String, Double> entry : rankedList) {
-            ActivityRankDO rankDO = new ActivityRankDO()
-                    .setUserId(Long.valueOf(entry.getKey()))
-                    .setRankType(rankType)
-                    .setRankPeriod(period)
-                    .setScore(entry.getValue().intValue())
-                    .setRank(rank++);
-            rankDataList.add(rankDO);
-        }
-
-        // 先物理删除该期间的历史数据
-        activityRankDAO.removeByTypeAndPeriod(rankType, period);
-
-        // 插入新数据
-        activityRankDAO.saveBatch(rankDataList);
-
-        log.info("排行榜备份完成: rankType={}, period={}, count={}", rankType, period, rankDataList.size());
+        activityRankSnapshotService.snapshot(rankType, period, activityLeaderboardService.shardKeys(rankKey));
     }
 
     /**
      * 备份所有类型排行榜数据
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void backupAllRankingData() {
         for (ActivityRankTypeEnum rankType : ActivityRankTypeEnum.values()) {
             try {
@@ -493,6 +465,43 @@ public class ActivityServiceImpl implements ActivityService {
         }
     }
 
+    /**
+     * 继续中断的排行榜备份
+     */
+    @Override
+    public void resumeRankingBackup() {
+        for (ActivityRankSnapshotDO snapshot : activityRankSnapshotService.listUnfinished()) {
+            try {
+                String rankKey = getRankKey(snapshot.getRankType(), snapshot.getRankPeriod());
+                activityRankSnapshotService.resume(snapshot, activityLeaderboardService.shardKeys(rankKey));
+            } catch (Exception e) {
+                log.error("继续排行榜备份失败: rankType={}, period={}",
+                        snapshot.getRankType(), snapshot.getRankPeriod(), e);
+            }
+        }
+    }
+
+    /**
+     * 迁移未分片的排行榜并刷新各排行榜的合并视图
+     * <p>
+     * 上一周期的榜单在周期切换后仍会被查询和备份，同样需要迁移，否则跨周期发布时旧数据会留在未分片的key中
+     */
+    @Override
+    public void refreshLeaderboards() {
+        for (ActivityRankTypeEnum rankType : ActivityRankTypeEnum.values()) {
+            String rankKey = getRankKey(rankType);
+            try {
+                String previousRankKey = getPreviousRankKey(rankType);
+                if (previousRankKey != null) {
+                    activityLeaderboardService.migrateLegacy(previousRankKey, getRankTtl(rankType));
+                }
+                activityLeaderboardService.migrateLegacy(rankKey, getRankTtl(rankType));
+                activityLeaderboardService.refreshTopView(rankKey);
+            } catch (Exception e) {
+                log.error("刷新排行榜合并视图失败: rankType={}", rankType, e);
+            }
+        }
+    }
 
     /**
      * 根据排行榜类型生成对应的期间
@@ -512,26 +521,16 @@ public class ActivityServiceImpl implements ActivityService {
     }
 
     /**
-     * 从数据库获取历史排行榜数据并缓存到Redis
+     * 从数据库生效的快照中获取历史排行榜数据
+     * <p>
+     * 快照按索引直接读取前100名，不再回写Redis：历史周期与实时排行榜共用key，回写的短期缓存会被后续积分更新继承过期时间。
      */
-    private List<ActivityRankDTO> getHistoryRanking(ActivityRankTypeEnum rankType, String period, String rankKey) {
-        // 从MySQL查询历史数据
-        List<ActivityRankDO> dbRanking = activityRankDAO.listRanking(rankType, period);
+    private List<ActivityRankDTO> getHistoryRanking(ActivityRankTypeEnum rankType, String period) {
+        List<ActivityRankDO> dbRanking = activityRankSnapshotService.listRanking(rankType, period);
         if (dbRanking.isEmpty()) {
             return List.of();
         }
 
-        // 缓存到Redis（1小时过期）
-        try {
-            for (ActivityRankDO rank : dbRanking) {
-                redisUtil.zAdd(rankKey, rank.getUserId().toString(), rank.getScore().doubleValue());
-            }
-            redisUtil.expire(rankKey, Duration.ofHours(1));
-        } catch (Exception e) {
-            log.warn("缓存历史排行榜数据失败: key={}", rankKey, e);
-        }
-
-        // 转换为DTO返回
         return buildRankingFromDatabaseData(dbRanking);
     }
 
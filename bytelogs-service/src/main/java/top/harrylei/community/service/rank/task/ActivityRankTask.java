@@ -31,4 +31,28 @@ public class ActivityRankTask {
             log.error("定时备份排行榜数据失败", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 每5秒刷新排行榜合并视图，前100名查询直接读取视图
+     */
+    @Scheduled(fixedDelay = 5 * 1000L, initialDelay = 10 * 1000L)
+    public void refreshLeaderboards() {
+        try {
+            activityService.refreshLeaderboards();
+        } catch (Exception e) {
+            log.error("刷新排行榜合并视图失败", e);
+        }
+    }
+
+    /**
+     * 每10分钟继续因重启或异常中断的排行榜备份
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000L, initialDelay = 3 * 60 * 1000L)
+    public void resumeRankingBackup() {
+        try {
+            activityService.resumeRankingBackup();
+        } catch (Exception e) {
+            log.error("继续排行榜备份失败", e);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 import top.harrylei.community.api.event.ArticleStatisticsEvent;
 import top.harrylei.community.core.common.constans.KafkaTopics;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.statistics.repository.dao.ArticleStatisticsDAO;
 
@@ -24,6 +25,7 @@ public class ArticleStatisticsEventListener {
 
     private final ArticleStatisticsDAO articleStatisticsDAO;
     private final RedisUtil redisUtil;
+    private final MetricsUtil metricsUtil;
 
     /**
      * 处理文章统计事件
@@ -32,6 +34,10 @@ public class ArticleStatisticsEventListener {
      */
     @KafkaListener(topics = KafkaTopics.ARTICLE_STATISTICS_EVENTS, containerFactory = "articleStatisticsKafkaListenerContainerFactory")
     public void handleArticleStatisticsEvent(ArticleStatisticsEvent event) {
+        metricsUtil.recordKafkaConsume(KafkaTopics.ARTICLE_STATISTICS_EVENTS, () -> processEvent(event));
+    }
+
+    private void processEvent(ArticleStatisticsEvent event) {
         try {
             log.debug("收到文章统计事件: eventId={}, articleId={}, actionType={}",
                     event.getEventId(), event.getArticleId(), event.getActionType().getLabel());
@@ -73,6 +79,7 @@ public class ArticleStatisticsEventListener {
                 log.debug("文章阅读量统计成功: articleId={}", event.getArticleId());
             } else {
                 log.debug("重复访问，跳过统计: articleId={}", event.getArticleId());
+                metricsUtil.recordKafkaSkip(KafkaTopics.ARTICLE_STATISTICS_EVENTS, MetricsUtil.SKIP_DUPLICATE, 1);
             }
         } catch (Exception e) {
             log.error("文章阅读量统计失败: articleId={}", event.getArticleId(), e);
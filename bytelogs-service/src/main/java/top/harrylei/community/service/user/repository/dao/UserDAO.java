@@ -9,6 +9,8 @@ import top.harrylei.community.api.model.user.dto.UserDetailDTO;
 import top.harrylei.community.service.user.repository.entity.UserDO;
 import top.harrylei.community.service.user.repository.mapper.UserMapper;
 
+import java.util.List;
+
 /**
  * 用户账号数据访问对象 负责操作user_account表
  *
@@ -61,4 +63,23 @@ public class UserDAO extends ServiceImpl<UserMapper, UserDO> {
                 .eq(UserDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
                 .one();
     }
-}
\ No newline at end of file
+
+    /**
+     * 按ID顺序查询一批用户ID，包含已删除的用户
+     *
+     * @param lastUserId 上一批最后一个用户ID，第一批传0
+     * @param limit      每批用户数
+     * @return 升序排列的用户ID
+     */
+    public List<Long> listUserIdsAfter(Long lastUserId, int limit) {
+        return lambdaQuery()
+                .select(UserDO::getId)
+                .gt(UserDO::getId, lastUserId)
+                .orderByAsc(UserDO::getId)
+                .last("LIMIT " + limit)
+                .list()
+                .stream()
+                .map(UserDO::getId)
+                .toList();
+    }
+}
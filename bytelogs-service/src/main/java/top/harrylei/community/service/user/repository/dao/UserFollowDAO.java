@@ -1,6 +1,5 @@
 package top.harrylei.community.service.user.repository.dao;
 
-import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.stereotype.Repository;
 import top.harrylei.community.api.enums.common.DeleteStatusEnum;
@@ -43,26 +42,48 @@ public class UserFollowDAO extends ServiceImpl<UserFollowMapper, UserFollowDO> {
      * 查询用户的关注列表
      *
      * @param queryParam 查询参数
-     * @param page       分页参数
+     * @param offset     跳过的行数，按游标查询时为0
+     * @param limit      查询行数
      * @return 关注列表
      */
-    public IPage<UserFollowVO> pageFollowingList(UserFollowQueryParam queryParam, IPage<UserFollowVO> page) {
-        return getBaseMapper().pageFollowingList(queryParam, page);
+    public List<UserFollowVO> listFollowing(UserFollowQueryParam queryParam, long offset, int limit) {
+        return getBaseMapper().listFollowing(queryParam, offset, limit);
+    }
+
+    /**
+     * 统计按用户名筛选后的关注数
+     *
+     * @param queryParam 查询参数
+     * @return 关注数
+     */
+    public long countFollowing(UserFollowQueryParam queryParam) {
+        return getBaseMapper().countFollowing(queryParam);
     }
 
     /**
      * 查询用户的粉丝列表
      *
      * @param queryParam 查询参数
-     * @param page       分页参数
+     * @param offset     跳过的行数，按游标查询时为0
+     * @param limit      查询行数
      * @return 粉丝列表
      */
-    public IPage<UserFollowVO> pageFollowersList(UserFollowQueryParam queryParam, IPage<UserFollowVO> page) {
-        return getBaseMapper().pageFollowersList(queryParam, page);
+    public List<UserFollowVO> listFollowers(UserFollowQueryParam queryParam, long offset, int limit) {
+        return getBaseMapper().listFollowers(queryParam, offset, limit);
+    }
+
+    /**
+     * 统计按用户名筛选后的粉丝数
+     *
+     * @param queryParam 查询参数
+     * @return 粉丝数
+     */
+    public long countFollowers(UserFollowQueryParam queryParam) {
+        return getBaseMapper().countFollowers(queryParam);
     }
 
     /**
-     * 更新关注状态
+     * 更新关注状态，只有状态实际发生变化时才返回true，并发的重复操作只有一个会成功
      *
      * @param userId       关注者ID
      * @param followUserId 被关注者ID
@@ -78,28 +99,48 @@ public class UserFollowDAO extends ServiceImpl<UserFollowMapper, UserFollowDO> {
                 .eq(UserFollowDO::getUserId, userId)
                 .eq(UserFollowDO::getFollowUserId, followUserId)
                 .eq(UserFollowDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
+                .ne(UserFollowDO::getFollowState, status)
                 .set(UserFollowDO::getFollowState, status)
                 .update();
     }
 
     /**
-     * 获取用户的关注者ID列表
+     * 按关系ID顺序分批查询用户关注的人
      *
-     * @param userId 用户ID
-     * @return 关注者ID列表
+     * @param userId         用户ID
+     * @param lastRelationId 上一批最后一条关系ID，第一批传0
+     * @param limit          每批数量
+     * @return 按关系ID升序的关注关系，只含ID和被关注者ID
      */
-    public List<Long> listFollowerIds(Long userId) {
-        if (userId == null) {
-            return List.of();
-        }
+    public List<UserFollowDO> listFollowingAfter(Long userId, Long lastRelationId, int limit) {
+        return lambdaQuery()
+                .select(UserFollowDO::getId, UserFollowDO::getFollowUserId)
+                .eq(UserFollowDO::getUserId, userId)
+                .eq(UserFollowDO::getFollowState, UserFollowStatusEnum.FOLLOWED)
+                .eq(UserFollowDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
+                .gt(UserFollowDO::getId, lastRelationId)
+                .orderByAsc(UserFollowDO::getId)
+                .last("LIMIT " + limit)
+                .list();
+    }
+
+    /**
+     * 按关系ID顺序分批查询用户的粉丝
+     *
+     * @param userId         用户ID
+     * @param lastRelationId 上一批最后一条关系ID，第一批传0
+     * @param limit          每批数量
+     * @return 按关系ID升序的关注关系，只含ID和关注者ID
+     */
+    public List<UserFollowDO> listFollowersAfter(Long userId, Long lastRelationId, int limit) {
         return lambdaQuery()
-                .select(UserFollowDO::getUserId)
+                .select(UserFollowDO::getId, UserFollowDO::getUserId)
                 .eq(UserFollowDO::getFollowUserId, userId)
                 .eq(UserFollowDO::getFollowState, UserFollowStatusEnum.FOLLOWED)
                 .eq(UserFollowDO::getDeleted, DeleteStatusEnum.NOT_DELETED)
-                .list()
-                .stream()
-                .map(UserFollowDO::getUserId)
-                .toList();
+                .gt(UserFollowDO::getId, lastRelationId)
+                .orderByAsc(UserFollowDO::getId)
+                .last("LIMIT " + limit)
+                .list();
     }
-}
\ No newline at end of file
+}
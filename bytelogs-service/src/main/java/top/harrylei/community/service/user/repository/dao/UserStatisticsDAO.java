@@ -0,0 +1,101 @@
+package top.harrylei.community.service.user.repository.dao;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Repository;
+import top.harrylei.community.service.user.repository.entity.UserStatisticsDO;
+import top.harrylei.community.service.user.repository.mapper.UserStatisticsMapper;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户统计数据访问对象
+ *
+ * @author harry
+ */
+@Repository
+public class UserStatisticsDAO extends ServiceImpl<UserStatisticsMapper, UserStatisticsDO> {
+
+    /**
+     * 查询用户的统计记录
+     *
+     * @param userId 用户ID
+     * @return 统计记录，不存在则返回null
+     */
+    public UserStatisticsDO getByUserId(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return lambdaQuery()
+                .eq(UserStatisticsDO::getUserId, userId)
+                .one();
+    }
+
+    /**
+     * 批量查询用户的统计记录
+     *
+     * @param userIds 用户ID集合
+     * @return 统计记录，不存在的用户不返回
+     */
+    public List<UserStatisticsDO> listByUserIds(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of();
+        }
+        return lambdaQuery()
+                .in(UserStatisticsDO::getUserId, userIds)
+                .list();
+    }
+
+    /**
+     * 关注关系变化时调整双方的计数
+     *
+     * @param userId       关注者ID
+     * @param followUserId 被关注者ID
+     * @param delta        变化量，关注为1，取消关注为-1
+     */
+    public void adjustFollowCounts(Long userId, Long followUserId, int delta) {
+        getBaseMapper().adjustFollowCounts(userId, followUserId, delta);
+    }
+
+    /**
+     * 统计一批用户的实际关注数和粉丝数
+     *
+     * @param userIds 用户ID集合
+     * @return 以关注关系表为准的统计数据
+     */
+    public List<UserStatisticsDO> countFollows(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of();
+        }
+        return getBaseMapper().countFollows(userIds);
+    }
+
+    /**
+     * 批量创建统计记录，已存在的用户跳过
+     *
+     * @param list 统计数据
+     */
+    public void insertIgnoreBatch(List<UserStatisticsDO> list) {
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        getBaseMapper().insertIgnoreBatch(list);
+    }
+
+    /**
+     * 计数仍为读取时的值才覆盖，读取之后有新的关注变化时放弃本次校准
+     *
+     * @param expected 读取到的统计记录
+     * @param actual   以关注关系表为准的统计数据
+     * @return 是否覆盖成功
+     */
+    public boolean compareAndSetCounts(UserStatisticsDO expected, UserStatisticsDO actual) {
+        return lambdaUpdate()
+                .set(UserStatisticsDO::getFollowCount, actual.getFollowCount())
+                .set(UserStatisticsDO::getFanCount, actual.getFanCount())
+                .eq(UserStatisticsDO::getUserId, expected.getUserId())
+                .eq(UserStatisticsDO::getFollowCount, expected.getFollowCount())
+                .eq(UserStatisticsDO::getFanCount, expected.getFanCount())
+                .update();
+    }
+}
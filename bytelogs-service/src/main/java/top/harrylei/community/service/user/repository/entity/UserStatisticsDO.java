@@ -0,0 +1,39 @@
+package top.harrylei.community.service.user.repository.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import top.harrylei.community.api.model.base.BaseDO;
+
+import java.io.Serial;
+
+/**
+ * 用户统计实体对象
+ *
+ * @author harry
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("user_statistics")
+@Accessors(chain = true)
+public class UserStatisticsDO extends BaseDO {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 关注数
+     */
+    private Integer followCount;
+
+    /**
+     * 粉丝数
+     */
+    private Integer fanCount;
+}
@@ -1,11 +1,13 @@
 package top.harrylei.community.service.user.repository.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
+import org.apache.ibatis.annotations.Param;
 import top.harrylei.community.api.model.user.req.UserFollowQueryParam;
 import top.harrylei.community.api.model.user.vo.UserFollowVO;
 import top.harrylei.community.service.user.repository.entity.UserFollowDO;
 
+import java.util.List;
+
 /**
  * 用户关注Mapper接口
  *
@@ -14,20 +16,42 @@ import top.harrylei.community.service.user.repository.entity.UserFollowDO;
 public interface UserFollowMapper extends BaseMapper<UserFollowDO> {
 
     /**
-     * 分页查询用户关注列表
+     * 按关注关系倒序查询用户关注列表
      *
      * @param queryParam 查询参数
-     * @param page       分页参数
+     * @param offset     跳过的行数，按游标查询时为0
+     * @param limit      查询行数
      * @return 关注列表
      */
-    IPage<UserFollowVO> pageFollowingList(UserFollowQueryParam queryParam, IPage<UserFollowVO> page);
+    List<UserFollowVO> listFollowing(@Param("queryParam") UserFollowQueryParam queryParam,
+                                     @Param("offset") long offset,
+                                     @Param("limit") int limit);
+
+    /**
+     * 统计按用户名筛选后的关注数
+     *
+     * @param queryParam 查询参数
+     * @return 关注数
+     */
+    long countFollowing(@Param("queryParam") UserFollowQueryParam queryParam);
 
     /**
-     * 分页查询用户粉丝列表
+     * 按关注关系倒序查询用户粉丝列表
      *
      * @param queryParam 查询参数
-     * @param page       分页参数
+     * @param offset     跳过的行数，按游标查询时为0
+     * @param limit      查询行数
      * @return 粉丝列表
      */
-    IPage<UserFollowVO> pageFollowersList(UserFollowQueryParam queryParam, IPage<UserFollowVO> page);
-}
\ No newline at end of file
+    List<UserFollowVO> listFollowers(@Param("queryParam") UserFollowQueryParam queryParam,
+                                     @Param("offset") long offset,
+                                     @Param("limit") int limit);
+
+    /**
+     * 统计按用户名筛选后的粉丝数
+     *
+     * @param queryParam 查询参数
+     * @return 粉丝数
+     */
+    long countFollowers(@Param("queryParam") UserFollowQueryParam queryParam);
+}
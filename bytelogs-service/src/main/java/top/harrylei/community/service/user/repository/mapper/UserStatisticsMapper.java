@@ -0,0 +1,44 @@
+package top.harrylei.community.service.user.repository.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import top.harrylei.community.service.user.repository.entity.UserStatisticsDO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户统计Mapper接口
+ *
+ * @author harry
+ */
+public interface UserStatisticsMapper extends BaseMapper<UserStatisticsDO> {
+
+    /**
+     * 关注关系变化时同时调整关注者的关注数和被关注者的粉丝数，统计记录不存在时创建
+     *
+     * @param userId       关注者ID
+     * @param followUserId 被关注者ID
+     * @param delta        变化量，关注为1，取消关注为-1
+     * @return 影响行数
+     */
+    int adjustFollowCounts(@Param("userId") Long userId,
+                           @Param("followUserId") Long followUserId,
+                           @Param("delta") int delta);
+
+    /**
+     * 统计一批用户的实际关注数和粉丝数
+     *
+     * @param userIds 用户ID集合
+     * @return 以关注关系表为准的统计数据
+     */
+    List<UserStatisticsDO> countFollows(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量创建统计记录，已存在的用户跳过
+     *
+     * @param list 统计数据
+     * @return 插入行数
+     */
+    int insertIgnoreBatch(@Param("list") List<UserStatisticsDO> list);
+}
@@ -4,7 +4,10 @@ import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.api.model.user.req.UserFollowQueryParam;
 import top.harrylei.community.api.model.user.vo.UserFollowVO;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 用户关注服务接口
@@ -44,10 +47,29 @@ public interface UserFollowService {
     PageVO<UserFollowVO> pageFollowersList(UserFollowQueryParam queryParam);
 
     /**
-     * 获取用户的关注者ID列表
+     * 判断用户是否关注了目标用户
      *
-     * @param userId 用户ID
-     * @return 关注者ID列表
+     * @param userId       用户ID
+     * @param targetUserId 目标用户ID
+     * @return 是否已关注
      */
-    List<Long> listFollowerIds(Long userId);
-}
\ No newline at end of file
+    boolean isFollowing(Long userId, Long targetUserId);
+
+    /**
+     * 批量判断用户关注了哪些目标用户
+     *
+     * @param userId        用户ID
+     * @param targetUserIds 目标用户ID集合，如一页文章的作者
+     * @return 已关注的目标用户ID
+     */
+    Set<Long> filterFollowing(Long userId, Collection<Long> targetUserIds);
+
+    /**
+     * 按批遍历用户的粉丝
+     *
+     * @param userId    用户ID
+     * @param batchSize 每批粉丝数
+     * @param consumer  每批粉丝ID的处理逻辑
+     */
+    void forEachFollowerBatch(Long userId, int batchSize, Consumer<List<Long>> consumer);
+}
@@ -0,0 +1,83 @@
+package top.harrylei.community.service.user.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import top.harrylei.community.service.user.repository.dao.UserDAO;
+import top.harrylei.community.service.user.repository.dao.UserStatisticsDAO;
+import top.harrylei.community.service.user.repository.entity.UserStatisticsDO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户统计校准服务
+ * <p>
+ * 关注数和粉丝数在关注、取消关注的事务中增量维护，这里按用户ID分批与关注关系表比对并修正偏差。
+ * 每批先读统计记录再统计关注关系，覆盖时要求统计记录仍为读取时的值，
+ * 校准期间发生的关注变化不会被旧的统计结果覆盖，留到下一轮处理。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatisticsService {
+
+    private final UserDAO userDAO;
+    private final UserStatisticsDAO userStatisticsDAO;
+
+    /**
+     * 校准全部用户的关注数和粉丝数
+     *
+     * @param batchSize 每批用户数
+     * @return 修正的用户数
+     */
+    public int reconcileAll(int batchSize) {
+        int fixed = 0;
+        long lastUserId = 0;
+        while (true) {
+            List<Long> userIds = userDAO.listUserIdsAfter(lastUserId, batchSize);
+            if (userIds.isEmpty()) {
+                return fixed;
+            }
+            fixed += reconcile(userIds);
+            lastUserId = userIds.getLast();
+            if (userIds.size() < batchSize) {
+                return fixed;
+            }
+        }
+    }
+
+    /**
+     * 校准一批用户，缺少统计记录的补建，计数不一致的覆盖
+     */
+    private int reconcile(List<Long> userIds) {
+        Map<Long, UserStatisticsDO> stored = userStatisticsDAO.listByUserIds(userIds).stream()
+                .collect(Collectors.toMap(UserStatisticsDO::getUserId, Function.identity()));
+        List<UserStatisticsDO> actual = userStatisticsDAO.countFollows(userIds);
+
+        int fixed = 0;
+        List<UserStatisticsDO> missing = new ArrayList<>();
+        for (UserStatisticsDO counts : actual) {
+            UserStatisticsDO current = stored.get(counts.getUserId());
+            if (current == null) {
+                missing.add(counts);
+            } else if (!Objects.equals(current.getFollowCount(), counts.getFollowCount())
+                    || !Objects.equals(current.getFanCount(), counts.getFanCount())) {
+                if (userStatisticsDAO.compareAndSetCounts(current, counts)) {
+                    log.info("校准用户统计: userId={}, followCount={}->{}, fanCount={}->{}", counts.getUserId(),
+                            current.getFollowCount(), counts.getFollowCount(),
+                            current.getFanCount(), counts.getFanCount());
+                    fixed++;
+                }
+            }
+        }
+        userStatisticsDAO.insertIgnoreBatch(missing);
+        return fixed + missing.size();
+    }
+}
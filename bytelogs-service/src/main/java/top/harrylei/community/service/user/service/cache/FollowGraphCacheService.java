@@ -0,0 +1,332 @@
+package top.harrylei.community.service.user.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.user.repository.dao.UserFollowDAO;
+import top.harrylei.community.service.user.repository.entity.UserFollowDO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 关注关系图缓存服务
+ * <p>
+ * 每个用户的关注集合和粉丝集合各存为一个压缩位图（Roaring64Bitmap），序列化后放在Redis，热点用户在本地缓存一份。
+ * 关注判断只需取出一个位图做成员检查，一页作者的批量判断也只读一次；粉丝推送直接遍历位图，不再物化整个ID列表。
+ * <p>
+ * 关注变化提交后按增量修改Redis中的位图，修改和从数据库重建共用同一把锁：
+ * 拿不到锁的修改方删除位图并留下标记，持锁重建的一方写入后看到标记就撤销本次写入，
+ * 避免重建时读到的旧关注关系覆盖刚提交的变化。其他实例的本地缓存最多滞后{@link #LOCAL_TTL}。
+ *
+ * @author harry
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FollowGraphCacheService {
+
+    /**
+     * Redis中位图的有效期，不活跃用户的位图自然过期
+     */
+    private static final Duration REDIS_TTL = Duration.ofDays(1);
+
+    /**
+     * 本地缓存有效期，也是其他实例看到关注变化的最大延迟
+     */
+    private static final Duration LOCAL_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 本地缓存的最大字节数
+     */
+    private static final long LOCAL_MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * 修改和重建位图的锁租约
+     */
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(10);
+
+    /**
+     * 重建期间发生变化的标记有效期
+     */
+    private static final Duration DIRTY_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 从数据库重建位图时每批读取的关系数
+     */
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final UserFollowDAO userFollowDAO;
+    private final RedisUtil redisUtil;
+    private final MetricsUtil metricsUtil;
+
+    private final Cache<String, Roaring64Bitmap> localCache = CacheBuilder.newBuilder()
+            .maximumWeight(LOCAL_MAX_BYTES)
+            .weigher((String key, Roaring64Bitmap bitmap) ->
+                    (int) Math.min(Integer.MAX_VALUE, bitmap.serializedSizeInBytes()))
+            .expireAfterWrite(LOCAL_TTL)
+            .build();
+
+    /**
+     * 判断用户是否关注了目标用户
+     *
+     * @param userId       用户ID
+     * @param targetUserId 目标用户ID
+     * @return 是否已关注
+     */
+    public boolean isFollowing(Long userId, Long targetUserId) {
+        if (userId == null || targetUserId == null) {
+            return false;
+        }
+        return following(userId).contains(targetUserId);
+    }
+
+    /**
+     * 批量判断用户关注了哪些目标用户，只读取一次关注位图
+     *
+     * @param userId        用户ID
+     * @param targetUserIds 目标用户ID集合
+     * @return 已关注的目标用户ID
+     */
+    public Set<Long> filterFollowing(Long userId, Collection<Long> targetUserIds) {
+        if (userId == null || targetUserIds == null || targetUserIds.isEmpty()) {
+            return Set.of();
+        }
+
+        Roaring64Bitmap following = following(userId);
+        Set<Long> followed = new HashSet<>();
+        for (Long targetUserId : targetUserIds) {
+            if (targetUserId != null && following.contains(targetUserId)) {
+                followed.add(targetUserId);
+            }
+        }
+        return followed;
+    }
+
+    /**
+     * 按批遍历用户的粉丝
+     *
+     * @param userId    用户ID
+     * @param batchSize 每批粉丝数
+     * @param consumer  每批粉丝ID的处理逻辑
+     */
+    public void forEachFollowerBatch(Long userId, int batchSize, Consumer<List<Long>> consumer) {
+        if (userId == null) {
+            return;
+        }
+
+        LongIterator iterator = followers(userId).getLongIterator();
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() == batchSize) {
+                consumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * 关注关系变化后增量更新双方的位图，在事务中调用时等提交后再执行
+     *
+     * @param userId       关注者ID
+     * @param followUserId 被关注者ID
+     * @param followed     true为关注，false为取消关注
+     */
+    public void onFollowChanged(Long userId, Long followUserId, boolean followed) {
+        Runnable update = () -> {
+            apply(RedisKeyConstants.getUserFollowingKey(userId), followUserId, followed);
+            apply(RedisKeyConstants.getUserFollowersKey(followUserId), userId, followed);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private Roaring64Bitmap following(Long userId) {
+        return load(RedisKeyConstants.getUserFollowingKey(userId),
+                () -> rebuild(lastId -> userFollowDAO.listFollowingAfter(userId, lastId, REBUILD_BATCH_SIZE),
+                        UserFollowDO::getFollowUserId));
+    }
+
+    private Roaring64Bitmap followers(Long userId) {
+        return load(RedisKeyConstants.getUserFollowersKey(userId),
+                () -> rebuild(lastId -> userFollowDAO.listFollowersAfter(userId, lastId, REBUILD_BATCH_SIZE),
+                        UserFollowDO::getUserId));
+    }
+
+    /**
+     * 依次读取本地缓存、Redis，都未命中时从数据库重建，返回的位图只读
+     */
+    private Roaring64Bitmap load(String key, Supplier<Roaring64Bitmap> rebuilder) {
+        Roaring64Bitmap bitmap = localCache.getIfPresent(key);
+        metricsUtil.recordCache(MetricsUtil.CACHE_FOLLOW_GRAPH_LOCAL, bitmap != null);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        bitmap = readRedis(key);
+        metricsUtil.recordCache(MetricsUtil.CACHE_FOLLOW_GRAPH_REDIS, bitmap != null);
+        if (bitmap == null) {
+            bitmap = rebuildAndStore(key, rebuilder);
+        }
+        localCache.put(key, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * 持锁从数据库重建并写入Redis，拿不到锁时只重建不写入
+     */
+    private Roaring64Bitmap rebuildAndStore(String key, Supplier<Roaring64Bitmap> rebuilder) {
+        String lockKey = "follow_graph:" + key;
+        String lockValue = UUID.randomUUID().toString();
+        boolean locked = Boolean.TRUE.equals(
+                redisUtil.setIfAbsent(RedisKeyConstants.getDistributedLockKey(lockKey), lockValue, LOCK_LEASE));
+        if (!locked) {
+            return rebuilder.get();
+        }
+
+        try {
+            Roaring64Bitmap bitmap = rebuilder.get();
+            writeRedis(key, bitmap);
+            // 重建期间有关注变化时，修改方只能删除位图并留下标记，这里撤销可能已过时的写入
+            String dirtyKey = dirtyKey(key);
+            if (Boolean.TRUE.equals(redisUtil.exists(dirtyKey))) {
+                redisUtil.del(key);
+                redisUtil.del(dirtyKey);
+            }
+            return bitmap;
+        } finally {
+            redisUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    private Roaring64Bitmap rebuild(Function<Long, List<UserFollowDO>> batchLoader,
+                                    Function<UserFollowDO, Long> memberGetter) {
+        Roaring64Bitmap bitmap = new Roaring64Bitmap();
+        long lastRelationId = 0;
+        while (true) {
+            List<UserFollowDO> batch = batchLoader.apply(lastRelationId);
+            for (UserFollowDO relation : batch) {
+                bitmap.addLong(memberGetter.apply(relation));
+            }
+            if (batch.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+            lastRelationId = batch.getLast().getId();
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    /**
+     * 持锁读改写Redis中的位图，位图未缓存时不处理，下次读取时会从数据库重建
+     */
+    private void apply(String key, Long member, boolean add) {
+        localCache.invalidate(key);
+
+        String lockKey = "follow_graph:" + key;
+        String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(
+                redisUtil.setIfAbsent(RedisKeyConstants.getDistributedLockKey(lockKey), lockValue, LOCK_LEASE))) {
+            redisUtil.set(dirtyKey(key), "1", DIRTY_TTL);
+            redisUtil.del(key);
+            return;
+        }
+
+        try {
+            byte[] bytes = redisUtil.getBytes(key);
+            if (bytes == null) {
+                return;
+            }
+            // 本地缓存中的位图会被并发读取，修改总是基于Redis中的副本
+            Roaring64Bitmap bitmap = deserialize(bytes);
+            if (add) {
+                bitmap.addLong(member);
+            } else {
+                bitmap.removeLong(member);
+            }
+            if (!writeRedis(key, bitmap)) {
+                redisUtil.del(key);
+            }
+        } catch (Exception e) {
+            log.warn("更新关注关系位图失败，删除后等待重建 key={}: {}", key, e.getMessage());
+            redisUtil.del(key);
+        } finally {
+            redisUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    private Roaring64Bitmap readRedis(String key) {
+        byte[] bytes = redisUtil.getBytes(key);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return deserialize(bytes);
+        } catch (Exception e) {
+            log.warn("关注关系位图反序列化失败，从数据库重建 key={}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean writeRedis(String key, Roaring64Bitmap bitmap) {
+        return Boolean.TRUE.equals(redisUtil.setBytes(key, serialize(bitmap), REDIS_TTL));
+    }
+
+    private static String dirtyKey(String key) {
+        return key + ":dirty";
+    }
+
+    static byte[] serialize(Roaring64Bitmap bitmap) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) bitmap.serializedSizeInBytes());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.serialize(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Roaring64Bitmap deserialize(byte[] bytes) throws IOException {
+        Roaring64Bitmap bitmap = new Roaring64Bitmap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            bitmap.deserialize(in);
+        }
+        return bitmap;
+    }
+}
@@ -7,6 +7,7 @@ import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.util.JwtUtil;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.user.converted.UserStructMapper;
 import top.harrylei.community.service.user.repository.dao.UserInfoDAO;
@@ -30,6 +31,7 @@ public class UserCacheService {
     private final UserInfoDAO userInfoDAO;
     private final UserStructMapper userStructMapper;
     private final JwtUtil jwtUtil;
+    private final MetricsUtil metricsUtil;
 
     /**
      * 用户信息缓存过期时间：30分钟
@@ -60,6 +62,7 @@ public class UserCacheService {
 
         // 2. 尝试从缓存获取
         UserInfoDTO userInfoDTO = redisUtil.get(RedisKeyConstants.getUserInfoKey(userId), UserInfoDTO.class);
+        metricsUtil.recordCache(MetricsUtil.CACHE_USER, userInfoDTO != null);
         if (userInfoDTO != null) {
             log.debug("缓存命中: userId={}", userId);
             return userInfoDTO;
@@ -184,6 +187,7 @@ public class UserCacheService {
             Long userId = userIds.get(i);
             String cacheKey = cacheKeys.get(i);
             UserInfoDTO cachedUser = cachedUsers.get(cacheKey);
+            metricsUtil.recordCache(MetricsUtil.CACHE_USER, cachedUser != null);
             if (cachedUser != null) {
                 userMap.put(userId, cachedUser);
             } else {
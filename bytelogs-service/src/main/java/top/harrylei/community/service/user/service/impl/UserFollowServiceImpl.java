@@ -1,8 +1,8 @@
 package top.harrylei.community.service.user.service.impl;
 
-import com.baomidou.mybatisplus.core.metadata.IPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import top.harrylei.community.api.enums.response.ResultCode;
@@ -21,13 +21,19 @@ import top.harrylei.community.core.util.PageUtils;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.user.repository.dao.UserDAO;
 import top.harrylei.community.service.user.repository.dao.UserFollowDAO;
+import top.harrylei.community.service.user.repository.dao.UserStatisticsDAO;
 import top.harrylei.community.service.user.repository.entity.UserDO;
 import top.harrylei.community.service.user.repository.entity.UserFollowDO;
+import top.harrylei.community.service.user.repository.entity.UserStatisticsDO;
 import top.harrylei.community.service.user.service.UserFollowService;
+import top.harrylei.community.service.user.service.cache.FollowGraphCacheService;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 用户关注服务实现类
@@ -41,6 +47,8 @@ public class UserFollowServiceImpl implements UserFollowService {
 
     private final UserFollowDAO userFollowDAO;
     private final UserDAO userDAO;
+    private final UserStatisticsDAO userStatisticsDAO;
+    private final FollowGraphCacheService followGraphCacheService;
     private final RedisUtil redisUtil;
     private final KafkaEventPublisher kafkaEventPublisher;
 
@@ -89,15 +97,17 @@ public class UserFollowServiceImpl implements UserFollowService {
             userFollowDAO.save(newFollow);
             success = true;
         } else if (!UserFollowStatusEnum.FOLLOWED.equals(existingFollow.getFollowState())) {
-            // 更新现有关注关系状态
-            userFollowDAO.updateFollowStatus(currentUserId, followUserId, UserFollowStatusEnum.FOLLOWED);
-            success = true;
+            // 更新现有关注关系状态，并发的重复关注只有一个会更新成功
+            success = userFollowDAO.updateFollowStatus(currentUserId, followUserId, UserFollowStatusEnum.FOLLOWED);
         } else {
             // 已经关注，无需重复操作
             log.warn("用户已关注，无需重复关注 userId={} followeeId={}", currentUserId, followUserId);
         }
 
         if (success) {
+            // 与关注关系在同一事务中更新双方的计数
+            userStatisticsDAO.adjustFollowCounts(currentUserId, followUserId, 1);
+            followGraphCacheService.onFollowChanged(currentUserId, followUserId, true);
             // 发布关注通知事件
             publishFollowNotificationEvent(currentUserId, followUserId);
             // 发布关注活跃度事件
@@ -135,8 +145,12 @@ public class UserFollowServiceImpl implements UserFollowService {
             return;
         }
 
-        // 更新关注状态为未关注
-        userFollowDAO.updateFollowStatus(currentUserId, followUserId, UserFollowStatusEnum.UNFOLLOWED);
+        // 更新关注状态为未关注，状态已被并发请求修改时不重复扣减计数
+        if (!userFollowDAO.updateFollowStatus(currentUserId, followUserId, UserFollowStatusEnum.UNFOLLOWED)) {
+            return;
+        }
+        userStatisticsDAO.adjustFollowCounts(currentUserId, followUserId, -1);
+        followGraphCacheService.onFollowChanged(currentUserId, followUserId, false);
 
         // 发布取消关注活跃度事件
         publishFollowActivityEvent(currentUserId, followUserId, ActivityActionEnum.CANCEL_FOLLOW);
@@ -153,14 +167,17 @@ public class UserFollowServiceImpl implements UserFollowService {
      */
     @Override
     public PageVO<UserFollowVO> pageFollowingList(UserFollowQueryParam queryParam) {
-        // 创建分页对象
-        IPage<UserFollowVO> page = PageUtils.of(queryParam);
+        int pageSize = queryParam.getPageSize();
+        List<UserFollowVO> rows = userFollowDAO.listFollowing(queryParam, pageOffset(queryParam), pageSize + 1);
 
-        // 查询关注列表
-        IPage<UserFollowVO> result = userFollowDAO.pageFollowingList(queryParam, page);
-
-        // 使用PageHelper构建分页结果
-        return PageUtils.from(result);
+        long total;
+        if (StringUtils.isBlank(queryParam.getUserName())) {
+            UserStatisticsDO statistics = userStatisticsDAO.getByUserId(queryParam.getUserId());
+            total = statistics != null ? statistics.getFollowCount() : 0;
+        } else {
+            total = userFollowDAO.countFollowing(queryParam);
+        }
+        return toPage(queryParam, rows, total);
     }
 
     /**
@@ -171,14 +188,42 @@ public class UserFollowServiceImpl implements UserFollowService {
      */
     @Override
     public PageVO<UserFollowVO> pageFollowersList(UserFollowQueryParam queryParam) {
-        // 创建分页对象
-        IPage<UserFollowVO> page = PageUtils.of(queryParam);
+        int pageSize = queryParam.getPageSize();
+        List<UserFollowVO> rows = userFollowDAO.listFollowers(queryParam, pageOffset(queryParam), pageSize + 1);
 
-        // 查询粉丝列表
-        IPage<UserFollowVO> result = userFollowDAO.pageFollowersList(queryParam, page);
+        long total;
+        if (StringUtils.isBlank(queryParam.getUserName())) {
+            UserStatisticsDO statistics = userStatisticsDAO.getByUserId(queryParam.getFollowUserId());
+            total = statistics != null ? statistics.getFanCount() : 0;
+        } else {
+            total = userFollowDAO.countFollowers(queryParam);
+        }
+
+        // 是否互关：一次读取列表所属用户的关注位图，批量判断本页粉丝
+        Set<Long> followedBack = followGraphCacheService.filterFollowing(queryParam.getFollowUserId(),
+                rows.stream().map(UserFollowVO::getUserId).toList());
+        rows.forEach(row -> row.setFollowed(followedBack.contains(row.getUserId())));
+        return toPage(queryParam, rows, total);
+    }
+
+    /**
+     * 按游标查询时从游标之后开始，否则按页码偏移
+     */
+    private long pageOffset(UserFollowQueryParam queryParam) {
+        if (queryParam.getCursor() != null) {
+            return 0;
+        }
+        return (long) (queryParam.getPageNum() - 1) * queryParam.getPageSize();
+    }
 
-        // 使用PageHelper构建分页结果
-        return PageUtils.from(result);
+    /**
+     * 构建分页结果，多查询的一行只用于判断是否有下一页
+     */
+    private PageVO<UserFollowVO> toPage(UserFollowQueryParam queryParam, List<UserFollowVO> rows, long total) {
+        int pageSize = queryParam.getPageSize();
+        boolean hasNext = rows.size() > pageSize;
+        List<UserFollowVO> content = hasNext ? rows.subList(0, pageSize) : rows;
+        return PageUtils.from(content, queryParam.getPageNum(), pageSize, total, hasNext);
     }
 
     /**
@@ -264,10 +309,17 @@ public class UserFollowServiceImpl implements UserFollowService {
     }
 
     @Override
-    public List<Long> listFollowerIds(Long userId) {
-        if (userId == null) {
-            return List.of();
-        }
-        return userFollowDAO.listFollowerIds(userId);
+    public boolean isFollowing(Long userId, Long targetUserId) {
+        return followGraphCacheService.isFollowing(userId, targetUserId);
+    }
+
+    @Override
+    public Set<Long> filterFollowing(Long userId, Collection<Long> targetUserIds) {
+        return followGraphCacheService.filterFollowing(userId, targetUserIds);
+    }
+
+    @Override
+    public void forEachFollowerBatch(Long userId, int batchSize, Consumer<List<Long>> consumer) {
+        followGraphCacheService.forEachFollowerBatch(userId, batchSize, consumer);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package top.harrylei.community.service.user.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.service.user.service.UserStatisticsService;
+
+/**
+ * 用户统计校准定时任务
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserStatisticsTask {
+
+    private final UserStatisticsService userStatisticsService;
+
+    /**
+     * 每批校准的用户数
+     */
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    /**
+     * 每天凌晨3点校准全部用户的关注数和粉丝数
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void reconcileFollowCounts() {
+        try {
+            int fixed = userStatisticsService.reconcileAll(RECONCILE_BATCH_SIZE);
+            log.info("用户统计校准完成: fixed={}", fixed);
+        } catch (Exception e) {
+            log.error("用户统计校准失败", e);
+        }
+    }
+}
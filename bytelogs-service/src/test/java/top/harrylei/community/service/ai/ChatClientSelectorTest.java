@@ -0,0 +1,89 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.service.ai.adapter.ChatClientSelector;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ChatClient选择器测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatClientSelector 测试")
+class ChatClientSelectorTest {
+
+    private ChatClient deepseek;
+    private ChatClient qwen;
+    private AiProviderConfig aiProviderConfig;
+
+    @BeforeEach
+    void setUp() {
+        deepseek = mock(ChatClient.class);
+        qwen = mock(ChatClient.class);
+        aiProviderConfig = mock(AiProviderConfig.class);
+        when(aiProviderConfig.isProviderEnabled(any())).thenReturn(true);
+        when(aiProviderConfig.getDefaultProvider()).thenReturn(ChatClientTypeEnum.DEEPSEEK);
+    }
+
+    private ChatClientSelector selector(ChatClient openai) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (openai != null) {
+            beanFactory.addBean("openaiChatClient", openai);
+        }
+        ObjectProvider<ChatClient> openaiProvider = beanFactory.getBeanProvider(ChatClient.class);
+        return new ChatClientSelector(deepseek, qwen, openaiProvider, aiProviderConfig);
+    }
+
+    @Nested
+    @DisplayName("可用性测试")
+    class AvailabilityTest {
+
+        @Test
+        @DisplayName("未配置OpenAI时不可用，选择时抛出异常")
+        void shouldBeUnavailableWhenNotConfigured() {
+            ChatClientSelector selector = selector(null);
+
+            assertThat(selector.isAvailable(ChatClientTypeEnum.OPENAI)).isFalse();
+            assertThat(selector.isAvailable(ChatClientTypeEnum.DEEPSEEK)).isTrue();
+            assertThatThrownBy(() -> selector.select(ChatClientTypeEnum.OPENAI))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("配置了OpenAI后可用于故障转移")
+        void shouldBeAvailableWhenConfigured() {
+            ChatClient openai = mock(ChatClient.class);
+            ChatClientSelector selector = selector(openai);
+
+            assertThat(selector.isAvailable(ChatClientTypeEnum.OPENAI)).isTrue();
+            assertThat(selector.select(ChatClientTypeEnum.OPENAI)).isSameAs(openai);
+        }
+
+        @Test
+        @DisplayName("配置中停用的提供商不可用")
+        void shouldBeUnavailableWhenDisabled() {
+            when(aiProviderConfig.isProviderEnabled(ChatClientTypeEnum.QWEN)).thenReturn(false);
+
+            assertThat(selector(null).isAvailable(ChatClientTypeEnum.QWEN)).isFalse();
+        }
+
+        @Test
+        @DisplayName("未指定提供商时使用默认提供商")
+        void shouldSelectDefaultProvider() {
+            assertThat(selector(null).select(null)).isSameAs(deepseek);
+        }
+    }
+}
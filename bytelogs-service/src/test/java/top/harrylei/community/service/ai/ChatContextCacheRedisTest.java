@@ -0,0 +1,268 @@
+package top.harrylei.community.service.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.harrylei.community.api.enums.ai.ChatMessageRoleEnum;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.config.AILimitConfig;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.ai.repository.dao.ChatMessageDAO;
+import top.harrylei.community.service.ai.repository.entity.ChatMessageDO;
+import top.harrylei.community.service.ai.service.cache.ChatContextCacheService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 对话上下文缓存Redis集成测试
+ * <p>
+ * 在真实的Redis上执行追加和回填Lua脚本，校验脚本本身的语义；没有Docker环境时跳过。
+ *
+ * @author harry
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("ChatContextCacheService Redis 集成测试")
+class ChatContextCacheRedisTest {
+
+    private static final Long CONVERSATION_ID = 1L;
+    private static final String HYDRATED_MARKER = "#hydrated";
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisUtil redisUtil;
+
+    private AILimitConfig aiLimitConfig;
+    private ConcurrentSkipListMap<Long, ChatMessageDO> database;
+    private AtomicLong idGenerator;
+    private ChatContextCacheService chatContextCacheService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        redisUtil = new RedisUtil(redisTemplate, new MetricsUtil(new SimpleMeterRegistry()));
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        aiLimitConfig = new AILimitConfig();
+        database = new ConcurrentSkipListMap<>();
+        idGenerator = new AtomicLong();
+
+        ChatMessageDAO chatMessageDAO = mock(ChatMessageDAO.class);
+        when(chatMessageDAO.getRecentMessages(eq(CONVERSATION_ID), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(1);
+            // 与DAO一致：按时间倒序返回最近的消息
+            return new ArrayList<>(database.descendingMap().values()).subList(0, Math.min(limit, database.size()));
+        });
+
+        chatContextCacheService = new ChatContextCacheService(redisUtil, chatMessageDAO, aiLimitConfig);
+        redisUtil.del(contextKey());
+    }
+
+    private static String contextKey() {
+        return RedisKeyConstants.getChatContextKey(CONVERSATION_ID);
+    }
+
+    private static List<String> cachedEntries() {
+        return redisUtil.lRange(contextKey(), 0, -1);
+    }
+
+    private static Set<Long> cachedIds() {
+        Set<Long> ids = new TreeSet<>();
+        for (String entry : cachedEntries()) {
+            if (!HYDRATED_MARKER.equals(entry)) {
+                ids.add(JsonUtil.fromJson(entry, ChatMessageDO.class).getId());
+            }
+        }
+        return ids;
+    }
+
+    private ChatMessageDO saveAndAppend(String content) {
+        ChatMessageDO message = newMessage(idGenerator.incrementAndGet(), content);
+        database.put(message.getId(), message);
+        chatContextCacheService.append(CONVERSATION_ID, message);
+        return message;
+    }
+
+    private static ChatMessageDO newMessage(long id, String content) {
+        ChatMessageDO message = new ChatMessageDO();
+        message.setId(id);
+        message.setConversationId(CONVERSATION_ID);
+        message.setUserId(100L);
+        message.setMessageType(ChatMessageRoleEnum.USER);
+        message.setContent(content);
+        return message;
+    }
+
+    private static List<Long> ids(List<ChatMessageDO> messages) {
+        return messages.stream().map(ChatMessageDO::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("追加脚本测试")
+    class AppendScriptTest {
+
+        @Test
+        @DisplayName("未回填时追加只保留最新的N条，不写入回填标记")
+        void shouldTrimWithoutMarker() {
+            aiLimitConfig.setContextMaxMessages(3);
+
+            for (int i = 0; i < 5; i++) {
+                saveAndAppend("message-" + i);
+            }
+
+            assertThat(cachedEntries()).doesNotContain(HYDRATED_MARKER);
+            assertThat(cachedIds()).containsExactly(3L, 4L, 5L);
+        }
+
+        @Test
+        @DisplayName("已回填时追加超出上限后保留回填标记和最新的N条")
+        void shouldKeepMarkerWhenTrimming() {
+            aiLimitConfig.setContextMaxMessages(3);
+            chatContextCacheService.getContext(CONVERSATION_ID);
+
+            for (int i = 0; i < 5; i++) {
+                saveAndAppend("message-" + i);
+            }
+
+            assertThat(cachedEntries()).hasSize(4).first().isEqualTo(HYDRATED_MARKER);
+            assertThat(cachedIds()).containsExactly(3L, 4L, 5L);
+        }
+
+        @Test
+        @DisplayName("追加后设置过期时间")
+        void shouldSetExpire() {
+            saveAndAppend("message");
+
+            assertThat(redisUtil.ttl(contextKey())).isPositive();
+        }
+    }
+
+    @Nested
+    @DisplayName("回填脚本测试")
+    class HydrateScriptTest {
+
+        @Test
+        @DisplayName("回填时以数据库消息为前缀，接上已追加的消息并按ID去重")
+        void shouldMergeAppendedMessages() {
+            for (long id = 1; id <= 3; id++) {
+                database.put(id, newMessage(id, "message-" + id));
+            }
+            idGenerator.set(3);
+            // 回填前追加：一条与数据库重复，一条是新消息
+            chatContextCacheService.append(CONVERSATION_ID, database.get(3L));
+            saveAndAppend("message-4");
+
+            List<ChatMessageDO> context = chatContextCacheService.getContext(CONVERSATION_ID);
+
+            assertThat(ids(context)).containsExactly(1L, 2L, 3L, 4L);
+            assertThat(cachedEntries()).hasSize(5).first().isEqualTo(HYDRATED_MARKER);
+        }
+
+        @Test
+        @DisplayName("已回填时不再读取数据库")
+        void shouldNotHydrateTwice() {
+            database.put(1L, newMessage(1L, "message-1"));
+            chatContextCacheService.getContext(CONVERSATION_ID);
+            database.put(2L, newMessage(2L, "message-2"));
+
+            assertThat(ids(chatContextCacheService.getContext(CONVERSATION_ID))).containsExactly(1L);
+        }
+    }
+
+    @Nested
+    @DisplayName("并发写入测试")
+    class ConcurrencyTest {
+
+        @Test
+        @DisplayName("并发追加和回填不丢失消息")
+        void shouldNotLoseMessagesUnderConcurrentAppends() throws Exception {
+            aiLimitConfig.setContextMaxMessages(10_000);
+            aiLimitConfig.setContextTokenBudget(Integer.MAX_VALUE);
+
+            int writers = 8;
+            int readers = 2;
+            int messagesPerWriter = 100;
+            ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+            CyclicBarrier start = new CyclicBarrier(writers + readers);
+            CountDownLatch writersDone = new CountDownLatch(writers);
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        for (int i = 0; i < messagesPerWriter; i++) {
+                            saveAndAppend("writer-" + writer + "-" + i);
+                        }
+                    } finally {
+                        writersDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < readers; r++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    do {
+                        chatContextCacheService.getContext(CONVERSATION_ID);
+                    } while (writersDone.getCount() > 0);
+                    return null;
+                }));
+            }
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(cachedEntries()).first().isEqualTo(HYDRATED_MARKER);
+            assertThat(cachedIds()).hasSize(writers * messagesPerWriter).isEqualTo(database.keySet());
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package top.harrylei.community.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.enums.ai.ChatMessageRoleEnum;
+import top.harrylei.community.core.config.AILimitConfig;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.ai.repository.dao.ChatMessageDAO;
+import top.harrylei.community.service.ai.repository.entity.ChatMessageDO;
+import top.harrylei.community.service.ai.service.cache.ChatContextCacheService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 对话上下文缓存服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatContextCacheService 测试")
+class ChatContextCacheServiceTest {
+
+    private static final Long CONVERSATION_ID = 1L;
+
+    private InMemoryRedisUtil redisUtil;
+    private AILimitConfig aiLimitConfig;
+    private ConcurrentSkipListMap<Long, ChatMessageDO> database;
+    private AtomicLong idGenerator;
+    private ChatContextCacheService chatContextCacheService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = new InMemoryRedisUtil();
+        aiLimitConfig = new AILimitConfig();
+        database = new ConcurrentSkipListMap<>();
+        idGenerator = new AtomicLong();
+
+        ChatMessageDAO chatMessageDAO = mock(ChatMessageDAO.class);
+        when(chatMessageDAO.getRecentMessages(eq(CONVERSATION_ID), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(1);
+            // 与DAO一致：按时间倒序返回最近的消息
+            return new ArrayList<>(database.descendingMap().values()).subList(0, Math.min(limit, database.size()));
+        });
+
+        chatContextCacheService = new ChatContextCacheService(redisUtil, chatMessageDAO, aiLimitConfig);
+    }
+
+    /**
+     * 模拟业务流程：先落库，再追加到上下文缓存
+     */
+    private ChatMessageDO saveAndAppend(String content) {
+        ChatMessageDO message = newMessage(idGenerator.incrementAndGet(), content);
+        database.put(message.getId(), message);
+        chatContextCacheService.append(CONVERSATION_ID, message);
+        return message;
+    }
+
+    private static ChatMessageDO newMessage(long id, String content) {
+        ChatMessageDO message = new ChatMessageDO();
+        message.setId(id);
+        message.setConversationId(CONVERSATION_ID);
+        message.setUserId(100L);
+        message.setMessageType(ChatMessageRoleEnum.USER);
+        message.setContent(content);
+        return message;
+    }
+
+    private static List<Long> ids(List<ChatMessageDO> messages) {
+        return messages.stream().map(ChatMessageDO::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("并发写入测试")
+    class ConcurrencyTest {
+
+        @Test
+        @DisplayName("并发追加和回填不丢失消息")
+        void shouldNotLoseMessagesUnderConcurrentAppends() throws Exception {
+            aiLimitConfig.setContextMaxMessages(10_000);
+            aiLimitConfig.setContextTokenBudget(Integer.MAX_VALUE);
+
+            int writers = 8;
+            int readers = 2;
+            int messagesPerWriter = 200;
+            ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+            // 所有线程就位后同时开始，读取线程的回填与写入线程的追加交错执行
+            CyclicBarrier start = new CyclicBarrier(writers + readers);
+            CountDownLatch writersDone = new CountDownLatch(writers);
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        for (int i = 0; i < messagesPerWriter; i++) {
+                            saveAndAppend("writer-" + writer + "-" + i);
+                        }
+                    } finally {
+                        writersDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < readers; r++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    do {
+                        chatContextCacheService.getContext(CONVERSATION_ID);
+                    } while (writersDone.getCount() > 0);
+                    return null;
+                }));
+            }
+
+            try {
+                // 任一线程异常时直接失败并带出原因
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // 直接检查缓存的最终状态，不经过getContext，避免读取时的回填掩盖追加丢失的消息
+            assertThat(redisUtil.isHydrated()).isTrue();
+            assertThat(redisUtil.cachedIds()).hasSize(writers * messagesPerWriter).isEqualTo(database.keySet());
+            assertThat(ids(chatContextCacheService.getContext(CONVERSATION_ID))).isSorted();
+        }
+    }
+
+    @Nested
+    @DisplayName("回填与截取测试")
+    class HydrateAndTrimTest {
+
+        @Test
+        @DisplayName("缓存缺失时从数据库回填并保持时间正序")
+        void shouldHydrateFromDatabaseOnMiss() {
+            for (long id = 1; id <= 5; id++) {
+                database.put(id, newMessage(id, "message-" + id));
+            }
+
+            List<ChatMessageDO> context = chatContextCacheService.getContext(CONVERSATION_ID);
+
+            assertThat(ids(context)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        }
+
+        @Test
+        @DisplayName("超出最大条数时只保留最新消息")
+        void shouldKeepLatestMessagesWhenExceedingMax() {
+            aiLimitConfig.setContextMaxMessages(5);
+            chatContextCacheService.getContext(CONVERSATION_ID);
+
+            for (int i = 0; i < 20; i++) {
+                saveAndAppend("message-" + i);
+            }
+
+            assertThat(ids(chatContextCacheService.getContext(CONVERSATION_ID)))
+                    .containsExactly(16L, 17L, 18L, 19L, 20L);
+        }
+
+        @Test
+        @DisplayName("按token预算截取最近消息，至少保留最新一条")
+        void shouldTrimByTokenBudget() {
+            aiLimitConfig.setContextTokenBudget(30);
+            chatContextCacheService.getContext(CONVERSATION_ID);
+
+            // 每条约 10 + 4 个token
+            for (int i = 0; i < 5; i++) {
+                saveAndAppend("一二三四五六七八九十");
+            }
+            assertThat(ids(chatContextCacheService.getContext(CONVERSATION_ID))).containsExactly(4L, 5L);
+
+            aiLimitConfig.setContextTokenBudget(1);
+            assertThat(ids(chatContextCacheService.getContext(CONVERSATION_ID))).containsExactly(5L);
+        }
+    }
+
+    @Nested
+    @DisplayName("脚本调用约定测试")
+    class ScriptContractTest {
+
+        private RedisUtil mockRedisUtil;
+        private ChatContextCacheService service;
+
+        @BeforeEach
+        void setUp() {
+            mockRedisUtil = mock(RedisUtil.class);
+            ChatMessageDAO chatMessageDAO = mock(ChatMessageDAO.class);
+            when(chatMessageDAO.getRecentMessages(eq(CONVERSATION_ID), anyInt()))
+                    .thenReturn(List.of(newMessage(2L, "message-2"), newMessage(1L, "message-1")));
+            service = new ChatContextCacheService(mockRedisUtil, chatMessageDAO, aiLimitConfig);
+        }
+
+        @Test
+        @DisplayName("追加脚本的KEYS和ARGV与内存实现一致")
+        void shouldPassAppendArguments() {
+            aiLimitConfig.setContextMaxMessages(7);
+            ChatMessageDO message = newMessage(3L, "message-3");
+
+            service.append(CONVERSATION_ID, message);
+
+            ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(mockRedisUtil).evalForLong(script.capture(), eq(List.of("byte_logs:ai:chat_context:1")),
+                    args.capture());
+            assertThat(script.getValue()).contains("rpush", "ltrim", "lpush", "expire", "ARGV[4]");
+            assertThat(args.getValue()).containsExactly(JsonUtil.toJson(message), 7, 1800L, "#hydrated");
+        }
+
+        @Test
+        @DisplayName("回填脚本的KEYS和ARGV与内存实现一致，数据库消息按时间正序传入")
+        void shouldPassHydrateArguments() {
+            aiLimitConfig.setContextMaxMessages(7);
+            when(mockRedisUtil.lRange("byte_logs:ai:chat_context:1", 0, -1)).thenReturn(List.of());
+
+            service.getContext(CONVERSATION_ID);
+
+            ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(mockRedisUtil).evalForList(script.capture(), eq(List.of("byte_logs:ai:chat_context:1")),
+                    args.capture());
+            assertThat(script.getValue()).contains("cjson.decode", "ARGV[3]", "for i = 4, #ARGV");
+            assertThat(args.getValue()).containsExactly(7, 1800L, "#hydrated",
+                    JsonUtil.toJson(newMessage(1L, "message-1")), JsonUtil.toJson(newMessage(2L, "message-2")));
+        }
+    }
+
+    /**
+     * 内存版RedisUtil，按Lua脚本语义原子执行上下文缓存相关命令
+     * <p>
+     * 只用于快速校验服务的并发和截取逻辑；脚本本身在 {@link ChatContextCacheRedisTest} 中以真实Redis校验，
+     * 参数约定由 {@link ScriptContractTest} 校验
+     */
+    private static class InMemoryRedisUtil extends RedisUtil {
+
+        private List<String> list;
+
+        /**
+         * 服务传入的回填标记
+         */
+        private String marker;
+
+        InMemoryRedisUtil() {
+            super(null, null);
+        }
+
+        /**
+         * 缓存是否带有回填标记
+         */
+        synchronized boolean isHydrated() {
+            return list != null && !list.isEmpty() && list.get(0).equals(marker);
+        }
+
+        /**
+         * 缓存中的消息ID，不含回填标记
+         */
+        synchronized Set<Long> cachedIds() {
+            Set<Long> ids = new TreeSet<>();
+            if (list != null) {
+                list.stream()
+                        .filter(entry -> !entry.equals(marker))
+                        .forEach(entry -> ids.add(Long.valueOf(idOf(entry))));
+            }
+            return ids;
+        }
+
+        @Override
+        public synchronized List<String> lRange(String key, long start, long end) {
+            return list == null ? List.of() : new ArrayList<>(list);
+        }
+
+        @Override
+        public synchronized Boolean del(String key) {
+            boolean existed = list != null;
+            list = null;
+            return existed;
+        }
+
+        /**
+         * 追加脚本：ARGV = [消息JSON, 最大消息数, 过期秒数, 回填标记]
+         */
+        @Override
+        public synchronized Long evalForLong(String script, List<String> keys, Object... args) {
+            marker = String.valueOf(args[3]);
+            int max = Integer.parseInt(String.valueOf(args[1]));
+            if (list == null) {
+                list = new ArrayList<>();
+            }
+            list.add(String.valueOf(args[0]));
+            trim(max);
+            return (long) list.size();
+        }
+
+        /**
+         * 回填脚本：ARGV = [最大消息数, 过期秒数, 回填标记, 数据库消息JSON...]
+         */
+        @Override
+        public synchronized List<String> evalForList(String script, List<String> keys, Object... args) {
+            int max = Integer.parseInt(String.valueOf(args[0]));
+            marker = String.valueOf(args[2]);
+            if (list != null && !list.isEmpty() && marker.equals(list.get(0))) {
+                return new ArrayList<>(list);
+            }
+
+            List<String> existing = list == null ? List.of() : list;
+            Set<String> seen = new HashSet<>();
+            existing.forEach(entry -> seen.add(idOf(entry)));
+
+            List<String> hydrated = new ArrayList<>();
+            hydrated.add(marker);
+            for (int i = 3; i < args.length; i++) {
+                String entry = String.valueOf(args[i]);
+                if (!seen.contains(idOf(entry))) {
+                    hydrated.add(entry);
+                }
+            }
+            hydrated.addAll(existing);
+            list = hydrated;
+            trim(max);
+            return new ArrayList<>(list);
+        }
+
+        private void trim(int max) {
+            boolean hydrated = marker.equals(list.get(0));
+            int limit = hydrated ? max + 1 : max;
+            if (list.size() > limit) {
+                List<String> kept = new ArrayList<>(list.subList(list.size() - max, list.size()));
+                if (hydrated) {
+                    kept.add(0, marker);
+                }
+                list = kept;
+            }
+        }
+
+        private static String idOf(String entry) {
+            JsonNode node = JsonUtil.parseToNode(entry);
+            return node != null && node.has("id") ? node.get("id").asText() : entry;
+        }
+    }
+}
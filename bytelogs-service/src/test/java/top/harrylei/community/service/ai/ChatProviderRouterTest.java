@@ -0,0 +1,418 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import reactor.core.publisher.Flux;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.service.ai.adapter.ChatClientSelector;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.router.AdaptiveConcurrencyLimiter;
+import top.harrylei.community.service.ai.router.ChatProviderRouter;
+import top.harrylei.community.service.ai.router.ProviderCircuitBreaker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI提供商路由测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatProviderRouter 测试")
+class ChatProviderRouterTest {
+
+    private AiProviderConfig.RouterSettings settings;
+    private StubChatModel deepseek;
+    private StubChatModel qwen;
+    private ExecutorService executor;
+    private ChatProviderRouter router;
+
+    @BeforeEach
+    void setUp() {
+        settings = new AiProviderConfig.RouterSettings();
+        settings.setHedgeMinDelay(Duration.ofMillis(50));
+        settings.setHedgeDefaultDelay(Duration.ofMillis(100));
+        settings.setCallTimeout(Duration.ofSeconds(5));
+
+        AiProviderConfig aiProviderConfig = mock(AiProviderConfig.class);
+        when(aiProviderConfig.getRouter()).thenReturn(settings);
+        when(aiProviderConfig.getDefaultProvider()).thenReturn(ChatClientTypeEnum.DEEPSEEK);
+        when(aiProviderConfig.isProviderEnabled(any())).thenReturn(true);
+
+        deepseek = new StubChatModel();
+        qwen = new StubChatModel();
+        ChatClientSelector chatClientSelector = mock(ChatClientSelector.class);
+        when(chatClientSelector.isAvailable(ChatClientTypeEnum.DEEPSEEK)).thenReturn(true);
+        when(chatClientSelector.isAvailable(ChatClientTypeEnum.QWEN)).thenReturn(true);
+        when(chatClientSelector.select(ChatClientTypeEnum.DEEPSEEK)).thenReturn(ChatClient.create(deepseek));
+        when(chatClientSelector.select(ChatClientTypeEnum.QWEN)).thenReturn(ChatClient.create(qwen));
+
+        executor = Executors.newCachedThreadPool();
+        router = new ChatProviderRouter(chatClientSelector, aiProviderConfig, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static ChatResponse chunk(String content) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+    }
+
+    private static Prompt prompt(ChatClientTypeEnum provider) {
+        return new Prompt("你好");
+    }
+
+    private static String contentOf(ChatResponse response) {
+        return response.getResult().getOutput().getContent();
+    }
+
+    @Nested
+    @DisplayName("非流式调用测试")
+    class CallTest {
+
+        @Test
+        @DisplayName("首选提供商失败时切换到备选")
+        void shouldFailoverWhenPrimaryFails() {
+            deepseek.onCall = () -> {
+                throw new RuntimeException("503 Service Unavailable");
+            };
+            qwen.onCall = () -> chunk("来自千问");
+
+            ChatProviderRouter.RoutedResponse routed = router.call(null, ChatProviderRouterTest::prompt);
+
+            assertThat(routed.provider()).isEqualTo(ChatClientTypeEnum.QWEN);
+            assertThat(contentOf(routed.response())).isEqualTo("来自千问");
+            assertThat(deepseek.calls).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("首选提供商过慢时发出对冲请求，先返回者胜出")
+        void shouldHedgeWhenPrimaryIsSlow() {
+            deepseek.onCall = () -> {
+                sleep(2000);
+                return chunk("来自DeepSeek");
+            };
+            qwen.onCall = () -> chunk("来自千问");
+
+            long start = System.currentTimeMillis();
+            ChatProviderRouter.RoutedResponse routed = router.call(ChatClientTypeEnum.DEEPSEEK, ChatProviderRouterTest::prompt);
+
+            assertThat(routed.provider()).isEqualTo(ChatClientTypeEnum.QWEN);
+            assertThat(System.currentTimeMillis() - start).isLessThan(1500);
+            assertThat(qwen.calls).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("首选提供商正常时不发出对冲请求")
+        void shouldNotHedgeWhenPrimaryIsFast() {
+            deepseek.onCall = () -> chunk("来自DeepSeek");
+
+            ChatProviderRouter.RoutedResponse routed = router.call(ChatClientTypeEnum.DEEPSEEK, ChatProviderRouterTest::prompt);
+
+            assertThat(routed.provider()).isEqualTo(ChatClientTypeEnum.DEEPSEEK);
+            assertThat(qwen.calls).hasValue(0);
+        }
+
+        @Test
+        @DisplayName("连续失败后熔断，不再请求该提供商")
+        void shouldOpenCircuitAfterFailures() {
+            settings.setFailoverEnabled(false);
+            settings.setMinimumCalls(4);
+            deepseek.onCall = () -> {
+                throw new RuntimeException("503 Service Unavailable");
+            };
+
+            for (int i = 0; i < 4; i++) {
+                assertThatThrownBy(() -> router.call(ChatClientTypeEnum.DEEPSEEK, ChatProviderRouterTest::prompt))
+                        .isInstanceOf(IllegalStateException.class);
+            }
+            assertThat(router.getState(ChatClientTypeEnum.DEEPSEEK)).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+
+            assertThatThrownBy(() -> router.call(ChatClientTypeEnum.DEEPSEEK, ChatProviderRouterTest::prompt))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("没有可用的AI提供商");
+            assertThat(deepseek.calls).hasValue(4);
+        }
+    }
+
+    @Nested
+    @DisplayName("流式调用测试")
+    class StreamTest {
+
+        @Test
+        @DisplayName("首个token前失败时切换提供商")
+        void shouldFailoverBeforeFirstToken() {
+            deepseek.onStream = () -> Flux.error(new RuntimeException("connection reset"));
+            qwen.onStream = () -> Flux.just(chunk(""), chunk("你"), chunk("好"));
+            List<ChatClientTypeEnum> selected = new CopyOnWriteArrayList<>();
+
+            List<ChatResponse> responses = router.stream(null, ChatProviderRouterTest::prompt, selected::add)
+                    .collectList().block(Duration.ofSeconds(5));
+
+            assertThat(selected).containsExactly(ChatClientTypeEnum.DEEPSEEK, ChatClientTypeEnum.QWEN);
+            // 首个有内容片段之前的空片段被过滤
+            assertThat(responses).extracting(ChatProviderRouterTest::contentOf).containsExactly("你", "好");
+        }
+
+        @Test
+        @DisplayName("已输出内容后失败不再切换提供商")
+        void shouldNotFailoverAfterFirstToken() {
+            deepseek.onStream = () -> Flux.just(chunk("部分"))
+                    .concatWith(Flux.error(new RuntimeException("connection reset")));
+            qwen.onStream = () -> Flux.just(chunk("完整回答"));
+            List<String> received = new CopyOnWriteArrayList<>();
+
+            assertThatThrownBy(() -> router.stream(null, ChatProviderRouterTest::prompt, provider -> {
+                    })
+                    .doOnNext(response -> received.add(contentOf(response)))
+                    .blockLast(Duration.ofSeconds(5)))
+                    .hasMessageContaining("connection reset");
+
+            assertThat(received).containsExactly("部分");
+            assertThat(qwen.calls).hasValue(0);
+        }
+
+        @Test
+        @DisplayName("未输出任何内容即结束时视为失败")
+        void shouldTreatEmptyStreamAsFailure() {
+            deepseek.onStream = () -> Flux.just(chunk(""));
+            qwen.onStream = () -> Flux.just(chunk("来自千问"));
+
+            String content = router.stream(null, ChatProviderRouterTest::prompt, provider -> {
+                    })
+                    .map(ChatProviderRouterTest::contentOf)
+                    .collect(Collectors.joining())
+                    .block(Duration.ofSeconds(5));
+
+            assertThat(content).isEqualTo("来自千问");
+        }
+    }
+
+    @Nested
+    @DisplayName("熔断器测试")
+    class CircuitBreakerTest {
+
+        private MutableClock clock;
+        private ProviderCircuitBreaker breaker;
+
+        @BeforeEach
+        void setUp() {
+            settings.setMinimumCalls(4);
+            clock = new MutableClock();
+            breaker = new ProviderCircuitBreaker("test", settings, clock);
+        }
+
+        private void fail(int times) {
+            for (int i = 0; i < times; i++) {
+                assertThat(breaker.tryAcquirePermission()).isTrue();
+                breaker.onFailure(10);
+            }
+        }
+
+        @Test
+        @DisplayName("调用数不足时不熔断")
+        void shouldStayClosedBelowMinimumCalls() {
+            fail(3);
+
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("失败率超过阈值时熔断")
+        void shouldOpenOnFailureRate() {
+            breaker.onSuccess(10);
+            breaker.onSuccess(10);
+            fail(2);
+
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+            assertThat(breaker.tryAcquirePermission()).isFalse();
+        }
+
+        @Test
+        @DisplayName("慢调用比例超过阈值时熔断")
+        void shouldOpenOnSlowCallRate() {
+            long slow = settings.getSlowCallThreshold().toMillis();
+            for (int i = 0; i < 4; i++) {
+                breaker.onSuccess(slow);
+            }
+
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        }
+
+        @Test
+        @DisplayName("窗口外的失败不再计入")
+        void shouldForgetFailuresOutsideWindow() {
+            fail(3);
+            clock.advance(settings.getWindowSize());
+            fail(1);
+
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("熔断结束后只放行一个探测请求，成功则恢复")
+        void shouldCloseAfterSuccessfulProbe() {
+            fail(4);
+            clock.advance(settings.getOpenDuration());
+
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.HALF_OPEN);
+            assertThat(breaker.tryAcquirePermission()).isFalse();
+
+            breaker.onSuccess(10);
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("探测失败时重新熔断")
+        void shouldReopenAfterFailedProbe() {
+            fail(4);
+            clock.advance(settings.getOpenDuration());
+
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            breaker.onFailure(10);
+
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+            assertThat(breaker.tryAcquirePermission()).isFalse();
+        }
+
+        @Test
+        @DisplayName("查询是否放行不改变熔断状态")
+        void shouldReportPermissionWithoutTransition() {
+            fail(4);
+            assertThat(breaker.isCallPermitted()).isFalse();
+
+            clock.advance(settings.getOpenDuration());
+            assertThat(breaker.isCallPermitted()).isTrue();
+            assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            assertThat(breaker.isCallPermitted()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("自适应并发限制测试")
+    class ConcurrencyLimiterTest {
+
+        @Test
+        @DisplayName("达到上限时拒绝，失败时收缩上限")
+        void shouldShrinkLimitOnDrop() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 10);
+            for (int i = 0; i < 4; i++) {
+                assertThat(limiter.tryAcquire()).isTrue();
+            }
+            assertThat(limiter.tryAcquire()).isFalse();
+
+            limiter.onDropped();
+
+            assertThat(limiter.getLimit()).isEqualTo(2);
+            assertThat(limiter.getInFlight()).isEqualTo(3);
+            assertThat(limiter.tryAcquire()).isFalse();
+        }
+
+        @Test
+        @DisplayName("成功时缓慢增加上限且不超过最大值")
+        void shouldGrowLimitOnSuccess() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 3);
+            for (int i = 0; i < 20; i++) {
+                limiter.tryAcquire();
+                limiter.onSuccess();
+            }
+
+            assertThat(limiter.getLimit()).isEqualTo(3);
+            assertThat(limiter.getInFlight()).isZero();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 可模拟耗时和失败的本地模型
+     */
+    private static final class StubChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Supplier<ChatResponse> onCall = () -> chunk("ok");
+        private volatile Supplier<Flux<ChatResponse>> onStream = () -> Flux.just(chunk("ok"));
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            return onCall.get();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            calls.incrementAndGet();
+            return Flux.defer(onStream);
+        }
+
+        @Override
+        public ChatOptions getDefaultOptions() {
+            return OpenAiChatOptions.builder().build();
+        }
+    }
+
+    /**
+     * 可手动推进的时钟
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.enums.ai.ChatMessageRoleEnum;
+import top.harrylei.community.api.model.ai.dto.ChatResponseCacheEntry;
+import top.harrylei.community.api.model.ai.req.ChatReq;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.core.util.TextSimilarityUtil;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.repository.entity.ChatMessageDO;
+import top.harrylei.community.service.ai.service.cache.ChatResponseCacheService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI响应缓存服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatResponseCacheService 测试")
+class ChatResponseCacheServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final String SYSTEM_PROMPT = "你是一个AI助手";
+
+    private RedisUtil redisUtil;
+    private AiProviderConfig.ResponseCacheSettings settings;
+    private ChatResponseCacheService chatResponseCacheService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        settings = new AiProviderConfig.ResponseCacheSettings();
+        settings.setEnabled(true);
+
+        AiProviderConfig aiProviderConfig = mock(AiProviderConfig.class);
+        when(aiProviderConfig.getResponseCache()).thenReturn(settings);
+        when(aiProviderConfig.getDefaultProvider()).thenReturn(ChatClientTypeEnum.DEEPSEEK);
+        when(aiProviderConfig.getDefaultModel(ChatClientTypeEnum.DEEPSEEK)).thenReturn("deepseek-chat");
+
+        chatResponseCacheService = new ChatResponseCacheService(redisUtil, aiProviderConfig);
+    }
+
+    private static ChatReq request(String message) {
+        ChatReq chatReq = new ChatReq();
+        chatReq.setMessage(message);
+        return chatReq;
+    }
+
+    private ChatResponseCacheService.CacheKey buildKey(String message, List<ChatMessageDO> context) {
+        return chatResponseCacheService.buildKey(USER_ID, SYSTEM_PROMPT, request(message), context);
+    }
+
+    private static ChatMessageDO message(ChatMessageRoleEnum role, String content) {
+        ChatMessageDO message = new ChatMessageDO();
+        message.setMessageType(role);
+        message.setContent(content);
+        return message;
+    }
+
+    private static ChatResponseCacheEntry entry(String question, String content) {
+        return ChatResponseCacheEntry.builder()
+                .prompt(TextSimilarityUtil.normalize(question))
+                .provider(ChatClientTypeEnum.DEEPSEEK)
+                .model("deepseek-chat")
+                .content(content)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("缓存键测试")
+    class CacheKeyTest {
+
+        @Test
+        @DisplayName("未启用时不构建缓存键")
+        void shouldSkipWhenDisabled() {
+            settings.setEnabled(false);
+
+            assertThat(buildKey("如何发布文章", List.of())).isNull();
+            assertThat(chatResponseCacheService.lookup(null)).isNull();
+            verifyNoInteractions(redisUtil);
+        }
+
+        @Test
+        @DisplayName("大小写、全半角和标点不同的问题使用同一个键")
+        void shouldNormalizePrompt() {
+            ChatResponseCacheService.CacheKey a = buildKey("如何发布Article？", List.of());
+            ChatResponseCacheService.CacheKey b = buildKey(" 如何发布ａｒｔｉｃｌｅ ", List.of());
+
+            assertThat(a.promptHash()).isEqualTo(b.promptHash());
+        }
+
+        @Test
+        @DisplayName("新对话中只有当前问题时与空上下文相同，历史不同时范围不同")
+        void shouldFingerprintContextBeforeCurrentMessage() {
+            String question = "如何发布文章";
+            ChatResponseCacheService.CacheKey empty = buildKey(question, List.of());
+            ChatResponseCacheService.CacheKey firstTurn = buildKey(question,
+                    List.of(message(ChatMessageRoleEnum.USER, question)));
+            ChatResponseCacheService.CacheKey followUp = buildKey(question, List.of(
+                    message(ChatMessageRoleEnum.USER, "你好"),
+                    message(ChatMessageRoleEnum.ASSISTANT, "你好，有什么可以帮你？"),
+                    message(ChatMessageRoleEnum.USER, question)));
+
+            assertThat(firstTurn.scope()).isEqualTo(empty.scope());
+            assertThat(followUp.scope()).isNotEqualTo(empty.scope());
+        }
+
+        @Test
+        @DisplayName("不同用户或系统提示词的相同问题范围不同")
+        void shouldScopeByUserAndSystemPrompt() {
+            ChatResponseCacheService.CacheKey key = buildKey("如何发布文章", List.of());
+            ChatResponseCacheService.CacheKey otherUser = chatResponseCacheService.buildKey(2L, SYSTEM_PROMPT,
+                    request("如何发布文章"), List.of());
+            ChatResponseCacheService.CacheKey otherPrompt = chatResponseCacheService.buildKey(USER_ID, "你是一个翻译助手",
+                    request("如何发布文章"), List.of());
+
+            assertThat(otherUser.scope()).isNotEqualTo(key.scope());
+            assertThat(otherUser.promptHash()).isNotEqualTo(key.promptHash());
+            assertThat(otherPrompt.scope()).isNotEqualTo(key.scope());
+        }
+
+        @Test
+        @DisplayName("关闭按用户隔离后不同用户共享范围")
+        void shouldShareScopeAcrossUsersWhenNotPerUser() {
+            settings.setPerUser(false);
+
+            assertThat(chatResponseCacheService.buildKey(2L, SYSTEM_PROMPT, request("如何发布文章"), List.of()).scope())
+                    .isEqualTo(buildKey("如何发布文章", List.of()).scope());
+        }
+
+        @Test
+        @DisplayName("默认不参与近似匹配")
+        void shouldSkipBandsByDefault() {
+            assertThat(buildKey("博客平台如何修改个人头像", List.of()).bands()).isNull();
+        }
+
+        @Test
+        @DisplayName("过短的问题不参与近似匹配")
+        void shouldSkipBandsForShortPrompt() {
+            settings.setNearDuplicateEnabled(true);
+
+            assertThat(buildKey("你好", List.of()).bands()).isNull();
+            assertThat(buildKey("博客平台如何修改个人头像", List.of()).bands())
+                    .hasSize(TextSimilarityUtil.MIN_HASH_SIZE / TextSimilarityUtil.LSH_ROWS_PER_BAND);
+        }
+    }
+
+    @Nested
+    @DisplayName("查找测试")
+    class LookupTest {
+
+        @Test
+        @DisplayName("精确命中时不再查询近似候选")
+        void shouldReturnExactHit() {
+            ChatResponseCacheService.CacheKey key = buildKey("博客平台如何修改个人头像", List.of());
+            ChatResponseCacheEntry cached = entry("博客平台如何修改个人头像", "在个人中心上传新头像即可。");
+            when(redisUtil.get(anyString(), eq(ChatResponseCacheEntry.class))).thenReturn(cached);
+
+            assertThat(chatResponseCacheService.lookup(key)).isSameAs(cached);
+            verify(redisUtil, never()).evalForList(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("近似问题按相似度命中最接近的候选")
+        void shouldReturnMostSimilarCandidate() {
+            settings.setNearDuplicateEnabled(true);
+            ChatResponseCacheService.CacheKey key = buildKey("博客平台如何修改个人头像呢？", List.of());
+            ChatResponseCacheEntry similar = entry("博客平台如何修改个人头像", "在个人中心上传新头像即可。");
+            ChatResponseCacheEntry unrelated = entry("博客平台如何修改登录密码", "在安全设置中修改密码。");
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of("h1", "h2"));
+            when(redisUtil.mGet(anyList(), eq(ChatResponseCacheEntry.class))).thenReturn(Map.of("k1", similar, "k2", unrelated));
+
+            assertThat(chatResponseCacheService.lookup(key)).isSameAs(similar);
+        }
+
+        @Test
+        @DisplayName("默认配置下文字相同、数字不同的问题不命中")
+        void shouldMissNumberVariantByDefault() {
+            ChatResponseCacheService.CacheKey cachedKey = buildKey("文章草稿最多可以保存30天吗，过期后还能恢复吗", List.of());
+            ChatResponseCacheService.CacheKey key = buildKey("文章草稿最多可以保存90天吗，过期后还能恢复吗", List.of());
+
+            assertThat(key.promptHash()).isNotEqualTo(cachedKey.promptHash());
+            assertThat(chatResponseCacheService.lookup(key)).isNull();
+            verify(redisUtil).get(RedisKeyConstants.getChatResponseCacheKey(key.promptHash()), ChatResponseCacheEntry.class);
+            verify(redisUtil, never()).evalForList(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("开启近似匹配时文字相同、数字不同的候选也不命中")
+        void shouldRejectCandidateWithDifferentNumbers() {
+            settings.setNearDuplicateEnabled(true);
+            ChatResponseCacheService.CacheKey key = buildKey("文章草稿最多可以保存90天吗，过期后还能恢复吗", List.of());
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of("h1"));
+            when(redisUtil.mGet(anyList(), eq(ChatResponseCacheEntry.class)))
+                    .thenReturn(Map.of("k1", entry("文章草稿最多可以保存30天吗，过期后还能恢复吗", "草稿保存30天，过期后无法恢复。")));
+
+            assertThat(TextSimilarityUtil.jaccard(key.prompt(), TextSimilarityUtil.normalize("文章草稿最多可以保存30天吗，过期后还能恢复吗")))
+                    .isGreaterThanOrEqualTo(settings.getSimilarityThreshold());
+            assertThat(chatResponseCacheService.lookup(key)).isNull();
+        }
+
+        @Test
+        @DisplayName("相似度低于阈值时不命中")
+        void shouldMissBelowThreshold() {
+            settings.setNearDuplicateEnabled(true);
+            ChatResponseCacheService.CacheKey key = buildKey("博客平台如何修改个人头像", List.of());
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of("h1"));
+            when(redisUtil.mGet(anyList(), eq(ChatResponseCacheEntry.class)))
+                    .thenReturn(Map.of("k1", entry("Redis集群的主从复制原理是什么", "主从复制……")));
+
+            assertThat(chatResponseCacheService.lookup(key)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("写入与回放测试")
+    class StoreTest {
+
+        @Test
+        @DisplayName("写入缓存条目并索引全部分段")
+        @SuppressWarnings("unchecked")
+        void shouldStoreEntryAndIndexBands() {
+            settings.setNearDuplicateEnabled(true);
+            ChatResponseCacheService.CacheKey key = buildKey("博客平台如何修改个人头像", List.of());
+            when(redisUtil.set(anyString(), any(ChatResponseCacheEntry.class), any(Duration.class))).thenReturn(true);
+
+            chatResponseCacheService.store(key, ChatClientTypeEnum.QWEN, "qwen-plus", "在个人中心上传新头像即可。");
+
+            ArgumentCaptor<List<String>> bandKeys = ArgumentCaptor.forClass(List.class);
+            verify(redisUtil).evalForLong(anyString(), bandKeys.capture(), any(Object[].class));
+            assertThat(bandKeys.getValue()).hasSize(key.bands().length).allMatch(k -> k.contains(key.scope()));
+        }
+
+        @Test
+        @DisplayName("超长回答不缓存")
+        void shouldSkipLongResponse() {
+            settings.setMaxResponseLength(10);
+            ChatResponseCacheService.CacheKey key = buildKey("博客平台如何修改个人头像", List.of());
+
+            chatResponseCacheService.store(key, ChatClientTypeEnum.DEEPSEEK, "deepseek-chat", "这是一个超过十个字符长度的回答");
+
+            verify(redisUtil, never()).set(anyString(), any(), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("回放内容完整且按码点分段")
+        void shouldReplayWholeContent() {
+            String content = "头像😀可以在个人中心修改，支持 JPG 和 PNG 格式。";
+
+            List<String> segments = chatResponseCacheService.replay(entry("博客平台如何修改个人头像", content))
+                    .map(response -> response.getResult().getOutput().getContent())
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            assertThat(segments).hasSizeGreaterThan(1);
+            assertThat(String.join("", segments)).isEqualTo(content);
+        }
+    }
+}
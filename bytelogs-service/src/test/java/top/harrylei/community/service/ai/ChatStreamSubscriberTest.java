@@ -0,0 +1,155 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import top.harrylei.community.service.ai.stream.ChatStreamSubscriber;
+import top.harrylei.community.service.ai.stream.ChatUsageMeter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI流式响应订阅者测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatStreamSubscriber 测试")
+class ChatStreamSubscriberTest {
+
+    private final List<String> frames = new CopyOnWriteArrayList<>();
+    private final AtomicReference<String> terminal = new AtomicReference<>();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private final ChatStreamSubscriber.Listener listener = new ChatStreamSubscriber.Listener() {
+        @Override
+        public void onComplete(ChatStreamSubscriber subscriber) {
+            terminal.set("complete");
+            terminated.countDown();
+        }
+
+        @Override
+        public void onError(ChatStreamSubscriber subscriber, Throwable error) {
+            terminal.set("error");
+            terminated.countDown();
+        }
+
+        @Override
+        public void onCancel(ChatStreamSubscriber subscriber) {
+            terminal.set("cancel");
+            terminated.countDown();
+        }
+    };
+
+    /**
+     * 不触发定时发送的调度器，只验证按字节阈值合并
+     */
+    private static Scheduler manualScheduler() {
+        Scheduler scheduler = mock(Scheduler.class);
+        when(scheduler.schedulePeriodically(any(), anyLong(), anyLong(), any())).thenReturn(mock(Disposable.class));
+        return scheduler;
+    }
+
+    private static ChatResponse chunk(String content) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+    }
+
+    @Test
+    @DisplayName("按字节阈值合并片段，内容完整且顺序不变")
+    void shouldCoalesceChunksIntoFrames() throws InterruptedException {
+        ChatStreamSubscriber subscriber = new ChatStreamSubscriber(frames::add, listener, manualScheduler());
+
+        Flux.range(0, 100).map(i -> chunk("abcd")).subscribe(subscriber);
+
+        assertThat(terminated.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(terminal.get()).isEqualTo("complete");
+        assertThat(subscriber.getChunkCount()).isEqualTo(100);
+        // 每帧至少64字节，最后一帧为剩余内容
+        assertThat(frames).hasSize(7);
+        assertThat(subscriber.getFrameCount()).isEqualTo(7);
+        assertThat(String.join("", frames)).isEqualTo("abcd".repeat(100)).isEqualTo(subscriber.getFullContent());
+    }
+
+    @Test
+    @DisplayName("未达到字节阈值时按时间窗口发送")
+    void shouldFlushPendingContentAfterInterval() throws InterruptedException {
+        CountDownLatch firstFrame = new CountDownLatch(1);
+        ChatStreamSubscriber subscriber = new ChatStreamSubscriber(frame -> {
+            frames.add(frame);
+            firstFrame.countDown();
+        }, listener);
+
+        Flux.just(chunk("你好")).concatWith(Flux.never()).subscribe(subscriber);
+
+        assertThat(firstFrame.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(frames).containsExactly("你好");
+        subscriber.dispose();
+    }
+
+    @Test
+    @DisplayName("取消订阅向上游传播并只回调一次")
+    void shouldPropagateCancellationUpstream() throws InterruptedException {
+        AtomicInteger upstreamCancelled = new AtomicInteger();
+        ChatStreamSubscriber subscriber = new ChatStreamSubscriber(frames::add, listener);
+
+        Flux.just(chunk("partial")).concatWith(Flux.never())
+                .doOnCancel(upstreamCancelled::incrementAndGet)
+                .subscribe(subscriber);
+        subscriber.dispose();
+        subscriber.dispose();
+
+        assertThat(terminated.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(terminal.get()).isEqualTo("cancel");
+        assertThat(upstreamCancelled).hasValue(1);
+        assertThat(subscriber.getFullContent()).isEqualTo("partial");
+    }
+
+    @Test
+    @DisplayName("向上游的请求数有界")
+    void shouldRequestBoundedDemand() throws InterruptedException {
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        ChatStreamSubscriber subscriber = new ChatStreamSubscriber(frames::add, listener, manualScheduler());
+
+        Flux.range(0, 200).map(i -> chunk("x"))
+                .doOnRequest(requests::add)
+                .subscribe(subscriber);
+
+        assertThat(terminated.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(requests).first().isEqualTo((long) ChatStreamSubscriber.PREFETCH);
+        assertThat(requests).allMatch(n -> n <= ChatStreamSubscriber.PREFETCH);
+    }
+
+    @Test
+    @DisplayName("超出token预算时发送已生成内容并截断")
+    void shouldTruncateWhenBudgetExceeded() throws InterruptedException {
+        AtomicInteger upstreamCancelled = new AtomicInteger();
+        ChatStreamSubscriber subscriber = new ChatStreamSubscriber(frames::add, listener, manualScheduler());
+        subscriber.setUsageMeter(new ChatUsageMeter(0, 3));
+
+        Flux.range(0, 10).map(i -> chunk("字"))
+                .doOnCancel(upstreamCancelled::incrementAndGet)
+                .subscribe(subscriber);
+
+        assertThat(terminated.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(terminal.get()).isEqualTo("cancel");
+        assertThat(subscriber.isTruncated()).isTrue();
+        assertThat(upstreamCancelled).hasValue(1);
+        assertThat(subscriber.getFullContent()).isEqualTo("字字字字");
+        assertThat(String.join("", frames)).isEqualTo("字字字字");
+    }
+}
@@ -0,0 +1,139 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.context.ApplicationEventPublisher;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.model.ai.ChatTitleEvent;
+import top.harrylei.community.service.ai.adapter.ChatClientSelector;
+import top.harrylei.community.service.ai.adapter.ChatOptionsAdapter;
+import top.harrylei.community.service.ai.config.AiProviderConfig;
+import top.harrylei.community.service.ai.repository.dao.ChatConversationDAO;
+import top.harrylei.community.service.ai.service.impl.ChatTitleServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI对话标题服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatTitleService 测试")
+class ChatTitleServiceTest {
+
+    private ChatConversationDAO chatConversationDAO;
+    private ChatClient chatClient;
+    private ApplicationEventPublisher eventPublisher;
+    private List<Runnable> submitted;
+    private ChatTitleServiceImpl chatTitleService;
+
+    @BeforeEach
+    void setUp() {
+        chatConversationDAO = mock(ChatConversationDAO.class);
+        chatClient = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        ChatClientSelector chatClientSelector = mock(ChatClientSelector.class);
+        when(chatClientSelector.select(any())).thenReturn(chatClient);
+        AiProviderConfig aiProviderConfig = mock(AiProviderConfig.class);
+        when(aiProviderConfig.getDefaultProvider()).thenReturn(ChatClientTypeEnum.DEEPSEEK);
+
+        // 手动执行提交的任务，便于让多个标题进入同一批次
+        submitted = new ArrayList<>();
+        chatTitleService = new ChatTitleServiceImpl(chatConversationDAO, chatClientSelector,
+                mock(ChatOptionsAdapter.class), aiProviderConfig, eventPublisher, submitted::add);
+    }
+
+    private void runSubmitted() {
+        while (!submitted.isEmpty()) {
+            submitted.remove(0).run();
+        }
+    }
+
+    @Nested
+    @DisplayName("临时标题测试")
+    class HeuristicTitleTest {
+
+        @Test
+        @DisplayName("取首句作为标题")
+        void shouldUseFirstSentence() {
+            assertThat(chatTitleService.heuristicTitle("如何配置Redis？我用的是Spring Boot 3"))
+                    .isEqualTo("如何配置Redis");
+        }
+
+        @Test
+        @DisplayName("去除Markdown标记并截断超长内容")
+        void shouldStripMarkdownAndTruncate() {
+            assertThat(chatTitleService.heuristicTitle("## 请解释一下 `volatile` 关键字在多线程环境下的可见性保证"))
+                    .isEqualTo("请解释一下 volatile 关键字在多...");
+        }
+
+        @Test
+        @DisplayName("空消息使用默认标题")
+        void shouldFallbackForBlankMessage() {
+            assertThat(chatTitleService.heuristicTitle("  ")).isEqualTo("新对话");
+        }
+    }
+
+    @Nested
+    @DisplayName("异步生成测试")
+    class AsyncGenerateTest {
+
+        @Test
+        @DisplayName("多个待生成标题合并为一次请求并按编号更新")
+        void shouldBatchTitlesIntoSingleRequest() {
+            when(chatClient.prompt().system(anyString()).user(anyString()).call().content())
+                    .thenReturn("1. Redis配置\n2）线程可见性");
+            when(chatConversationDAO.updateTitle(anyLong(), anyString(), anyString())).thenReturn(true);
+
+            chatTitleService.generateTitleAsync(1L, 10L, "如何配置Redis", "如何配置Redis？");
+            chatTitleService.generateTitleAsync(2L, 20L, "volatile是什么", "volatile是什么");
+            runSubmitted();
+
+            verify(chatConversationDAO).updateTitle(10L, "如何配置Redis", "Redis配置");
+            verify(chatConversationDAO).updateTitle(20L, "volatile是什么", "线程可见性");
+            verify(eventPublisher, times(2)).publishEvent(any(ChatTitleEvent.class));
+        }
+
+        @Test
+        @DisplayName("AI调用失败时保留临时标题")
+        void shouldKeepHeuristicTitleOnFailure() {
+            when(chatClient.prompt().system(anyString()).user(anyString()).call().content())
+                    .thenThrow(new RuntimeException("timeout"));
+
+            chatTitleService.generateTitleAsync(1L, 10L, "如何配置Redis", "如何配置Redis？");
+            runSubmitted();
+
+            verify(chatConversationDAO, never()).updateTitle(anyLong(), anyString(), anyString());
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("标题已被修改时不推送")
+        void shouldNotPushWhenTitleChanged() {
+            when(chatClient.prompt().system(anyString()).user(anyString()).call().content()).thenReturn("Redis配置");
+            when(chatConversationDAO.updateTitle(eq(10L), anyString(), anyString())).thenReturn(false);
+
+            chatTitleService.generateTitleAsync(1L, 10L, "如何配置Redis", "如何配置Redis？");
+            runSubmitted();
+
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.model.ai.dto.ChatTokenUsage;
+import top.harrylei.community.service.ai.adapter.ChatUsageAdapter;
+import top.harrylei.community.service.ai.stream.ChatUsageMeter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI用量计量测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatUsageMeter 测试")
+class ChatUsageMeterTest {
+
+    @Nested
+    @DisplayName("增量计量测试")
+    class MeterTest {
+
+        @Test
+        @DisplayName("累计估算用量超出预算时返回false")
+        void shouldDetectBudgetExceeded() {
+            ChatUsageMeter meter = new ChatUsageMeter(10, 14);
+
+            assertThat(meter.record("你好世界")).isTrue();
+            assertThat(meter.record("再见")).isFalse();
+            assertThat(meter.getEstimatedCompletionTokens()).isEqualTo(6);
+        }
+
+        @Test
+        @DisplayName("提供商未返回用量时使用估算值")
+        void shouldFallbackToEstimate() {
+            ChatUsageMeter meter = new ChatUsageMeter(10, Long.MAX_VALUE);
+            meter.record("你好");
+
+            ChatTokenUsage usage = meter.reconcile(null);
+
+            assertThat(usage.isEstimated()).isTrue();
+            assertThat(usage.getPromptTokens()).isEqualTo(10L);
+            assertThat(usage.getCompletionTokens()).isEqualTo(2L);
+            assertThat(usage.getTotalTokens()).isEqualTo(12L);
+        }
+
+        @Test
+        @DisplayName("以提供商返回的用量为准")
+        void shouldPreferReportedUsage() {
+            ChatUsageMeter meter = new ChatUsageMeter(10, Long.MAX_VALUE);
+            meter.record("你好");
+            ChatTokenUsage reported = new ChatTokenUsage(30L, 5L, 35L, false);
+
+            assertThat(meter.reconcile(reported)).isSameAs(reported);
+        }
+    }
+
+    @Nested
+    @DisplayName("用量适配测试")
+    class AdapterTest {
+
+        private final ChatUsageAdapter chatUsageAdapter = new ChatUsageAdapter();
+
+        private static ChatResponseMetadata metadata(Long prompt, Long generation, Long total) {
+            Usage usage = mock(Usage.class);
+            when(usage.getPromptTokens()).thenReturn(prompt);
+            when(usage.getGenerationTokens()).thenReturn(generation);
+            when(usage.getTotalTokens()).thenReturn(total);
+            ChatResponseMetadata metadata = mock(ChatResponseMetadata.class);
+            when(metadata.getUsage()).thenReturn(usage);
+            return metadata;
+        }
+
+        @Test
+        @DisplayName("读取OpenAI兼容接口返回的用量")
+        void shouldExtractOpenAiUsage() {
+            ChatTokenUsage usage = chatUsageAdapter.extractUsage(ChatClientTypeEnum.DEEPSEEK, metadata(20L, 8L, 28L));
+
+            assertThat(usage).isEqualTo(new ChatTokenUsage(20L, 8L, 28L, false));
+        }
+
+        @Test
+        @DisplayName("未返回总数时按分项求和")
+        void shouldSumWhenTotalMissing() {
+            ChatTokenUsage usage = chatUsageAdapter.extractUsage(ChatClientTypeEnum.QWEN, metadata(20L, 8L, null));
+
+            assertThat(usage.getTotalTokens()).isEqualTo(28L);
+        }
+
+        @Test
+        @DisplayName("用量为空时返回null")
+        void shouldReturnNullWhenUsageEmpty() {
+            assertThat(chatUsageAdapter.extractUsage(ChatClientTypeEnum.DEEPSEEK, metadata(0L, 0L, 0L))).isNull();
+            assertThat(chatUsageAdapter.extractUsage(ChatClientTypeEnum.DEEPSEEK, null)).isNull();
+        }
+    }
+}
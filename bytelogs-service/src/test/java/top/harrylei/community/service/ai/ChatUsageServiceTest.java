@@ -0,0 +1,195 @@
+package top.harrylei.community.service.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.enums.ai.ChatClientTypeEnum;
+import top.harrylei.community.api.exception.BusinessException;
+import top.harrylei.community.api.model.ai.dto.ChatQuotaReservation;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.config.AILimitConfig;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.ai.repository.dao.ChatUsageStatsDAO;
+import top.harrylei.community.service.ai.repository.entity.ChatUsageStatsDO;
+import top.harrylei.community.service.ai.service.impl.ChatUsageServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI使用量统计服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ChatUsageService 测试")
+class ChatUsageServiceTest {
+
+    private static final Long USER_ID = 100L;
+
+    private RedisUtil redisUtil;
+    private ChatUsageStatsDAO chatUsageStatsDAO;
+    private ChatUsageServiceImpl chatUsageService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        chatUsageStatsDAO = mock(ChatUsageStatsDAO.class);
+        chatUsageService = new ChatUsageServiceImpl(new AILimitConfig(), chatUsageStatsDAO, redisUtil);
+    }
+
+    private static ChatUsageStatsDO delta(ChatClientTypeEnum provider, String model, long tokens) {
+        ChatUsageStatsDO delta = new ChatUsageStatsDO();
+        delta.setUserId(USER_ID);
+        delta.setDate(LocalDate.of(2025, 1, 1));
+        delta.setProvider(provider);
+        delta.setModelName(model);
+        delta.setMessageCount(2);
+        delta.setConversationCount(0);
+        delta.setPromptTokens(tokens / 2);
+        delta.setCompletionTokens(tokens - tokens / 2);
+        delta.setTotalTokens(tokens);
+        return delta;
+    }
+
+    @Nested
+    @DisplayName("配额预占测试")
+    class ReserveTest {
+
+        @Test
+        @DisplayName("计数未初始化时从数据库初始化后重试")
+        void shouldSeedAndRetryWhenCounterMissing() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(-1L, 1L, 0L);
+            when(chatUsageStatsDAO.listByUserIdAndDate(eq(USER_ID), any())).thenReturn(List.of());
+
+            ChatQuotaReservation reservation = chatUsageService.reserveQuota(USER_ID, 10);
+
+            assertThat(reservation.getMessages()).isEqualTo(2);
+            assertThat(reservation.getEstimatedTokens()).isEqualTo(10L);
+            verify(chatUsageStatsDAO).listByUserIdAndDate(eq(USER_ID), any());
+            verify(redisUtil, times(3)).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("超出限制时抛出业务异常")
+        void shouldThrowWhenLimitExceeded() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(2L);
+
+            assertThatThrownBy(() -> chatUsageService.reserveQuota(USER_ID, 10))
+                    .isInstanceOf(BusinessException.class);
+        }
+
+        @Test
+        @DisplayName("Redis不可用时放行")
+        void shouldFailOpenWhenRedisUnavailable() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(null);
+
+            assertThat(chatUsageService.reserveQuota(USER_ID, 10)).isNotNull();
+        }
+
+        @Test
+        @DisplayName("结算或释放后不再重复处理")
+        void shouldSettleOnlyOnce() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(0L, 1L);
+            ChatQuotaReservation reservation = chatUsageService.reserveQuota(USER_ID, 10);
+
+            chatUsageService.settleUsage(reservation, ChatClientTypeEnum.DEEPSEEK, "deepseek-chat", 5L, 5L, 10L, 1);
+            chatUsageService.releaseQuota(reservation);
+
+            // 预占一次 + 结算一次
+            verify(redisUtil, times(2)).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+    }
+
+    @Nested
+    @DisplayName("批量落库测试")
+    class FlushTest {
+
+        @BeforeEach
+        void lock() {
+            when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        }
+
+        @Test
+        @DisplayName("相同维度的增量合并为一行")
+        @SuppressWarnings("unchecked")
+        void shouldMergeDeltasByDimension() {
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of(
+                    JsonUtil.toJson(delta(ChatClientTypeEnum.DEEPSEEK, "deepseek-chat", 10)),
+                    JsonUtil.toJson(delta(ChatClientTypeEnum.DEEPSEEK, "deepseek-chat", 20)),
+                    JsonUtil.toJson(delta(ChatClientTypeEnum.QWEN, "qwen-plus", 30))));
+
+            int flushed = chatUsageService.flushPendingUsage(500);
+
+            ArgumentCaptor<List<ChatUsageStatsDO>> captor = ArgumentCaptor.forClass(List.class);
+            verify(chatUsageStatsDAO).upsertBatch(captor.capture());
+            assertThat(flushed).isEqualTo(3);
+            assertThat(captor.getValue()).hasSize(2);
+            assertThat(captor.getValue().get(0).getTotalTokens()).isEqualTo(30L);
+            assertThat(captor.getValue().get(0).getMessageCount()).isEqualTo(4);
+            assertThat(captor.getValue().get(1).getProvider()).isEqualTo(ChatClientTypeEnum.QWEN);
+            verify(redisUtil).del(RedisKeyConstants.getChatUsageProcessingKey());
+        }
+
+        @Test
+        @DisplayName("从待落库队列移入落库中队列后再落库")
+        @SuppressWarnings("unchecked")
+        void shouldDrainIntoProcessingQueue() {
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of());
+
+            chatUsageService.flushPendingUsage(500);
+
+            ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+            verify(redisUtil).evalForList(anyString(), keys.capture(), eq(500));
+            assertThat(keys.getValue()).containsExactly(RedisKeyConstants.getChatUsagePendingKey(),
+                    RedisKeyConstants.getChatUsageProcessingKey());
+        }
+
+        @Test
+        @DisplayName("落库失败时保留落库中队列，下一轮重试")
+        void shouldKeepProcessingQueueWhenUpsertFails() {
+            String item = JsonUtil.toJson(delta(ChatClientTypeEnum.DEEPSEEK, "deepseek-chat", 10));
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of(item));
+            doThrow(new RuntimeException("db down")).when(chatUsageStatsDAO).upsertBatch(anyList());
+
+            assertThat(chatUsageService.flushPendingUsage(500)).isZero();
+            verify(redisUtil, never()).del(anyString());
+            verify(redisUtil, never()).rPush(anyString(), any(String[].class));
+            verify(redisUtil).releaseLock(eq("ai_usage_flush"), anyString());
+        }
+
+        @Test
+        @DisplayName("其他实例正在落库时跳过本轮")
+        void shouldSkipWhenLockHeld() {
+            when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+            assertThat(chatUsageService.flushPendingUsage(500)).isZero();
+            verify(redisUtil, never()).evalForList(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("队列为空时不访问数据库")
+        void shouldSkipWhenQueueEmpty() {
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of());
+
+            assertThat(chatUsageService.flushPendingUsage(500)).isZero();
+            verify(chatUsageStatsDAO, never()).upsertBatch(anyList());
+        }
+    }
+}
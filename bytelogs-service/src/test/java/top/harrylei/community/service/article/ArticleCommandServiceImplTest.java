@@ -18,15 +18,18 @@ import top.harrylei.community.api.enums.user.OperateTypeEnum;
 import top.harrylei.community.api.exception.BusinessException;
 import top.harrylei.community.api.model.article.dto.ArticleDTO;
 import top.harrylei.community.core.context.ReqInfoContext;
-import top.harrylei.community.core.util.KafkaEventPublisher;
+import top.harrylei.community.core.util.ResourceVersionUtil;
 import top.harrylei.community.service.article.converted.ArticleStructMapper;
 import top.harrylei.community.service.article.repository.dao.ArticleDAO;
 import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
 import top.harrylei.community.service.article.repository.entity.ArticleDO;
 import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
 import top.harrylei.community.service.article.service.ArticleTagService;
+import top.harrylei.community.service.article.service.cache.ArticleDiffCacheService;
 import top.harrylei.community.service.article.service.impl.ArticleCommandServiceImpl;
-import top.harrylei.community.service.user.service.UserFollowService;
+import top.harrylei.community.service.article.service.notify.ArticleNotifyService;
+import top.harrylei.community.service.article.service.render.ArticleRenderService;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
 import top.harrylei.community.service.user.service.UserFootService;
 
 import java.util.Collections;
@@ -64,10 +67,19 @@ class ArticleCommandServiceImplTest {
     private UserFootService userFootService;
 
     @Mock
-    private UserFollowService userFollowService;
+    private ArticleNotifyService articleNotifyService;
 
     @Mock
-    private KafkaEventPublisher kafkaEventPublisher;
+    private ArticleVersionStorageService articleVersionStorageService;
+
+    @Mock
+    private ArticleDiffCacheService articleDiffCacheService;
+
+    @Mock
+    private ArticleRenderService articleRenderService;
+
+    @Mock
+    private ResourceVersionUtil resourceVersionUtil;
 
     @InjectMocks
     private ArticleCommandServiceImpl articleCommandService;
@@ -185,7 +197,6 @@ class ArticleCommandServiceImplTest {
             when(articleStructMapper.toDO(articleDTO)).thenReturn(articleDO);
             when(articleDAO.insertArticle(any(ArticleDO.class))).thenReturn(1L);
             when(articleStructMapper.toDetailDO(articleDTO)).thenReturn(detailDO);
-            when(userFollowService.listFollowerIds(userId)).thenReturn(Collections.emptyList());
 
             // When
             articleCommandService.saveArticle(articleDTO);
@@ -195,6 +206,48 @@ class ArticleCommandServiceImplTest {
                     ArticlePublishStatusEnum.PUBLISHED.equals(detail.getStatus())
             ));
         }
+
+        private ArticleDTO adminPublishedArticle() {
+            setupAdminContext(1L);
+            ArticleDTO articleDTO = new ArticleDTO();
+            articleDTO.setTitle("Admin Article");
+            articleDTO.setStatus(ArticlePublishStatusEnum.PUBLISHED);
+
+            ArticleDO articleDO = new ArticleDO();
+            articleDO.setId(1L);
+            articleDO.setUserId(1L);
+            when(articleStructMapper.toDO(articleDTO)).thenReturn(articleDO);
+            when(articleDAO.insertArticle(any(ArticleDO.class))).thenReturn(1L);
+            when(articleStructMapper.toDetailDO(articleDTO)).thenReturn(new ArticleDetailDO());
+            return articleDTO;
+        }
+
+        @Test
+        @DisplayName("直接发布的文章通知粉丝")
+        void shouldNotifyFollowersWhenPublished() {
+            ArticleDTO articleDTO = adminPublishedArticle();
+
+            articleCommandService.saveArticle(articleDTO);
+
+            verify(articleNotifyService).notifyFollowersAfterCommit(1L, 1L);
+        }
+
+        @Test
+        @DisplayName("待审核的文章不通知粉丝")
+        void shouldNotNotifyFollowersWhenInReview() {
+            setupNormalUserContext(1L);
+            ArticleDTO articleDTO = new ArticleDTO();
+            articleDTO.setStatus(ArticlePublishStatusEnum.PUBLISHED);
+            ArticleDO articleDO = new ArticleDO();
+            articleDO.setUserId(1L);
+            when(articleStructMapper.toDO(articleDTO)).thenReturn(articleDO);
+            when(articleDAO.insertArticle(any(ArticleDO.class))).thenReturn(1L);
+            when(articleStructMapper.toDetailDO(articleDTO)).thenReturn(new ArticleDetailDO());
+
+            articleCommandService.saveArticle(articleDTO);
+
+            verify(articleNotifyService, never()).notifyFollowersAfterCommit(anyLong(), anyLong());
+        }
     }
 
     @Nested
@@ -235,6 +288,62 @@ class ArticleCommandServiceImplTest {
             verify(articleDAO).updateById(any(ArticleDO.class));
             verify(articleDetailDAO).clearLatestFlag(articleId);
             verify(articleDetailDAO).save(any(ArticleDetailDO.class));
+            verify(resourceVersionUtil).bump(ResourceVersionUtil.article(articleId), ResourceVersionUtil.ARTICLE);
+        }
+
+        @Test
+        @DisplayName("发布新版本时预计算与上一版本的对比")
+        void publishShouldPrecomputeDiffWithPreviousVersion() {
+            // Given
+            Long userId = 1L;
+            Long articleId = 100L;
+            setupAdminContext(userId);
+
+            ArticleDTO articleDTO = new ArticleDTO();
+            articleDTO.setId(articleId);
+            articleDTO.setStatus(ArticlePublishStatusEnum.PUBLISHED);
+
+            ArticleDO articleDO = new ArticleDO();
+            articleDO.setId(articleId);
+            articleDO.setUserId(userId);
+            articleDO.setVersionCount(2);
+
+            when(articleDAO.getArticle(articleId, DeleteStatusEnum.NOT_DELETED)).thenReturn(articleDO);
+            when(articleStructMapper.toDetailDO(articleDTO)).thenReturn(new ArticleDetailDO());
+
+            // When
+            articleCommandService.updateArticle(articleDTO);
+
+            // Then
+            verify(articleDiffCacheService).precomputeAsync(articleId, 2, 3);
+            verify(articleRenderService).prerenderAsync(eq(articleId), any());
+        }
+
+        @Test
+        @DisplayName("保存草稿时不预计算对比")
+        void draftShouldNotPrecomputeDiff() {
+            // Given
+            Long userId = 1L;
+            Long articleId = 100L;
+            setupNormalUserContext(userId);
+
+            ArticleDTO articleDTO = new ArticleDTO();
+            articleDTO.setId(articleId);
+            articleDTO.setStatus(ArticlePublishStatusEnum.DRAFT);
+
+            ArticleDO articleDO = new ArticleDO();
+            articleDO.setId(articleId);
+            articleDO.setUserId(userId);
+            articleDO.setVersionCount(2);
+
+            when(articleDAO.getArticle(articleId, DeleteStatusEnum.NOT_DELETED)).thenReturn(articleDO);
+            when(articleStructMapper.toDetailDO(articleDTO)).thenReturn(new ArticleDetailDO());
+
+            // When
+            articleCommandService.updateArticle(articleDTO);
+
+            // Then
+            verify(articleDiffCacheService, never()).precomputeAsync(anyLong(), any(), any());
         }
 
         @Test
@@ -432,7 +541,7 @@ class ArticleCommandServiceImplTest {
             newDetail.setVersion(4);
 
             when(articleDAO.getArticle(articleId, DeleteStatusEnum.NOT_DELETED)).thenReturn(articleDO);
-            when(articleDetailDAO.getByArticleIdAndVersion(articleId, targetVersion)).thenReturn(targetDetail);
+            when(articleVersionStorageService.getVersion(articleId, targetVersion)).thenReturn(targetDetail);
             when(articleStructMapper.copyForNewVersion(targetDetail)).thenReturn(newDetail);
             when(articleStructMapper.buildArticleDTO(any(ArticleDO.class), any(ArticleDetailDO.class)))
                     .thenReturn(new ArticleDTO());
@@ -462,7 +571,7 @@ class ArticleCommandServiceImplTest {
             articleDO.setUserId(userId);
 
             when(articleDAO.getArticle(articleId, DeleteStatusEnum.NOT_DELETED)).thenReturn(articleDO);
-            when(articleDetailDAO.getByArticleIdAndVersion(articleId, targetVersion)).thenReturn(null);
+            when(articleVersionStorageService.getVersion(articleId, targetVersion)).thenReturn(null);
 
             // When & Then
             assertThatThrownBy(() -> articleCommandService.rollbackToVersion(articleId, targetVersion))
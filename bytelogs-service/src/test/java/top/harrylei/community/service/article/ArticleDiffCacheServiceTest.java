@@ -0,0 +1,207 @@
+package top.harrylei.community.service.article;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.api.exception.BusinessException;
+import top.harrylei.community.api.model.article.dto.VersionDiffCacheEntry;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
+import top.harrylei.community.service.article.service.cache.ArticleDiffCacheService;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文章版本对比缓存服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ArticleDiffCacheService 测试")
+class ArticleDiffCacheServiceTest {
+
+    private static final Long ARTICLE_ID = 100L;
+
+    private static final String KEY = RedisKeyConstants.getArticleVersionDiffKey(
+            ARTICLE_ID, 1, 2, ArticleDiffCacheService.MODE_HTML);
+
+    private ArticleVersionStorageService articleVersionStorageService;
+    private RedisUtil redisUtil;
+    private TaskExecutor articleDiffExecutor;
+    private ArticleDiffCacheService articleDiffCacheService;
+
+    @BeforeEach
+    void setUp() {
+        articleVersionStorageService = mock(ArticleVersionStorageService.class);
+        redisUtil = mock(RedisUtil.class);
+        articleDiffExecutor = mock(TaskExecutor.class);
+        articleDiffCacheService = new ArticleDiffCacheService(articleVersionStorageService, redisUtil,
+                new MetricsUtil(new SimpleMeterRegistry()), articleDiffExecutor);
+    }
+
+    private static ArticleDetailDO version(int version, String title, String content) {
+        ArticleDetailDO detail = new ArticleDetailDO();
+        detail.setArticleId(ARTICLE_ID);
+        detail.setVersion(version);
+        detail.setTitle(title);
+        detail.setContent(content);
+        detail.setSummary("摘要");
+        return detail;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        }
+    }
+
+    private static String randomText(int length) {
+        StringBuilder text = new StringBuilder(length);
+        Random random = new Random(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) (0x4E00 + random.nextInt(0x5000)));
+        }
+        return text.toString();
+    }
+
+    @Nested
+    @DisplayName("获取对比结果测试")
+    class GetDiffTest {
+
+        @Test
+        @DisplayName("未缓存时计算并压缩写入Redis，再次读取命中本地缓存")
+        void shouldComputeAndCache() throws IOException {
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 1)).thenReturn(version(1, "旧标题", "正文"));
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 2)).thenReturn(version(2, "新标题", "正文"));
+
+            VersionDiffCacheEntry entry = articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2);
+
+            assertThat(entry.getTitleDiff()).contains("diff-delete").contains("diff-insert");
+            assertThat(entry.getContentDiff()).isEqualTo("正文");
+            ArgumentCaptor<byte[]> stored = ArgumentCaptor.forClass(byte[].class);
+            verify(redisUtil).setBytes(eq(KEY), stored.capture(), eq(Duration.ofDays(7)));
+            assertThat(JsonUtil.fromBytes(gunzip(stored.getValue()), VersionDiffCacheEntry.class)).isEqualTo(entry);
+
+            assertThat(articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2)).isSameAs(entry);
+            verify(redisUtil, times(1)).getBytes(KEY);
+            verify(articleVersionStorageService, times(1)).getVersion(ARTICLE_ID, 1);
+        }
+
+        @Test
+        @DisplayName("Redis命中时不再加载版本内容")
+        void shouldReadFromRedis() throws IOException {
+            VersionDiffCacheEntry cached = new VersionDiffCacheEntry("标题", "内容", "摘要");
+            when(redisUtil.getBytes(KEY)).thenReturn(gzip(JsonUtil.toBytes(cached)));
+
+            assertThat(articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2)).isEqualTo(cached);
+            verify(articleVersionStorageService, never()).getVersion(anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("Redis中的数据损坏时重新计算")
+        void shouldRecomputeWhenRedisEntryCorrupted() {
+            when(redisUtil.getBytes(KEY)).thenReturn(new byte[]{1, 2, 3});
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 1)).thenReturn(version(1, "标题", "正文"));
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 2)).thenReturn(version(2, "标题", "正文"));
+
+            assertThat(articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2).getTitleDiff()).isEqualTo("标题");
+        }
+
+        @Test
+        @DisplayName("超大结果不进入本地缓存，压缩后仍过大时不写入Redis")
+        void shouldNotAdmitHugeDiff() {
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 1)).thenReturn(version(1, "标题", randomText(300_000)));
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 2)).thenReturn(version(2, "标题", randomText(300_001)));
+
+            articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2);
+            articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2);
+
+            verify(redisUtil, never()).setBytes(anyString(), any(), any());
+            verify(articleVersionStorageService, times(2)).getVersion(ARTICLE_ID, 1);
+        }
+
+        @Test
+        @DisplayName("版本不存在时抛出异常")
+        void shouldThrowWhenVersionNotExists() {
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 1)).thenReturn(version(1, "标题", "正文"));
+
+            assertThatThrownBy(() -> articleDiffCacheService.getDiff(ARTICLE_ID, 1, 2))
+                    .isInstanceOf(BusinessException.class)
+                    .satisfies(ex -> assertThat(((BusinessException) ex).getCode())
+                            .isEqualTo(ResultCode.ARTICLE_NOT_EXISTS.getCode()));
+        }
+    }
+
+    @Nested
+    @DisplayName("异步预计算测试")
+    class PrecomputeTest {
+
+        @Test
+        @DisplayName("无事务时直接提交到线程池")
+        void shouldSubmitToExecutor() {
+            articleDiffCacheService.precomputeAsync(ARTICLE_ID, 1, 2);
+
+            ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+            verify(articleDiffExecutor).execute(task.capture());
+
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 1)).thenReturn(version(1, "标题", "正文"));
+            when(articleVersionStorageService.getVersion(ARTICLE_ID, 2)).thenReturn(version(2, "标题", "新正文"));
+            task.getValue().run();
+            verify(redisUtil).setBytes(eq(KEY), any(), any());
+        }
+
+        @Test
+        @DisplayName("线程池繁忙时放弃预计算")
+        void shouldIgnoreRejectedTask() {
+            doThrow(new TaskRejectedException("busy")).when(articleDiffExecutor).execute(any());
+
+            articleDiffCacheService.precomputeAsync(ARTICLE_ID, 1, 2);
+
+            verify(articleVersionStorageService, never()).getVersion(anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("没有上一版本时不预计算")
+        void shouldSkipFirstVersion() {
+            articleDiffCacheService.precomputeAsync(ARTICLE_ID, 0, 1);
+
+            verify(articleDiffExecutor, never()).execute(any());
+        }
+    }
+}
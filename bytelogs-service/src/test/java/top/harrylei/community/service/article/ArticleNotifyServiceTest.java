@@ -0,0 +1,154 @@
+package top.harrylei.community.service.article;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.harrylei.community.core.util.KafkaEventPublisher;
+import top.harrylei.community.service.article.service.notify.ArticleNotifyService;
+import top.harrylei.community.service.user.service.UserFollowService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文章发布通知服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ArticleNotifyService 测试")
+class ArticleNotifyServiceTest {
+
+    private static final Long ARTICLE_ID = 10L;
+    private static final Long AUTHOR_ID = 1L;
+
+    private UserFollowService userFollowService;
+    private KafkaEventPublisher kafkaEventPublisher;
+    private PlatformTransactionManager transactionManager;
+    private TransactionStatus batchStatus;
+    private List<Runnable> submitted;
+    private ArticleNotifyService articleNotifyService;
+
+    @BeforeEach
+    void setUp() {
+        userFollowService = mock(UserFollowService.class);
+        kafkaEventPublisher = mock(KafkaEventPublisher.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        batchStatus = mock(TransactionStatus.class);
+        submitted = new ArrayList<>();
+        articleNotifyService = new ArticleNotifyService(userFollowService, kafkaEventPublisher, submitted::add,
+                transactionManager);
+
+        when(transactionManager.getTransaction(any())).thenReturn(batchStatus);
+        doAnswer(invocation -> {
+            Consumer<List<Long>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(2L, 3L));
+            consumer.accept(List.of(4L));
+            return null;
+        }).when(userFollowService).forEachFollowerBatch(eq(AUTHOR_ID), anyInt(), any());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private void commitArticleTransaction() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private void runSubmittedTasks() {
+        submitted.forEach(Runnable::run);
+    }
+
+    @Nested
+    @DisplayName("提交后扇出测试")
+    class AfterCommitTest {
+
+        @Test
+        @DisplayName("文章事务提交前不遍历粉丝，提交后交给线程池执行")
+        void shouldFanOutOnExecutorAfterCommit() {
+            articleNotifyService.notifyFollowersAfterCommit(ARTICLE_ID, AUTHOR_ID);
+            assertThat(submitted).isEmpty();
+
+            commitArticleTransaction();
+            assertThat(submitted).hasSize(1);
+            // 提交回调本身不在请求线程上遍历粉丝
+            verify(userFollowService, never()).forEachFollowerBatch(anyLong(), anyInt(), any());
+
+            runSubmittedTasks();
+            verify(userFollowService).forEachFollowerBatch(eq(AUTHOR_ID), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("文章事务提交后，每批通知在新开启的事务中写入发件箱并提交")
+        void shouldCommitEachBatchInNewTransaction() {
+            when(kafkaEventPublisher.publishUserBehaviorEvents(anyLong(), anyCollection(), anyLong(), any(), any()))
+                    .thenReturn(2, 1);
+
+            articleNotifyService.notifyFollowersAfterCommit(ARTICLE_ID, AUTHOR_ID);
+            commitArticleTransaction();
+            runSubmittedTasks();
+
+            InOrder order = inOrder(transactionManager, kafkaEventPublisher);
+            for (List<Long> batch : List.of(List.of(2L, 3L), List.of(4L))) {
+                order.verify(transactionManager).getTransaction(argThat((TransactionDefinition definition) ->
+                        definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+                order.verify(kafkaEventPublisher).publishUserBehaviorEvents(eq(AUTHOR_ID), eq(batch), eq(ARTICLE_ID),
+                        any(), any());
+                order.verify(transactionManager).commit(batchStatus);
+            }
+        }
+
+        @Test
+        @DisplayName("单批写入失败时只回滚该批，继续后续批次")
+        void shouldRollbackOnlyFailedBatch() {
+            when(kafkaEventPublisher.publishUserBehaviorEvents(anyLong(), anyCollection(), anyLong(), any(), any()))
+                    .thenThrow(new IllegalStateException("db down"))
+                    .thenReturn(1);
+
+            articleNotifyService.notifyFollowersAfterCommit(ARTICLE_ID, AUTHOR_ID);
+            commitArticleTransaction();
+            runSubmittedTasks();
+
+            verify(transactionManager).rollback(batchStatus);
+            verify(transactionManager, times(1)).commit(batchStatus);
+            verify(kafkaEventPublisher).publishUserBehaviorEvents(eq(AUTHOR_ID), eq(List.of(4L)), eq(ARTICLE_ID),
+                    any(), any());
+        }
+
+        @Test
+        @DisplayName("文章事务回滚时不发出通知")
+        void shouldNotFanOutWhenRolledBack() {
+            articleNotifyService.notifyFollowersAfterCommit(ARTICLE_ID, AUTHOR_ID);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            assertThat(submitted).isEmpty();
+        }
+    }
+}
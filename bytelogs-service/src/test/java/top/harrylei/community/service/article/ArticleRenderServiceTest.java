@@ -0,0 +1,252 @@
+package top.harrylei.community.service.article;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import top.harrylei.community.api.model.article.vo.ArticleRenderVO;
+import top.harrylei.community.api.model.article.vo.ArticleTocVO;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.article.service.render.ArticleRenderService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文章渲染服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ArticleRenderService 测试")
+class ArticleRenderServiceTest {
+
+    private RedisUtil redisUtil;
+    private MeterRegistry meterRegistry;
+    private MetricsUtil metricsUtil;
+    private TaskExecutor articleRenderExecutor;
+    private ArticleRenderService articleRenderService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        meterRegistry = new SimpleMeterRegistry();
+        metricsUtil = new MetricsUtil(meterRegistry);
+        articleRenderExecutor = mock(TaskExecutor.class);
+        articleRenderService = new ArticleRenderService(redisUtil, metricsUtil, articleRenderExecutor);
+    }
+
+    /**
+     * 提取HTML中所有 href 和 src 属性值
+     */
+    private static List<String> urls(String html) {
+        List<String> urls = new ArrayList<>();
+        Matcher matcher = Pattern.compile("(?:href|src)=\"([^\"]*)\"").matcher(html);
+        while (matcher.find()) {
+            urls.add(matcher.group(1));
+        }
+        return urls;
+    }
+
+    private double cacheCount(String cache, String result) {
+        return meterRegistry.get("bytelogs.cache.gets").tag("cache", cache).tag("result", result).counter().count();
+    }
+
+    @Nested
+    @DisplayName("渲染测试")
+    class RenderTest {
+
+        @Test
+        @DisplayName("渲染HTML并提取目录，目录锚点与标题ID一致")
+        void shouldRenderHtmlAndToc() {
+            String markdown = "# Quick Start\n\n正文第一段。\n\n## 安装步骤\n\n| a | b |\n|---|---|\n| 1 | 2 |\n";
+
+            ArticleRenderVO render = articleRenderService.render(markdown);
+
+            assertThat(render.getHtml()).contains("<table>").contains("id=\"quick-start\"");
+            assertThat(render.getToc()).extracting(ArticleTocVO::getLevel).containsExactly(1, 2);
+            assertThat(render.getToc()).extracting(ArticleTocVO::getText).containsExactly("Quick Start", "安装步骤");
+            for (ArticleTocVO item : render.getToc()) {
+                assertThat(item.getId()).isNotBlank();
+                assertThat(render.getHtml()).contains("id=\"" + item.getId() + "\"");
+            }
+        }
+
+        @Test
+        @DisplayName("转义原始HTML并过滤脚本链接")
+        void shouldSanitizeHtml() {
+            String markdown = "<script>alert(1)</script>\n\n点击[这里](javascript:alert(1))或<img src=x onerror=alert(1)>";
+
+            String html = articleRenderService.render(markdown).getHtml();
+
+            assertThat(html).doesNotContain("<script").doesNotContain("<img").doesNotContain("javascript:");
+            assertThat(html).contains("&lt;script&gt;");
+        }
+
+        @Test
+        @DisplayName("实体编码和控制字符拆分的脚本链接同样被拦截")
+        void shouldBlockEncodedScriptLinks() {
+            String markdown = String.join("\n\n",
+                    "[a](&#106;avascript:alert(1))",
+                    "[b](&#x6A;&#x61;vascript&#58;alert(1))",
+                    "[c](java&#9;script:alert(1))",
+                    "[d](<java\tscript:alert(1)>)",
+                    "[e](&#1;javascript:alert(1))",
+                    "[f](VbScript:msgbox(1))",
+                    "[g](data:text/html;base64,PHNjcmlwdD4=)",
+                    "[h][ref]",
+                    "[ref]: &#106;avascript:alert(1)");
+
+            List<String> urls = urls(articleRenderService.render(markdown).getHtml());
+
+            assertThat(urls).isNotEmpty().containsOnly("#");
+        }
+
+        @Test
+        @DisplayName("图片地址只允许http、https和相对地址")
+        void shouldBlockUnsafeImageSources() {
+            String markdown = String.join("\n\n",
+                    "![a](&#106;avascript:alert(1))",
+                    "![b](java&#9;script:alert(1))",
+                    "![c](data:image/svg+xml;base64,PHN2Zz4=)",
+                    "![d](mailto:a@b.com)",
+                    "![e](https://example.com/a.png)",
+                    "![f](/upload/b.png)");
+
+            List<String> urls = urls(articleRenderService.render(markdown).getHtml());
+
+            assertThat(urls).containsExactly("#", "#", "#", "#", "https://example.com/a.png", "/upload/b.png");
+        }
+
+        @Test
+        @DisplayName("保留http、https、mailto和相对链接")
+        void shouldKeepSafeLinks() {
+            String markdown = "[a](https://example.com/x?y=1) [b](http://example.com) [c](mailto:a@b.com) "
+                    + "[d](/article/1) [e](#intro) [f](docs/a:b)";
+
+            List<String> urls = urls(articleRenderService.render(markdown).getHtml());
+
+            assertThat(urls).containsExactly("https://example.com/x?y=1", "http://example.com", "mailto:a@b.com",
+                    "/article/1", "#intro", "docs/a:b");
+        }
+
+        @Test
+        @DisplayName("提取纯文本摘要、字数和阅读时长")
+        void shouldExtractSummaryAndReadingTime() {
+            String markdown = "# 标题\n\n这是**加粗**的 Spring Boot 文章。\n\n" + "正文".repeat(600) + "\n";
+
+            ArticleRenderVO render = articleRenderService.render(markdown);
+
+            assertThat(render.getSummary()).startsWith("这是加粗的 Spring Boot 文章。").endsWith("…");
+            assertThat(render.getSummary().length()).isEqualTo(201);
+            assertThat(render.getWordCount()).isEqualTo(2 + 7 + 2 + 1200);
+            assertThat(render.getReadingMinutes()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("空正文返回空结果")
+        void shouldRenderEmptyContent() {
+            ArticleRenderVO render = articleRenderService.render(null);
+
+            assertThat(render.getHtml()).isEmpty();
+            assertThat(render.getToc()).isEmpty();
+            assertThat(render.getReadingMinutes()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("大文档只渲染一次，再次读取命中本地缓存")
+        void shouldRenderLargeDocumentOnce() {
+            StringBuilder markdown = new StringBuilder();
+            for (int i = 0; i < 2000; i++) {
+                markdown.append("## 第").append(i).append("节\n\n")
+                        .append("这是第").append(i).append("节的正文，包含 `code` 和 [链接](https://example.com/").append(i).append(")。\n\n")
+                        .append("- 列表项一\n- 列表项二\n\n")
+                        .append("```java\nSystem.out.println(").append(i).append(");\n```\n\n");
+            }
+
+            ArticleRenderVO first = articleRenderService.render(markdown.toString());
+            ArticleRenderVO second = articleRenderService.render(markdown.toString());
+
+            assertThat(first.getToc()).hasSize(2000);
+            assertThat(second).isSameAs(first);
+            verify(redisUtil, times(1)).get(anyString(), eq(ArticleRenderVO.class));
+            verify(redisUtil, times(1)).set(anyString(), eq(first), eq(Duration.ofDays(30)));
+            assertThat(cacheCount(MetricsUtil.CACHE_ARTICLE_RENDER_LOCAL, "hit")).isEqualTo(1);
+            assertThat(cacheCount(MetricsUtil.CACHE_ARTICLE_RENDER_LOCAL, "miss")).isEqualTo(1);
+            assertThat(cacheCount(MetricsUtil.CACHE_ARTICLE_RENDER_REDIS, "miss")).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("缓存测试")
+    class CacheTest {
+
+        @Test
+        @DisplayName("Redis命中时不再渲染")
+        void shouldReadFromRedis() {
+            ArticleRenderVO cached = new ArticleRenderVO().setHtml("<p>cached</p>");
+            when(redisUtil.get(anyString(), eq(ArticleRenderVO.class))).thenReturn(cached);
+
+            assertThat(articleRenderService.render("正文")).isSameAs(cached);
+            verify(redisUtil, never()).set(anyString(), any(), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("相同内容使用相同的缓存键，不同内容使用不同的缓存键")
+        void shouldKeyByContentHash() {
+            articleRenderService.render("相同内容");
+            new ArticleRenderService(redisUtil, metricsUtil, articleRenderExecutor).render("相同内容");
+            articleRenderService.render("不同内容");
+
+            ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+            verify(redisUtil, times(3)).get(keys.capture(), eq(ArticleRenderVO.class));
+            assertThat(keys.getAllValues().get(0)).isEqualTo(keys.getAllValues().get(1));
+            assertThat(keys.getAllValues().get(0)).isNotEqualTo(keys.getAllValues().get(2));
+        }
+    }
+
+    @Nested
+    @DisplayName("异步预热测试")
+    class PrerenderTest {
+
+        @Test
+        @DisplayName("无事务时直接提交到线程池")
+        void shouldSubmitToExecutor() {
+            articleRenderService.prerenderAsync(1L, "# 标题");
+
+            ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+            verify(articleRenderExecutor).execute(task.capture());
+            task.getValue().run();
+            verify(redisUtil).set(anyString(), any(ArticleRenderVO.class), eq(Duration.ofDays(30)));
+        }
+
+        @Test
+        @DisplayName("线程池繁忙时放弃预热")
+        void shouldIgnoreRejectedTask() {
+            doThrow(new TaskRejectedException("busy")).when(articleRenderExecutor).execute(any());
+
+            articleRenderService.prerenderAsync(1L, "# 标题");
+
+            verify(redisUtil, never()).get(anyString(), any(Class.class));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package top.harrylei.community.service.article;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.enums.article.ContentStorageEnum;
+import top.harrylei.community.core.util.DeltaUtil;
+import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
+import top.harrylei.community.service.article.repository.entity.ArticleDetailDO;
+import top.harrylei.community.service.article.service.storage.ArticleVersionStorageService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文章版本存储服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ArticleVersionStorageService 测试")
+class ArticleVersionStorageServiceTest {
+
+    private static final Long ARTICLE_ID = 100L;
+
+    private static final String BASE_CONTENT = "# 标题\n" + "这是一段足够长的文章正文，用于生成增量。\n".repeat(50);
+
+    private ArticleDetailDAO articleDetailDAO;
+    private ArticleVersionStorageService articleVersionStorageService;
+
+    @BeforeEach
+    void setUp() {
+        articleDetailDAO = mock(ArticleDetailDAO.class);
+        articleVersionStorageService = new ArticleVersionStorageService(articleDetailDAO);
+    }
+
+    private static ArticleDetailDO version(Long id, int version, ContentStorageEnum storageType, String content) {
+        ArticleDetailDO detail = new ArticleDetailDO();
+        detail.setId(id);
+        detail.setArticleId(ARTICLE_ID);
+        detail.setVersion(version);
+        detail.setStorageType(storageType);
+        detail.setContent(content);
+        return detail;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    @DisplayName("读取版本测试")
+    class GetVersionTest {
+
+        @Test
+        @DisplayName("完整存储的版本直接返回")
+        void shouldReturnFullVersionDirectly() {
+            ArticleDetailDO full = version(1L, 3, ContentStorageEnum.FULL, BASE_CONTENT);
+            when(articleDetailDAO.getByArticleIdAndVersion(ARTICLE_ID, 3)).thenReturn(full);
+
+            assertThat(articleVersionStorageService.getVersion(ARTICLE_ID, 3)).isSameAs(full);
+            verify(articleDetailDAO, never()).getVersionContent(anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("增量版本按关键帧还原，重复读取命中缓存")
+        void shouldReconstructDeltaVersion() {
+            String content = BASE_CONTENT + "新增的结尾段落。";
+            ArticleDetailDO delta = version(2L, 5, ContentStorageEnum.DELTA, "");
+            delta.setBaseVersion(1);
+            delta.setContentDelta(DeltaUtil.encode(utf8(BASE_CONTENT), utf8(content)));
+            when(articleDetailDAO.getByArticleIdAndVersion(ARTICLE_ID, 5)).thenReturn(delta);
+            when(articleDetailDAO.getVersionContent(ARTICLE_ID, 1))
+                    .thenReturn(version(1L, 1, ContentStorageEnum.KEYFRAME, BASE_CONTENT));
+
+            assertThat(articleVersionStorageService.getVersion(ARTICLE_ID, 5).getContent()).isEqualTo(content);
+            assertThat(articleVersionStorageService.getVersion(ARTICLE_ID, 5).getContent()).isEqualTo(content);
+            verify(articleDetailDAO, times(1)).getVersionContent(ARTICLE_ID, 1);
+        }
+
+        @Test
+        @DisplayName("版本不存在时返回null")
+        void shouldReturnNullWhenVersionNotExists() {
+            assertThat(articleVersionStorageService.getVersion(ARTICLE_ID, 99)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("压缩整理测试")
+    class CompactTest {
+
+        @Test
+        @DisplayName("区间首个版本标记为关键帧")
+        void shouldMarkKeyframeVersion() {
+            when(articleDetailDAO.listCompactCandidates(0L, 10))
+                    .thenReturn(List.of(version(11L, 11, ContentStorageEnum.FULL, BASE_CONTENT)));
+
+            assertThat(articleVersionStorageService.compactBatch(0L, 10)).isEqualTo(11L);
+            verify(articleDetailDAO).markKeyframe(11L);
+            verify(articleDetailDAO, never()).getVersionContent(anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("相近的版本改为相对关键帧的增量")
+        void shouldCompactToDeltaAgainstKeyframe() {
+            String content = BASE_CONTENT.replace("# 标题", "# 新标题");
+            when(articleDetailDAO.listCompactCandidates(0L, 10))
+                    .thenReturn(List.of(version(13L, 13, ContentStorageEnum.FULL, content)));
+            when(articleDetailDAO.getVersionContent(ARTICLE_ID, 11))
+                    .thenReturn(version(11L, 11, ContentStorageEnum.KEYFRAME, BASE_CONTENT));
+
+            articleVersionStorageService.compactBatch(0L, 10);
+
+            ArgumentCaptor<byte[]> delta = ArgumentCaptor.forClass(byte[].class);
+            verify(articleDetailDAO).compactToDelta(eq(13L), eq(11), delta.capture());
+            assertThat(delta.getValue().length).isLessThan(utf8(content).length / 5);
+            assertThat(DeltaUtil.decode(utf8(BASE_CONTENT), delta.getValue())).isEqualTo(utf8(content));
+        }
+
+        @Test
+        @DisplayName("改动过大时保留完整内容")
+        void shouldKeepFullContentWhenDeltaTooLarge() {
+            StringBuilder rewritten = new StringBuilder();
+            Random random = new Random(1L);
+            for (int i = 0; i < 500; i++) {
+                rewritten.append((char) (0x4E00 + random.nextInt(0x5000)));
+            }
+            when(articleDetailDAO.listCompactCandidates(0L, 10))
+                    .thenReturn(List.of(version(3L, 3, ContentStorageEnum.FULL, rewritten.toString())));
+            when(articleDetailDAO.getVersionContent(ARTICLE_ID, 1))
+                    .thenReturn(version(1L, 1, ContentStorageEnum.FULL, BASE_CONTENT));
+
+            articleVersionStorageService.compactBatch(0L, 10);
+
+            verify(articleDetailDAO).markKeyframe(3L);
+            verify(articleDetailDAO, never()).compactToDelta(anyLong(), any(), any());
+        }
+
+        @Test
+        @DisplayName("关键帧缺失时保留完整内容")
+        void shouldKeepFullContentWhenKeyframeMissing() {
+            when(articleDetailDAO.listCompactCandidates(0L, 10))
+                    .thenReturn(List.of(version(4L, 4, ContentStorageEnum.FULL, BASE_CONTENT)));
+
+            articleVersionStorageService.compactBatch(0L, 10);
+
+            verify(articleDetailDAO).markKeyframe(4L);
+        }
+
+        @Test
+        @DisplayName("没有待整理的版本时返回null")
+        void shouldReturnNullWhenNothingToCompact() {
+            when(articleDetailDAO.listCompactCandidates(0L, 10)).thenReturn(List.of());
+
+            assertThat(articleVersionStorageService.compactBatch(0L, 10)).isNull();
+        }
+    }
+}
@@ -17,6 +17,8 @@ import top.harrylei.community.api.enums.user.UserStatusEnum;
 import top.harrylei.community.api.exception.BusinessException;
 import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.security.ratelimit.RateLimitDecision;
+import top.harrylei.community.core.security.ratelimit.RateLimiter;
 import top.harrylei.community.core.util.BCryptUtil;
 import top.harrylei.community.core.util.JwtUtil;
 import top.harrylei.community.core.util.RedisUtil;
@@ -27,10 +29,13 @@ import top.harrylei.community.service.user.repository.entity.UserDO;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
 
 import java.time.Duration;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -59,6 +64,9 @@ class AuthServiceImplTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private RateLimiter rateLimiter;
+
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -73,7 +81,11 @@ class AuthServiceImplTest {
         // 默认上下文设置
         ReqInfoContext.ReqInfo reqInfo = new ReqInfoContext.ReqInfo();
         reqInfo.setUserId(1L);
+        reqInfo.setClientIp("10.0.0.1");
         contextMock.when(ReqInfoContext::getContext).thenReturn(reqInfo);
+
+        lenient().when(rateLimiter.acquire(anyString(), anyString(), anyInt(), anyLong(), anyInt()))
+                .thenReturn(RateLimitDecision.ALLOWED);
     }
 
     @AfterEach
@@ -206,6 +218,7 @@ class AuthServiceImplTest {
             // Then
             assertThat(token).isEqualTo(expectedToken);
             verify(redisUtil).set(anyString(), eq(expectedToken), any(Duration.class));
+            verify(redisUtil, never()).evalForLong(anyString(), anyList(), any());
         }
 
         @Test
@@ -249,6 +262,7 @@ class AuthServiceImplTest {
                         BusinessException bex = (BusinessException) ex;
                         assertThat(bex.getCode()).isEqualTo(ResultCode.AUTH_LOGIN_FAILED.getCode());
                     });
+            verify(redisUtil).evalForLong(anyString(), eq(List.of("byte_logs:user:login_failure:testuser")), any());
         }
 
         @Test
@@ -337,6 +351,63 @@ class AuthServiceImplTest {
                         assertThat(bex.getCode()).isEqualTo(ResultCode.FORBIDDEN.getCode());
                     });
         }
+
+        @Test
+        @DisplayName("同一来源对同一用户名登录过于频繁应在查库前拒绝")
+        void shouldRejectWhenUsernameRateLimited() {
+            // Given
+            when(rateLimiter.acquire(eq("login-user"), eq("name:testuser:ip:10.0.0.1"), anyInt(), anyLong(), anyInt()))
+                    .thenReturn(RateLimitDecision.rejected(1000));
+
+            // When & Then
+            assertThatThrownBy(() -> authService.login(" TestUser ", "Password1", false))
+                    .isInstanceOf(BusinessException.class)
+                    .satisfies(ex -> {
+                        BusinessException bex = (BusinessException) ex;
+                        assertThat(bex.getCode()).isEqualTo(ResultCode.TOO_MANY_REQUESTS.getCode());
+                    });
+            verify(userDAO, never()).getUserByUsername(anyString());
+        }
+
+        @Test
+        @DisplayName("同一用户名失败次数达到上限后应在查库前拒绝")
+        void shouldRejectWhenLoginFailuresExceeded() {
+            // Given
+            when(redisUtil.get("byte_logs:user:login_failure:testuser", Long.class)).thenReturn(50L);
+
+            // When & Then
+            assertThatThrownBy(() -> authService.login("TestUser", "Password1", false))
+                    .isInstanceOf(BusinessException.class)
+                    .satisfies(ex -> {
+                        BusinessException bex = (BusinessException) ex;
+                        assertThat(bex.getCode()).isEqualTo(ResultCode.TOO_MANY_REQUESTS.getCode());
+                    });
+            verify(userDAO, never()).getUserByUsername(anyString());
+        }
+
+        @Test
+        @DisplayName("失败次数未达上限时正常校验密码")
+        void shouldLoginWhenFailuresUnderLimit() {
+            // Given
+            UserDO user = new UserDO();
+            user.setId(1L);
+            user.setUserName("testuser");
+            user.setPassword("encodedPassword");
+            user.setStatus(UserStatusEnum.ENABLED);
+            UserInfoDTO userInfo = new UserInfoDTO();
+            userInfo.setUserId(1L);
+            userInfo.setUserRole(UserRoleEnum.NORMAL);
+
+            when(redisUtil.get("byte_logs:user:login_failure:testuser", Long.class)).thenReturn(49L);
+            when(userDAO.getUserByUsername("testuser")).thenReturn(user);
+            bcryptMock.when(() -> BCryptUtil.notMatches("Password1", "encodedPassword")).thenReturn(false);
+            when(userCacheService.getUserInfo(1L)).thenReturn(userInfo);
+            when(jwtUtil.generateToken(1L, UserRoleEnum.NORMAL, false)).thenReturn("jwt.token.here");
+            when(jwtUtil.getDefaultExpire()).thenReturn(Duration.ofHours(2));
+
+            // When & Then
+            assertThat(authService.login("testuser", "Password1", false)).isEqualTo("jwt.token.here");
+        }
     }
 
     @Nested
@@ -0,0 +1,169 @@
+package top.harrylei.community.service.notify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.event.NotificationEvent;
+import top.harrylei.community.api.exception.RetryableException;
+import top.harrylei.community.core.util.EventIdUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.notify.service.KafkaIdempotencyService;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kafka消息幂等性服务测试
+ *
+ * @author harry
+ */
+@DisplayName("KafkaIdempotencyService 测试")
+class KafkaIdempotencyServiceTest {
+
+    private static final String TOPIC = "bytelogs-notification-events";
+
+    private RedisUtil redisUtil;
+    private KafkaIdempotencyService kafkaIdempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        kafkaIdempotencyService = new KafkaIdempotencyService(redisUtil);
+    }
+
+    private static NotificationEvent event(String eventId) {
+        return event(eventId, null);
+    }
+
+    private static NotificationEvent event(String eventId, LocalDateTime timestamp) {
+        return NotificationEvent.builder().eventId(eventId).timestamp(timestamp).build();
+    }
+
+    @Nested
+    @DisplayName("获取处理权限测试")
+    class BeginTest {
+
+        @Test
+        @DisplayName("同一时间桶的一批事件只执行一次脚本，各分片key使用相同的hash tag")
+        @SuppressWarnings("unchecked")
+        void shouldBeginBatchInOneCall() {
+            String e1 = EventIdUtil.nextId();
+            String e2 = EventIdUtil.nextId();
+            String e3 = EventIdUtil.nextId();
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of(e1, e3));
+
+            Set<String> acquired = kafkaIdempotencyService.tryBeginAll(TOPIC,
+                    List.of(event(e1), event(e2), event(e3), event(e1), event(" ")));
+
+            assertThat(acquired).containsExactlyInAnyOrder(e1, e3);
+            ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil, times(1)).evalForList(anyString(), keys.capture(), args.capture());
+            assertThat(keys.getValue()).hasSize(3)
+                    .allSatisfy(key -> assertThat(key).contains("{" + TOPIC + ":").contains("}:"));
+            assertThat(keys.getValue().stream().map(key -> key.substring(0, key.lastIndexOf(':'))).distinct())
+                    .hasSize(1);
+            assertThat(Arrays.asList(args.getValue()).subList(3, 6)).containsExactly(e1, e2, e3);
+        }
+
+        @Test
+        @DisplayName("不同时间桶的事件分别执行脚本")
+        void shouldSplitByBucket() {
+            String current = EventIdUtil.nextId();
+            String legacy = "550e8400-e29b-41d4-a716-446655440000";
+            String older = "01HZZZZZZZZZZZZZZZZZZZZZZZ";
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of());
+
+            kafkaIdempotencyService.tryBeginAll(TOPIC,
+                    List.of(event(current), event(legacy, LocalDateTime.now()), event(older)));
+
+            // 旧格式ID按事件发生时间分桶，与当前事件在同一个桶
+            verify(redisUtil, times(2)).evalForList(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("旧格式ID按事件自身的发生时间分桶，而不是当前时间")
+        @SuppressWarnings("unchecked")
+        void shouldBucketLegacyIdByEventTime() {
+            LocalDateTime occurredAt = LocalDateTime.now().minusHours(3);
+            long bucket = occurredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / 3_600_000L;
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of());
+
+            kafkaIdempotencyService.tryBeginAll(TOPIC,
+                    List.of(event("550e8400-e29b-41d4-a716-446655440000", occurredAt)));
+
+            ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+            verify(redisUtil).evalForList(anyString(), keys.capture(), any(Object[].class));
+            assertThat(keys.getValue()).singleElement()
+                    .satisfies(key -> assertThat(key).contains("{" + TOPIC + ":" + bucket + "}:"));
+        }
+
+        @Test
+        @DisplayName("Redis不可用时释放已获得的权限并抛出可重试异常")
+        void shouldThrowRetryableWhenRedisFails() {
+            String current = EventIdUtil.nextId();
+            String older = "01HZZZZZZZZZZZZZZZZZZZZZZZ";
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class)))
+                    .thenReturn(List.of(current))
+                    .thenReturn(null);
+
+            assertThatThrownBy(() -> kafkaIdempotencyService.tryBeginAll(TOPIC, List.of(event(current), event(older))))
+                    .isInstanceOf(RetryableException.class);
+            verify(redisUtil).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("单条事件未获得权限时返回false")
+        void shouldReturnFalseWhenDuplicate() {
+            when(redisUtil.evalForList(anyString(), anyList(), any(Object[].class))).thenReturn(List.of());
+
+            assertThat(kafkaIdempotencyService.tryBegin(TOPIC, event(EventIdUtil.nextId()))).isFalse();
+        }
+
+        @Test
+        @DisplayName("空的eventId不访问Redis")
+        void shouldIgnoreBlankEventId() {
+            assertThat(kafkaIdempotencyService.tryBegin(TOPIC, event(null))).isFalse();
+            verify(redisUtil, never()).evalForList(anyString(), anyList(), any(Object[].class));
+        }
+    }
+
+    @Nested
+    @DisplayName("完成与释放测试")
+    class CompleteTest {
+
+        @Test
+        @DisplayName("批量标记完成只执行一次脚本")
+        void shouldCompleteBatchInOneCall() {
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(2L);
+
+            kafkaIdempotencyService.completeAll(TOPIC, List.of(event(EventIdUtil.nextId()), event(EventIdUtil.nextId())));
+
+            verify(redisUtil, times(1)).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("没有事件时不访问Redis")
+        void shouldSkipEmptyRelease() {
+            kafkaIdempotencyService.releaseAll(TOPIC, Set.of());
+
+            verify(redisUtil, never()).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package top.harrylei.community.service.notify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.api.event.NotificationEvent;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.service.notify.consumer.NotificationEventConsumer;
+import top.harrylei.community.service.notify.service.KafkaIdempotencyService;
+import top.harrylei.community.service.notify.service.NotifyMsgService;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通知事件消费者测试
+ *
+ * @author harry
+ */
+@DisplayName("NotificationEventConsumer 测试")
+class NotificationEventConsumerTest {
+
+    private NotifyMsgService notifyMsgService;
+    private KafkaIdempotencyService kafkaIdempotencyService;
+    private Acknowledgment acknowledgment;
+    private NotificationEventConsumer consumer;
+
+    /**
+     * 模拟Redis中已完成的事件ID
+     */
+    private Set<String> completed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        notifyMsgService = mock(NotifyMsgService.class);
+        kafkaIdempotencyService = mock(KafkaIdempotencyService.class);
+        acknowledgment = mock(Acknowledgment.class);
+        MetricsUtil metricsUtil = mock(MetricsUtil.class);
+        consumer = new NotificationEventConsumer(notifyMsgService, kafkaIdempotencyService, metricsUtil);
+
+        completed = new HashSet<>();
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(1)).run();
+            return null;
+        }).when(metricsUtil).recordKafkaConsume(anyString(), any(Runnable.class));
+        when(kafkaIdempotencyService.tryBeginAll(anyString(), anyCollection())).thenAnswer(invocation -> {
+            Set<String> acquired = new LinkedHashSet<>();
+            invocation.<Collection<NotificationEvent>>getArgument(1).forEach(event -> acquired.add(event.getEventId()));
+            acquired.removeAll(completed);
+            return acquired;
+        });
+        doAnswer(invocation -> completed.add(invocation.<NotificationEvent>getArgument(1).getEventId()))
+                .when(kafkaIdempotencyService).complete(anyString(), any());
+        doAnswer(invocation -> {
+            invocation.<Collection<NotificationEvent>>getArgument(1).forEach(event -> completed.add(event.getEventId()));
+            return null;
+        }).when(kafkaIdempotencyService).completeAll(anyString(), anyCollection());
+    }
+
+    private static NotificationEvent event(String eventId) {
+        return NotificationEvent.builder()
+                .eventId(eventId)
+                .operateUserId(1L)
+                .targetUserId(2L)
+                .relatedId(100L)
+                .notifyType(NotifyTypeEnum.COMMENT)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("批量处理测试")
+    class BatchTest {
+
+        @Test
+        @DisplayName("整批落库成功后一次标记完成并确认")
+        void shouldSaveBatchAndAcknowledge() {
+            List<NotificationEvent> events = List.of(event("e1"), event("e2"), event("e1"));
+
+            consumer.handleNotificationEvents(events, acknowledgment);
+
+            verify(notifyMsgService).saveNotificationsFromEvents(List.of(events.get(0), events.get(1)));
+            verify(notifyMsgService, never()).saveNotificationFromEvent(any());
+            assertThat(completed).containsExactlyInAnyOrder("e1", "e2");
+            verify(acknowledgment).acknowledge();
+        }
+    }
+
+    @Nested
+    @DisplayName("部分失败测试")
+    class PartialFailureTest {
+
+        @Test
+        @DisplayName("整批失败后逐条处理，只从失败的消息开始重试")
+        void shouldRetryFromFailedRecord() {
+            NotificationEvent e1 = event("e1");
+            NotificationEvent e2 = event("e2");
+            NotificationEvent e3 = event("e3");
+            doThrow(new IllegalStateException("batch failed")).when(notifyMsgService).saveNotificationsFromEvents(anyList());
+            doThrow(new IllegalStateException("bad record")).when(notifyMsgService).saveNotificationFromEvent(e2);
+
+            assertThatThrownBy(() -> consumer.handleNotificationEvents(List.of(e1, e2, e3), acknowledgment))
+                    .isInstanceOf(BatchListenerFailedException.class)
+                    .satisfies(ex -> assertThat(((BatchListenerFailedException) ex).getIndex()).isEqualTo(1));
+
+            assertThat(completed).containsExactly("e1");
+            verify(kafkaIdempotencyService).releaseAll(anyString(), any());
+            verify(notifyMsgService, never()).saveNotificationFromEvent(e3);
+            verify(acknowledgment, never()).acknowledge();
+        }
+
+        @Test
+        @DisplayName("重新投递时跳过已完成的消息")
+        void shouldSkipCompletedRecordsOnRedelivery() {
+            NotificationEvent e1 = event("e1");
+            NotificationEvent e2 = event("e2");
+            NotificationEvent e3 = event("e3");
+            doThrow(new IllegalStateException("batch failed")).when(notifyMsgService).saveNotificationsFromEvents(anyList());
+            doThrow(new IllegalStateException("bad record")).when(notifyMsgService).saveNotificationFromEvent(e2);
+            assertThatThrownBy(() -> consumer.handleNotificationEvents(List.of(e1, e2, e3), acknowledgment))
+                    .isInstanceOf(BatchListenerFailedException.class);
+
+            // 故障恢复后整批重新投递，e1已完成不再落库
+            reset(notifyMsgService);
+            consumer.handleNotificationEvents(List.of(e1, e2, e3), acknowledgment);
+
+            verify(notifyMsgService).saveNotificationsFromEvents(List.of(e2, e3));
+            assertThat(completed).containsExactlyInAnyOrder("e1", "e2", "e3");
+            verify(acknowledgment).acknowledge();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package top.harrylei.community.service.notify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.core.common.constans.RedisKeyConstants;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.notify.repository.dao.NotifyMsgDAO;
+import top.harrylei.community.service.notify.service.cache.NotifyCountCacheService;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 未读通知计数缓存服务测试
+ *
+ * @author harry
+ */
+@DisplayName("NotifyCountCacheService 测试")
+class NotifyCountCacheServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final String UNREAD_KEY = RedisKeyConstants.getNotifyUnreadKey(USER_ID);
+
+    private RedisUtil redisUtil;
+    private NotifyMsgDAO notifyMsgDAO;
+    private NotifyCountCacheService notifyCountCacheService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        notifyMsgDAO = mock(NotifyMsgDAO.class);
+        notifyCountCacheService = new NotifyCountCacheService(redisUtil, notifyMsgDAO);
+    }
+
+    @Nested
+    @DisplayName("读取计数测试")
+    class ReadTest {
+
+        @Test
+        @DisplayName("缓存命中时按类型返回，不查询数据库")
+        void shouldReadFromCache() {
+            when(redisUtil.hGetAll(UNREAD_KEY, Long.class)).thenReturn(Map.of("1", 2L, "3", 5L));
+
+            Map<Integer, Long> counts = notifyCountCacheService.getUnreadCounts(USER_ID);
+
+            assertThat(counts).containsExactlyInAnyOrderEntriesOf(Map.of(1, 2L, 3, 5L));
+            assertThat(notifyCountCacheService.getUnreadTotal(USER_ID)).isEqualTo(7L);
+            verify(notifyMsgDAO, never()).countUnreadGroupByType(anyLong());
+        }
+
+        @Test
+        @DisplayName("缓存未命中时从数据库回填，所有类型都写入含0的值")
+        @SuppressWarnings("unchecked")
+        void shouldRebuildFromDatabaseOnMiss() {
+            when(redisUtil.hGetAll(UNREAD_KEY, Long.class)).thenReturn(Map.of());
+            when(notifyMsgDAO.countUnreadGroupByType(USER_ID)).thenReturn(Map.of(NotifyTypeEnum.COMMENT.getCode(), 4L));
+
+            Map<Integer, Long> counts = notifyCountCacheService.getUnreadCounts(USER_ID);
+
+            assertThat(counts).hasSize(NotifyTypeEnum.values().length)
+                    .containsEntry(NotifyTypeEnum.COMMENT.getCode(), 4L)
+                    .containsEntry(NotifyTypeEnum.PRAISE.getCode(), 0L);
+            ArgumentCaptor<Map<String, Long>> written = ArgumentCaptor.forClass(Map.class);
+            verify(redisUtil).hSetAll(eq(UNREAD_KEY), written.capture());
+            assertThat(written.getValue()).hasSize(NotifyTypeEnum.values().length).containsEntry("1", 4L);
+            verify(redisUtil).expire(eq(UNREAD_KEY), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("用户ID为空时返回空结果")
+        void shouldReturnEmptyForNullUser() {
+            assertThat(notifyCountCacheService.getUnreadCounts(null)).isEmpty();
+            verify(redisUtil, never()).hGetAll(anyString(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("增减计数测试")
+    class AdjustTest {
+
+        @Test
+        @DisplayName("增加计数时按类型原子增减并记入待校准集合")
+        void shouldIncrementByType() {
+            notifyCountCacheService.increment(USER_ID, NotifyTypeEnum.PRAISE);
+
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(),
+                    eq(List.of(UNREAD_KEY, RedisKeyConstants.getNotifyUnreadDirtyKey())), args.capture());
+            assertThat(Arrays.asList(args.getValue()).subList(0, 3))
+                    .containsExactly(NotifyTypeEnum.PRAISE.getCode(), 1L, USER_ID);
+        }
+
+        @Test
+        @DisplayName("减少计数时传入负增量")
+        void shouldDecrementByType() {
+            notifyCountCacheService.decrement(USER_ID, NotifyTypeEnum.COMMENT);
+
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(), anyList(), args.capture());
+            assertThat(Arrays.asList(args.getValue()).subList(0, 2))
+                    .containsExactly(NotifyTypeEnum.COMMENT.getCode(), -1L);
+        }
+
+        @Test
+        @DisplayName("批量增量不大于0时不访问Redis")
+        void shouldSkipNonPositiveDelta() {
+            notifyCountCacheService.incrementBy(USER_ID, NotifyTypeEnum.COMMENT, 0);
+
+            verify(redisUtil, never()).evalForLong(anyString(), anyList(), any(Object[].class));
+        }
+
+        @Test
+        @DisplayName("全部已读后所有类型归零")
+        @SuppressWarnings("unchecked")
+        void shouldResetAllTypes() {
+            notifyCountCacheService.resetAll(USER_ID);
+
+            ArgumentCaptor<Map<String, Long>> written = ArgumentCaptor.forClass(Map.class);
+            verify(redisUtil).hSetAll(eq(UNREAD_KEY), written.capture());
+            assertThat(written.getValue()).hasSize(NotifyTypeEnum.values().length).containsOnlyKeys(
+                    Arrays.stream(NotifyTypeEnum.values()).map(type -> type.getCode().toString()).toList());
+            assertThat(written.getValue().values()).containsOnly(0L);
+        }
+    }
+
+    @Nested
+    @DisplayName("漂移校准测试")
+    class ReconcileTest {
+
+        @Test
+        @DisplayName("逐个校准待校准用户，单个失败不影响其他用户")
+        void shouldReconcileDirtyUsers() {
+            when(redisUtil.sPop(RedisKeyConstants.getNotifyUnreadDirtyKey(), 10)).thenReturn(List.of("1", "2"));
+            when(notifyMsgDAO.countUnreadGroupByType(1L)).thenThrow(new IllegalStateException("db down"));
+            when(notifyMsgDAO.countUnreadGroupByType(2L)).thenReturn(Map.of());
+
+            int reconciled = notifyCountCacheService.reconcileDirtyUsers(10);
+
+            assertThat(reconciled).isEqualTo(1);
+            verify(redisUtil).hSetAll(eq(RedisKeyConstants.getNotifyUnreadKey(2L)), anyMap());
+        }
+    }
+}
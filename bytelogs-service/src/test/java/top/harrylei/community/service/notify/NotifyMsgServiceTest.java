@@ -0,0 +1,208 @@
+package top.harrylei.community.service.notify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import top.harrylei.community.api.enums.article.ContentTypeEnum;
+import top.harrylei.community.api.enums.notify.NotifyMsgStateEnum;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.api.event.NotificationEvent;
+import top.harrylei.community.api.model.user.dto.UserInfoDTO;
+import top.harrylei.community.service.article.repository.dao.ArticleDetailDAO;
+import top.harrylei.community.service.notify.converted.NotifyMsgStructMapper;
+import top.harrylei.community.service.notify.repository.dao.NotifyMsgActorDAO;
+import top.harrylei.community.service.notify.repository.dao.NotifyMsgDAO;
+import top.harrylei.community.service.notify.repository.entity.NotifyMsgActorDO;
+import top.harrylei.community.service.notify.repository.entity.NotifyMsgDO;
+import top.harrylei.community.service.notify.service.cache.NotifyCountCacheService;
+import top.harrylei.community.service.notify.service.impl.NotifyMsgServiceImpl;
+import top.harrylei.community.service.user.service.cache.UserCacheService;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通知消息聚合测试
+ *
+ * @author harry
+ */
+@DisplayName("NotifyMsgService 聚合测试")
+class NotifyMsgServiceTest {
+
+    private static final long AUTHOR_ID = 1L;
+    private static final long ARTICLE_ID = 100L;
+
+    private NotifyMsgDAO notifyMsgDAO;
+    private NotifyMsgActorDAO notifyMsgActorDAO;
+    private NotifyCountCacheService notifyCountCacheService;
+    private NotifyMsgServiceImpl notifyMsgService;
+
+    @BeforeEach
+    void setUp() {
+        notifyMsgDAO = mock(NotifyMsgDAO.class);
+        notifyMsgActorDAO = mock(NotifyMsgActorDAO.class);
+        notifyCountCacheService = mock(NotifyCountCacheService.class);
+        UserCacheService userCacheService = mock(UserCacheService.class);
+        notifyMsgService = new NotifyMsgServiceImpl(notifyMsgDAO, notifyMsgActorDAO, userCacheService,
+                mock(NotifyMsgStructMapper.class), notifyCountCacheService, mock(ApplicationEventPublisher.class),
+                mock(ArticleDetailDAO.class));
+
+        when(userCacheService.listUserInfosByIds(anyList())).thenReturn(List.of(
+                new UserInfoDTO().setUserId(2L).setUserName("张三"),
+                new UserInfoDTO().setUserId(3L).setUserName("李四")));
+        when(notifyCountCacheService.getUnreadCounts(anyLong())).thenReturn(Map.of());
+        // 模拟数据库回填自增ID
+        doAnswer(invocation -> {
+            List<NotifyMsgDO> notifyMsgs = invocation.getArgument(0);
+            long id = 500;
+            for (NotifyMsgDO notifyMsg : notifyMsgs) {
+                notifyMsg.setId(id++);
+            }
+            return null;
+        }).when(notifyMsgDAO).insertBatch(anyList());
+    }
+
+    private static NotificationEvent praise(long operateUserId) {
+        return NotificationEvent.builder()
+                .operateUserId(operateUserId)
+                .targetUserId(AUTHOR_ID)
+                .relatedId(ARTICLE_ID)
+                .notifyType(NotifyTypeEnum.PRAISE)
+                .contentType(ContentTypeEnum.ARTICLE)
+                .build();
+    }
+
+    private static NotifyMsgDO openAggregate() {
+        NotifyMsgDO aggregate = new NotifyMsgDO()
+                .setNotifyUserId(AUTHOR_ID)
+                .setRelatedId(ARTICLE_ID)
+                .setType(NotifyTypeEnum.PRAISE)
+                .setContentType(ContentTypeEnum.ARTICLE)
+                .setState(NotifyMsgStateEnum.UNREAD)
+                .setActorCount(5)
+                .setRecentActorIds("9,8,7");
+        aggregate.setId(42L);
+        return aggregate;
+    }
+
+    @Nested
+    @DisplayName("新建聚合测试")
+    class CreateTest {
+
+        @Test
+        @DisplayName("同一文章的多次点赞合并为一条通知，操作用户按新ID写入")
+        @SuppressWarnings("unchecked")
+        void shouldCreateOneAggregate() {
+            notifyMsgService.saveNotificationsFromEvents(List.of(praise(2L), praise(2L), praise(3L)));
+
+            ArgumentCaptor<List<NotifyMsgDO>> created = ArgumentCaptor.forClass(List.class);
+            verify(notifyMsgDAO).insertBatch(created.capture());
+            assertThat(created.getValue()).singleElement().satisfies(notifyMsg -> {
+                assertThat(notifyMsg.getActorCount()).isEqualTo(2);
+                assertThat(notifyMsg.getRecentActorIds()).isEqualTo("3,2");
+                assertThat(notifyMsg.getMsg()).isEqualTo("李四 等 2 人 赞了你的文章");
+            });
+
+            ArgumentCaptor<List<NotifyMsgActorDO>> actors = ArgumentCaptor.forClass(List.class);
+            verify(notifyMsgActorDAO).insertIgnoreBatch(actors.capture());
+            assertThat(actors.getValue()).extracting(NotifyMsgActorDO::getNotifyId).containsOnly(500L);
+            assertThat(actors.getValue()).extracting(NotifyMsgActorDO::getOperateUserId).containsExactly(2L, 3L);
+            verify(notifyCountCacheService).incrementBy(AUTHOR_ID, NotifyTypeEnum.PRAISE, 1L);
+        }
+    }
+
+    @Nested
+    @DisplayName("合并已有聚合测试")
+    class MergeTest {
+
+        @Test
+        @DisplayName("锁定未读聚合后写入操作用户并累加计数，不新增未读")
+        void shouldMergeIntoLockedAggregate() {
+            when(notifyMsgDAO.listOpenAggregates(any(), any(), any(), any())).thenReturn(List.of(openAggregate()));
+            when(notifyMsgDAO.lockOpenAggregate(42L)).thenReturn(openAggregate());
+            when(notifyMsgActorDAO.insertIgnoreBatch(42L, List.of(2L))).thenReturn(1);
+            when(notifyMsgDAO.updateAggregate(any(NotifyMsgDO.class), anyInt())).thenReturn(true);
+
+            notifyMsgService.saveNotificationsFromEvents(List.of(praise(2L)));
+
+            ArgumentCaptor<NotifyMsgDO> updated = ArgumentCaptor.forClass(NotifyMsgDO.class);
+            verify(notifyMsgDAO).updateAggregate(updated.capture(), eq(1));
+            assertThat(updated.getValue().getRecentActorIds()).isEqualTo("2,9,8");
+            assertThat(updated.getValue().getMsg()).isEqualTo("张三 等 6 人 赞了你的文章");
+            verify(notifyMsgDAO).insertBatch(List.of());
+            verify(notifyCountCacheService, never()).incrementBy(anyLong(), any(), anyLong());
+        }
+
+        @Test
+        @DisplayName("旧通知没有操作用户明细时先补写原操作用户，同一用户再次操作不重复计数")
+        void shouldSeedLegacyOperatorBeforeMerging() {
+            NotifyMsgDO legacy = openAggregate().setOperateUserId(2L).setActorCount(1).setRecentActorIds(null);
+            when(notifyMsgDAO.listOpenAggregates(any(), any(), any(), any())).thenReturn(List.of(legacy));
+            when(notifyMsgDAO.lockOpenAggregate(42L)).thenReturn(legacy);
+            // 补写原操作用户后，同一用户的再次写入被忽略
+            when(notifyMsgActorDAO.insertIgnoreBatch(42L, List.of(2L))).thenReturn(1, 0);
+            when(notifyMsgDAO.updateAggregate(any(NotifyMsgDO.class), anyInt())).thenReturn(true);
+
+            notifyMsgService.saveNotificationsFromEvents(List.of(praise(2L)));
+
+            verify(notifyMsgActorDAO, times(2)).insertIgnoreBatch(42L, List.of(2L));
+            ArgumentCaptor<NotifyMsgDO> updated = ArgumentCaptor.forClass(NotifyMsgDO.class);
+            verify(notifyMsgDAO).updateAggregate(updated.capture(), eq(0));
+            assertThat(updated.getValue().getActorCount()).isEqualTo(1);
+            assertThat(updated.getValue().getRecentActorIds()).isEqualTo("2");
+            assertThat(updated.getValue().getMsg()).isEqualTo("张三 赞了你的文章");
+        }
+
+        @Test
+        @DisplayName("旧通知合并其他用户时计入原操作用户")
+        void shouldCountLegacyOperatorWhenMergingOthers() {
+            NotifyMsgDO legacy = openAggregate().setOperateUserId(2L).setActorCount(1).setRecentActorIds(null);
+            when(notifyMsgDAO.listOpenAggregates(any(), any(), any(), any())).thenReturn(List.of(legacy));
+            when(notifyMsgDAO.lockOpenAggregate(42L)).thenReturn(legacy);
+            when(notifyMsgActorDAO.insertIgnoreBatch(42L, List.of(2L))).thenReturn(1);
+            when(notifyMsgActorDAO.insertIgnoreBatch(42L, List.of(3L))).thenReturn(1);
+            when(notifyMsgDAO.updateAggregate(any(NotifyMsgDO.class), anyInt())).thenReturn(true);
+
+            notifyMsgService.saveNotificationsFromEvents(List.of(praise(3L)));
+
+            ArgumentCaptor<NotifyMsgDO> updated = ArgumentCaptor.forClass(NotifyMsgDO.class);
+            verify(notifyMsgDAO).updateAggregate(updated.capture(), eq(1));
+            assertThat(updated.getValue().getActorCount()).isEqualTo(2);
+            assertThat(updated.getValue().getRecentActorIds()).isEqualTo("3,2");
+        }
+
+        @Test
+        @DisplayName("聚合通知已被读取时不写入操作用户，改为新建聚合")
+        @SuppressWarnings("unchecked")
+        void shouldCreateWhenAggregateAlreadyRead() {
+            when(notifyMsgDAO.listOpenAggregates(any(), any(), any(), any())).thenReturn(List.of(openAggregate()));
+            when(notifyMsgDAO.lockOpenAggregate(42L)).thenReturn(null);
+
+            notifyMsgService.saveNotificationsFromEvents(List.of(praise(2L)));
+
+            verify(notifyMsgActorDAO, never()).insertIgnoreBatch(eq(42L), anyList());
+            verify(notifyMsgDAO, never()).updateAggregate(any(NotifyMsgDO.class), anyInt());
+            ArgumentCaptor<List<NotifyMsgDO>> created = ArgumentCaptor.forClass(List.class);
+            verify(notifyMsgDAO).insertBatch(created.capture());
+            assertThat(created.getValue()).singleElement()
+                    .satisfies(notifyMsg -> assertThat(notifyMsg.getActorCount()).isEqualTo(1));
+            verify(notifyCountCacheService).incrementBy(AUTHOR_ID, NotifyTypeEnum.PRAISE, 1L);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package top.harrylei.community.service.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import top.harrylei.community.api.enums.common.OutboxStatusEnum;
+import top.harrylei.community.api.enums.notify.NotifyTypeEnum;
+import top.harrylei.community.api.event.NotificationEvent;
+import top.harrylei.community.core.util.JsonUtil;
+import top.harrylei.community.core.util.KafkaProducerRouter;
+import top.harrylei.community.service.outbox.repository.dao.OutboxEventDAO;
+import top.harrylei.community.service.outbox.repository.entity.OutboxEventDO;
+import top.harrylei.community.service.outbox.service.impl.OutboxEventServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 发件箱事件服务测试
+ *
+ * @author harry
+ */
+@DisplayName("OutboxEventServiceImpl 测试")
+class OutboxEventServiceImplTest {
+
+    private static final String TOPIC = "bytelogs-notification-events";
+    private static final String BULK_TOPIC = "bytelogs-article-statistics-events";
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private OutboxEventDAO outboxEventDAO;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private KafkaTemplate<String, Object> bulkKafkaTemplate;
+    private OutboxEventServiceImpl outboxEventService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEventDAO = mock(OutboxEventDAO.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        bulkKafkaTemplate = mock(KafkaTemplate.class);
+        outboxEventService = new OutboxEventServiceImpl(outboxEventDAO,
+                new KafkaProducerRouter(kafkaTemplate, bulkKafkaTemplate, Set.of(BULK_TOPIC)));
+    }
+
+    private static NotificationEvent event(String eventId) {
+        return NotificationEvent.builder()
+                .eventId(eventId)
+                .operateUserId(1L)
+                .targetUserId(2L)
+                .notifyType(NotifyTypeEnum.COMMENT)
+                .build();
+    }
+
+    private static OutboxEventDO outboxEvent(Long id, String eventId) {
+        OutboxEventDO outboxEvent = new OutboxEventDO()
+                .setTopic(TOPIC)
+                .setEventKey(eventId)
+                .setEventType(NotificationEvent.class.getName())
+                .setPayload(JsonUtil.toJson(event(eventId)))
+                .setStatus(OutboxStatusEnum.PENDING)
+                .setRetryCount(0);
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+
+    /**
+     * 匹配按下次投递时间分组的事件ID，只比较ID
+     */
+    private static Map<LocalDateTime, List<Long>> ids(Long... ids) {
+        return argThat(grouped -> grouped.values().stream().flatMap(List::stream).sorted().toList()
+                .equals(Stream.of(ids).sorted().toList()));
+    }
+
+    @Nested
+    @DisplayName("写入测试")
+    class AppendTest {
+
+        @Test
+        @DisplayName("事件序列化后按指定Key写入发件箱，不直接发送Kafka")
+        void shouldSaveToOutbox() {
+            outboxEventService.append(TOPIC, "2", event("e1"));
+
+            ArgumentCaptor<OutboxEventDO> saved = ArgumentCaptor.forClass(OutboxEventDO.class);
+            verify(outboxEventDAO).save(saved.capture());
+            assertThat(saved.getValue().getEventKey()).isEqualTo("2");
+            assertThat(saved.getValue().getStatus()).isEqualTo(OutboxStatusEnum.PENDING);
+            assertThat(JsonUtil.fromJson(saved.getValue().getPayload(), NotificationEvent.class).getTargetUserId())
+                    .isEqualTo(2L);
+            verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        }
+
+        @Test
+        @DisplayName("批量写入时一次提交整批事件，按提取函数设置Key")
+        @SuppressWarnings("unchecked")
+        void shouldInsertBatch() {
+            outboxEventService.appendAll(TOPIC, List.of(event("e1"), event("e2")), NotificationEvent::getEventId);
+
+            ArgumentCaptor<List<OutboxEventDO>> saved = ArgumentCaptor.forClass(List.class);
+            verify(outboxEventDAO).insertBatch(saved.capture());
+            assertThat(saved.getValue()).extracting(OutboxEventDO::getEventKey).containsExactly("e1", "e2");
+            verify(outboxEventDAO, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("中继测试")
+    class RelayTest {
+
+        @Test
+        @DisplayName("发送成功的标记为已发送，失败的记录重试")
+        @SuppressWarnings("unchecked")
+        void shouldMarkSentAndRetry() {
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of(outboxEvent(1L, "e1"), outboxEvent(2L, "e2")));
+            when(kafkaTemplate.send(eq(TOPIC), eq("e1"), any()))
+                    .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+            when(kafkaTemplate.send(eq(TOPIC), eq("e2"), any()))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+            assertThat(outboxEventService.relayBatch(10)).isEqualTo(2);
+
+            ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+            verify(kafkaTemplate).send(eq(TOPIC), eq("e1"), payload.capture());
+            assertThat(payload.getValue()).isInstanceOf(NotificationEvent.class);
+            verify(outboxEventDAO).complete(eq(List.of(1L)), ids(2L), ids(), anyInt());
+        }
+
+        @Test
+        @DisplayName("同一Key的事件按序发送，前一条失败后不再发送后续事件并放回待发送")
+        @SuppressWarnings("unchecked")
+        void shouldStopKeyAfterFailure() {
+            OutboxEventDO first = outboxEvent(1L, "e1").setEventKey("2");
+            OutboxEventDO second = outboxEvent(2L, "e2").setEventKey("2");
+            OutboxEventDO other = outboxEvent(3L, "e3").setEventKey("3");
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of(first, second, other));
+            when(kafkaTemplate.send(eq(TOPIC), eq("2"), any()))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+            when(kafkaTemplate.send(eq(TOPIC), eq("3"), any()))
+                    .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+            outboxEventService.relayBatch(10);
+
+            verify(kafkaTemplate, times(1)).send(eq(TOPIC), eq("2"), any());
+            verify(outboxEventDAO).complete(eq(List.of(3L)), ids(1L), ids(2L), anyInt());
+        }
+
+        @Test
+        @DisplayName("失败事件按失败次数退避，同一Key排在其后的事件与之同时放回")
+        @SuppressWarnings("unchecked")
+        void shouldBackOffKeyAfterFailure() {
+            OutboxEventDO first = outboxEvent(1L, "e1").setEventKey("2").setRetryCount(3);
+            OutboxEventDO second = outboxEvent(2L, "e2").setEventKey("2");
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of(first, second));
+            when(kafkaTemplate.send(eq(TOPIC), eq("2"), any()))
+                    .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+            LocalDateTime before = LocalDateTime.now();
+            outboxEventService.relayBatch(10);
+
+            ArgumentCaptor<Map<LocalDateTime, List<Long>>> failed = ArgumentCaptor.forClass(Map.class);
+            ArgumentCaptor<Map<LocalDateTime, List<Long>>> released = ArgumentCaptor.forClass(Map.class);
+            verify(outboxEventDAO).complete(eq(List.of()), failed.capture(), released.capture(), anyInt());
+            LocalDateTime nextAttemptTime = failed.getValue().keySet().iterator().next();
+            assertThat(failed.getValue()).containsOnly(Map.entry(nextAttemptTime, List.of(1L)));
+            assertThat(released.getValue()).containsOnly(Map.entry(nextAttemptTime, List.of(2L)));
+            assertThat(nextAttemptTime).isBetween(before.plusSeconds(8), LocalDateTime.now().plusSeconds(8));
+        }
+
+        @Test
+        @DisplayName("同一Key的前一条确认成功后才发送下一条")
+        @SuppressWarnings("unchecked")
+        void shouldSendKeyInOrder() {
+            OutboxEventDO first = outboxEvent(1L, "e1").setEventKey("2");
+            OutboxEventDO second = outboxEvent(2L, "e2").setEventKey("2");
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of(first, second));
+            CompletableFuture<SendResult<String, Object>> pending = new CompletableFuture<>();
+            when(kafkaTemplate.send(eq(TOPIC), eq("2"), any()))
+                    .thenReturn(pending)
+                    .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+            CompletableFuture<Integer> relayed = CompletableFuture.supplyAsync(() -> outboxEventService.relayBatch(10));
+            verify(kafkaTemplate, timeout(1000).times(1)).send(eq(TOPIC), eq("2"), any());
+            pending.complete(mock(SendResult.class));
+
+            assertThat(relayed.join()).isEqualTo(2);
+            verify(kafkaTemplate, times(2)).send(eq(TOPIC), eq("2"), any());
+            verify(outboxEventDAO).complete(eq(List.of(1L, 2L)), ids(), ids(), anyInt());
+        }
+
+        @Test
+        @DisplayName("无法反序列化的事件按失败处理，不影响同批其他事件")
+        @SuppressWarnings("unchecked")
+        void shouldRetryUnknownEventType() {
+            OutboxEventDO broken = outboxEvent(2L, "e2").setEventType("top.harrylei.community.api.event.Missing");
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of(outboxEvent(1L, "e1"), broken));
+            when(kafkaTemplate.send(eq(TOPIC), eq("e1"), any()))
+                    .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+            outboxEventService.relayBatch(10);
+
+            verify(outboxEventDAO).complete(eq(List.of(1L)), ids(2L), ids(), anyInt());
+        }
+
+        @Test
+        @DisplayName("高吞吐Topic的事件使用高吞吐生产者发送")
+        @SuppressWarnings("unchecked")
+        void shouldRouteBulkTopic() {
+            OutboxEventDO statistics = outboxEvent(1L, "e1").setTopic(BULK_TOPIC);
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of(statistics));
+            when(bulkKafkaTemplate.send(eq(BULK_TOPIC), eq("e1"), any()))
+                    .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+            outboxEventService.relayBatch(10);
+
+            verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+            verify(outboxEventDAO).complete(eq(List.of(1L)), ids(), ids(), anyInt());
+        }
+
+        @Test
+        @DisplayName("没有待发送事件时直接返回")
+        void shouldReturnZeroWhenEmpty() {
+            when(outboxEventDAO.claimPending(eq(10), any(Duration.class))).thenReturn(List.of());
+
+            assertThat(outboxEventService.relayBatch(10)).isZero();
+            verify(outboxEventDAO, never()).complete(any(), any(), any(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("分区维护测试")
+    class PartitionTest {
+
+        @Test
+        @DisplayName("删除过期且已投递完的分区，保留仍有积压的分区，并预建后续分区")
+        void shouldDropExpiredAndCreateAhead() {
+            LocalDate today = LocalDate.now();
+            String expired = PARTITION_FORMAT.format(today.minusDays(10));
+            String backlog = PARTITION_FORMAT.format(today.minusDays(9));
+            String current = PARTITION_FORMAT.format(today);
+            when(outboxEventDAO.listPartitions()).thenReturn(List.of(expired, backlog, current, "p_max"));
+            when(outboxEventDAO.countPendingInPartition(expired)).thenReturn(0L);
+            when(outboxEventDAO.countPendingInPartition(backlog)).thenReturn(5L);
+
+            outboxEventService.maintainPartitions();
+
+            verify(outboxEventDAO).dropPartition(expired);
+            verify(outboxEventDAO, never()).dropPartition(backlog);
+            verify(outboxEventDAO, never()).addDailyPartition(eq(current), any());
+            verify(outboxEventDAO).addDailyPartition(PARTITION_FORMAT.format(today.plusDays(1)), today.plusDays(2));
+            verify(outboxEventDAO).addDailyPartition(PARTITION_FORMAT.format(today.plusDays(3)), today.plusDays(4));
+        }
+
+        @Test
+        @DisplayName("只有兜底分区时从当天开始建分区")
+        void shouldCreateFromTodayWhenOnlyCatchAll() {
+            LocalDate today = LocalDate.now();
+            when(outboxEventDAO.listPartitions()).thenReturn(List.of("p_max"));
+
+            outboxEventService.maintainPartitions();
+
+            verify(outboxEventDAO).addDailyPartition(PARTITION_FORMAT.format(today), today.plusDays(1));
+            verify(outboxEventDAO, never()).dropPartition(anyString());
+        }
+    }
+}
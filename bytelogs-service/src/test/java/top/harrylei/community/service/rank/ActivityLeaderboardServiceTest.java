@@ -0,0 +1,192 @@
+package top.harrylei.community.service.rank;
+
+import com.google.common.collect.Maps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.rank.service.ActivityLeaderboardService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 活跃度排行榜存储测试
+ *
+ * @author harry
+ */
+@DisplayName("ActivityLeaderboardService 测试")
+class ActivityLeaderboardServiceTest {
+
+    private static final String RANK_KEY = "bytelogs:activity:rank:total";
+    private static final String TOP_KEY = RANK_KEY + ":top";
+
+    private RedisUtil redisUtil;
+    private ActivityLeaderboardService activityLeaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        activityLeaderboardService = new ActivityLeaderboardService(redisUtil);
+    }
+
+    private static Map.Entry<String, Double> entry(String member, double score) {
+        return Maps.immutableEntry(member, score);
+    }
+
+    private static List<List<Map.Entry<String, Double>>> emptyHeads() {
+        return new ArrayList<>(Collections.nCopies(8, List.of()));
+    }
+
+    @Nested
+    @DisplayName("写入测试")
+    class WriteTest {
+
+        @Test
+        @DisplayName("各排行榜只写用户所在的分片，一次批量调用")
+        @SuppressWarnings("unchecked")
+        void shouldWriteUserShardOnly() {
+            Map<String, Duration> rankKeys = new LinkedHashMap<>();
+            rankKeys.put(RANK_KEY, null);
+            rankKeys.put("bytelogs:activity:rank:daily:2025-06-01", Duration.ofDays(7));
+
+            activityLeaderboardService.increment(13L, 5, rankKeys);
+
+            ArgumentCaptor<Map<String, Duration>> shardKeys = ArgumentCaptor.forClass(Map.class);
+            verify(redisUtil, times(1)).zIncrByAll(shardKeys.capture(), eq("13"), eq(5.0));
+            assertThat(shardKeys.getValue()).containsEntry(RANK_KEY + ":shard:5", null)
+                    .containsEntry("bytelogs:activity:rank:daily:2025-06-01:shard:5", Duration.ofDays(7))
+                    .hasSize(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("前N名测试")
+    class TopTest {
+
+        @Test
+        @DisplayName("合并视图存在时直接读取视图")
+        void shouldReadTopView() {
+            when(redisUtil.zRevRangeWithScores(TOP_KEY, 0, 99)).thenReturn(List.of(entry("1", 10)));
+
+            assertThat(activityLeaderboardService.top(RANK_KEY, 100)).containsExactly(entry("1", 10));
+            verify(redisUtil, never()).zRevRangeWithScoresAll(anyList(), anyLong(), anyLong());
+        }
+
+        @Test
+        @DisplayName("视图缺失时归并各分片的前N名，同分按成员逆序")
+        void shouldMergeShardHeads() {
+            List<List<Map.Entry<String, Double>>> heads = emptyHeads();
+            heads.set(0, List.of(entry("8", 30), entry("16", 5)));
+            heads.set(1, List.of(entry("9", 20), entry("1", 5)));
+            heads.set(3, List.of(entry("3", 20)));
+            when(redisUtil.zRevRangeWithScores(TOP_KEY, 0, 2)).thenReturn(List.of());
+            when(redisUtil.zRevRangeWithScoresAll(anyList(), eq(0L), eq(2L))).thenReturn(heads);
+
+            assertThat(activityLeaderboardService.top(RANK_KEY, 3))
+                    .containsExactly(entry("8", 30), entry("9", 20), entry("3", 20));
+        }
+
+        @Test
+        @DisplayName("刷新视图时用归并结果整体替换")
+        void shouldReplaceTopView() {
+            List<List<Map.Entry<String, Double>>> heads = emptyHeads();
+            heads.set(2, List.of(entry("2", 7)));
+            when(redisUtil.zRevRangeWithScoresAll(anyList(), eq(0L), eq(99L))).thenReturn(heads);
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(1L);
+
+            activityLeaderboardService.refreshTopView(RANK_KEY);
+
+            ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+            verify(redisUtil).evalForLong(anyString(), eq(List.of(TOP_KEY)), args.capture());
+            assertThat(Arrays.asList(args.getValue()).subList(1, 3)).containsExactly(7.0, "2");
+        }
+    }
+
+    @Nested
+    @DisplayName("排名查询测试")
+    class RankTest {
+
+        @Test
+        @DisplayName("排名为各分片中积分更高的成员数之和加一，未上榜的排行榜返回null")
+        @SuppressWarnings("unchecked")
+        void shouldSumHigherCountsAcrossShards() {
+            String dailyKey = "bytelogs:activity:rank:daily:2025-06-01";
+            when(redisUtil.zScoreAll(anyList(), eq("13"))).thenReturn(Arrays.asList(null, 42.0));
+            when(redisUtil.zCountAboveAll(anyList(), anyList())).thenReturn(List.of(3L, 0L, 1L, 0L, 0L, 2L, 0L, 4L));
+
+            List<Integer[]> rankScores = activityLeaderboardService.rankScores(13L, List.of(dailyKey, RANK_KEY));
+
+            assertThat(rankScores.get(0)).isNull();
+            assertThat(rankScores.get(1)).containsExactly(11, 42);
+            ArgumentCaptor<List<String>> countKeys = ArgumentCaptor.forClass(List.class);
+            verify(redisUtil).zCountAboveAll(countKeys.capture(), anyList());
+            assertThat(countKeys.getValue()).hasSize(8).allSatisfy(key -> assertThat(key).startsWith(RANK_KEY));
+        }
+
+        @Test
+        @DisplayName("用户不在任何排行榜时只查询一次")
+        void shouldSkipCountWhenNoScore() {
+            when(redisUtil.zScoreAll(anyList(), eq("13"))).thenReturn(Collections.singletonList(null));
+
+            assertThat(activityLeaderboardService.rankScores(13L, List.of(RANK_KEY))).hasSize(1).containsOnlyNulls();
+            verify(redisUtil, never()).zCountAboveAll(anyList(), anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("迁移测试")
+    class MigrateTest {
+
+        @Test
+        @DisplayName("未分片的排行榜按分片累加后从原key删除")
+        void shouldMigrateLegacyRanking() {
+            when(redisUtil.exists(RANK_KEY)).thenReturn(true);
+            when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+            when(redisUtil.zScan(RANK_KEY, "0", 500))
+                    .thenReturn(new RedisUtil.ZScanPage("0", List.of(entry("1", 10), entry("9", 3), entry("2", 4))))
+                    .thenReturn(new RedisUtil.ZScanPage("0", List.of()));
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(1L);
+
+            activityLeaderboardService.migrateLegacy(RANK_KEY, null);
+
+            verify(redisUtil).evalForLong(anyString(), eq(List.of(RANK_KEY + ":shard:1")), any(Object[].class));
+            verify(redisUtil).evalForLong(anyString(), eq(List.of(RANK_KEY + ":shard:2")), any(Object[].class));
+            verify(redisUtil).zRem(RANK_KEY, "1", "9", "2");
+            verify(redisUtil).releaseLock(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("写入分片失败时保留原key中的成员")
+        void shouldKeepLegacyMembersWhenMergeFails() {
+            when(redisUtil.exists(RANK_KEY)).thenReturn(true);
+            when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+            when(redisUtil.zScan(RANK_KEY, "0", 500))
+                    .thenReturn(new RedisUtil.ZScanPage("0", List.of(entry("1", 10))));
+            when(redisUtil.evalForLong(anyString(), anyList(), any(Object[].class))).thenReturn(null);
+
+            activityLeaderboardService.migrateLegacy(RANK_KEY, Duration.ofDays(7));
+
+            verify(redisUtil, never()).zRem(anyString(), any(String[].class));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package top.harrylei.community.service.rank;
+
+import com.google.common.collect.Maps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import top.harrylei.community.api.enums.rank.ActivityRankSnapshotStatusEnum;
+import top.harrylei.community.api.enums.rank.ActivityRankTypeEnum;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.rank.repository.dao.ActivityRankDAO;
+import top.harrylei.community.service.rank.repository.dao.ActivityRankSnapshotDAO;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankDO;
+import top.harrylei.community.service.rank.repository.entity.ActivityRankSnapshotDO;
+import top.harrylei.community.service.rank.service.ActivityRankSnapshotService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 活跃度排行榜快照服务测试
+ *
+ * @author harry
+ */
+@DisplayName("ActivityRankSnapshotService 测试")
+class ActivityRankSnapshotServiceTest {
+
+    private static final ActivityRankTypeEnum RANK_TYPE = ActivityRankTypeEnum.MONTHLY;
+    private static final String PERIOD = "2025-06";
+    private static final String SHARD_0 = "bytelogs:activity:rank:monthly:2025-06:shard:0";
+    private static final String SHARD_1 = "bytelogs:activity:rank:monthly:2025-06:shard:1";
+    private static final List<String> RANK_KEYS = List.of(SHARD_0, SHARD_1);
+
+    private RedisUtil redisUtil;
+    private ActivityRankDAO activityRankDAO;
+    private ActivityRankSnapshotDAO activityRankSnapshotDAO;
+    private ActivityRankSnapshotService activityRankSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        activityRankDAO = mock(ActivityRankDAO.class);
+        activityRankSnapshotDAO = mock(ActivityRankSnapshotDAO.class);
+        activityRankSnapshotService =
+                new ActivityRankSnapshotService(redisUtil, activityRankDAO, activityRankSnapshotDAO);
+
+        when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(activityRankSnapshotDAO.activate(anyLong(), anyInt())).thenReturn(true);
+        when(redisUtil.existsAll(RANK_KEYS)).thenReturn(Set.of(SHARD_0, SHARD_1));
+    }
+
+    private static RedisUtil.ZScanPage page(String cursor, String... userIds) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>();
+        for (String userId : userIds) {
+            entries.add(Maps.immutableEntry(userId, 10.0));
+        }
+        return new RedisUtil.ZScanPage(cursor, entries);
+    }
+
+    private static ActivityRankDO row(long id, long userId, int score) {
+        ActivityRankDO row = new ActivityRankDO().setUserId(userId).setScore(score);
+        row.setId(id);
+        return row;
+    }
+
+    private static ActivityRankSnapshotDO snapshot(ActivityRankSnapshotStatusEnum status) {
+        ActivityRankSnapshotDO snapshot = new ActivityRankSnapshotDO()
+                .setRankType(RANK_TYPE)
+                .setRankPeriod(PERIOD)
+                .setActiveVersion(3)
+                .setStagingVersion(4)
+                .setStatus(status)
+                .setScanShard(0)
+                .setScanCursor("0")
+                .setStagedCount(0)
+                .setRankedCount(0)
+                .setLastScore(0)
+                .setLastUserId(0L);
+        snapshot.setId(7L);
+        return snapshot;
+    }
+
+    @Nested
+    @DisplayName("生成快照测试")
+    class SnapshotTest {
+
+        @Test
+        @DisplayName("逐个分片分批扫描写入新版本，分配排名后切换生效版本并清理旧版本")
+        @SuppressWarnings("unchecked")
+        void shouldStageRankAndSwap() {
+            when(activityRankSnapshotDAO.getSnapshot(RANK_TYPE, PERIOD))
+                    .thenReturn(snapshot(ActivityRankSnapshotStatusEnum.READY));
+            when(redisUtil.zScan(SHARD_0, "0", 1000)).thenReturn(page("17", "2"));
+            when(redisUtil.zScan(SHARD_0, "17", 1000)).thenReturn(page("0", "4"));
+            when(redisUtil.zScan(SHARD_1, "0", 1000)).thenReturn(page("0", "1", "3"));
+            when(activityRankDAO.listForRanking(eq(RANK_TYPE), eq(PERIOD), eq(4), isNull(), anyLong(), anyInt()))
+                    .thenReturn(List.of(row(11, 2, 30), row(12, 1, 20), row(13, 3, 10)));
+
+            activityRankSnapshotService.snapshot(RANK_TYPE, PERIOD, RANK_KEYS);
+
+            verify(activityRankSnapshotDAO).startStaging(7L, 4);
+            ArgumentCaptor<List<ActivityRankDO>> staged = ArgumentCaptor.forClass(List.class);
+            verify(activityRankDAO, times(3)).upsertBatch(staged.capture());
+            assertThat(staged.getAllValues().getFirst()).extracting(ActivityRankDO::getSnapshotVersion).containsOnly(4);
+            verify(activityRankSnapshotDAO).saveScanCheckpoint(7L, 0, "17", 1, false);
+            verify(activityRankSnapshotDAO).saveScanCheckpoint(7L, 1, "0", 1, false);
+            verify(activityRankSnapshotDAO).saveScanCheckpoint(7L, 2, "0", 2, true);
+
+            ArgumentCaptor<List<ActivityRankDO>> ranked = ArgumentCaptor.forClass(List.class);
+            verify(activityRankDAO).assignRanks(ranked.capture());
+            assertThat(ranked.getValue()).extracting(ActivityRankDO::getRank).containsExactly(1, 2, 3);
+            verify(activityRankSnapshotDAO).saveRankCheckpoint(7L, 3, 10, 3L);
+            verify(activityRankSnapshotDAO).activate(7L, 4);
+            verify(activityRankDAO).removeOtherVersions(RANK_TYPE, PERIOD, 4, 1000);
+        }
+
+        @Test
+        @DisplayName("扫描中途Redis不可用时保留检查点，不切换版本")
+        void shouldKeepCheckpointWhenRedisFails() {
+            when(activityRankSnapshotDAO.getSnapshot(RANK_TYPE, PERIOD))
+                    .thenReturn(snapshot(ActivityRankSnapshotStatusEnum.READY));
+            when(redisUtil.zScan(SHARD_0, "0", 1000)).thenReturn(page("17", "2", "4"));
+            when(redisUtil.zScan(SHARD_0, "17", 1000)).thenReturn(null);
+
+            activityRankSnapshotService.snapshot(RANK_TYPE, PERIOD, RANK_KEYS);
+
+            verify(activityRankSnapshotDAO).saveScanCheckpoint(7L, 0, "17", 2, false);
+            verify(activityRankDAO, never()).assignRanks(any());
+            verify(activityRankSnapshotDAO, never()).activate(anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("排行榜为空时不生成快照，保留原有数据")
+        void shouldSkipEmptyRanking() {
+            when(redisUtil.existsAll(RANK_KEYS)).thenReturn(Set.of());
+
+            activityRankSnapshotService.snapshot(RANK_TYPE, PERIOD, RANK_KEYS);
+
+            verify(activityRankSnapshotDAO, never()).save(any());
+            verify(redisUtil, never()).zScan(anyString(), anyString(), anyLong());
+        }
+
+        @Test
+        @DisplayName("其他实例正在生成时跳过")
+        void shouldSkipWhenLocked() {
+            when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+            activityRankSnapshotService.snapshot(RANK_TYPE, PERIOD, RANK_KEYS);
+
+            verify(activityRankSnapshotDAO, never()).getSnapshot(any(), anyString());
+            verify(redisUtil, never()).releaseLock(anyString(), anyString());
+        }
+    }
+
+    @Nested
+    @DisplayName("断点续做测试")
+    class ResumeTest {
+
+        @Test
+        @DisplayName("暂存阶段从检查点的分片和游标继续扫描")
+        void shouldResumeScanFromCursor() {
+            ActivityRankSnapshotDO staging = snapshot(ActivityRankSnapshotStatusEnum.STAGING)
+                    .setScanShard(1).setScanCursor("42");
+            when(activityRankSnapshotDAO.getById(7L)).thenReturn(staging);
+            when(redisUtil.zScan(SHARD_1, "42", 1000)).thenReturn(page("0", "5"));
+            when(activityRankDAO.listForRanking(any(), anyString(), anyInt(), any(), anyLong(), anyInt()))
+                    .thenReturn(List.of());
+
+            activityRankSnapshotService.resume(staging, RANK_KEYS);
+
+            verify(redisUtil, never()).zScan(SHARD_0, "0", 1000);
+            verify(activityRankSnapshotDAO).saveScanCheckpoint(7L, 2, "0", 1, true);
+            verify(activityRankSnapshotDAO).activate(7L, 4);
+        }
+
+        @Test
+        @DisplayName("排名阶段从最后一个已排名行之后继续，排名接着检查点递增")
+        @SuppressWarnings("unchecked")
+        void shouldResumeRankingFromKeyset() {
+            ActivityRankSnapshotDO ranking = snapshot(ActivityRankSnapshotStatusEnum.RANKING)
+                    .setRankedCount(1000).setLastScore(50).setLastUserId(9L);
+            when(activityRankSnapshotDAO.getById(7L)).thenReturn(ranking);
+            when(activityRankDAO.listForRanking(RANK_TYPE, PERIOD, 4, 50, 9L, 1000))
+                    .thenReturn(List.of(row(21, 4, 50), row(22, 8, 40)));
+
+            activityRankSnapshotService.resume(ranking, RANK_KEYS);
+
+            verify(redisUtil, never()).zScan(anyString(), anyString(), anyLong());
+            ArgumentCaptor<List<ActivityRankDO>> ranked = ArgumentCaptor.forClass(List.class);
+            verify(activityRankDAO).assignRanks(ranked.capture());
+            assertThat(ranked.getValue()).extracting(ActivityRankDO::getRank).containsExactly(1001, 1002);
+            verify(activityRankSnapshotDAO).saveRankCheckpoint(7L, 1002, 40, 8L);
+        }
+
+        @Test
+        @DisplayName("排行榜已过期时放弃暂存的版本，生效版本保持不变")
+        void shouldAbandonWhenRankingExpired() {
+            ActivityRankSnapshotDO staging = snapshot(ActivityRankSnapshotStatusEnum.STAGING).setScanCursor("42");
+            when(activityRankSnapshotDAO.getById(7L)).thenReturn(staging);
+            when(redisUtil.existsAll(RANK_KEYS)).thenReturn(Set.of());
+
+            activityRankSnapshotService.resume(staging, RANK_KEYS);
+
+            verify(activityRankSnapshotDAO).abandon(7L);
+            verify(activityRankDAO).removeOtherVersions(RANK_TYPE, PERIOD, 3, 1000);
+            verify(redisUtil, never()).zScan(anyString(), anyString(), anyLong());
+            verify(activityRankSnapshotDAO, never()).saveScanCheckpoint(anyLong(), anyInt(), anyString(), anyInt(), anyBoolean());
+        }
+    }
+}
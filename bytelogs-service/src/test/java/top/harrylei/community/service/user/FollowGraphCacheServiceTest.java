@@ -0,0 +1,188 @@
+package top.harrylei.community.service.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import top.harrylei.community.core.util.MetricsUtil;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.user.repository.dao.UserFollowDAO;
+import top.harrylei.community.service.user.repository.entity.UserFollowDO;
+import top.harrylei.community.service.user.service.cache.FollowGraphCacheService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 关注关系图缓存服务测试
+ *
+ * @author harry
+ */
+@DisplayName("FollowGraphCacheService 测试")
+class FollowGraphCacheServiceTest {
+
+    private static final String FOLLOWING_KEY = "byte_logs:user:following:1";
+    private static final String FOLLOWERS_KEY = "byte_logs:user:followers:1";
+
+    private UserFollowDAO userFollowDAO;
+    private RedisUtil redisUtil;
+    private FollowGraphCacheService followGraphCacheService;
+
+    @BeforeEach
+    void setUp() {
+        userFollowDAO = mock(UserFollowDAO.class);
+        redisUtil = mock(RedisUtil.class);
+        followGraphCacheService = new FollowGraphCacheService(userFollowDAO, redisUtil, mock(MetricsUtil.class));
+
+        when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(redisUtil.setBytes(anyString(), any(byte[].class), any(Duration.class))).thenReturn(true);
+    }
+
+    private static byte[] bitmapOf(long... members) throws IOException {
+        Roaring64Bitmap bitmap = Roaring64Bitmap.bitmapOf(members);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.serialize(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Roaring64Bitmap readBitmap(byte[] bytes) throws IOException {
+        Roaring64Bitmap bitmap = new Roaring64Bitmap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            bitmap.deserialize(in);
+        }
+        return bitmap;
+    }
+
+    private static UserFollowDO relation(long id, long userId, long followUserId) {
+        UserFollowDO relation = new UserFollowDO().setUserId(userId).setFollowUserId(followUserId);
+        relation.setId(id);
+        return relation;
+    }
+
+    @Nested
+    @DisplayName("关注判断测试")
+    class MembershipTest {
+
+        @Test
+        @DisplayName("一页作者的关注判断只读取一次位图，之后命中本地缓存")
+        void shouldCheckPageWithOneRead() throws IOException {
+            when(redisUtil.getBytes(FOLLOWING_KEY)).thenReturn(bitmapOf(2, 5, 9));
+
+            assertThat(followGraphCacheService.filterFollowing(1L, List.of(2L, 3L, 9L))).containsExactlyInAnyOrder(2L, 9L);
+            assertThat(followGraphCacheService.isFollowing(1L, 5L)).isTrue();
+
+            verify(redisUtil, times(1)).getBytes(FOLLOWING_KEY);
+            verify(userFollowDAO, never()).listFollowingAfter(anyLong(), anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Redis未缓存时按关系ID分批从数据库重建并写入")
+        void shouldRebuildFromDatabase() throws IOException {
+            List<UserFollowDO> firstBatch = new ArrayList<>();
+            LongStream.rangeClosed(1, 5000).forEach(i -> firstBatch.add(relation(i, 1, i + 100)));
+            when(userFollowDAO.listFollowingAfter(1L, 0L, 5000)).thenReturn(firstBatch);
+            when(userFollowDAO.listFollowingAfter(1L, 5000L, 5000)).thenReturn(List.of(relation(6000, 1, 42)));
+
+            assertThat(followGraphCacheService.isFollowing(1L, 42L)).isTrue();
+
+            ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+            verify(redisUtil).setBytes(eq(FOLLOWING_KEY), written.capture(), any(Duration.class));
+            assertThat(readBitmap(written.getValue()).getLongCardinality()).isEqualTo(5001);
+            verify(redisUtil).releaseLock(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("重建期间有关注变化时撤销本次写入")
+        void shouldDropRebuildWhenDirty() {
+            when(userFollowDAO.listFollowingAfter(1L, 0L, 5000)).thenReturn(List.of(relation(1, 1, 2)));
+            when(redisUtil.exists(FOLLOWING_KEY + ":dirty")).thenReturn(true);
+
+            followGraphCacheService.isFollowing(1L, 2L);
+
+            verify(redisUtil).del(FOLLOWING_KEY);
+            verify(redisUtil).del(FOLLOWING_KEY + ":dirty");
+        }
+    }
+
+    @Nested
+    @DisplayName("粉丝遍历测试")
+    class FollowerTest {
+
+        @Test
+        @DisplayName("按批遍历粉丝位图")
+        void shouldStreamFollowersInBatches() throws IOException {
+            when(redisUtil.getBytes(FOLLOWERS_KEY)).thenReturn(bitmapOf(3, 4, 7, 8, 10));
+
+            List<List<Long>> batches = new ArrayList<>();
+            followGraphCacheService.forEachFollowerBatch(1L, 2, batches::add);
+
+            assertThat(batches).containsExactly(List.of(3L, 4L), List.of(7L, 8L), List.of(10L));
+        }
+    }
+
+    @Nested
+    @DisplayName("增量更新测试")
+    class UpdateTest {
+
+        @Test
+        @DisplayName("关注后更新双方已缓存的位图")
+        void shouldApplyFollowToCachedBitmaps() throws IOException {
+            when(redisUtil.getBytes(FOLLOWING_KEY)).thenReturn(bitmapOf(2));
+            when(redisUtil.getBytes("byte_logs:user:followers:9")).thenReturn(null);
+
+            followGraphCacheService.onFollowChanged(1L, 9L, true);
+
+            ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+            verify(redisUtil).setBytes(eq(FOLLOWING_KEY), written.capture(), any(Duration.class));
+            assertThat(readBitmap(written.getValue()).contains(9L)).isTrue();
+            verify(redisUtil, never()).setBytes(eq("byte_logs:user:followers:9"), any(byte[].class), any(Duration.class));
+        }
+
+        @Test
+        @DisplayName("取消关注后从位图中移除")
+        void shouldApplyUnfollow() throws IOException {
+            when(redisUtil.getBytes(FOLLOWING_KEY)).thenReturn(bitmapOf(2, 9));
+
+            followGraphCacheService.onFollowChanged(1L, 9L, false);
+
+            ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+            verify(redisUtil).setBytes(eq(FOLLOWING_KEY), written.capture(), any(Duration.class));
+            assertThat(readBitmap(written.getValue()).contains(9L)).isFalse();
+        }
+
+        @Test
+        @DisplayName("位图正在重建时留下标记并删除位图")
+        void shouldMarkDirtyWhenLocked() {
+            when(redisUtil.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+            followGraphCacheService.onFollowChanged(1L, 9L, true);
+
+            verify(redisUtil).set(eq(FOLLOWING_KEY + ":dirty"), eq("1"), any(Duration.class));
+            verify(redisUtil).del(FOLLOWING_KEY);
+            verify(redisUtil, never()).getBytes(anyString());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package top.harrylei.community.service.user;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import top.harrylei.community.api.model.user.req.UserFollowQueryParam;
+import top.harrylei.community.service.user.repository.mapper.UserFollowMapper;
+import top.harrylei.community.service.user.repository.mapper.UserStatisticsMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 关注列表和用户统计Mapper SQL测试
+ * <p>
+ * 解析Mapper XML生成实际执行的SQL，校验按主键倒序的游标分页条件和计数的增量写入。
+ *
+ * @author harry
+ */
+@DisplayName("UserFollowMapper SQL 测试")
+class UserFollowMapperTest {
+
+    private static Configuration configuration;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        configuration = new Configuration();
+        parse("mapper/UserFollowMapper.xml");
+        parse("mapper/UserStatisticsMapper.xml");
+    }
+
+    private static void parse(String resource) throws IOException {
+        try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+            new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+    }
+
+    private static BoundSql boundSql(Class<?> mapper, String statement, Map<String, Object> params) {
+        return configuration.getMappedStatement(mapper.getName() + "." + statement).getBoundSql(params);
+    }
+
+    private static String normalize(BoundSql boundSql) {
+        return boundSql.getSql().replaceAll("\\s+", " ").trim();
+    }
+
+    private static List<String> properties(BoundSql boundSql) {
+        return boundSql.getParameterMappings().stream().map(ParameterMapping::getProperty).toList();
+    }
+
+    private static Map<String, Object> pageParams(UserFollowQueryParam queryParam, long offset, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("queryParam", queryParam);
+        params.put("offset", offset);
+        params.put("limit", limit);
+        return params;
+    }
+
+    @Nested
+    @DisplayName("游标分页测试")
+    class KeysetPageTest {
+
+        @Test
+        @DisplayName("关注列表传入游标时从游标之后按主键倒序查询")
+        void shouldSeekFollowingAfterCursor() {
+            UserFollowQueryParam queryParam = new UserFollowQueryParam();
+            queryParam.setUserId(1L);
+            queryParam.setCursor(1024L);
+
+            BoundSql boundSql = boundSql(UserFollowMapper.class, "listFollowing", pageParams(queryParam, 0, 21));
+
+            assertThat(normalize(boundSql))
+                    .contains("where ur.user_id = ?")
+                    .contains("and ur.id < ?")
+                    .endsWith("order by ur.id desc limit ?, ?");
+            assertThat(properties(boundSql))
+                    .containsExactly("queryParam.userId", "queryParam.cursor", "offset", "limit");
+        }
+
+        @Test
+        @DisplayName("粉丝列表传入游标时从游标之后按主键倒序查询")
+        void shouldSeekFollowersAfterCursor() {
+            UserFollowQueryParam queryParam = new UserFollowQueryParam();
+            queryParam.setFollowUserId(2L);
+            queryParam.setCursor(1024L);
+
+            BoundSql boundSql = boundSql(UserFollowMapper.class, "listFollowers", pageParams(queryParam, 0, 21));
+
+            assertThat(normalize(boundSql))
+                    .contains("where ur.follow_user_id = ?")
+                    .contains("and ur.id < ?")
+                    .endsWith("order by ur.id desc limit ?, ?");
+            assertThat(properties(boundSql))
+                    .containsExactly("queryParam.followUserId", "queryParam.cursor", "offset", "limit");
+        }
+
+        @Test
+        @DisplayName("未传游标时按页码偏移，不带游标条件")
+        void shouldUseOffsetWithoutCursor() {
+            UserFollowQueryParam queryParam = new UserFollowQueryParam();
+            queryParam.setUserId(1L);
+
+            BoundSql boundSql = boundSql(UserFollowMapper.class, "listFollowing", pageParams(queryParam, 40, 21));
+
+            assertThat(normalize(boundSql)).doesNotContain("ur.id <").endsWith("order by ur.id desc limit ?, ?");
+            assertThat(properties(boundSql)).containsExactly("queryParam.userId", "offset", "limit");
+        }
+
+        @Test
+        @DisplayName("按用户名筛选时追加模糊匹配条件")
+        void shouldFilterByUserName() {
+            UserFollowQueryParam queryParam = new UserFollowQueryParam();
+            queryParam.setFollowUserId(2L);
+            queryParam.setUserName("harry");
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("queryParam", queryParam);
+            BoundSql boundSql = boundSql(UserFollowMapper.class, "countFollowers", params);
+
+            assertThat(normalize(boundSql)).contains("and ua.user_name like concat('%', ?, '%')");
+            assertThat(properties(boundSql)).containsExactly("queryParam.followUserId", "queryParam.userName");
+        }
+    }
+
+    @Nested
+    @DisplayName("计数写入测试")
+    class AdjustCountsTest {
+
+        private BoundSql adjust(long userId, long followUserId, int delta) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("userId", userId);
+            params.put("followUserId", followUserId);
+            params.put("delta", delta);
+            return boundSql(UserStatisticsMapper.class, "adjustFollowCounts", params);
+        }
+
+        @Test
+        @DisplayName("两行按用户ID升序写入")
+        void shouldWriteRowsInUserIdOrder() {
+            assertThat(properties(adjust(1L, 2L, 1)).subList(0, 4))
+                    .containsExactly("userId", "delta", "followUserId", "delta");
+            assertThat(properties(adjust(2L, 1L, 1)).subList(0, 4))
+                    .containsExactly("followUserId", "delta", "userId", "delta");
+        }
+
+        @Test
+        @DisplayName("只按增量更新计数，不在关注请求中统计关注关系")
+        void shouldOnlyApplyDelta() {
+            String sql = normalize(adjust(1L, 2L, -1));
+
+            assertThat(sql).doesNotContain("user_relation").contains("on duplicate key update");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package top.harrylei.community.service.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import top.harrylei.community.api.enums.user.UserFollowStatusEnum;
+import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.util.KafkaEventPublisher;
+import top.harrylei.community.core.util.RedisUtil;
+import top.harrylei.community.service.user.repository.dao.UserDAO;
+import top.harrylei.community.service.user.repository.dao.UserFollowDAO;
+import top.harrylei.community.service.user.repository.dao.UserStatisticsDAO;
+import top.harrylei.community.service.user.repository.entity.UserDO;
+import top.harrylei.community.service.user.repository.entity.UserFollowDO;
+import top.harrylei.community.service.user.service.cache.FollowGraphCacheService;
+import top.harrylei.community.service.user.service.impl.UserFollowServiceImpl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户关注服务测试
+ *
+ * @author harry
+ */
+@DisplayName("UserFollowServiceImpl 测试")
+class UserFollowServiceImplTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long FOLLOW_USER_ID = 2L;
+
+    private UserFollowDAO userFollowDAO;
+    private UserStatisticsDAO userStatisticsDAO;
+    private FollowGraphCacheService followGraphCacheService;
+    private UserFollowServiceImpl userFollowService;
+
+    @BeforeEach
+    void setUp() {
+        userFollowDAO = mock(UserFollowDAO.class);
+        userStatisticsDAO = mock(UserStatisticsDAO.class);
+        followGraphCacheService = mock(FollowGraphCacheService.class);
+        UserDAO userDAO = mock(UserDAO.class);
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        userFollowService = new UserFollowServiceImpl(userFollowDAO, userDAO, userStatisticsDAO,
+                followGraphCacheService, redisUtil, mock(KafkaEventPublisher.class));
+
+        when(userDAO.getUserById(anyLong())).thenReturn(new UserDO());
+        when(redisUtil.tryPreventDuplicate(anyString(), any())).thenReturn(true);
+
+        ReqInfoContext.ReqInfo reqInfo = new ReqInfoContext.ReqInfo();
+        reqInfo.setUserId(USER_ID);
+        ReqInfoContext.setContext(reqInfo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReqInfoContext.clear();
+    }
+
+    private static UserFollowDO relation(UserFollowStatusEnum state) {
+        return new UserFollowDO().setUserId(USER_ID).setFollowUserId(FOLLOW_USER_ID).setFollowState(state);
+    }
+
+    @Nested
+    @DisplayName("关注计数测试")
+    class FollowTest {
+
+        @Test
+        @DisplayName("首次关注时双方计数加1")
+        void shouldIncrementOnNewFollow() {
+            userFollowService.followUser(FOLLOW_USER_ID);
+
+            verify(userFollowDAO).save(any(UserFollowDO.class));
+            verify(userStatisticsDAO).adjustFollowCounts(USER_ID, FOLLOW_USER_ID, 1);
+            verify(followGraphCacheService).onFollowChanged(USER_ID, FOLLOW_USER_ID, true);
+        }
+
+        @Test
+        @DisplayName("取消后重新关注时双方计数加1")
+        void shouldIncrementOnRefollow() {
+            when(userFollowDAO.getFollowRelation(USER_ID, FOLLOW_USER_ID))
+                    .thenReturn(relation(UserFollowStatusEnum.UNFOLLOWED));
+            when(userFollowDAO.updateFollowStatus(USER_ID, FOLLOW_USER_ID, UserFollowStatusEnum.FOLLOWED))
+                    .thenReturn(true);
+
+            userFollowService.followUser(FOLLOW_USER_ID);
+
+            verify(userStatisticsDAO).adjustFollowCounts(USER_ID, FOLLOW_USER_ID, 1);
+        }
+
+        @Test
+        @DisplayName("并发请求已先更新状态时不重复加计数")
+        void shouldNotIncrementWhenStatusUnchanged() {
+            when(userFollowDAO.getFollowRelation(USER_ID, FOLLOW_USER_ID))
+                    .thenReturn(relation(UserFollowStatusEnum.UNFOLLOWED));
+            when(userFollowDAO.updateFollowStatus(USER_ID, FOLLOW_USER_ID, UserFollowStatusEnum.FOLLOWED))
+                    .thenReturn(false);
+
+            userFollowService.followUser(FOLLOW_USER_ID);
+
+            verify(userStatisticsDAO, never()).adjustFollowCounts(anyLong(), anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("已关注时不调整计数")
+        void shouldNotIncrementWhenAlreadyFollowed() {
+            when(userFollowDAO.getFollowRelation(USER_ID, FOLLOW_USER_ID))
+                    .thenReturn(relation(UserFollowStatusEnum.FOLLOWED));
+
+            userFollowService.followUser(FOLLOW_USER_ID);
+
+            verify(userStatisticsDAO, never()).adjustFollowCounts(anyLong(), anyLong(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("取消关注计数测试")
+    class UnfollowTest {
+
+        @Test
+        @DisplayName("取消关注时双方计数减1")
+        void shouldDecrementOnUnfollow() {
+            when(userFollowDAO.getFollowRelation(USER_ID, FOLLOW_USER_ID))
+                    .thenReturn(relation(UserFollowStatusEnum.FOLLOWED));
+            when(userFollowDAO.updateFollowStatus(USER_ID, FOLLOW_USER_ID, UserFollowStatusEnum.UNFOLLOWED))
+                    .thenReturn(true);
+
+            userFollowService.unfollowUser(FOLLOW_USER_ID);
+
+            verify(userStatisticsDAO).adjustFollowCounts(USER_ID, FOLLOW_USER_ID, -1);
+            verify(followGraphCacheService).onFollowChanged(USER_ID, FOLLOW_USER_ID, false);
+        }
+
+        @Test
+        @DisplayName("并发请求已先取消关注时不重复减计数")
+        void shouldNotDecrementWhenStatusUnchanged() {
+            when(userFollowDAO.getFollowRelation(USER_ID, FOLLOW_USER_ID))
+                    .thenReturn(relation(UserFollowStatusEnum.FOLLOWED));
+            when(userFollowDAO.updateFollowStatus(USER_ID, FOLLOW_USER_ID, UserFollowStatusEnum.UNFOLLOWED))
+                    .thenReturn(false);
+
+            userFollowService.unfollowUser(FOLLOW_USER_ID);
+
+            verify(userStatisticsDAO, never()).adjustFollowCounts(anyLong(), anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("未关注时不调整计数")
+        void shouldNotDecrementWithoutRelation() {
+            userFollowService.unfollowUser(FOLLOW_USER_ID);
+
+            verify(userFollowDAO, never()).updateFollowStatus(anyLong(), anyLong(), any());
+            verify(userStatisticsDAO, never()).adjustFollowCounts(anyLong(), anyLong(), anyInt());
+        }
+    }
+}
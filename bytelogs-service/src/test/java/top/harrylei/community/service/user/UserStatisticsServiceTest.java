@@ -0,0 +1,110 @@
+package top.harrylei.community.service.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import top.harrylei.community.service.user.repository.dao.UserDAO;
+import top.harrylei.community.service.user.repository.dao.UserStatisticsDAO;
+import top.harrylei.community.service.user.repository.entity.UserStatisticsDO;
+import top.harrylei.community.service.user.service.UserStatisticsService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户统计校准服务测试
+ *
+ * @author harry
+ */
+@DisplayName("UserStatisticsService 测试")
+class UserStatisticsServiceTest {
+
+    private UserDAO userDAO;
+    private UserStatisticsDAO userStatisticsDAO;
+    private UserStatisticsService userStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        userDAO = mock(UserDAO.class);
+        userStatisticsDAO = mock(UserStatisticsDAO.class);
+        userStatisticsService = new UserStatisticsService(userDAO, userStatisticsDAO);
+    }
+
+    private static UserStatisticsDO counts(long userId, int followCount, int fanCount) {
+        return new UserStatisticsDO().setUserId(userId).setFollowCount(followCount).setFanCount(fanCount);
+    }
+
+    @Nested
+    @DisplayName("校准测试")
+    class ReconcileTest {
+
+        @Test
+        @DisplayName("计数不一致的按读取时的值条件覆盖，缺少记录的补建")
+        @SuppressWarnings("unchecked")
+        void shouldFixDriftedAndMissingCounts() {
+            when(userDAO.listUserIdsAfter(0L, 500)).thenReturn(List.of(1L, 2L, 3L));
+            when(userStatisticsDAO.listByUserIds(List.of(1L, 2L, 3L)))
+                    .thenReturn(List.of(counts(1, 5, 2), counts(2, 3, 9)));
+            when(userStatisticsDAO.countFollows(List.of(1L, 2L, 3L)))
+                    .thenReturn(List.of(counts(1, 5, 2), counts(2, 4, 9), counts(3, 1, 0)));
+            when(userStatisticsDAO.compareAndSetCounts(any(), any())).thenReturn(true);
+
+            assertThat(userStatisticsService.reconcileAll(500)).isEqualTo(2);
+
+            ArgumentCaptor<UserStatisticsDO> expected = ArgumentCaptor.forClass(UserStatisticsDO.class);
+            ArgumentCaptor<UserStatisticsDO> actual = ArgumentCaptor.forClass(UserStatisticsDO.class);
+            verify(userStatisticsDAO).compareAndSetCounts(expected.capture(), actual.capture());
+            assertThat(expected.getValue().getFollowCount()).isEqualTo(3);
+            assertThat(actual.getValue().getFollowCount()).isEqualTo(4);
+
+            ArgumentCaptor<List<UserStatisticsDO>> missing = ArgumentCaptor.forClass(List.class);
+            verify(userStatisticsDAO).insertIgnoreBatch(missing.capture());
+            assertThat(missing.getValue()).extracting(UserStatisticsDO::getUserId).containsExactly(3L);
+        }
+
+        @Test
+        @DisplayName("先读统计记录再统计关注关系")
+        void shouldReadStoredBeforeCounting() {
+            when(userDAO.listUserIdsAfter(0L, 500)).thenReturn(List.of(1L));
+
+            userStatisticsService.reconcileAll(500);
+
+            InOrder order = inOrder(userStatisticsDAO);
+            order.verify(userStatisticsDAO).listByUserIds(List.of(1L));
+            order.verify(userStatisticsDAO).countFollows(List.of(1L));
+        }
+
+        @Test
+        @DisplayName("条件覆盖失败时不计入修正数")
+        void shouldSkipWhenCountsChangedConcurrently() {
+            when(userDAO.listUserIdsAfter(0L, 500)).thenReturn(List.of(1L));
+            when(userStatisticsDAO.listByUserIds(List.of(1L))).thenReturn(List.of(counts(1, 5, 2)));
+            when(userStatisticsDAO.countFollows(List.of(1L))).thenReturn(List.of(counts(1, 6, 2)));
+            when(userStatisticsDAO.compareAndSetCounts(any(), any())).thenReturn(false);
+
+            assertThat(userStatisticsService.reconcileAll(500)).isZero();
+        }
+
+        @Test
+        @DisplayName("按用户ID分批推进，最后一批不足时结束")
+        void shouldPageThroughUsers() {
+            when(userDAO.listUserIdsAfter(0L, 2)).thenReturn(List.of(1L, 2L));
+            when(userDAO.listUserIdsAfter(2L, 2)).thenReturn(List.of(5L));
+
+            userStatisticsService.reconcileAll(2);
+
+            verify(userDAO).listUserIdsAfter(2L, 2);
+            verify(userDAO, never()).listUserIdsAfter(5L, 2);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.core.config.AILimitConfig;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.security.permission.RequiresLogin;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
 import top.harrylei.community.core.util.NumUtil;
 import top.harrylei.community.core.util.PageUtils;
 import top.harrylei.community.service.ai.config.AiProviderConfig;
@@ -55,6 +56,7 @@ public class ChatController {
     private final WebSocketSessionManager webSocketSessionManager;
 
     @RequiresLogin
+    @RateLimit(policy = "ai-chat", permits = 10, burst = 3, adminMultiplier = 5)
     @PostMapping
     @Operation(summary = "发起AI对话", description = "发送消息给AI并获取回复")
     public Result<ChatMessageVO> chat(@Valid @RequestBody ChatReq req) {
@@ -64,6 +66,7 @@ public class ChatController {
     }
 
     @RequiresLogin
+    @RateLimit(policy = "ai-chat", permits = 10, burst = 3, adminMultiplier = 5)
     @PostMapping("/stream")
     @Operation(summary = "发起AI流式对话", description = "通过WebSocket发送流式AI响应")
     public Result<Void> chatStream(@Valid @RequestBody ChatReq req) {
@@ -101,6 +104,14 @@ public class ChatController {
         return Result.success();
     }
 
+    @RequiresLogin
+    @PostMapping("/stream/{conversationId}/cancel")
+    @Operation(summary = "中止AI流式对话", description = "中止进行中的流式响应，已生成的内容会被保存")
+    public Result<Boolean> cancelStream(@NotNull(message = "会话ID不能为空") @PathVariable Long conversationId) {
+        Long userId = getCurrentUserId();
+        return Result.success(chatService.cancelStream(conversationId, userId));
+    }
+
     @RequiresLogin
     @GetMapping("/conversations/page")
     @Operation(summary = "获取对话列表", description = "获取当前用户的对话列表（进行中）")
@@ -22,16 +22,21 @@ import top.harrylei.community.api.model.statistics.dto.ArticleStatisticsDTO;
 import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.security.permission.RequiresLogin;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
 import top.harrylei.community.core.util.KafkaEventPublisher;
 import top.harrylei.community.service.article.converted.ArticleStructMapper;
 import top.harrylei.community.service.article.service.ArticleCommandService;
 import top.harrylei.community.service.article.service.ArticleQueryService;
 import top.harrylei.community.service.article.service.ArticleVersionService;
+import top.harrylei.community.service.article.service.render.ArticleRenderService;
 import top.harrylei.community.service.statistics.converted.ArticleStatisticsStructMapper;
 import top.harrylei.community.service.statistics.service.ArticleStatisticsService;
 import top.harrylei.community.service.user.converted.UserStructMapper;
 import top.harrylei.community.service.user.service.UserFootService;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
+import top.harrylei.community.web.cache.ArticleDetailVersionSource;
+import top.harrylei.community.web.cache.ArticleListVersionSource;
+import top.harrylei.community.web.cache.ConditionalGet;
 
 import java.util.List;
 
@@ -58,6 +63,8 @@ public class ArticleController {
     private final UserStructMapper userStructMapper;
     private final UserFootService userFootService;
     private final KafkaEventPublisher kafkaEventPublisher;
+    private final ArticleRenderService articleRenderService;
+
     /**
      * 用户新建文章
      *
@@ -125,6 +132,7 @@ public class ArticleController {
      * @return 文章详细
      */
     @Operation(summary = "文章详细", description = "查询文章详细（支持未登录用户访问已发布文章）")
+    @ConditionalGet(value = ArticleDetailVersionSource.class, weak = true)
     @GetMapping("/{articleId}")
     public Result<ArticleDetailVO> detail(@PathVariable Long articleId) {
         // 查询文章基础信息
@@ -144,7 +152,8 @@ public class ArticleController {
         ArticleDetailVO result = new ArticleDetailVO()
                 .setArticle(articleStructMapper.toVO(articleDTO))
                 .setAuthor(userStructMapper.toVO(author))
-                .setStatistics(articleStatisticsStructMapper.toVO(statistics));
+                .setStatistics(articleStatisticsStructMapper.toVO(statistics))
+                .setRender(articleRenderService.render(articleDTO.getContent()));
 
         return Result.success(result);
     }
@@ -205,6 +214,7 @@ public class ArticleController {
      * @return 分页查询结果
      */
     @Operation(summary = "分页查询", description = "智能分页查询，支持公开查询、我的文章、指定用户文章等多种模式")
+    @ConditionalGet(value = ArticleListVersionSource.class, weak = true)
     @GetMapping("/page")
     public Result<PageVO<ArticleVO>> pageQuery(@Valid ArticleQueryParam queryParam) {
         PageVO<ArticleVO> page = articleQueryService.pageQuery(queryParam);
@@ -219,6 +229,7 @@ public class ArticleController {
      */
     @Operation(summary = "文章操作", description = "对文章进行点赞、收藏等操作")
     @RequiresLogin
+    @RateLimit(policy = "content-action", permits = 60, burst = 20)
     @PutMapping("/action")
     public Result<Void> action(@Valid @RequestBody ArticleActionReq req) {
         // 验证操作类型，只允许点赞收藏相关操作
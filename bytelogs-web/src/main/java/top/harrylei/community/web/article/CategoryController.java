@@ -12,6 +12,8 @@ import top.harrylei.community.api.model.article.dto.CategorySimpleDTO;
 import top.harrylei.community.api.model.base.Result;
 import top.harrylei.community.service.article.converted.CategoryStructMapper;
 import top.harrylei.community.service.article.service.CategoryService;
+import top.harrylei.community.web.cache.CategoryVersionSource;
+import top.harrylei.community.web.cache.ConditionalGet;
 
 import java.util.List;
 
@@ -36,6 +38,7 @@ public class CategoryController {
      * @return 分类列表
      */
     @Operation(summary = "分类列表", description = "返回已排序的分类列表")
+    @ConditionalGet(value = CategoryVersionSource.class, weak = true)
     @GetMapping("/list")
     public Result<List<CategorySimpleDTO>> list() {
         List<CategoryDTO> category = categoryService.listCategory(false);
@@ -12,6 +12,8 @@ import top.harrylei.community.api.model.article.dto.TagSimpleDTO;
 import top.harrylei.community.api.model.base.Result;
 import top.harrylei.community.core.security.permission.RequiresLogin;
 import top.harrylei.community.service.article.service.TagService;
+import top.harrylei.community.web.cache.ConditionalGet;
+import top.harrylei.community.web.cache.TagVersionSource;
 
 import java.util.List;
 
@@ -36,6 +38,7 @@ public class TagController {
      * @return 操作结果
      */
     @Operation(summary = "标签列表", description = "用户标签列表查询")
+    @ConditionalGet(value = TagVersionSource.class, weak = true)
     @GetMapping("/list")
     public Result<List<TagSimpleDTO>> list() {
         List<TagSimpleDTO> result = tagService.listSimpleTags();
@@ -50,6 +53,7 @@ public class TagController {
      */
     @Operation(summary = "标签搜索", description = "根据关键词搜索标签")
     @RequiresLogin
+    @ConditionalGet(value = TagVersionSource.class, weak = true)
     @GetMapping("/search")
     public Result<List<TagSimpleDTO>> search(@NotBlank(message = "关键词不能为空") @RequestParam String keyword) {
         List<TagSimpleDTO> result = tagService.searchTags(keyword);
@@ -16,6 +16,8 @@ import top.harrylei.community.api.model.auth.AuthReq;
 import top.harrylei.community.api.model.base.Result;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.security.permission.RequiresLogin;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
+import top.harrylei.community.core.security.ratelimit.RateLimitKey;
 import top.harrylei.community.service.auth.service.AuthService;
 
 /**
@@ -40,6 +42,7 @@ public class AuthController {
      * @return 注册结果
      */
     @Operation(summary = "用户注册", description = "通过用户名和密码进行注册")
+    @RateLimit(policy = "register", key = RateLimitKey.IP, permits = 5, periodSeconds = 600, burst = 3)
     @PostMapping("/register")
     public Result<Void> register(@Valid @RequestBody AuthReq authReq) {
         authService.register(authReq.getUsername(), authReq.getPassword(), UserRoleEnum.NORMAL);
@@ -54,6 +57,7 @@ public class AuthController {
      * @return 登录结果
      */
     @Operation(summary = "用户登录", description = "校验用户名密码，成功后返回JWT令牌")
+    @RateLimit(policy = "login", key = RateLimitKey.IP, permits = 10, burst = 5)
     @PostMapping("/login")
     public Result<Void> login(@Valid @RequestBody AuthReq authReq, HttpServletResponse response) {
         String token = authService.login(authReq.getUsername(), authReq.getPassword(), authReq.getKeepLogin());
@@ -0,0 +1,61 @@
+package top.harrylei.community.web.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.api.enums.article.ArticleStatisticsEnum;
+import top.harrylei.community.core.util.KafkaEventPublisher;
+import top.harrylei.community.core.util.ResourceVersionUtil;
+
+/**
+ * 文章详情版本来源
+ * <p>
+ * 文章版本号在内容和状态变化时递增；统计数据和作者信息不单独跟踪，按分钟分桶，最多滞后一分钟。
+ *
+ * @author harry
+ */
+@Component
+@RequiredArgsConstructor
+public class ArticleDetailVersionSource implements ResourceVersionSource {
+
+    /**
+     * 统计数据的时间分桶（毫秒）
+     */
+    private static final long STATISTICS_BUCKET_MILLIS = 60_000L;
+
+    private final ResourceVersionUtil resourceVersionUtil;
+    private final KafkaEventPublisher kafkaEventPublisher;
+
+    @Override
+    public String version(HttpServletRequest request) {
+        Long articleId = articleId(request);
+        if (articleId == null) {
+            return null;
+        }
+        Long version = resourceVersionUtil.getVersion(ResourceVersionUtil.article(articleId));
+        return version == null ? null : version + ":" + System.currentTimeMillis() / STATISTICS_BUCKET_MILLIS;
+    }
+
+    /**
+     * 重新验证也是一次阅读，照常计数；足迹在首次完整请求时已记录
+     */
+    @Override
+    public void onNotModified(HttpServletRequest request) {
+        Long articleId = articleId(request);
+        if (articleId != null) {
+            kafkaEventPublisher.publishArticleStatisticsEvent(articleId, ArticleStatisticsEnum.INCREMENT_READ);
+        }
+    }
+
+    private Long articleId(HttpServletRequest request) {
+        String articleId = pathVariable(request, "articleId");
+        if (articleId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(articleId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package top.harrylei.community.web.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.util.ResourceVersionUtil;
+
+/**
+ * 文章列表版本来源
+ * <p>
+ * 任意文章变化都会递增列表版本号；列表结果随查看者权限不同而不同，版本中包含查看者身份。
+ * 列表中的统计数据按分钟分桶。
+ *
+ * @author harry
+ */
+@Component
+@RequiredArgsConstructor
+public class ArticleListVersionSource implements ResourceVersionSource {
+
+    /**
+     * 统计数据的时间分桶（毫秒）
+     */
+    private static final long STATISTICS_BUCKET_MILLIS = 60_000L;
+
+    private final ResourceVersionUtil resourceVersionUtil;
+
+    @Override
+    public String version(HttpServletRequest request) {
+        Long version = resourceVersionUtil.getVersion(ResourceVersionUtil.ARTICLE);
+        if (version == null) {
+            return null;
+        }
+        ReqInfoContext.ReqInfo context = ReqInfoContext.getContext();
+        return version + ":" + System.currentTimeMillis() / STATISTICS_BUCKET_MILLIS
+                + ":" + context.getUserId() + ":" + context.isAdmin();
+    }
+}
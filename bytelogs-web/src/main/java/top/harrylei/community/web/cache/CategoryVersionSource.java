@@ -0,0 +1,17 @@
+package top.harrylei.community.web.cache;
+
+import org.springframework.stereotype.Component;
+import top.harrylei.community.core.util.ResourceVersionUtil;
+
+/**
+ * 分类版本来源
+ *
+ * @author harry
+ */
+@Component
+public class CategoryVersionSource extends DictionaryVersionSource {
+
+    public CategoryVersionSource(ResourceVersionUtil resourceVersionUtil) {
+        super(resourceVersionUtil, ResourceVersionUtil.CATEGORY);
+    }
+}
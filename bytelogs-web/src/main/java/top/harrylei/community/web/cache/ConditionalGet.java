@@ -0,0 +1,31 @@
+package top.harrylei.community.web.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 条件请求注解
+ * <p>
+ * 标注在GET接口上，由 {@link ResourceVersionSource} 提供资源的廉价版本号生成ETag。
+ * 请求携带的 If-None-Match 与之匹配时，在调用接口之前直接返回304，不查询、不序列化响应体。
+ *
+ * @author harry
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    /**
+     * 资源版本来源，需注册为Spring Bean
+     */
+    Class<? extends ResourceVersionSource> value();
+
+    /**
+     * 是否使用弱ETag，聚合列表等语义相同但字节不一定相同的响应使用弱ETag
+     */
+    boolean weak() default false;
+}
@@ -0,0 +1,46 @@
+package top.harrylei.community.web.cache;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.api.model.base.Result;
+import top.harrylei.community.web.interceptor.ConditionalGetInterceptor;
+
+/**
+ * 条件请求响应处理
+ * <p>
+ * 只在成功响应上输出ETag，避免客户端缓存错误结果后一直收到304。
+ *
+ * @author harry
+ */
+@RestControllerAdvice
+public class ConditionalGetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ConditionalGet.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+        if (body instanceof Result<?> result
+                && result.getCode() == ResultCode.SUCCESS.getCode()
+                && request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE) instanceof String etag) {
+            response.getHeaders().setETag(etag);
+            response.getHeaders().setCacheControl(ConditionalGetInterceptor.CACHE_CONTROL);
+        }
+        return body;
+    }
+}
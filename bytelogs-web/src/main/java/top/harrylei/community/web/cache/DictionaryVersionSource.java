@@ -0,0 +1,30 @@
+package top.harrylei.community.web.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import top.harrylei.community.core.util.ResourceVersionUtil;
+
+/**
+ * 字典类资源（分类、标签）版本来源
+ * <p>
+ * 版本号在增删改时递增；另按十分钟分桶，Redis短暂不可用导致递增丢失时也不会无限期返回旧数据。
+ *
+ * @author harry
+ */
+@RequiredArgsConstructor
+public abstract class DictionaryVersionSource implements ResourceVersionSource {
+
+    /**
+     * 兜底刷新的时间分桶（毫秒）
+     */
+    private static final long REFRESH_BUCKET_MILLIS = 600_000L;
+
+    private final ResourceVersionUtil resourceVersionUtil;
+    private final String resource;
+
+    @Override
+    public String version(HttpServletRequest request) {
+        Long version = resourceVersionUtil.getVersion(resource);
+        return version == null ? null : version + ":" + System.currentTimeMillis() / REFRESH_BUCKET_MILLIS;
+    }
+}
@@ -0,0 +1,45 @@
+package top.harrylei.community.web.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * 资源版本来源
+ * <p>
+ * 版本号必须比完整查询廉价得多（一次Redis读取或内存计算），且资源变化时一定变化。
+ *
+ * @author harry
+ */
+public interface ResourceVersionSource {
+
+    /**
+     * 获取请求对应资源的当前版本
+     *
+     * @param request 当前请求
+     * @return 版本号，无法确定时返回null，此时按普通请求处理
+     */
+    String version(HttpServletRequest request);
+
+    /**
+     * 返回304时的回调，用于保留接口原有的副作用（如阅读计数）
+     *
+     * @param request 当前请求
+     */
+    default void onNotModified(HttpServletRequest request) {
+    }
+
+    /**
+     * 读取路径变量
+     *
+     * @param request 当前请求
+     * @param name    变量名
+     * @return 变量值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    default String pathVariable(HttpServletRequest request, String name) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables instanceof Map<?, ?> map ? ((Map<String, String>) map).get(name) : null;
+    }
+}
@@ -0,0 +1,17 @@
+package top.harrylei.community.web.cache;
+
+import org.springframework.stereotype.Component;
+import top.harrylei.community.core.util.ResourceVersionUtil;
+
+/**
+ * 标签版本来源
+ *
+ * @author harry
+ */
+@Component
+public class TagVersionSource extends DictionaryVersionSource {
+
+    public TagVersionSource(ResourceVersionUtil resourceVersionUtil) {
+        super(resourceVersionUtil, ResourceVersionUtil.TAG);
+    }
+}
@@ -0,0 +1,31 @@
+package top.harrylei.community.web.cache;
+
+import com.google.common.hash.Hashing;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.api.model.user.dto.UserInfoDTO;
+import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.util.JsonUtil;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 当前用户资料版本来源
+ * <p>
+ * 用户信息在认证时已加载到请求上下文，直接按内容计算版本，无需额外查询。
+ *
+ * @author harry
+ */
+@Component
+public class UserProfileVersionSource implements ResourceVersionSource {
+
+    @Override
+    public String version(HttpServletRequest request) {
+        UserInfoDTO user = ReqInfoContext.getContext().getUser();
+        String json = user == null ? null : JsonUtil.toJson(user);
+        if (json == null) {
+            return null;
+        }
+        return user.getUserId() + ":" + Hashing.murmur3_128().hashString(json, StandardCharsets.UTF_8);
+    }
+}
@@ -22,6 +22,7 @@ import top.harrylei.community.api.model.comment.vo.CommentMyVO;
 import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.security.permission.RequiresLogin;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
 import top.harrylei.community.service.comment.converted.CommentStructMapper;
 import top.harrylei.community.service.comment.service.CommentService;
 
@@ -49,6 +50,7 @@ public class CommentController {
      */
     @Operation(summary = "保存评论", description = "用户保存评论信息")
     @RequiresLogin
+    @RateLimit(policy = "comment-post", permits = 10, burst = 5)
     @PostMapping
     public Result<Long> save(@Valid @RequestBody CommentSaveReq req) {
         CommentDTO dto = commentStructMapper.toDTO(req);
@@ -132,6 +134,7 @@ public class CommentController {
      */
     @Operation(summary = "评论操作", description = "对评论进行点赞或取消点赞操作")
     @RequiresLogin
+    @RateLimit(policy = "content-action", permits = 60, burst = 20)
     @PutMapping("/action")
     public Result<Void> action(@Valid @RequestBody CommentActionReq req) {
         // 验证操作类型，评论只允许点赞操作，不支持收藏
@@ -1,6 +1,8 @@
 package top.harrylei.community.web.config;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -35,6 +37,12 @@ public class SecurityConfig {
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
     private final CustomAccessDeniedHandler accessDeniedHandler;
 
+    /**
+     * 管理端口，只在内网开放，Prometheus通过该端口采集指标
+     */
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     /**
      * 配置Spring Security过滤器链
      *
@@ -68,7 +76,10 @@ public class SecurityConfig {
                         .requestMatchers("/v1/test/**").permitAll()
                         .requestMatchers("/error").permitAll()
                         .requestMatchers("/favicon.ico").permitAll()
-                        .requestMatchers("/actuator/**").permitAll()
+                        // 健康检查公开，其余端点只在内网管理端口上免认证，其他端口访问需要管理员权限
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                        .requestMatchers(this::isManagementRequest).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // 静态资源
                         .requestMatchers("/static/**").permitAll()
                         // OPTIONS请求放行
@@ -86,6 +97,16 @@ public class SecurityConfig {
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class).build();
     }
 
+    /**
+     * 是否为经由管理端口访问的请求，未单独配置管理端口时始终为false
+     *
+     * @param request HTTP请求
+     * @return 是否为管理端口请求
+     */
+    private boolean isManagementRequest(HttpServletRequest request) {
+        return managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+
     /**
      * 配置CORS（跨域资源共享）规则
      * <p>
@@ -107,7 +128,7 @@ public class SecurityConfig {
         // 允许的请求头
         configuration.setAllowedHeaders(List.of("*"));
         // 暴露的响应头（允许前端JS代码访问的响应头）
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "ETag"));
         // 预检请求结果缓存时间（秒）
         configuration.setMaxAge(3600L);
 
@@ -3,12 +3,17 @@ package top.harrylei.community.web.config;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import top.harrylei.community.core.common.converter.StringToLocalDateTimeConverter;
+import top.harrylei.community.web.interceptor.ConditionalGetInterceptor;
+import top.harrylei.community.web.interceptor.RateLimitInterceptor;
 
 /**
  * Spring MVC 配置类
@@ -16,14 +21,25 @@ import top.harrylei.community.core.common.converter.StringToLocalDateTimeConvert
  * @author harry
  */
 @Configuration
+@RequiredArgsConstructor
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private final ApplicationContext applicationContext;
+
     @Override
     public void addFormatters(FormatterRegistry registry) {
         // 添加LocalDateTime转换器
         registry.addConverter(new StringToLocalDateTimeConverter());
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 接口限流：超出额度时直接返回429，放在其他拦截器之前
+        registry.addInterceptor(new RateLimitInterceptor(applicationContext));
+        // 条件请求：版本未变化时直接返回304
+        registry.addInterceptor(new ConditionalGetInterceptor(applicationContext));
+    }
+
     /**
      * 配置ObjectMapper，支持LocalDateTime等Java 8时间类型
      * 项目中统一使用此配置，既适用于Web序列化也适用于Redis序列化
@@ -7,6 +7,7 @@ import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import top.harrylei.community.web.interceptor.WebSocketChannelInterceptor;
 
@@ -49,6 +50,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         log.info("WebSocket STOMP endpoint registered at /v1/ws");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 单个会话的发送缓冲上限，客户端消费过慢导致缓冲溢出或发送超时时断开会话，
+        // 用户的最后一个会话断开后取消进行中的流式响应。上游的请求节奏不受发送缓冲影响，
+        // 消息经异步的出站通道转发，缓冲溢出前只能靠断开会话止损
+        registration.setSendBufferSizeLimit(512 * 1024)
+                .setSendTimeLimit(10 * 1000);
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         // 注册消息通道拦截器，处理STOMP消息级别的认证
@@ -18,6 +18,7 @@ import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.common.constans.RedisKeyConstants;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.util.JwtUtil;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
 
@@ -40,6 +41,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final UserCacheService userCacheService;
     private final RedisUtil redisUtil;
     private final JwtUtil jwtUtil;
+    private final MetricsUtil metricsUtil;
 
     /**
      * 过滤器核心处理方法
@@ -125,6 +127,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             // 从Redis获取存储的token
             String redisToken = redisUtil.get(RedisKeyConstants.getUserTokenKey(userId), String.class);
+            metricsUtil.recordCache(MetricsUtil.CACHE_TOKEN, redisToken != null);
 
             // 验证token是否匹配
             if (StringUtils.isBlank(redisToken) || !token.equals(redisToken)) {
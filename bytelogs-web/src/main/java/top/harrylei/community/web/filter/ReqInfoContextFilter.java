@@ -77,30 +77,15 @@ public class ReqInfoContextFilter extends OncePerRequestFilter {
     /**
      * 获取客户端真实IP地址
      * <p>
-     * 尝试从各种代理头中获取客户端IP，处理多级代理的情况。
+     * 只使用连接的远端地址，不直接读取客户端可以任意伪造的 X-Forwarded-For 等请求头，否则按IP限流可以被绕过。
+     * 部署在反向代理之后时，由容器的 RemoteIpValve（server.forward-headers-strategy=native）
+     * 在来源属于受信任代理（server.tomcat.remoteip.internal-proxies）时，按 X-Forwarded-For 还原出客户端地址。
      * </p>
      *
      * @param request HTTP请求
      * @return 客户端IP地址
      */
     private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("X-Real-IP");
-        }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        // 多个代理的情况，第一个IP为客户端真实IP
-        if (ip != null && ip.indexOf(",") > 0) {
-            ip = ip.substring(0, ip.indexOf(","));
-        }
-        return ip;
+        return request.getRemoteAddr();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package top.harrylei.community.web.interceptor;
+
+import com.google.common.hash.Hashing;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import top.harrylei.community.web.cache.ConditionalGet;
+import top.harrylei.community.web.cache.ResourceVersionSource;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 条件请求拦截器
+ * <p>
+ * 对标注了 {@link ConditionalGet} 的GET接口，在调用接口之前按资源版本生成ETag并与 If-None-Match 比较，
+ * 匹配时直接返回304；不匹配时把ETag放入请求属性，由 ConditionalGetResponseAdvice 在成功响应上输出。
+ *
+ * @author harry
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    /**
+     * 请求属性：本次请求计算出的ETag
+     */
+    public static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".ETAG";
+
+    /**
+     * 响应只允许客户端私有缓存，且每次使用前都需要重新验证
+     */
+    public static final String CACHE_CONTROL = "private, no-cache";
+
+    private final ApplicationContext applicationContext;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || !(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod()))) {
+            return true;
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) {
+            return true;
+        }
+        ResourceVersionSource source = applicationContext.getBeanProvider(conditionalGet.value()).getIfAvailable();
+        if (source == null) {
+            return true;
+        }
+
+        String version;
+        try {
+            version = source.version(request);
+        } catch (Exception e) {
+            log.warn("获取资源版本失败，按普通请求处理 uri={}: {}", request.getRequestURI(), e.getMessage());
+            return true;
+        }
+        if (version == null) {
+            return true;
+        }
+
+        String etag = buildEtag(request, version, conditionalGet.weak());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            try {
+                source.onNotModified(request);
+            } catch (Exception e) {
+                log.warn("条件请求回调失败 uri={}: {}", request.getRequestURI(), e.getMessage());
+            }
+            return false;
+        }
+
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    /**
+     * 按请求地址、查询参数和资源版本生成ETag
+     */
+    static String buildEtag(HttpServletRequest request, String version, boolean weak) {
+        String key = request.getRequestURI() + "?" + (request.getQueryString() == null ? "" : request.getQueryString())
+                + "#" + version;
+        String tag = "\"" + Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8) + "\"";
+        return weak ? "W/" + tag : tag;
+    }
+
+    /**
+     * 按弱比较判断 If-None-Match 是否包含当前ETag
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || opaque.equals(stripWeak(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
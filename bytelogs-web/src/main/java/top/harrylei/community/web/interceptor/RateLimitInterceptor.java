@@ -0,0 +1,77 @@
+package top.harrylei.community.web.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.api.model.base.Result;
+import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
+import top.harrylei.community.core.security.ratelimit.RateLimitDecision;
+import top.harrylei.community.core.security.ratelimit.RateLimitKey;
+import top.harrylei.community.core.security.ratelimit.RateLimiter;
+import top.harrylei.community.core.util.JsonUtil;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口限流拦截器
+ * <p>
+ * 对标注了 {@link RateLimit} 的接口，在调用接口之前按用户或IP判定，超出额度时直接返回429和 Retry-After，
+ * 请求不会进入业务逻辑和数据库。
+ *
+ * @author harry
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final ApplicationContext applicationContext;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimit rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            return true;
+        }
+        RateLimiter rateLimiter = applicationContext.getBeanProvider(RateLimiter.class).getIfAvailable();
+        if (rateLimiter == null) {
+            return true;
+        }
+
+        ReqInfoContext.ReqInfo reqInfo = ReqInfoContext.getContext();
+        RateLimitDecision decision = rateLimiter.acquire(rateLimit, subject(rateLimit.key(), reqInfo), reqInfo.isAdmin());
+        if (decision.allowed()) {
+            return true;
+        }
+
+        log.warn("请求被限流 policy={}, userId={}, ip={}, uri={}",
+                rateLimit.policy(), reqInfo.getUserId(), reqInfo.getClientIp(), request.getRequestURI());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(decision.retryAfterMs() + 999))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(JsonUtil.toJson(Result.fail(ResultCode.TOO_MANY_REQUESTS)));
+        return false;
+    }
+
+    private static String subject(RateLimitKey key, ReqInfoContext.ReqInfo reqInfo) {
+        if (key == RateLimitKey.USER && reqInfo.isLoggedIn()) {
+            return "u:" + reqInfo.getUserId();
+        }
+        return "ip:" + reqInfo.getClientIp();
+    }
+}
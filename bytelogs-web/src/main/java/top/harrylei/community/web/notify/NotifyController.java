@@ -7,14 +7,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import top.harrylei.community.api.model.base.BasePage;
 import top.harrylei.community.api.model.base.Result;
 import top.harrylei.community.api.model.notify.req.NotifyMsgQueryParam;
+import top.harrylei.community.api.model.notify.vo.NotifyActorVO;
 import top.harrylei.community.api.model.notify.vo.NotifyMsgVO;
 import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.security.permission.RequiresLogin;
 import top.harrylei.community.service.notify.service.NotifyMsgService;
 
+import java.util.Map;
+
 /**
  * 通知消息控制器
  *
@@ -45,6 +49,20 @@ public class NotifyController {
         return Result.success(notifications);
     }
 
+    /**
+     * 展开聚合通知的操作用户
+     *
+     * @param msgId 通知消息ID
+     * @param param 分页参数
+     * @return 操作用户列表
+     */
+    @Operation(summary = "展开聚合通知", description = "分页查询聚合通知的全部操作用户，最新在前")
+    @GetMapping("/{msgId}/actors")
+    public Result<PageVO<NotifyActorVO>> getNotificationActors(@PathVariable Long msgId, @Valid BasePage param) {
+        Long userId = ReqInfoContext.getContext().getUserId();
+        return Result.success(notifyMsgService.getNotificationActors(msgId, userId, param));
+    }
+
     /**
      * 标记指定通知为已读
      *
@@ -84,4 +102,16 @@ public class NotifyController {
         Long count = notifyMsgService.getUnreadCount(userId);
         return Result.success(count);
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取按类型统计的未读通知数量
+     *
+     * @return 通知类型编码 -> 未读数量
+     */
+    @Operation(summary = "获取分类未读通知数量", description = "获取当前用户各通知类型的未读数量")
+    @GetMapping("/unread/count/type")
+    public Result<Map<Integer, Long>> getUnreadCountByType() {
+        Long userId = ReqInfoContext.getContext().getUserId();
+        return Result.success(notifyMsgService.getUnreadCountByType(userId));
+    }
+}
@@ -20,9 +20,12 @@ import top.harrylei.community.api.model.user.vo.UserFollowVO;
 import top.harrylei.community.api.model.user.vo.UserInfoVO;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.security.permission.RequiresLogin;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
 import top.harrylei.community.service.user.converted.UserStructMapper;
 import top.harrylei.community.service.user.service.UserFollowService;
 import top.harrylei.community.service.user.service.UserService;
+import top.harrylei.community.web.cache.ConditionalGet;
+import top.harrylei.community.web.cache.UserProfileVersionSource;
 
 /**
  * 用户控制器
@@ -48,6 +51,7 @@ public class UserController {
      * @return 包含用户信息的视图对象的响应
      */
     @Operation(summary = "查询用户信息", description = "获取当前登录用户的个人基本信息")
+    @ConditionalGet(UserProfileVersionSource.class)
     @GetMapping("/profile")
     public Result<UserInfoVO> getUserInfo() {
         UserInfoDTO userInfo = ReqInfoContext.getContext().getUser();
@@ -126,6 +130,7 @@ public class UserController {
      * @return 操作结果
      */
     @Operation(summary = "关注用户", description = "关注指定用户")
+    @RateLimit(policy = "follow", permits = 30, burst = 10)
     @PostMapping("/{followUserId}/follow")
     public Result<Void> follow(@NotNull(message = "用户ID不能为空") @PathVariable Long followUserId) {
         userFollowService.followUser(followUserId);
@@ -140,6 +145,7 @@ public class UserController {
      * @return 操作结果
      */
     @Operation(summary = "取消关注用户", description = "取消关注指定用户")
+    @RateLimit(policy = "follow", permits = 30, burst = 10)
     @DeleteMapping("/{followUserId}/follow")
     public Result<Void> unfollow(@NotNull(message = "用户ID不能为空") @PathVariable Long followUserId) {
         userFollowService.unfollowUser(followUserId);
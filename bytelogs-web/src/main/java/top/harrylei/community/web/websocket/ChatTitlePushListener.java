@@ -0,0 +1,39 @@
+package top.harrylei.community.web.websocket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.api.model.ai.ChatTitleEvent;
+import top.harrylei.community.api.model.websocket.message.ChatTitleMessage;
+
+/**
+ * AI对话标题推送监听器，将异步生成的标题推送给在线用户
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatTitlePushListener {
+
+    private final WebSocketSessionManager sessionManager;
+
+    /**
+     * 监听标题生成事件并推送
+     */
+    @EventListener
+    public void handleChatTitleEvent(ChatTitleEvent event) {
+        Long userId = event.getUserId();
+        // 离线用户下次拉取对话列表时获取新标题
+        if (userId == null || !sessionManager.isUserOnline(userId)) {
+            return;
+        }
+
+        sessionManager.sendAiTitle(userId, ChatTitleMessage.builder()
+                .conversationId(event.getConversationId())
+                .title(event.getTitle())
+                .build());
+        log.debug("Chat title pushed to user {}, conversation: {}", userId, event.getConversationId());
+    }
+}
@@ -0,0 +1,40 @@
+package top.harrylei.community.web.websocket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import top.harrylei.community.api.model.notify.NotifyMsgEvent;
+import top.harrylei.community.api.model.websocket.message.NotificationMessage;
+
+/**
+ * 通知推送监听器，将服务层产生的通知推送给在线用户
+ *
+ * @author harry
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationPushListener {
+
+    private final WebSocketSessionManager sessionManager;
+
+    /**
+     * 监听通知事件并推送
+     */
+    @EventListener
+    public void handleNotifyMsgEvent(NotifyMsgEvent<?> event) {
+        Long userId = event.getNotifyUserId();
+        if (userId == null || !(event.getContent() instanceof NotificationMessage message)) {
+            return;
+        }
+
+        // 离线用户上线后通过未读数接口获取
+        if (!sessionManager.isUserOnline(userId)) {
+            return;
+        }
+
+        sessionManager.sendNotification(userId, message);
+        log.debug("Notification pushed to user {}, unread: {}", userId, message.getUnreadCount());
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.service.ai.service.ChatService;
 
 import java.util.Optional;
 
@@ -22,6 +23,7 @@ import java.util.Optional;
 public class WebSocketEventListener {
 
     private final WebSocketSessionManager sessionManager;
+    private final ChatService chatService;
 
     /**
      * 监听WebSocket连接事件
@@ -58,7 +60,13 @@ public class WebSocketEventListener {
         try {
             Optional.ofNullable(headerAccessor.getSessionAttributes())
                     .map(attrs -> (Long) attrs.get("userId"))
-                    .ifPresent(sessionManager::removeUser);
+                    .ifPresent(userId -> {
+                        // 流式响应推送到用户的所有连接，只有最后一个连接断开后推送才无意义，
+                        // 此时取消进行中的AI流式响应以停止上游生成，关闭其中一个页面不影响其他页面
+                        if (sessionManager.removeUser(userId, sessionId)) {
+                            chatService.cancelUserStreams(userId);
+                        }
+                    });
         } catch (Exception e) {
             log.error("Error handling WebSocket disconnect event, sessionId: {}", sessionId, e);
         }
@@ -6,8 +6,10 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 import top.harrylei.community.api.enums.websocket.WebSocketMessageType;
 import top.harrylei.community.api.model.websocket.message.AiStreamMessage;
+import top.harrylei.community.api.model.websocket.message.ChatTitleMessage;
 import top.harrylei.community.api.model.websocket.message.NotificationMessage;
 
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -26,8 +28,8 @@ public class WebSocketSessionManager {
     // 在线用户统计
     private final AtomicInteger onlineUsers = new AtomicInteger(0);
 
-    // 用户连接映射（用于统计和管理）
-    private final ConcurrentHashMap<Long, String> userSessions = new ConcurrentHashMap<>();
+    // 用户连接映射（用于统计和管理），同一用户可能同时打开多个页面
+    private final ConcurrentHashMap<Long, Set<String>> userSessions = new ConcurrentHashMap<>();
 
     /**
      * 用户连接时调用
@@ -38,8 +40,12 @@ public class WebSocketSessionManager {
             return;
         }
 
-        userSessions.put(userId, sessionId);
-        int currentCount = onlineUsers.incrementAndGet();
+        boolean firstSession = userSessions.compute(userId, (k, sessions) -> {
+            Set<String> result = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            result.add(sessionId);
+            return result;
+        }).size() == 1;
+        int currentCount = firstSession ? onlineUsers.incrementAndGet() : onlineUsers.get();
         log.info("User {} connected, session: {}, total online users: {}", userId, sessionId, currentCount);
 
         // 发送连接成功消息
@@ -48,20 +54,28 @@ public class WebSocketSessionManager {
 
     /**
      * 用户断开连接时调用
+     *
+     * @return 该用户是否已没有其他连接
      */
-    public void removeUser(Long userId) {
-        if (userId == null) {
-            log.warn("Cannot remove user: userId is null");
-            return;
+    public boolean removeUser(Long userId, String sessionId) {
+        if (userId == null || sessionId == null) {
+            log.warn("Invalid parameters for removeUser: userId={}, sessionId={}", userId, sessionId);
+            return false;
         }
 
-        String sessionId = userSessions.remove(userId);
-        if (sessionId != null) {
-            int currentCount = onlineUsers.decrementAndGet();
-            log.info("User {} disconnected, session: {}, total online users: {}", userId, sessionId, currentCount);
-        } else {
-            log.debug("User {} was not online when disconnect attempt", userId);
+        boolean[] removed = new boolean[2];
+        userSessions.computeIfPresent(userId, (k, sessions) -> {
+            removed[0] = sessions.remove(sessionId);
+            removed[1] = sessions.isEmpty();
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (!removed[0]) {
+            log.debug("User {} session {} was not online when disconnect attempt", userId, sessionId);
+            return false;
         }
+        int currentCount = removed[1] ? onlineUsers.decrementAndGet() : onlineUsers.get();
+        log.info("User {} disconnected, session: {}, total online users: {}", userId, sessionId, currentCount);
+        return removed[1];
     }
 
     /**
@@ -71,6 +85,13 @@ public class WebSocketSessionManager {
         sendToUser(userId, WebSocketMessageType.AI_STREAM, message);
     }
 
+    /**
+     * 发送AI对话标题更新消息
+     */
+    public void sendAiTitle(Long userId, ChatTitleMessage message) {
+        sendToUser(userId, WebSocketMessageType.AI_TITLE, message);
+    }
+
     /**
      * 发送通知消息
      */
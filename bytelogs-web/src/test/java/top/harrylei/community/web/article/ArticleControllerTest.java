@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import top.harrylei.community.api.enums.article.ArticlePublishStatusEnum;
@@ -26,21 +27,25 @@ import top.harrylei.community.api.model.page.PageVO;
 import top.harrylei.community.api.model.statistics.dto.ArticleStatisticsDTO;
 import top.harrylei.community.api.model.user.dto.UserInfoDTO;
 import top.harrylei.community.core.util.JwtUtil;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.core.util.KafkaEventPublisher;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.article.converted.ArticleStructMapper;
 import top.harrylei.community.service.article.service.ArticleCommandService;
 import top.harrylei.community.service.article.service.ArticleQueryService;
 import top.harrylei.community.service.article.service.ArticleVersionService;
+import top.harrylei.community.service.article.service.render.ArticleRenderService;
 import top.harrylei.community.service.statistics.converted.ArticleStatisticsStructMapper;
 import top.harrylei.community.service.statistics.service.ArticleStatisticsService;
 import top.harrylei.community.service.user.converted.UserStructMapper;
 import top.harrylei.community.service.user.service.UserFootService;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
+import top.harrylei.community.web.cache.ArticleDetailVersionSource;
 import top.harrylei.community.web.config.TestSecurityConfig;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -79,6 +84,12 @@ class ArticleControllerTest {
     @MockBean
     private UserFootService userFootService;
 
+    @MockBean
+    private ArticleRenderService articleRenderService;
+
+    @MockBean
+    private ArticleDetailVersionSource articleDetailVersionSource;
+
     // Mapper 依赖
     @MockBean
     private ArticleStructMapper articleStructMapper;
@@ -102,6 +113,9 @@ class ArticleControllerTest {
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private MetricsUtil metricsUtil;
+
     @Nested
     @DisplayName("POST /v1/article 新建文章测试")
     class SaveArticleTest {
@@ -285,6 +299,71 @@ class ArticleControllerTest {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.code").value(ResultCode.ARTICLE_NOT_EXISTS.getCode()));
         }
+
+        @Test
+        @DisplayName("版本未变化时返回304且不查询文章")
+        void shouldReturnNotModifiedWhenEtagMatches() throws Exception {
+            // Given
+            ArticleDTO articleDTO = new ArticleDTO();
+            articleDTO.setId(1L);
+            articleDTO.setUserId(1L);
+
+            when(articleDetailVersionSource.version(any())).thenReturn("3:1000");
+            when(articleQueryService.getPublishedArticle(1L)).thenReturn(articleDTO);
+            when(articleStructMapper.toVO(any(ArticleDTO.class))).thenReturn(new ArticleVO());
+
+            String etag = mockMvc.perform(get("/v1/article/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            // When & Then
+            assertThat(etag).startsWith("W/\"");
+            mockMvc.perform(get("/v1/article/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(content().string(""));
+
+            verify(articleQueryService, times(1)).getPublishedArticle(1L);
+            verify(articleDetailVersionSource).onNotModified(any());
+        }
+
+        @Test
+        @DisplayName("版本变化后返回完整响应")
+        void shouldReturnFullBodyWhenVersionChanged() throws Exception {
+            // Given
+            ArticleDTO articleDTO = new ArticleDTO();
+            articleDTO.setId(1L);
+            articleDTO.setUserId(1L);
+
+            when(articleQueryService.getPublishedArticle(1L)).thenReturn(articleDTO);
+            when(articleStructMapper.toVO(any(ArticleDTO.class))).thenReturn(new ArticleVO());
+            when(articleDetailVersionSource.version(any())).thenReturn("3:1000", "4:1000");
+
+            String etag = mockMvc.perform(get("/v1/article/1"))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            // When & Then
+            mockMvc.perform(get("/v1/article/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(0));
+
+            verify(articleQueryService, times(2)).getPublishedArticle(1L);
+        }
+
+        @Test
+        @DisplayName("错误响应不携带ETag")
+        void shouldNotSendEtagOnError() throws Exception {
+            // Given
+            when(articleDetailVersionSource.version(any())).thenReturn("0:1000");
+            when(articleQueryService.getPublishedArticle(999L))
+                    .thenThrow(new BusinessException(ResultCode.ARTICLE_NOT_EXISTS.getCode(), "文章不存在"));
+
+            // When & Then
+            mockMvc.perform(get("/v1/article/999"))
+                    .andExpect(jsonPath("$.code").value(ResultCode.ARTICLE_NOT_EXISTS.getCode()))
+                    .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        }
     }
 
     @Nested
@@ -17,6 +17,7 @@ import top.harrylei.community.api.exception.BusinessException;
 import top.harrylei.community.api.model.auth.AuthReq;
 import top.harrylei.community.core.context.ReqInfoContext;
 import top.harrylei.community.core.util.JwtUtil;
+import top.harrylei.community.core.util.MetricsUtil;
 import top.harrylei.community.core.util.RedisUtil;
 import top.harrylei.community.service.auth.service.AuthService;
 import top.harrylei.community.service.user.service.cache.UserCacheService;
@@ -56,6 +57,9 @@ class AuthControllerTest {
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private MetricsUtil metricsUtil;
+
     @Nested
     @DisplayName("POST /v1/auth/register 测试")
     class RegisterTest {
@@ -0,0 +1,163 @@
+package top.harrylei.community.web.interceptor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import top.harrylei.community.api.enums.response.ResultCode;
+import top.harrylei.community.core.context.ReqInfoContext;
+import top.harrylei.community.core.security.ratelimit.RateLimit;
+import top.harrylei.community.core.security.ratelimit.RateLimitDecision;
+import top.harrylei.community.core.security.ratelimit.RateLimitKey;
+import top.harrylei.community.core.security.ratelimit.RateLimiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 接口限流拦截器测试
+ *
+ * @author harry
+ */
+@DisplayName("RateLimitInterceptor 测试")
+class RateLimitInterceptorTest {
+
+    private RateLimiter rateLimiter;
+    private RateLimitInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rateLimiter = mock(RateLimiter.class);
+        ObjectProvider<RateLimiter> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(rateLimiter);
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBeanProvider(RateLimiter.class)).thenReturn(provider);
+        interceptor = new RateLimitInterceptor(applicationContext);
+
+        request = new MockHttpServletRequest("POST", "/v1/comment");
+        response = new MockHttpServletResponse();
+        when(rateLimiter.acquire(any(RateLimit.class), anyString(), anyBoolean())).thenReturn(RateLimitDecision.ALLOWED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReqInfoContext.clear();
+    }
+
+    @RateLimit(policy = "comment-post", permits = 10, burst = 5)
+    public void userLimited() {
+    }
+
+    @RateLimit(policy = "login", key = RateLimitKey.IP, permits = 10, burst = 5)
+    public void ipLimited() {
+    }
+
+    public void unlimited() {
+    }
+
+    private HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(this, RateLimitInterceptorTest.class.getMethod(method));
+    }
+
+    private static void login(Long userId, String clientIp) {
+        ReqInfoContext.ReqInfo reqInfo = new ReqInfoContext.ReqInfo();
+        reqInfo.setUserId(userId);
+        reqInfo.setClientIp(clientIp);
+        ReqInfoContext.setContext(reqInfo);
+    }
+
+    @Nested
+    @DisplayName("限流对象测试")
+    class SubjectTest {
+
+        @Test
+        @DisplayName("已登录时按用户限流")
+        void shouldLimitByUserWhenLoggedIn() throws Exception {
+            login(1L, "10.0.0.1");
+
+            assertThat(interceptor.preHandle(request, response, handler("userLimited"))).isTrue();
+
+            verify(rateLimiter).acquire(any(RateLimit.class), eq("u:1"), eq(false));
+        }
+
+        @Test
+        @DisplayName("未登录时按用户限流的接口回退为按IP限流")
+        void shouldFallBackToIpWhenAnonymous() throws Exception {
+            login(null, "10.0.0.1");
+
+            assertThat(interceptor.preHandle(request, response, handler("userLimited"))).isTrue();
+
+            verify(rateLimiter).acquire(any(RateLimit.class), eq("ip:10.0.0.1"), eq(false));
+        }
+
+        @Test
+        @DisplayName("按IP限流的接口即使已登录也按IP限流")
+        void shouldLimitByIpWhenConfigured() throws Exception {
+            login(1L, "10.0.0.1");
+
+            interceptor.preHandle(request, response, handler("ipLimited"));
+
+            verify(rateLimiter).acquire(any(RateLimit.class), eq("ip:10.0.0.1"), eq(false));
+        }
+
+        @Test
+        @DisplayName("未标注限流注解的接口直接放行")
+        void shouldSkipUnannotatedHandler() throws Exception {
+            login(1L, "10.0.0.1");
+
+            assertThat(interceptor.preHandle(request, response, handler("unlimited"))).isTrue();
+
+            verify(rateLimiter, never()).acquire(any(RateLimit.class), anyString(), anyBoolean());
+        }
+    }
+
+    @Nested
+    @DisplayName("拒绝响应测试")
+    class RejectTest {
+
+        @Test
+        @DisplayName("超出额度返回429，Retry-After按秒向上取整")
+        void shouldRespondTooManyRequests() throws Exception {
+            login(1L, "10.0.0.1");
+            when(rateLimiter.acquire(any(RateLimit.class), anyString(), anyBoolean()))
+                    .thenReturn(RateLimitDecision.rejected(1500));
+
+            assertThat(interceptor.preHandle(request, response, handler("userLimited"))).isFalse();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+            assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+            assertThat(response.getContentAsString())
+                    .contains(String.valueOf(ResultCode.TOO_MANY_REQUESTS.getCode()));
+        }
+
+        @Test
+        @DisplayName("等待不足一秒时Retry-After至少为1")
+        void shouldRetryAfterAtLeastOneSecond() throws Exception {
+            login(1L, "10.0.0.1");
+            when(rateLimiter.acquire(any(RateLimit.class), anyString(), anyBoolean()))
+                    .thenReturn(RateLimitDecision.rejected(1));
+
+            interceptor.preHandle(request, response, handler("userLimited"));
+
+            assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package top.harrylei.community.web.websocket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import top.harrylei.community.service.ai.service.ChatService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * WebSocket事件监听器测试
+ *
+ * @author harry
+ */
+@DisplayName("WebSocketEventListener 测试")
+class WebSocketEventListenerTest {
+
+    private static final Long USER_ID = 1L;
+
+    private ChatService chatService;
+    private WebSocketSessionManager sessionManager;
+    private WebSocketEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        chatService = mock(ChatService.class);
+        sessionManager = new WebSocketSessionManager(mock(SimpMessagingTemplate.class));
+        listener = new WebSocketEventListener(sessionManager, chatService);
+    }
+
+    private static Message<byte[]> message(StompCommand command, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("userId", USER_ID);
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void connect(String sessionId) {
+        listener.handleWebSocketConnectListener(new SessionConnectEvent(this, message(StompCommand.CONNECT, sessionId)));
+    }
+
+    private void disconnect(String sessionId) {
+        listener.handleWebSocketDisconnectListener(new SessionDisconnectEvent(
+                this, message(StompCommand.DISCONNECT, sessionId), sessionId, CloseStatus.NORMAL));
+    }
+
+    @Nested
+    @DisplayName("断开连接测试")
+    class DisconnectTest {
+
+        @Test
+        @DisplayName("关闭其中一个页面不取消流式响应")
+        void shouldKeepStreamsWhileOtherSessionOnline() {
+            connect("s1");
+            connect("s2");
+
+            disconnect("s1");
+
+            verify(chatService, never()).cancelUserStreams(USER_ID);
+            assertThat(sessionManager.isUserOnline(USER_ID)).isTrue();
+            assertThat(sessionManager.getOnlineUserCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("最后一个连接断开后取消流式响应")
+        void shouldCancelStreamsWhenLastSessionClosed() {
+            connect("s1");
+            connect("s2");
+
+            disconnect("s1");
+            disconnect("s2");
+
+            verify(chatService).cancelUserStreams(USER_ID);
+            assertThat(sessionManager.isUserOnline(USER_ID)).isFalse();
+            assertThat(sessionManager.getOnlineUserCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("重复的断开事件不重复计数")
+        void shouldIgnoreDuplicateDisconnect() {
+            connect("s1");
+
+            disconnect("s1");
+            disconnect("s1");
+
+            verify(chatService).cancelUserStreams(USER_ID);
+            assertThat(sessionManager.getOnlineUserCount()).isZero();
+        }
+    }
+}
@@ -58,12 +58,38 @@ CREATE TABLE `user_relation`
     `update_time`    timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (`id`),
     UNIQUE KEY `uk_user_follow` (`user_id`, `follow_user_id`) COMMENT '用户关注唯一约束',
-    KEY `idx_follow_user_id` (`follow_user_id`) COMMENT '被关注用户索引'
+    KEY `idx_user_state` (`user_id`, `follow_state`, `deleted`) COMMENT '关注列表按主键倒序分页',
+    KEY `idx_follow_user_state` (`follow_user_id`, `follow_state`, `deleted`) COMMENT '粉丝列表按主键倒序分页'
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_general_ci
     COMMENT = '用户关注关系表';
 
+-- 用户统计表
+CREATE TABLE `user_statistics`
+(
+    `id`           bigint unsigned NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `user_id`      bigint unsigned NOT NULL DEFAULT 0 COMMENT '用户ID',
+    `follow_count` int             NOT NULL DEFAULT 0 COMMENT '关注数',
+    `fan_count`    int             NOT NULL DEFAULT 0 COMMENT '粉丝数',
+    `create_time`  timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`  timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_user_id` (`user_id`) COMMENT '每个用户一条统计记录'
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_general_ci
+    COMMENT = '用户统计表';
+
+-- 按已有关注关系回填用户统计，升级已有库时建表后、新版本上线前执行一次；已存在的记录跳过
+INSERT IGNORE INTO `user_statistics` (`user_id`, `follow_count`, `fan_count`)
+SELECT ua.`id`,
+       (SELECT COUNT(*) FROM `user_relation` ur
+        WHERE ur.`user_id` = ua.`id` AND ur.`follow_state` = 1 AND ur.`deleted` = 0),
+       (SELECT COUNT(*) FROM `user_relation` ur
+        WHERE ur.`follow_user_id` = ua.`id` AND ur.`follow_state` = 1 AND ur.`deleted` = 0)
+FROM `user_account` ua;
+
 -- 用户内容行为足迹表
 CREATE TABLE `user_foot`
 (
@@ -156,7 +182,10 @@ CREATE TABLE `article_detail`
     `category_id`  bigint unsigned NOT NULL DEFAULT 0 COMMENT '类目ID',
     `source`       tinyint         NOT NULL DEFAULT 1 COMMENT '来源：1-转载，2-原创，3-翻译',
     `source_url`   varchar(512)    NOT NULL DEFAULT '' COMMENT '原文链接',
-    `content`      longtext        NOT NULL COMMENT '文章内容',
+    `content`      longtext        NOT NULL COMMENT '文章内容，增量存储时为空',
+    `storage_type` tinyint         NOT NULL DEFAULT 0 COMMENT '内容存储方式：0-完整内容，1-关键帧，2-增量',
+    `base_version` int unsigned    NOT NULL DEFAULT 0 COMMENT '增量的基准版本号',
+    `content_delta` longblob       NULL COMMENT '相对基准版本的压缩增量',
     `status`       tinyint         NOT NULL DEFAULT 0 COMMENT '状态：0-草稿，1-已发布，2-待审核，3-审核拒绝',
     `latest`       tinyint         NOT NULL DEFAULT 0 COMMENT '最新版本标记：0-否，1-是',
     `published`    tinyint         NOT NULL DEFAULT 0 COMMENT '发布版本标记：0-否，1-是',
@@ -169,7 +198,8 @@ CREATE TABLE `article_detail`
     KEY `idx_article_latest` (`article_id`, `latest`) COMMENT '文章最新版本索引',
     KEY `idx_article_published` (`article_id`, `published`) COMMENT '文章发布版本索引',
     KEY `idx_status` (`status`) COMMENT '状态索引',
-    KEY `idx_category` (`category_id`) COMMENT '类目索引'
+    KEY `idx_category` (`category_id`) COMMENT '类目索引',
+    KEY `idx_storage_type` (`storage_type`, `id`) COMMENT '存储方式索引，用于版本压缩整理'
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_general_ci
@@ -222,14 +252,33 @@ CREATE TABLE `notify_msg`
     `type`            tinyint         NOT NULL DEFAULT 0 COMMENT '类型: 0-默认，1-评论，2-回复，3-点赞，4-收藏，5-关注，6-系统',
     `content_type`    tinyint         NOT NULL DEFAULT 0 COMMENT '内容类型: 0-不适用，1-文章，2-评论',
     `state`           tinyint         NOT NULL DEFAULT 0 COMMENT '阅读状态: 0-未读，1-已读',
+    `actor_count`     int unsigned    NOT NULL DEFAULT 1 COMMENT '聚合的操作用户数',
+    `recent_actor_ids` varchar(255)   NOT NULL DEFAULT '' COMMENT '最近操作用户ID，逗号分隔，最新在前',
     `create_time`     timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time`     timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后更新时间',
-    PRIMARY KEY (`id`)
+    PRIMARY KEY (`id`),
+    KEY `idx_notify_user_state` (`notify_user_id`, `state`, `type`) COMMENT '用户未读计数查询索引',
+    KEY `idx_notify_aggregate` (`notify_user_id`, `related_id`, `type`) COMMENT '通知聚合查找索引'
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_general_ci
     COMMENT = '消息通知表';
 
+-- 聚合通知操作用户表
+CREATE TABLE `notify_msg_actor`
+(
+    `id`              bigint unsigned NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `notify_id`       bigint unsigned NOT NULL DEFAULT 0 COMMENT '聚合通知ID',
+    `operate_user_id` bigint unsigned NOT NULL DEFAULT 0 COMMENT '操作用户ID',
+    `create_time`     timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`     timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_notify_actor` (`notify_id`, `operate_user_id`) COMMENT '同一聚合通知的操作用户唯一'
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_general_ci
+    COMMENT = '聚合通知操作用户表';
+
 -- 文章统计表
 CREATE TABLE `article_statistics`
 (
@@ -274,18 +323,45 @@ CREATE TABLE `activity_rank`
     `rank_type`   tinyint         NOT NULL DEFAULT 0 COMMENT '排行榜类型: 1-总榜,2-月榜,3-日榜',
     `rank_period` varchar(10)     NOT NULL DEFAULT '' COMMENT '排行榜周期: 日榜2025-01-15, 月榜2025-01, 总榜total',
     `score`       int unsigned    NOT NULL DEFAULT 0 COMMENT '积分',
-    `rank`        int unsigned    NOT NULL DEFAULT 0 COMMENT '排名位置',
-    `deleted`     tinyint         NOT NULL DEFAULT 0 COMMENT '是否删除,0:未删除,1:已删除',
-    `create_time` timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    `update_time` timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    `rank`             int unsigned    NOT NULL DEFAULT 0 COMMENT '排名位置',
+    `snapshot_version` int unsigned    NOT NULL DEFAULT 0 COMMENT '快照版本，只有与快照表中生效版本一致的数据对外可见',
+    `deleted`          tinyint         NOT NULL DEFAULT 0 COMMENT '是否删除,0:未删除,1:已删除',
+    `create_time`      timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`      timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (`id`),
-    UNIQUE KEY `uk_user_type_period` (`user_id`, `rank_type`, `rank_period`) COMMENT '用户排行榜唯一约束',
-    KEY `idx_type_period_score` (`rank_type`, `rank_period`, `score` DESC) COMMENT '排行榜查询索引'
+    UNIQUE KEY `uk_user_type_period_version` (`user_id`, `rank_type`, `rank_period`, `snapshot_version`) COMMENT '用户排行榜唯一约束',
+    KEY `idx_type_period_version_score` (`rank_type`, `rank_period`, `snapshot_version`, `score` DESC, `user_id`) COMMENT '排行榜查询及排名计算索引'
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_general_ci
     COMMENT = '用户活跃度排行榜表';
 
+-- 活跃度排行榜快照表
+CREATE TABLE `activity_rank_snapshot`
+(
+    `id`              bigint unsigned NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `rank_type`       tinyint         NOT NULL DEFAULT 0 COMMENT '排行榜类型: 1-总榜,2-月榜,3-日榜',
+    `rank_period`     varchar(10)     NOT NULL DEFAULT '' COMMENT '排行榜周期: 日榜2025-01-15, 月榜2025-01, 总榜total',
+    `active_version`  int unsigned    NOT NULL DEFAULT 0 COMMENT '对外可见的快照版本',
+    `staging_version` int unsigned    NOT NULL DEFAULT 0 COMMENT '正在生成的快照版本',
+    `status`          tinyint         NOT NULL DEFAULT 0 COMMENT '状态: 0-已就绪，1-暂存中，2-排名中',
+    `scan_shard`      int unsigned    NOT NULL DEFAULT 0 COMMENT '暂存检查点：正在扫描的排行榜分片',
+    `scan_cursor`     varchar(32)     NOT NULL DEFAULT '0' COMMENT '暂存检查点：该分片下一次ZSCAN的游标',
+    `staged_count`    int unsigned    NOT NULL DEFAULT 0 COMMENT '已暂存的行数（含重复扫描的成员）',
+    `ranked_count`    int unsigned    NOT NULL DEFAULT 0 COMMENT '排名检查点：已分配排名的行数',
+    `last_score`      int unsigned    NOT NULL DEFAULT 0 COMMENT '排名检查点：最后一个已排名行的积分',
+    `last_user_id`    bigint unsigned NOT NULL DEFAULT 0 COMMENT '排名检查点：最后一个已排名行的用户ID',
+    `deleted`         tinyint         NOT NULL DEFAULT 0 COMMENT '是否删除,0:未删除,1:已删除',
+    `create_time`     timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time`     timestamp       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_type_period` (`rank_type`, `rank_period`) COMMENT '每个排行榜周期一条快照记录',
+    KEY `idx_status` (`status`) COMMENT '查找未完成的快照'
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_general_ci
+    COMMENT = '用户活跃度排行榜快照表';
+
 -- 聊天会话表
 CREATE TABLE `chat_conversation`
 (
@@ -359,6 +435,29 @@ CREATE TABLE `chat_usage_stats`
   COLLATE = utf8mb4_general_ci
     COMMENT = '聊天使用统计表';
 
+-- 事件发件箱表：按天分区，已投递的事件按分区整块删除，分区由应用定时维护
+CREATE TABLE `outbox`
+(
+    `id`          bigint unsigned NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `topic`       varchar(128)    NOT NULL DEFAULT '' COMMENT '目标Topic',
+    `event_key`   varchar(64)     NOT NULL DEFAULT '' COMMENT '消息Key（分区键）',
+    `event_type`  varchar(255)    NOT NULL DEFAULT '' COMMENT '事件类名',
+    `payload`     text            NOT NULL COMMENT '事件JSON',
+    `status`      tinyint         NOT NULL DEFAULT 0 COMMENT '状态: 0-待发送，1-已发送，2-发送失败，3-发送中',
+    `retry_count` int             NOT NULL DEFAULT 0 COMMENT '投递失败次数',
+    `next_attempt_time` datetime  NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '失败后下次允许投递的时间',
+    `create_time` datetime        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` datetime        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后更新时间',
+    PRIMARY KEY (`id`, `create_time`),
+    KEY `idx_status_id` (`status`, `id`) COMMENT '中继按ID顺序拉取待发送事件'
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_general_ci
+    COMMENT = '事件发件箱表'
+    PARTITION BY RANGE (TO_DAYS(`create_time`)) (
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+    );
+
 -- 触发器：自动维护会话消息计数
 DELIMITER //
 CREATE TRIGGER `tr_chat_message_count_insert`